@@ -0,0 +1,32 @@
+package net.assimpj.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import net.assimpj.aiPostProcessSteps;
+import net.assimpj.aiScene;
+
+/** Generating face (flat) and vertex (smooth) normals for a grid without
+ *  normals.
+ */
+public class GenNormalsBenchmark extends PostProcessBenchmark {
+
+	/** Quads per side of the generated grid */
+	@Param({ "128", "512" })
+	public int gridSize;
+
+	@Override
+	protected aiScene GenerateScene() {
+		return SceneGenerator.GenerateScene(SceneGenerator.GenerateGrid(gridSize, false, 1, SceneGenerator.DEFAULT_SEED));
+	}
+
+	@Benchmark
+	public aiScene genFaceNormals() {
+		return Process(aiPostProcessSteps.aiProcess_GenNormals);
+	}
+
+	@Benchmark
+	public aiScene genVertexNormals() {
+		return Process(aiPostProcessSteps.aiProcess_GenSmoothNormals);
+	}
+}
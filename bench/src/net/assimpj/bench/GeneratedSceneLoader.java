@@ -0,0 +1,73 @@
+package net.assimpj.bench;
+
+import net.assimpj.BaseImporter;
+import net.assimpj.DeadlyImportError;
+import net.assimpj.IOSystem;
+import net.assimpj.Importer;
+import net.assimpj.aiImporterDesc;
+import net.assimpj.aiScene;
+
+/** Loader handing a generated scene to the #Importer, so the benchmarks
+ *  can run post-processing steps through the public API.
+ *
+ *  Register it with Importer.RegisterLoader(), pass the scene to 
+ *  SetScene() and read any file with the extension #EXTENSION, i.e.
+ *  ReadFileFromMemory() with it as hint. The file isn't read, the meshes 
+ *  and nodes of the scene are moved to the imported one.
+ */
+public final class GeneratedSceneLoader extends BaseImporter {
+
+	/** File extension the loader claims */
+	public static final String EXTENSION = "generated";
+
+	private static final aiImporterDesc desc = new aiImporterDesc(
+		"Generated scene loader",
+		"",
+		"",
+		"benchmarks only",
+		0,
+		0,
+		0,
+		0,
+		0,
+		EXTENSION
+	);
+
+	/** Scene of the next import, NULL once it has been imported */
+	private aiScene mScene;
+
+	// -------------------------------------------------------------------
+	/** Set the scene the next import delivers
+	 *  @param pScene Scene, its meshes and nodes are taken over */
+	public void SetScene(aiScene pScene) {
+		mScene = pScene;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean CanRead(String pFile, IOSystem pIOHandler, boolean checkSig) {
+		return SimpleExtensionCheck(pFile, EXTENSION, null, null);
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void SetupProperties(Importer pImp) {
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public aiImporterDesc GetInfo() {
+		return desc;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	protected void InternReadFile(String pFile, aiScene pScene, IOSystem pIOHandler) {
+		if (mScene == null) {
+			throw new DeadlyImportError("No generated scene to import");
+		}
+		pScene.SetMeshes(mScene.GetMeshes());
+		pScene.SetRootNode(mScene.GetRootNode());
+		mScene = null;
+	}
+}
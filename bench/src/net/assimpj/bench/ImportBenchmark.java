@@ -0,0 +1,56 @@
+package net.assimpj.bench;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.assimpj.Importer;
+
+/** Cost of Importer.ReadFileFromMemory() for each supported format, 
+ *  without post-processing. The file is generated once per trial and 
+ *  parsed from memory, so disk speed doesn't enter the results. Each 
+ *  ReadFile() releases the scene of the previous invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImportBenchmark {
+
+	/** File extension of the format */
+	@Param({ "obj", "stl", "ply", "glb" })
+	public String format;
+
+	/** Quads per side of the generated grid */
+	@Param({ "64", "512" })
+	public int gridSize;
+
+	private ByteBuffer file;
+
+	private Importer importer;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		file = SceneWriter.Write(format, SceneGenerator.GenerateGrid(gridSize, true, 1, SceneGenerator.DEFAULT_SEED));
+		importer = new Importer();
+	}
+
+	@Benchmark
+	public int readFile() {
+		return importer.ReadFileFromMemory(file.duplicate(), 0, format).GetNumMeshes();
+	}
+}
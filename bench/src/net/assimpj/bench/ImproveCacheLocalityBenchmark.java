@@ -0,0 +1,37 @@
+package net.assimpj.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import net.assimpj.aiMesh;
+import net.assimpj.aiPostProcessSteps;
+import net.assimpj.aiScene;
+
+/** Reordering the triangles of a grid for the post-transform vertex 
+ *  cache, starting from the row by row order of the generator or from a
+ *  random order.
+ */
+public class ImproveCacheLocalityBenchmark extends PostProcessBenchmark {
+
+	/** Quads per side of the generated grid */
+	@Param({ "128", "512" })
+	public int gridSize;
+
+	/** Order of the input triangles, "grid" or "shuffled" */
+	@Param({ "grid", "shuffled" })
+	public String order;
+
+	@Override
+	protected aiScene GenerateScene() {
+		aiMesh mesh = SceneGenerator.GenerateGrid(gridSize, true, 1, SceneGenerator.DEFAULT_SEED);
+		if (order.equals("shuffled")) {
+			SceneGenerator.ShuffleFaces(mesh, SceneGenerator.DEFAULT_SEED);
+		}
+		return SceneGenerator.GenerateScene(mesh);
+	}
+
+	@Benchmark
+	public aiScene improveCacheLocality() {
+		return Process(aiPostProcessSteps.aiProcess_ImproveCacheLocality);
+	}
+}
@@ -0,0 +1,27 @@
+package net.assimpj.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import net.assimpj.aiPostProcessSteps;
+import net.assimpj.aiScene;
+
+/** Merging the vertices of a mesh whose faces don't share any, like the
+ *  meshes of the STL and OBJ loaders.
+ */
+public class JoinVerticesBenchmark extends PostProcessBenchmark {
+
+	/** Quads per side of the generated grid */
+	@Param({ "128", "512" })
+	public int gridSize;
+
+	@Override
+	protected aiScene GenerateScene() {
+		return SceneGenerator.GenerateScene(SceneGenerator.Unindex(SceneGenerator.GenerateGrid(gridSize, true, 1, SceneGenerator.DEFAULT_SEED)));
+	}
+
+	@Benchmark
+	public aiScene joinIdenticalVertices() {
+		return Process(aiPostProcessSteps.aiProcess_JoinIdenticalVertices);
+	}
+}
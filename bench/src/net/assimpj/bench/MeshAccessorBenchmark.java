@@ -0,0 +1,96 @@
+package net.assimpj.bench;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.lwjgl.util.vector.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.assimpj.aiFace;
+import net.assimpj.aiMesh;
+
+/** Cost of walking the vertex and face data of a mesh, once through the
+ *  per-element views and once through the packed buffers directly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MeshAccessorBenchmark {
+
+	/** Quads per side of the generated grid */
+	@Param({ "32", "256", "1024" })
+	public int gridSize;
+
+	private aiMesh mesh;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		mesh = SceneGenerator.GenerateGrid(gridSize, true, 1, SceneGenerator.DEFAULT_SEED);
+	}
+
+	@Benchmark
+	public float vertexView() {
+		Vector3f v = new Vector3f();
+		float sum = 0.f;
+		for (int i = 0, n = mesh.GetNumVertices(); i < n; ++i) {
+			mesh.GetVertex(i, v);
+			sum += v.x + v.y + v.z;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public float vertexBuffer() {
+		FloatBuffer pos = mesh.GetVertices();
+		float sum = 0.f;
+		for (int i = 0, n = mesh.GetNumVertices() * 3; i < n; ++i) {
+			sum += pos.get(i);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long faceView() {
+		aiFace face = new aiFace();
+		long sum = 0;
+		for (int i = 0, n = mesh.GetNumFaces(); i < n; ++i) {
+			mesh.GetFace(i, face);
+			for (int a = 0; a < face.GetNumIndices(); ++a) {
+				sum += face.GetIndex(a);
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long faceBuffer() {
+		IntBuffer idx = mesh.GetFaces();
+		long sum = 0;
+		for (int i = 0, n = mesh.GetNumIndices(); i < n; ++i) {
+			sum += idx.get(i);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public void vertexWrite() {
+		for (int i = 0, n = mesh.GetNumVertices(); i < n; ++i) {
+			mesh.SetNormal(i, 0.f, 1.f, 0.f);
+		}
+	}
+}
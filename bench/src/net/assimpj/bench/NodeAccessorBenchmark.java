@@ -0,0 +1,88 @@
+package net.assimpj.bench;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.assimpj.aiNode;
+
+/** Cost of traversing a node hierarchy and of looking up nodes by name.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NodeAccessorBenchmark {
+
+	/** Depth of the generated tree */
+	@Param({ "4", "8" })
+	public int depth;
+
+	/** Children of each inner node */
+	@Param({ "2", "4" })
+	public int fanout;
+
+	private aiNode root;
+
+	private String lastName;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		root = SceneGenerator.GenerateHierarchy(depth, fanout, 16);
+		aiNode nd = root;
+		while (nd.GetNumChildren() > 0) {
+			nd = nd.GetChild(nd.GetNumChildren() - 1);
+		}
+		lastName = nd.GetName();
+	}
+
+	@Benchmark
+	public long traverseRecursive() {
+		return Traverse(root);
+	}
+
+	private static long Traverse(aiNode pNode) {
+		long sum = 0;
+		for (int i = 0; i < pNode.GetNumMeshes(); ++i) {
+			sum += pNode.GetMeshIndex(i);
+		}
+		for (int i = 0; i < pNode.GetNumChildren(); ++i) {
+			sum += Traverse(pNode.GetChild(i));
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public float traverseIterative() {
+		ArrayDeque<aiNode> stack = new ArrayDeque<aiNode>();
+		stack.push(root);
+		float sum = 0.f;
+		while (!stack.isEmpty()) {
+			aiNode nd = stack.pop();
+			sum += nd.GetTransformation().m30;
+			for (int i = 0; i < nd.GetNumChildren(); ++i) {
+				stack.push(nd.GetChild(i));
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public aiNode findNode() {
+		return root.FindNode(lastName);
+	}
+}
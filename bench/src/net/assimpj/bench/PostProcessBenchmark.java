@@ -0,0 +1,74 @@
+package net.assimpj.bench;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.assimpj.Importer;
+import net.assimpj.aiScene;
+
+/** Base of the benchmarks of single post-processing steps.
+ *
+ *  The steps modify the meshes in place, so each invocation gets a newly
+ *  generated scene, which is imported by #GeneratedSceneLoader with the 
+ *  flags of the step. Generating the scene and freeing it afterwards 
+ *  isn't measured, importing it costs next to nothing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class PostProcessBenchmark {
+
+	/** Passed as the file, the loader doesn't read it */
+	private static final ByteBuffer FILE = ByteBuffer.allocate(1);
+
+	private Importer importer;
+	private GeneratedSceneLoader loader;
+
+	@Setup(Level.Trial)
+	public void setupImporter() {
+		importer = new Importer();
+		loader = new GeneratedSceneLoader();
+		importer.RegisterLoader(loader);
+	}
+
+	@Setup(Level.Invocation)
+	public void setupScene() {
+		loader.SetScene(GenerateScene());
+	}
+
+	@TearDown(Level.Invocation)
+	public void freeScene() {
+		importer.FreeScene();
+	}
+
+	// -------------------------------------------------------------------
+	/** Generate the input of the next invocation */
+	protected abstract aiScene GenerateScene();
+
+	// -------------------------------------------------------------------
+	/** Import the generated scene and run the given steps on it
+	 *  @param pFlags #aiPostProcessSteps flags of the steps
+	 *  @return The processed scene */
+	protected aiScene Process(int pFlags) {
+		aiScene scene = importer.ReadFileFromMemory(FILE.duplicate(), pFlags, GeneratedSceneLoader.EXTENSION);
+		if (scene == null) {
+			throw new IllegalStateException(importer.GetErrorString());
+		}
+		return scene;
+	}
+}
@@ -0,0 +1,237 @@
+package net.assimpj.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Random;
+
+import org.lwjgl.util.vector.Matrix4f;
+
+import net.assimpj.aiMesh;
+import net.assimpj.aiMeshConst;
+import net.assimpj.aiNode;
+import net.assimpj.aiScene;
+
+/** Procedural input data for the benchmarks.
+ *
+ *  All generators are deterministic for a given size and seed, so results
+ *  of different runs and releases work on identical data and the suite 
+ *  needs no asset files. Channels are direct buffers in native byte order,
+ *  like the ones the loaders produce.
+ */
+public final class SceneGenerator {
+
+	/** Seed used when none is given */
+	public static final long DEFAULT_SEED = 0x61737369L;
+
+	private SceneGenerator() {
+	}
+
+	// -------------------------------------------------------------------
+	/** Generate a triangulated, slightly perturbed height field.
+	 *  @param pSize Number of quads along each side. The mesh gets 
+	 *    (pSize + 1)^2 vertices and 2 * pSize^2 triangles.
+	 *  @param pNormals Whether to generate a normal channel
+	 *  @param pNumUVChannels Number of 2D texture coordinate channels
+	 *  @param pSeed Seed for the perturbation
+	 *  @return The mesh */
+	public static aiMesh GenerateGrid(int pSize, boolean pNormals, int pNumUVChannels, long pSeed) {
+		return GenerateGrid(pSize, pNormals, pNumUVChannels, pSeed, false);
+	}
+
+	// -------------------------------------------------------------------
+	/** Generate the height field of GenerateGrid() made of quads.
+	 *  @param pSize Number of quads along each side. The mesh gets 
+	 *    (pSize + 1)^2 vertices and pSize^2 quads.
+	 *  @see GenerateGrid() */
+	public static aiMesh GenerateQuadGrid(int pSize, boolean pNormals, int pNumUVChannels, long pSeed) {
+		return GenerateGrid(pSize, pNormals, pNumUVChannels, pSeed, true);
+	}
+
+	private static aiMesh GenerateGrid(int pSize, boolean pNormals, int pNumUVChannels, long pSeed, boolean pQuads) {
+		final Random rnd = new Random(pSeed);
+		final int side = pSize + 1;
+		final int numVertices = side * side;
+		final float step = 1.f / pSize;
+
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(numVertices);
+
+		FloatBuffer pos = AllocFloats(numVertices * aiMeshConst.AI_VECTOR_COMPONENTS);
+		for (int y = 0; y < side; ++y) {
+			for (int x = 0; x < side; ++x) {
+				pos.put(x * step).put(rnd.nextFloat() * 0.1f).put(y * step);
+			}
+		}
+		pos.clear();
+		mesh.SetVertices(pos);
+
+		if (pNormals) {
+			FloatBuffer nor = AllocFloats(numVertices * aiMeshConst.AI_VECTOR_COMPONENTS);
+			for (int i = 0; i < numVertices; ++i) {
+				nor.put(0.f).put(1.f).put(0.f);
+			}
+			nor.clear();
+			mesh.SetNormals(nor);
+		}
+
+		for (int c = 0; c < pNumUVChannels; ++c) {
+			FloatBuffer uv = AllocFloats(numVertices * aiMeshConst.AI_VECTOR_COMPONENTS);
+			for (int y = 0; y < side; ++y) {
+				for (int x = 0; x < side; ++x) {
+					uv.put(x * step).put(y * step).put(0.f);
+				}
+			}
+			uv.clear();
+			mesh.SetTextureCoords(c, uv, 2);
+		}
+
+		final int faceSize = pQuads ? 4 : 3;
+		final int numFaces = pQuads ? pSize * pSize : pSize * pSize * 2;
+		IntBuffer idx = AllocInts(numFaces * faceSize);
+		for (int y = 0; y < pSize; ++y) {
+			for (int x = 0; x < pSize; ++x) {
+				int i = y * side + x;
+				if (pQuads) {
+					idx.put(i).put(i + side).put(i + side + 1).put(i + 1);
+				} else {
+					idx.put(i).put(i + side).put(i + 1);
+					idx.put(i + 1).put(i + side).put(i + side + 1);
+				}
+			}
+		}
+		idx.clear();
+		mesh.SetFaces(idx, numFaces, faceSize);
+		mesh.SetPrimitiveTypes(pQuads ? aiMeshConst.aiPrimitiveType_POLYGON : aiMeshConst.aiPrimitiveType_TRIANGLE);
+		return mesh;
+	}
+
+	// -------------------------------------------------------------------
+	/** Give every face corner a vertex of its own, like the loaders of 
+	 *  formats without shared vertices (i.e. STL) do.
+	 *  @param pMesh Mesh of the generators, all faces of the same size
+	 *  @return A new mesh with one vertex per index of pMesh */
+	public static aiMesh Unindex(aiMesh pMesh) {
+		final int numIndices = pMesh.GetNumIndices();
+		final IntBuffer faces = pMesh.GetFaces();
+
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(numIndices);
+		mesh.SetVertices(Gather(pMesh.GetVertices(), faces, numIndices));
+		if (pMesh.HasNormals()) {
+			mesh.SetNormals(Gather(pMesh.GetNormals(), faces, numIndices));
+		}
+		for (int c = 0; c < pMesh.GetNumUVChannels(); ++c) {
+			mesh.SetTextureCoords(c, Gather(pMesh.GetTextureCoords(c), faces, numIndices), pMesh.GetNumUVComponents(c));
+		}
+
+		IntBuffer idx = AllocInts(numIndices);
+		for (int i = 0; i < numIndices; ++i) {
+			idx.put(i, i);
+		}
+		mesh.SetFaces(idx, pMesh.GetNumFaces(), pMesh.GetFaceSize());
+		mesh.SetPrimitiveTypes(pMesh.GetPrimitiveTypes());
+		return mesh;
+	}
+
+	private static FloatBuffer Gather(FloatBuffer pChannel, IntBuffer pFaces, int pNumIndices) {
+		final int n = aiMeshConst.AI_VECTOR_COMPONENTS;
+		FloatBuffer out = AllocFloats(pNumIndices * n);
+		for (int i = 0; i < pNumIndices; ++i) {
+			int v = pFaces.get(i) * n;
+			out.put(pChannel.get(v)).put(pChannel.get(v + 1)).put(pChannel.get(v + 2));
+		}
+		out.clear();
+		return out;
+	}
+
+	// -------------------------------------------------------------------
+	/** Bring the faces of a mesh into random order, in place, which 
+	 *  destroys the locality of the generated meshes.
+	 *  @param pMesh Mesh of the generators, all faces of the same size
+	 *  @param pSeed Seed for the permutation */
+	public static void ShuffleFaces(aiMesh pMesh, long pSeed) {
+		final Random rnd = new Random(pSeed);
+		final IntBuffer idx = pMesh.GetFaces();
+		final int faceSize = pMesh.GetFaceSize();
+		for (int f = pMesh.GetNumFaces() - 1; f > 0; --f) {
+			int g = rnd.nextInt(f + 1);
+			for (int a = 0; a < faceSize; ++a) {
+				int t = idx.get(f * faceSize + a);
+				idx.put(f * faceSize + a, idx.get(g * faceSize + a));
+				idx.put(g * faceSize + a, t);
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Wrap a mesh into a scene of a single node
+	 *  @param pMesh The mesh
+	 *  @return The scene */
+	public static aiScene GenerateScene(aiMesh pMesh) {
+		aiNode root = new aiNode("root");
+		root.AddMesh(0);
+		aiScene scene = new aiScene();
+		scene.SetMeshes(new aiMesh[] { pMesh });
+		scene.SetRootNode(root);
+		return scene;
+	}
+
+	// -------------------------------------------------------------------
+	/** Generate a node hierarchy of uniform fan-out. Every node references
+	 *  one mesh, the mesh indices wrap around at pNumMeshes.
+	 *  @param pDepth Depth of the tree, 1 for a single root node
+	 *  @param pFanout Number of children of each inner node
+	 *  @param pNumMeshes Number of meshes in the scene
+	 *  @return The root node */
+	public static aiNode GenerateHierarchy(int pDepth, int pFanout, int pNumMeshes) {
+		int[] counter = new int[1];
+		return GenerateNode(pDepth, pFanout, Math.max(pNumMeshes, 1), counter);
+	}
+
+	private static aiNode GenerateNode(int pDepth, int pFanout, int pNumMeshes, int[] pCounter) {
+		int id = pCounter[0]++;
+		aiNode node = new aiNode("node" + id);
+		Matrix4f m = new Matrix4f();
+		m.setIdentity();
+		m.m30 = id;
+		node.SetTransformation(m);
+		node.AddMesh(id % pNumMeshes);
+		if (pDepth > 1) {
+			for (int i = 0; i < pFanout; ++i) {
+				node.AddChild(GenerateNode(pDepth - 1, pFanout, pNumMeshes, pCounter));
+			}
+		}
+		return node;
+	}
+
+	// -------------------------------------------------------------------
+	/** Generate a scene of several grid meshes and a flat hierarchy
+	 *  referencing each mesh once.
+	 *  @param pNumMeshes Number of meshes
+	 *  @param pGridSize Size of each grid, see GenerateGrid()
+	 *  @return The scene */
+	public static aiScene GenerateScene(int pNumMeshes, int pGridSize) {
+		aiMesh[] meshes = new aiMesh[pNumMeshes];
+		aiNode root = new aiNode("root");
+		for (int i = 0; i < pNumMeshes; ++i) {
+			meshes[i] = GenerateGrid(pGridSize, true, 1, DEFAULT_SEED + i);
+			aiNode child = new aiNode("mesh" + i);
+			child.AddMesh(i);
+			root.AddChild(child);
+		}
+		aiScene scene = new aiScene();
+		scene.SetMeshes(meshes);
+		scene.SetRootNode(root);
+		return scene;
+	}
+
+	private static FloatBuffer AllocFloats(int pCount) {
+		return ByteBuffer.allocateDirect(pCount * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+	}
+
+	private static IntBuffer AllocInts(int pCount) {
+		return ByteBuffer.allocateDirect(pCount * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+}
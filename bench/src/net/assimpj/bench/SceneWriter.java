@@ -0,0 +1,242 @@
+package net.assimpj.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+
+import net.assimpj.aiFace;
+import net.assimpj.aiMesh;
+
+/** Serializes generated meshes into the formats the loaders read, so the
+ *  import benchmarks can run from memory.
+ */
+public final class SceneWriter {
+
+	private SceneWriter() {
+	}
+
+	// -------------------------------------------------------------------
+	/** Write a mesh in the given format
+	 *  @param pFormat File extension of the format
+	 *  @param pMesh Mesh to be written
+	 *  @return Direct buffer holding the file */
+	public static ByteBuffer Write(String pFormat, aiMesh pMesh) {
+		if (pFormat.equals("obj")) {
+			return WriteObj(pMesh);
+		}
+		if (pFormat.equals("stl")) {
+			return WriteStl(pMesh);
+		}
+		if (pFormat.equals("ply")) {
+			return WritePly(pMesh);
+		}
+		if (pFormat.equals("glb")) {
+			return WriteGlb(pMesh);
+		}
+		throw new IllegalArgumentException("[SceneWriter] Unsupported format " + pFormat);
+	}
+
+	// -------------------------------------------------------------------
+	/** Write positions, normals, the first UV channel and the faces as
+	 *  Wavefront OBJ */
+	public static ByteBuffer WriteObj(aiMesh pMesh) {
+		StringBuilder sb = new StringBuilder(pMesh.GetNumVertices() * 96);
+		sb.append("# generated by SceneWriter\no grid\n");
+		WriteChannel(sb, "v ", pMesh.GetVertices(), pMesh.GetNumVertices(), 3);
+		if (pMesh.HasTextureCoords(0)) {
+			WriteChannel(sb, "vt ", pMesh.GetTextureCoords(0), pMesh.GetNumVertices(), 2);
+		}
+		if (pMesh.HasNormals()) {
+			WriteChannel(sb, "vn ", pMesh.GetNormals(), pMesh.GetNumVertices(), 3);
+		}
+
+		aiFace face = new aiFace();
+		for (int i = 0; i < pMesh.GetNumFaces(); ++i) {
+			pMesh.GetFace(i, face);
+			sb.append('f');
+			for (int a = 0; a < face.GetNumIndices(); ++a) {
+				int idx = face.GetIndex(a) + 1;
+				sb.append(' ').append(idx);
+				if (pMesh.HasTextureCoords(0) || pMesh.HasNormals()) {
+					sb.append('/');
+					if (pMesh.HasTextureCoords(0)) {
+						sb.append(idx);
+					}
+					if (pMesh.HasNormals()) {
+						sb.append('/').append(idx);
+					}
+				}
+			}
+			sb.append('\n');
+		}
+		return ToBuffer(sb);
+	}
+
+	// -------------------------------------------------------------------
+	/** Write the triangles as binary STL, with the normal of each face */
+	public static ByteBuffer WriteStl(aiMesh pMesh) {
+		final FloatBuffer pos = pMesh.GetVertices();
+		ByteBuffer out = ByteBuffer.allocateDirect(84 + pMesh.GetNumFaces() * 50).order(ByteOrder.LITTLE_ENDIAN);
+		byte[] header = "generated by SceneWriter".getBytes(StandardCharsets.US_ASCII);
+		out.put(header).position(80);
+		out.putInt(pMesh.GetNumFaces());
+
+		aiFace face = new aiFace();
+		float[] v = new float[9];
+		for (int i = 0; i < pMesh.GetNumFaces(); ++i) {
+			pMesh.GetFace(i, face);
+			if (face.GetNumIndices() != 3) {
+				throw new IllegalArgumentException("[SceneWriter] STL can only store triangles");
+			}
+			for (int a = 0; a < 3; ++a) {
+				int idx = face.GetIndex(a) * 3;
+				v[a * 3] = pos.get(idx);
+				v[a * 3 + 1] = pos.get(idx + 1);
+				v[a * 3 + 2] = pos.get(idx + 2);
+			}
+			float ux = v[3] - v[0], uy = v[4] - v[1], uz = v[5] - v[2];
+			float wx = v[6] - v[0], wy = v[7] - v[1], wz = v[8] - v[2];
+			float nx = uy * wz - uz * wy, ny = uz * wx - ux * wz, nz = ux * wy - uy * wx;
+			float len = (float)Math.sqrt(nx * nx + ny * ny + nz * nz);
+			if (len > 0.f) {
+				nx /= len;
+				ny /= len;
+				nz /= len;
+			}
+			out.putFloat(nx).putFloat(ny).putFloat(nz);
+			for (float f : v) {
+				out.putFloat(f);
+			}
+			out.putShort((short)0);
+		}
+		out.flip();
+		return out;
+	}
+
+	// -------------------------------------------------------------------
+	/** Write positions, normals and the faces as little endian binary PLY */
+	public static ByteBuffer WritePly(aiMesh pMesh) {
+		final int num = pMesh.GetNumVertices();
+		final boolean normals = pMesh.HasNormals();
+		StringBuilder sb = new StringBuilder();
+		sb.append("ply\nformat binary_little_endian 1.0\ncomment generated by SceneWriter\n");
+		sb.append("element vertex ").append(num).append('\n');
+		sb.append("property float x\nproperty float y\nproperty float z\n");
+		if (normals) {
+			sb.append("property float nx\nproperty float ny\nproperty float nz\n");
+		}
+		sb.append("element face ").append(pMesh.GetNumFaces()).append('\n');
+		sb.append("property list uchar int vertex_indices\nend_header\n");
+		byte[] header = sb.toString().getBytes(StandardCharsets.US_ASCII);
+
+		ByteBuffer out = ByteBuffer.allocateDirect(header.length + num * (normals ? 24 : 12)
+			+ pMesh.GetNumFaces() + pMesh.GetNumIndices() * 4).order(ByteOrder.LITTLE_ENDIAN);
+		out.put(header);
+		final FloatBuffer pos = pMesh.GetVertices(), nor = pMesh.GetNormals();
+		for (int i = 0; i < num * 3; i += 3) {
+			out.putFloat(pos.get(i)).putFloat(pos.get(i + 1)).putFloat(pos.get(i + 2));
+			if (normals) {
+				out.putFloat(nor.get(i)).putFloat(nor.get(i + 1)).putFloat(nor.get(i + 2));
+			}
+		}
+		aiFace face = new aiFace();
+		for (int i = 0; i < pMesh.GetNumFaces(); ++i) {
+			pMesh.GetFace(i, face);
+			out.put((byte)face.GetNumIndices());
+			for (int a = 0; a < face.GetNumIndices(); ++a) {
+				out.putInt(face.GetIndex(a));
+			}
+		}
+		out.flip();
+		return out;
+	}
+
+	// -------------------------------------------------------------------
+	/** Write positions, normals and the triangulated faces as binary
+	 *  glTF, tightly packed so the loader can alias all of them */
+	public static ByteBuffer WriteGlb(aiMesh pMesh) {
+		final int num = pMesh.GetNumVertices();
+		final boolean normals = pMesh.HasNormals();
+		int numIndices = 0;
+		aiFace face = new aiFace();
+		for (int i = 0; i < pMesh.GetNumFaces(); ++i) {
+			numIndices += (pMesh.GetFace(i, face).GetNumIndices() - 2) * 3;
+		}
+		final int posSize = num * 12, norSize = normals ? num * 12 : 0, idxSize = numIndices * 4;
+
+		float[] min = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE };
+		float[] max = { -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+		final FloatBuffer pos = pMesh.GetVertices(), nor = pMesh.GetNormals();
+		for (int i = 0; i < num * 3; ++i) {
+			min[i % 3] = Math.min(min[i % 3], pos.get(i));
+			max[i % 3] = Math.max(max[i % 3], pos.get(i));
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"asset\":{\"version\":\"2.0\",\"generator\":\"SceneWriter\"},");
+		sb.append("\"scene\":0,\"scenes\":[{\"nodes\":[0]}],\"nodes\":[{\"mesh\":0}],");
+		sb.append("\"meshes\":[{\"primitives\":[{\"attributes\":{\"POSITION\":0");
+		sb.append(normals ? ",\"NORMAL\":2" : "").append("},\"indices\":1}]}],");
+		sb.append("\"buffers\":[{\"byteLength\":").append(posSize + norSize + idxSize).append("}],");
+		sb.append("\"bufferViews\":[");
+		sb.append("{\"buffer\":0,\"byteOffset\":0,\"byteLength\":").append(posSize).append("},");
+		sb.append("{\"buffer\":0,\"byteOffset\":").append(posSize + norSize).append(",\"byteLength\":").append(idxSize).append('}');
+		if (normals) {
+			sb.append(",{\"buffer\":0,\"byteOffset\":").append(posSize).append(",\"byteLength\":").append(norSize).append('}');
+		}
+		sb.append("],\"accessors\":[");
+		sb.append("{\"bufferView\":0,\"componentType\":5126,\"count\":").append(num).append(",\"type\":\"VEC3\",");
+		sb.append("\"min\":[").append(min[0]).append(',').append(min[1]).append(',').append(min[2]).append("],");
+		sb.append("\"max\":[").append(max[0]).append(',').append(max[1]).append(',').append(max[2]).append("]},");
+		sb.append("{\"bufferView\":1,\"componentType\":5125,\"count\":").append(numIndices).append(",\"type\":\"SCALAR\"}");
+		if (normals) {
+			sb.append(",{\"bufferView\":2,\"componentType\":5126,\"count\":").append(num).append(",\"type\":\"VEC3\"}");
+		}
+		sb.append("]}");
+		byte[] json = sb.toString().getBytes(StandardCharsets.UTF_8);
+		final int jsonSize = (json.length + 3) & ~3;
+		final int binSize = posSize + norSize + idxSize;
+
+		ByteBuffer out = ByteBuffer.allocateDirect(12 + 8 + jsonSize + 8 + binSize).order(ByteOrder.LITTLE_ENDIAN);
+		out.putInt(0x46546C67).putInt(2).putInt(out.capacity());
+		out.putInt(jsonSize).putInt(0x4E4F534A).put(json);
+		for (int i = json.length; i < jsonSize; ++i) {
+			out.put((byte)' ');
+		}
+		out.putInt(binSize).putInt(0x004E4942);
+		for (int i = 0; i < num * 3; ++i) {
+			out.putFloat(pos.get(i));
+		}
+		if (normals) {
+			for (int i = 0; i < num * 3; ++i) {
+				out.putFloat(nor.get(i));
+			}
+		}
+		for (int i = 0; i < pMesh.GetNumFaces(); ++i) {
+			pMesh.GetFace(i, face);
+			for (int a = 2; a < face.GetNumIndices(); ++a) {
+				out.putInt(face.GetIndex(0)).putInt(face.GetIndex(a - 1)).putInt(face.GetIndex(a));
+			}
+		}
+		out.flip();
+		return out;
+	}
+
+	private static void WriteChannel(StringBuilder sb, String pPrefix, FloatBuffer pChannel, int pNum, int pComponents) {
+		for (int i = 0; i < pNum; ++i) {
+			sb.append(pPrefix);
+			for (int c = 0; c < pComponents; ++c) {
+				sb.append(c > 0 ? " " : "").append(pChannel.get(i * 3 + c));
+			}
+			sb.append('\n');
+		}
+	}
+
+	private static ByteBuffer ToBuffer(CharSequence pText) {
+		byte[] bytes = pText.toString().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer out = ByteBuffer.allocateDirect(bytes.length);
+		out.put(bytes).flip();
+		return out;
+	}
+}
@@ -0,0 +1,36 @@
+package net.assimpj.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+
+import net.assimpj.aiPostProcessSteps;
+import net.assimpj.aiScene;
+
+/** The tangent space step with its scalar and its Vector API kernel. The
+ *  library uses the vector kernel if the JVM runs with the 
+ *  jdk.incubator.vector module, so the two benchmarks differ only in the
+ *  options of their forked JVM.
+ */
+public class TangentSpaceBenchmark extends PostProcessBenchmark {
+
+	/** Quads per side of the generated grid */
+	@Param({ "128", "512" })
+	public int gridSize;
+
+	@Override
+	protected aiScene GenerateScene() {
+		return SceneGenerator.GenerateScene(SceneGenerator.GenerateGrid(gridSize, true, 1, SceneGenerator.DEFAULT_SEED));
+	}
+
+	@Benchmark
+	public aiScene calcTangentSpaceScalar() {
+		return Process(aiPostProcessSteps.aiProcess_CalcTangentSpace);
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+	public aiScene calcTangentSpaceVector() {
+		return Process(aiPostProcessSteps.aiProcess_CalcTangentSpace);
+	}
+}
@@ -0,0 +1,26 @@
+package net.assimpj.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import net.assimpj.aiPostProcessSteps;
+import net.assimpj.aiScene;
+
+/** Splitting a grid of quads into triangles.
+ */
+public class TriangulateBenchmark extends PostProcessBenchmark {
+
+	/** Quads per side of the generated grid */
+	@Param({ "128", "512" })
+	public int gridSize;
+
+	@Override
+	protected aiScene GenerateScene() {
+		return SceneGenerator.GenerateScene(SceneGenerator.GenerateQuadGrid(gridSize, true, 1, SceneGenerator.DEFAULT_SEED));
+	}
+
+	@Benchmark
+	public aiScene triangulate() {
+		return Process(aiPostProcessSteps.aiProcess_Triangulate);
+	}
+}
@@ -0,0 +1,818 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/** IOSystem serving the entries of a .zip archive or a .gz file.
+ *
+ *  The central directory of a zip archive is read once when the archive
+ *  is opened, a .gz file holds a single entry named like the file without
+ *  the extension. Entry names are relative to the root of the archive,
+ *  i.e. a model at "models/ship.obj" is imported with
+ *  @code
+ *  importer.SetIOHandler(new ArchiveIOSystem("ship.zip", null, null, ArchiveIOSystem.DEFAULT_CACHE_SIZE));
+ *  importer.ReadFile("models/ship.obj", 0);
+ *  @endcode
+ *  and its material library is found next to it. Paths which are not in
+ *  the archive are forwarded to the IOSystem the archive was read with.
+ *  <br>
+ *  Stored entries are served without a copy. Deflated ones are inflated
+ *  into a direct buffer once and kept in a cache of bounded size, least
+ *  recently used entries are dropped first. Prefetch() inflates several
+ *  entries on a fork-join pool at the same time. The returned streams
+ *  are #MemoryIOStream instances over the inflated data, so Seek() is
+ *  O(1) and binary loaders slice them in place.
+ *  <br>
+ *  A gzip file made of several members is inflated member by member in
+ *  parallel if each member tells its compressed size (the 'BC' extra
+ *  field of BGZF, as written by bgzip). The members are the checkpoints
+ *  of the file: deflate data can't be resumed at an arbitrary position
+ *  with java.util.zip.Inflater.
+ *  <br>
+ *  Streams of stored entries are views on the archive, each keeps it 
+ *  open until it is passed to Close(). Loaders which alias the file data
+ *  in the scene close their stream when the scene is released, see
+ *  SceneArena.Retain().
+ *  <br>
+ *  All methods are thread-safe. Release() closes the archive as soon as
+ *  no stream of a stored entry is open anymore.
+ */
+public class ArchiveIOSystem implements IOSystem {
+
+	/** Default size of the entry cache, in bytes */
+	public static final long DEFAULT_CACHE_SIZE = 256L << 20;
+
+	private static final int SIG_LOCAL_HEADER = 0x04034b50;
+	private static final int SIG_CENTRAL_HEADER = 0x02014b50;
+	private static final int SIG_END = 0x06054b50;
+	private static final int SIG_END64 = 0x06064b50;
+	private static final int SIG_END64_LOCATOR = 0x07064b50;
+
+	private static final int END_SIZE = 22;
+	private static final int END64_LOCATOR_SIZE = 20;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int LOCAL_HEADER_SIZE = 30;
+
+	private static final int METHOD_STORED = 0;
+	private static final int METHOD_DEFLATED = 8;
+
+	private static final int FLAG_ENCRYPTED = 0x1;
+	private static final int FLAG_UTF8 = 0x800;
+
+	private static final int GZIP_FLAG_HCRC = 0x2;
+	private static final int GZIP_FLAG_EXTRA = 0x4;
+	private static final int GZIP_FLAG_NAME = 0x8;
+	private static final int GZIP_FLAG_COMMENT = 0x10;
+
+	/** An entry of the archive */
+	private static final class Entry {
+
+		/** Name, normalized by SimplifyFilename() */
+		final String mName;
+
+		final int mMethod;
+		final long mCompressedSize;
+		final long mSize;
+		final int mCrc;
+
+		/** Offset of the local header in the archive, or of the first
+		 *  member of a gzip file */
+		final long mHeaderOffset;
+
+		/** Members of a gzip file which can be inflated independently,
+		 *  NULL for zip entries and if the members are not known */
+		long[] mMemberOffsets;
+		long[] mMemberSizes;
+		long[] mMemberOutputs;
+
+		Entry(String pName, int pMethod, long pCompressedSize, long pSize, int pCrc, long pHeaderOffset) {
+			mName = pName;
+			mMethod = pMethod;
+			mCompressedSize = pCompressedSize;
+			mSize = pSize;
+			mCrc = pCrc;
+			mHeaderOffset = pHeaderOffset;
+		}
+	}
+
+	/** Path of the archive, for diagnostics */
+	private final String mPath;
+
+	/** IOSystem the archive has been opened with, also serves the paths
+	 *  not found in the archive */
+	private final IOSystem mExistingIO;
+
+	/** The archive, NULL if it couldn't be opened */
+	private DirectIOStream mArchive;
+
+	/** Set for a gzip file */
+	private final boolean mIsGzip;
+
+	/** Entries by name */
+	private final Map<String, Entry> mEntries;
+
+	/** Pool inflating the entries, NULL for the common pool */
+	private final ForkJoinPool mPool;
+
+	/** Inflated entries, least recently used first */
+	private final LinkedHashMap<String, ByteBuffer> mCache;
+	private final long mCacheSize;
+	private long mCachedBytes;
+
+	/** Entries being inflated */
+	private final Map<String, ForkJoinTask<ByteBuffer>> mPending;
+
+	/** Open streams of stored entries, views on the archive */
+	private final Set<IOStream> mOpenViews;
+
+	/** Archive to be closed by the Close() of the last stream in 
+	 *  mOpenViews, set by Release() */
+	private DirectIOStream mReleased;
+
+	// -------------------------------------------------------------------
+	/** Open an archive and read its directory. Check isOpen() to see
+	 *  whether this worked.
+	 *  @param pFile Path of the .zip or .gz file. Files ending in .gz
+	 *    are taken as gzip files, all others as zip archives.
+	 *  @param pExistingIO IOSystem to read the archive with, also used
+	 *    for all paths not found in it. NULL for a #MappedIOSystem.
+	 *  @param pPool Pool to inflate the entries on, NULL to use
+	 *    ForkJoinPool.commonPool()
+	 *  @param pCacheSize Bytes of inflated data to keep at most */
+	public ArchiveIOSystem(String pFile, IOSystem pExistingIO, ForkJoinPool pPool, long pCacheSize) {
+		mPath = pFile;
+		mExistingIO = pExistingIO != null ? pExistingIO : new MappedIOSystem();
+		mIsGzip = pFile.toLowerCase().endsWith(".gz");
+		mEntries = new HashMap<String, Entry>();
+		mPool = pPool;
+		mCache = new LinkedHashMap<String, ByteBuffer>(16, 0.75f, true);
+		mCacheSize = pCacheSize;
+		mPending = new HashMap<String, ForkJoinTask<ByteBuffer>>();
+		mOpenViews = Collections.newSetFromMap(new IdentityHashMap<IOStream, Boolean>());
+
+		IOStream stream = mExistingIO.Open(pFile, "rb");
+		if (stream == null) {
+			return;
+		}
+		try {
+			mArchive = ToDirect(stream);
+			if (mIsGzip) {
+				MapGzip();
+			} else {
+				MapArchive();
+			}
+		} catch (RuntimeException err) {
+			// not an archive we can read
+			mEntries.clear();
+			mArchive = null;
+		} finally {
+			if (mArchive != stream) {
+				mExistingIO.Close(stream);
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Check whether the archive has been opened and its directory read */
+	public synchronized boolean isOpen() {
+		return mArchive != null;
+	}
+
+	// -------------------------------------------------------------------
+	/** Get the names of all entries */
+	public synchronized void getFileList(List<String> pList) {
+		pList.addAll(mEntries.keySet());
+	}
+
+	// -------------------------------------------------------------------
+	/** Get the names of all entries with an extension, i.e. "png" */
+	public synchronized void getFileListExtension(List<String> pList, String pExtension) {
+		String suffix = "." + pExtension.toLowerCase();
+		for (String name : mEntries.keySet()) {
+			if (name.toLowerCase().endsWith(suffix)) {
+				pList.add(name);
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public synchronized boolean Exists(String pFile) {
+		if (mEntries.containsKey(SimplifyFilename(pFile))) {
+			return true;
+		}
+		return mExistingIO.Exists(pFile);
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public String getOsSeparator() {
+		return "/";
+	}
+
+	// -------------------------------------------------------------------
+	/** Opens an entry, inflating it unless it is cached or stored
+	 *  uncompressed. Other paths are forwarded.
+	 *  @return NULL if the entry is corrupt or encrypted, or pMode asks
+	 *    for write access */
+	@Override
+	public IOStream Open(String pFile, String pMode) {
+		Entry entry;
+		synchronized (this) {
+			entry = mEntries.get(SimplifyFilename(pFile));
+		}
+		if (entry == null) {
+			return mExistingIO.Open(pFile, pMode);
+		}
+		if (pMode != null && (pMode.indexOf('w') >= 0 || pMode.indexOf('a') >= 0 || pMode.indexOf('+') >= 0)) {
+			return null;
+		}
+		try {
+			if (entry.mMethod != METHOD_STORED) {
+				return new MemoryIOStream(GetData(entry));
+			}
+			synchronized (this) {
+				// a view on the archive, which must stay open until Close()
+				IOStream stream = new MemoryIOStream(EntryData(entry));
+				mOpenViews.add(stream);
+				return stream;
+			}
+		} catch (RuntimeException err) {
+			return null;
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Closes a stream. The archive is closed with the last stream of a
+	 *  stored entry if Release() has been called already. */
+	@Override
+	public void Close(IOStream pFile) {
+		DirectIOStream archive = null;
+		synchronized (this) {
+			if (mOpenViews.remove(pFile)) {
+				if (mOpenViews.isEmpty()) {
+					archive = mReleased;
+					mReleased = null;
+				}
+			} else if (pFile instanceof MemoryIOStream) {
+				// streams of deflated entries only hold views on the cache
+				return;
+			}
+		}
+		if (archive != null) {
+			mExistingIO.Close(archive);
+		} else if (!(pFile instanceof MemoryIOStream)) {
+			mExistingIO.Close(pFile);
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean ComparePaths(String one, String second) {
+		return SimplifyFilename(one).equals(SimplifyFilename(second));
+	}
+
+	// -------------------------------------------------------------------
+	/** Start inflating entries on the pool, without waiting for them.
+	 *  Useful right before an import: the model, its material library
+	 *  and its textures are then inflated at the same time.
+	 *  @param pFiles Names of the entries, unknown names are ignored */
+	public void Prefetch(String... pFiles) {
+		for (String file : pFiles) {
+			Entry entry;
+			synchronized (this) {
+				entry = mEntries.get(SimplifyFilename(file));
+			}
+			if (entry != null && entry.mMethod != METHOD_STORED) {
+				Submit(entry);
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Start inflating all entries which fit into the cache */
+	public void PrefetchAll() {
+		List<String> names = new ArrayList<String>();
+		getFileList(names);
+		long budget = mCacheSize;
+		for (String name : names) {
+			Entry entry;
+			synchronized (this) {
+				entry = mEntries.get(name);
+			}
+			if (entry.mMethod != METHOD_STORED && entry.mSize <= budget) {
+				budget -= entry.mSize;
+				Submit(entry);
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Returns the number of bytes of inflated data in the cache */
+	public synchronized long GetCachedBytes() {
+		return mCachedBytes;
+	}
+
+	// -------------------------------------------------------------------
+	/** Closes the archive and empties the cache. Open() fails for all 
+	 *  entries afterwards. Streams opened before stay valid: streams of 
+	 *  deflated entries as long as they are referenced, the archive is 
+	 *  kept open until the streams of stored entries are closed. */
+	public void Release() {
+		DirectIOStream archive;
+		synchronized (this) {
+			archive = mArchive;
+			mArchive = null;
+			mEntries.clear();
+			mCache.clear();
+			mCachedBytes = 0;
+			if (archive != null && !mOpenViews.isEmpty()) {
+				// closed by Close() of the last view
+				mReleased = archive;
+				archive = null;
+			}
+		}
+		if (archive != null) {
+			mExistingIO.Close(archive);
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Normalize a path as the entry names: '/' separators, no leading
+	 *  '/' or './', no '.' or '..' segments */
+	static String SimplifyFilename(String pFile) {
+		String[] segments = pFile.replace('\\', '/').split("/");
+		List<String> out = new ArrayList<String>(segments.length);
+		for (String segment : segments) {
+			if (segment.isEmpty() || segment.equals(".")) {
+				continue;
+			}
+			if (segment.equals("..") && !out.isEmpty() && !out.get(out.size() - 1).equals("..")) {
+				out.remove(out.size() - 1);
+			} else {
+				out.add(segment);
+			}
+		}
+		StringBuilder sb = new StringBuilder(pFile.length());
+		for (String segment : out) {
+			if (sb.length() > 0) {
+				sb.append('/');
+			}
+			sb.append(segment);
+		}
+		return sb.toString();
+	}
+
+	// -------------------------------------------------------------------
+	/** Get the data of an entry, from the cache or by inflating it */
+	private ByteBuffer GetData(Entry pEntry) {
+		if (pEntry.mMethod == METHOD_STORED) {
+			return EntryData(pEntry);
+		}
+		synchronized (this) {
+			ByteBuffer cached = mCache.get(pEntry.mName);
+			if (cached != null) {
+				return cached.duplicate();
+			}
+		}
+		return Submit(pEntry).join().duplicate();
+	}
+
+	// -------------------------------------------------------------------
+	/** Start inflating an entry unless this is already going on or its
+	 *  data is cached */
+	private ForkJoinTask<ByteBuffer> Submit(final Entry pEntry) {
+		synchronized (this) {
+			ForkJoinTask<ByteBuffer> pending = mPending.get(pEntry.mName);
+			if (pending != null) {
+				return pending;
+			}
+			ByteBuffer cached = mCache.get(pEntry.mName);
+			if (cached != null) {
+				return ForkJoinTask.adapt(new Runnable() {
+					public void run() {
+					}
+				}, cached).fork();
+			}
+			ForkJoinTask<ByteBuffer> task = new RecursiveTask<ByteBuffer>() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected ByteBuffer compute() {
+					try {
+						ByteBuffer data = pEntry.mMemberOffsets != null ? InflateMembers(pEntry) : Inflate(pEntry);
+						AddToCache(pEntry.mName, data);
+						return data;
+					} finally {
+						synchronized (ArchiveIOSystem.this) {
+							mPending.remove(pEntry.mName);
+						}
+					}
+				}
+			};
+			mPending.put(pEntry.mName, task);
+			ForkJoinPool pool = mPool != null ? mPool : ForkJoinPool.commonPool();
+			pool.execute(task);
+			return task;
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Keep inflated data, dropping the least recently used entries if
+	 *  the cache gets too large. Entries larger than the cache are not
+	 *  kept at all. */
+	private synchronized void AddToCache(String pName, ByteBuffer pData) {
+		if (pData.capacity() > mCacheSize || mArchive == null) {
+			return;
+		}
+		ByteBuffer old = mCache.put(pName, pData);
+		mCachedBytes += pData.capacity() - (old != null ? old.capacity() : 0);
+		Iterator<Map.Entry<String, ByteBuffer>> it = mCache.entrySet().iterator();
+		while (mCachedBytes > mCacheSize && it.hasNext()) {
+			// dropped buffers are freed by the GC once no stream uses them
+			mCachedBytes -= it.next().getValue().capacity();
+			it.remove();
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Inflate a deflated entry and check its CRC */
+	private ByteBuffer Inflate(Entry pEntry) {
+		if (pEntry.mSize > Integer.MAX_VALUE) {
+			throw new DeadlyImportError("Archive entry " + pEntry.mName + " is too large, 2GB at most are supported");
+		}
+		ByteBuffer out = ByteBuffer.allocateDirect((int)pEntry.mSize);
+		if (mIsGzip) {
+			out = InflateGzip(Slice(0, (int)Length()), out);
+		} else {
+			InflateRaw(EntryData(pEntry), out, pEntry.mName);
+			out.flip();
+		}
+		if (!mIsGzip) {
+			// gzip members are checked while inflating
+			CheckCrc(out, pEntry.mCrc, pEntry.mName);
+		}
+		return out.asReadOnlyBuffer();
+	}
+
+	// -------------------------------------------------------------------
+	/** Inflate the members of a gzip file in parallel. Each writes its
+	 *  own range of the output, known from the sizes in the trailers. */
+	private ByteBuffer InflateMembers(final Entry pEntry) {
+		if (pEntry.mSize > Integer.MAX_VALUE) {
+			throw new DeadlyImportError("Archive entry " + pEntry.mName + " is too large, 2GB at most are supported");
+		}
+		final ByteBuffer out = ByteBuffer.allocateDirect((int)pEntry.mSize);
+		final int numMembers = pEntry.mMemberOffsets.length;
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(numMembers);
+		for (int i = 0; i < numMembers; ++i) {
+			final int member = i;
+			tasks.add(ForkJoinTask.adapt(new Runnable() {
+				public void run() {
+					ByteBuffer in = Slice(pEntry.mMemberOffsets[member], (int)pEntry.mMemberSizes[member]);
+					ByteBuffer range = out.duplicate();
+					range.limit((int)(pEntry.mMemberOutputs[member + 1])).position((int)pEntry.mMemberOutputs[member]);
+					int crc = in.order(ByteOrder.LITTLE_ENDIAN).getInt(in.limit() - 8);
+					InflateRaw(SkipGzipHeader(in), range.slice(), pEntry.mName);
+					range.position((int)pEntry.mMemberOutputs[member]);
+					CheckCrc(range.slice(), crc, pEntry.mName);
+				}
+			}));
+		}
+		ForkJoinTask.invokeAll(tasks);
+		return out.asReadOnlyBuffer();
+	}
+
+	// -------------------------------------------------------------------
+	/** Inflate raw deflate data until the stream ends
+	 *  @param pIn Compressed data
+	 *  @param pOut Receives the data, must be large enough
+	 *  @param pName Name of the entry, for the error message */
+	private static void InflateRaw(ByteBuffer pIn, ByteBuffer pOut, String pName) {
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(pIn);
+			while (!inflater.finished()) {
+				if (inflater.inflate(pOut) == 0 && (inflater.needsInput() || inflater.needsDictionary() || !pOut.hasRemaining())) {
+					throw new DeadlyImportError("Archive entry " + pName + " is corrupt");
+				}
+			}
+		} catch (DataFormatException err) {
+			throw new DeadlyImportError("Archive entry " + pName + " is corrupt: " + err.getMessage());
+		} finally {
+			inflater.end();
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Inflate a gzip file member after member
+	 *  @param pIn The whole file
+	 *  @param pOut Buffer sized after the last trailer, replaced by a
+	 *    larger one if the data doesn't fit
+	 *  @return The data, flipped */
+	private ByteBuffer InflateGzip(ByteBuffer pIn, ByteBuffer pOut) {
+		ByteBuffer out = pOut;
+		ByteBuffer in = pIn.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		// members may be followed by zero padding
+		while (in.remaining() >= 18 && (in.get(in.position()) & 0xff) == 0x1f) {
+			ByteBuffer data = SkipGzipHeader(in);
+			int memberStart = out.position();
+			Inflater inflater = new Inflater(true);
+			try {
+				inflater.setInput(data);
+				while (!inflater.finished()) {
+					if (!out.hasRemaining()) {
+						// the size in the trailer of the last member is only a hint
+						ByteBuffer grown = ByteBuffer.allocateDirect((int)Math.min(Integer.MAX_VALUE, Math.max(1L << 16, out.capacity() * 2L)));
+						if (grown.capacity() == out.capacity()) {
+							throw new DeadlyImportError("Archive entry " + mPath + " is too large, 2GB at most are supported");
+						}
+						out.flip();
+						grown.put(out);
+						out = grown;
+					}
+					if (inflater.inflate(out) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+						throw new DeadlyImportError("Archive entry " + mPath + " is corrupt");
+					}
+				}
+				// continue behind the deflate stream
+				in.position(data.limit() - inflater.getRemaining());
+			} catch (DataFormatException err) {
+				throw new DeadlyImportError("Archive entry " + mPath + " is corrupt: " + err.getMessage());
+			} finally {
+				inflater.end();
+			}
+			// trailer: CRC32 and size of the member
+			int crc = in.getInt();
+			in.getInt();
+			ByteBuffer member = out.duplicate();
+			member.limit(out.position()).position(memberStart);
+			CheckCrc(member, crc, mPath);
+		}
+		out.flip();
+		return out;
+	}
+
+	// -------------------------------------------------------------------
+	/** Skip the header of a gzip member
+	 *  @param pIn Member at its position, the position is moved to the
+	 *    deflate data
+	 *  @return View on the rest of pIn, starting with the deflate data */
+	private static ByteBuffer SkipGzipHeader(ByteBuffer pIn) {
+		ByteBuffer in = pIn.order(ByteOrder.LITTLE_ENDIAN);
+		if ((in.get() & 0xff) != 0x1f || (in.get() & 0xff) != 0x8b || in.get() != 8) {
+			throw new DeadlyImportError("Not a gzip file");
+		}
+		int flags = in.get() & 0xff;
+		// modification time, extra flags, OS
+		in.position(in.position() + 6);
+		if ((flags & GZIP_FLAG_EXTRA) != 0) {
+			int length = in.getShort() & 0xffff;
+			in.position(in.position() + length);
+		}
+		if ((flags & GZIP_FLAG_NAME) != 0) {
+			while (in.get() != 0) {
+			}
+		}
+		if ((flags & GZIP_FLAG_COMMENT) != 0) {
+			while (in.get() != 0) {
+			}
+		}
+		if ((flags & GZIP_FLAG_HCRC) != 0) {
+			in.getShort();
+		}
+		return in.duplicate();
+	}
+
+	// -------------------------------------------------------------------
+	private static void CheckCrc(ByteBuffer pData, int pCrc, String pName) {
+		CRC32 crc = new CRC32();
+		crc.update(pData.duplicate());
+		if ((int)crc.getValue() != pCrc) {
+			throw new DeadlyImportError("Archive entry " + pName + " is corrupt: CRC mismatch");
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Read the central directory of a zip archive */
+	private void MapArchive() {
+		final long length = Length();
+		int tail = (int)Math.min(length, END_SIZE + 0xffff);
+		ByteBuffer buf = Slice(length - tail, tail);
+
+		// the end record is followed by a comment of up to 64k
+		int end = -1;
+		for (int i = tail - END_SIZE; i >= 0; --i) {
+			if (buf.getInt(i) == SIG_END) {
+				end = i;
+				break;
+			}
+		}
+		if (end < 0) {
+			throw new DeadlyImportError("Not a zip archive: " + mPath);
+		}
+		long numEntries = buf.getShort(end + 10) & 0xffff;
+		long dirSize = buf.getInt(end + 12) & 0xffffffffL;
+		long dirOffset = buf.getInt(end + 16) & 0xffffffffL;
+
+		long locator = length - tail + end - END64_LOCATOR_SIZE;
+		if (locator >= 0 && Slice(locator, 4).getInt(0) == SIG_END64_LOCATOR) {
+			// ZIP64, the counts above may be saturated
+			long end64 = Slice(locator + 8, 8).getLong(0);
+			ByteBuffer rec = Slice(end64, 56);
+			if (rec.getInt(0) != SIG_END64) {
+				throw new DeadlyImportError("Corrupt ZIP64 archive: " + mPath);
+			}
+			numEntries = rec.getLong(32);
+			dirSize = rec.getLong(40);
+			dirOffset = rec.getLong(48);
+		}
+		if (dirSize > Integer.MAX_VALUE || dirOffset + dirSize > length) {
+			throw new DeadlyImportError("Corrupt zip archive: " + mPath);
+		}
+
+		ByteBuffer dir = Slice(dirOffset, (int)dirSize);
+		int pos = 0;
+		for (long i = 0; i < numEntries; ++i) {
+			if (pos + CENTRAL_HEADER_SIZE > dir.limit() || dir.getInt(pos) != SIG_CENTRAL_HEADER) {
+				throw new DeadlyImportError("Corrupt zip archive: " + mPath);
+			}
+			int flags = dir.getShort(pos + 8) & 0xffff;
+			int method = dir.getShort(pos + 10) & 0xffff;
+			int crc = dir.getInt(pos + 16);
+			long compressedSize = dir.getInt(pos + 20) & 0xffffffffL;
+			long size = dir.getInt(pos + 24) & 0xffffffffL;
+			int nameLength = dir.getShort(pos + 28) & 0xffff;
+			int extraLength = dir.getShort(pos + 30) & 0xffff;
+			int commentLength = dir.getShort(pos + 32) & 0xffff;
+			long headerOffset = dir.getInt(pos + 42) & 0xffffffffL;
+
+			byte[] name = new byte[nameLength];
+			ByteBuffer nameView = dir.duplicate();
+			nameView.position(pos + CENTRAL_HEADER_SIZE);
+			nameView.get(name);
+
+			// ZIP64 extra field, holding the values saturated above
+			int extra = pos + CENTRAL_HEADER_SIZE + nameLength, extraEnd = extra + extraLength;
+			while (extra + 4 <= extraEnd) {
+				int id = dir.getShort(extra) & 0xffff, fieldSize = dir.getShort(extra + 2) & 0xffff;
+				if (id == 0x0001) {
+					int p = extra + 4;
+					if (size == 0xffffffffL) {
+						size = dir.getLong(p);
+						p += 8;
+					}
+					if (compressedSize == 0xffffffffL) {
+						compressedSize = dir.getLong(p);
+						p += 8;
+					}
+					if (headerOffset == 0xffffffffL) {
+						headerOffset = dir.getLong(p);
+					}
+				}
+				extra += 4 + fieldSize;
+			}
+			pos = extraEnd + commentLength;
+
+			String entryName = SimplifyFilename(new String(name,
+				(flags & FLAG_UTF8) != 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1));
+			boolean supported = (flags & FLAG_ENCRYPTED) == 0 && (method == METHOD_STORED || method == METHOD_DEFLATED);
+			if (!entryName.isEmpty() && !entryName.endsWith("/") && supported && nameLength > 0
+				&& name[nameLength - 1] != '/') {
+				mEntries.put(entryName, new Entry(entryName, method, compressedSize, size, crc, headerOffset));
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Set up the single entry of a gzip file and find its members if
+	 *  they can be inflated independently */
+	private void MapGzip() {
+		final long length = Length();
+		if (length < 18) {
+			throw new DeadlyImportError("Not a gzip file: " + mPath);
+		}
+		if (length > Integer.MAX_VALUE) {
+			throw new DeadlyImportError("Gzip file " + mPath + " is too large, 2GB at most are supported");
+		}
+		String name = mPath.replace('\\', '/');
+		name = name.substring(name.lastIndexOf('/') + 1, name.length() - 3);
+		long size = Slice(length - 4, 4).getInt(0) & 0xffffffffL;
+		Entry entry = new Entry(SimplifyFilename(name), METHOD_DEFLATED, length, size, 0, 0);
+
+		// BGZF: every member tells its size in a 'BC' extra subfield
+		List<long[]> members = new ArrayList<long[]>();
+		long pos = 0, output = 0;
+		while (pos < length) {
+			long memberSize = GetBgzfMemberSize(pos);
+			if (memberSize < 0 || pos + memberSize > length) {
+				members = null;
+				break;
+			}
+			long memberOutput = Slice(pos + memberSize - 4, 4).getInt(0) & 0xffffffffL;
+			members.add(new long[] { pos, memberSize, output });
+			output += memberOutput;
+			pos += memberSize;
+		}
+		if (members != null && members.size() > 1) {
+			int num = members.size();
+			entry = new Entry(entry.mName, METHOD_DEFLATED, length, output, 0, 0);
+			entry.mMemberOffsets = new long[num];
+			entry.mMemberSizes = new long[num];
+			entry.mMemberOutputs = new long[num + 1];
+			for (int i = 0; i < num; ++i) {
+				entry.mMemberOffsets[i] = members.get(i)[0];
+				entry.mMemberSizes[i] = members.get(i)[1];
+				entry.mMemberOutputs[i] = members.get(i)[2];
+			}
+			entry.mMemberOutputs[num] = output;
+		}
+		mEntries.put(entry.mName, entry);
+	}
+
+	/** Size of the gzip member at an offset, from its BGZF extra field
+	 *  @return -1 if the member has none */
+	private long GetBgzfMemberSize(long pOffset) {
+		if (pOffset + 12 > Length()) {
+			return -1;
+		}
+		ByteBuffer header = Slice(pOffset, 12);
+		if ((header.get(0) & 0xff) != 0x1f || (header.get(1) & 0xff) != 0x8b
+			|| (header.get(3) & GZIP_FLAG_EXTRA) == 0) {
+			return -1;
+		}
+		int extraLength = header.getShort(10) & 0xffff;
+		if (pOffset + 12 + extraLength > Length()) {
+			return -1;
+		}
+		ByteBuffer extra = Slice(pOffset + 12, extraLength);
+		for (int p = 0; p + 4 <= extraLength; ) {
+			int fieldSize = extra.getShort(p + 2) & 0xffff;
+			if (extra.get(p) == 'B' && extra.get(p + 1) == 'C' && fieldSize == 2) {
+				return (extra.getShort(p + 4) & 0xffff) + 1;
+			}
+			p += 4 + fieldSize;
+		}
+		return -1;
+	}
+
+	// -------------------------------------------------------------------
+	/** The compressed or stored data of a zip entry */
+	private ByteBuffer EntryData(Entry pEntry) {
+		if (mIsGzip) {
+			return Slice(0, (int)Length());
+		}
+		ByteBuffer header = Slice(pEntry.mHeaderOffset, LOCAL_HEADER_SIZE);
+		if (header.getInt(0) != SIG_LOCAL_HEADER) {
+			throw new DeadlyImportError("Archive entry " + pEntry.mName + " is corrupt");
+		}
+		int nameLength = header.getShort(26) & 0xffff, extraLength = header.getShort(28) & 0xffff;
+		long dataSize = pEntry.mMethod == METHOD_STORED ? pEntry.mSize : pEntry.mCompressedSize;
+		if (dataSize > Integer.MAX_VALUE) {
+			throw new DeadlyImportError("Archive entry " + pEntry.mName + " is too large, 2GB at most are supported");
+		}
+		return Slice(pEntry.mHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength, (int)dataSize);
+	}
+
+	// -------------------------------------------------------------------
+	/** A little endian view on the archive */
+	private ByteBuffer Slice(long pOffset, int pLength) {
+		DirectIOStream archive;
+		synchronized (this) {
+			archive = mArchive;
+		}
+		if (archive == null) {
+			throw new DeadlyImportError("Archive " + mPath + " is closed");
+		}
+		return archive.Slice(pOffset, pLength).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private long Length() {
+		return mArchive.Length();
+	}
+
+	// -------------------------------------------------------------------
+	/** Make a stream addressable, reading it into memory if it isn't */
+	private static DirectIOStream ToDirect(IOStream pStream) {
+		if (pStream instanceof DirectIOStream) {
+			return (DirectIOStream)pStream;
+		}
+		return new MemoryIOStream(BaseImporter.ReadFully(pStream));
+	}
+}
@@ -1,10 +1,15 @@
 package net.assimpj;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.List;
 import java.util.Set;
 
 public abstract class BaseImporter {
 
+	private static final int SLOT_LAZY = ImportConfig.GetSlot(aiConfig.AI_CONFIG_IMPORT_LAZY_MESHES);
+	private static final int SLOT_EVICT = ImportConfig.GetSlot(aiConfig.AI_CONFIG_IMPORT_LAZY_EVICT_MESHES);
+
 	/** Returns whether the class can handle the format of the given file.
 	 *
 	 * The implementation should be as quick as possible. A check for
@@ -13,6 +18,11 @@ public abstract class BaseImporter {
 	 * set to true this time. Now the implementation is expected to
 	 * perform a full check of the file structure, possibly searching the
 	 * first bytes of the file for magic identifiers or keywords.
+	 * <br>
+	 * Loaders publishing their magic tokens and keywords through 
+	 * GetSignatures() are found by the #FormatDetector instead, which 
+	 * reads the file header just once for all loaders. Their CanRead() is
+	 * not called with checkSig set to true by the Importer.
 	 *
 	 * @param pFile Path and file name of the file to be examined.
 	 * @param pIOHandler The IO handler to use for accessing any file.
@@ -22,7 +32,7 @@ public abstract class BaseImporter {
 	 *   to be able to load files with unknown/not existent file extensions.
 	 * @return true if the class can read this file, false if not.
 	 */
-	public abstract boolean CanRead(String pFile, IOSystem pIOHandler, bool checkSig);
+	public abstract boolean CanRead(String pFile, IOSystem pIOHandler, boolean checkSig);
 
 	/** Imports the given file and returns the imported data.
 	 * If the import succeeds, ownership of the data is transferred to 
@@ -43,7 +53,27 @@ public abstract class BaseImporter {
 	 *  a suitable response to the caller.
 	 */
 	public aiScene ReadFile(Importer pImp, String pFile, IOSystem pIOHandler) {
-		
+		progress = pImp.GetProgressHandler();
+		mErrorText = "";
+
+		// Gather configuration properties for this run
+		SetupProperties(pImp);
+		mLazy = pImp.GetConfig().GetBool(SLOT_LAZY, false) && mStreaming == null;
+		mEvict = pImp.GetConfig().GetBool(SLOT_EVICT, false);
+
+		// create a scene object to hold the data
+		aiScene sc = new aiScene();
+
+		// dispatch importing
+		try {
+			InternReadFile(pFile, sc, pIOHandler);
+		} catch (Exception err) {
+			// extract error description and drop the partially imported data
+			mErrorText = err.getMessage();
+			sc.Release();
+			return null;
+		}
+		return sc;
 	}
 
 	/** Returns the error description of the last error that occured. 
@@ -72,7 +102,30 @@ public abstract class BaseImporter {
 	 *  #GetInfo and insert all file extensions into the given set.
 	 *  @param extension set to collect file extensions in*/
 	public void GetExtensionList(Set<String> extensions) {
-		
+		for (String ext : GetInfo().mFileExtensions.split(" ")) {
+			if (ext.length() > 0) {
+				extensions.add(ext);
+			}
+		}
+	}
+
+	/** Called by the #FormatDetector to collect the magic tokens and 
+	 *  keywords identifying this format. The signatures of all loaders 
+	 *  are matched in a single pass over the file header. The default 
+	 *  implementation publishes none.
+	 *  @param pSignatures List to add the signatures to */
+	public void GetSignatures(List<FormatSignature> pSignatures) {
+	}
+
+	/** Called by the #FormatDetector if no signature matched. Formats
+	 *  without reliable magic tokens can recognize their files here, from
+	 *  the header bytes the detector has already read.
+	 *  @param pFile Path of the file
+	 *  @param pHeader Read-only view of the first bytes of the file
+	 *  @param pFileSize Size of the whole file, in bytes
+	 *  @return true if the loader claims the file. Default is false. */
+	public boolean CanReadHeader(String pFile, ByteBuffer pHeader, long pFileSize) {
+		return false;
 	}
 
 
@@ -132,12 +185,37 @@ public abstract class BaseImporter {
 	 *  @param pIOSystem IO System to work with
 	 *  @param file File name of the file
 	 *  @param tokens List of tokens to search for
-	 *  @param numTokens Size of the token array
 	 *  @param searchBytes Number of bytes to be searched for the tokens.
+	 *  @param tokensSol True if the tokens must be at the start of a line
 	 */
 	public static boolean SearchFileHeaderForToken(IOSystem pIOSystem, String file,
-		String tokens, int numTokens, int searchBytes/* = 200 */, boolean tokensSol)/*  = false */ {
-		
+		String[] tokens, int searchBytes/* = 200 */, boolean tokensSol)/*  = false */ {
+		ByteBuffer header = ReadHeader(pIOSystem, file, searchBytes);
+		if (header == null) {
+			return false;
+		}
+
+		// strip null characters (UTF-16) and convert to lower case
+		StringBuilder sb = new StringBuilder(header.remaining());
+		while (header.hasRemaining()) {
+			byte b = header.get();
+			if (b != 0) {
+				sb.append(Character.toLowerCase((char)(b & 0xff)));
+			}
+		}
+		String text = sb.toString();
+
+		for (String token : tokens) {
+			String t = token.toLowerCase();
+			for (int r = text.indexOf(t); r >= 0; r = text.indexOf(t, r + 1)) {
+				// We got a match, either we don't care where it is, or it happens to
+				// be in the beginning of the file / line
+				if (!tokensSol || r == 0 || text.charAt(r - 1) == '\r' || text.charAt(r - 1) == '\n') {
+					return true;
+				}
+			}
+		}
+		return false;
 	}
 
 	/** @brief Check whether a file has a specific file extension
@@ -149,7 +227,8 @@ public abstract class BaseImporter {
 	 */
 	public static boolean SimpleExtensionCheck(String pFile, String ext0, String ext1/* = NULL */,
 		String ext2/* = NULL */) {
-		
+		String ext = GetExtension(pFile);
+		return ext.equals(ext0) || ext.equals(ext1) || ext.equals(ext2);
 	}
 
 	// -------------------------------------------------------------------
@@ -158,17 +237,20 @@ public abstract class BaseImporter {
 	 *  @return Extension without trailing dot, all lowercase
 	 */
 	public static String GetExtension(String pFile) {
-		
+		int pos = pFile.lastIndexOf('.');
+		// no file extension at all
+		if (pos < 0 || pos < Math.max(pFile.lastIndexOf('/'), pFile.lastIndexOf('\\'))) {
+			return "";
+		}
+		return pFile.substring(pos + 1).toLowerCase();
 	}
 
 	// -------------------------------------------------------------------
 	/** @brief Check whether a file starts with one or more magic tokens
 	 *  @param pFile Input file
 	 *  @param pIOHandler IO system to be used
-	 *  @param magic n magic tokens
-	 *  @params num Size of magic
+	 *  @param magic n magic tokens, all of the same size. Maximally 16 bytes.
 	 *  @param offset Offset from file start where tokens are located
-	 *  @param Size of one token, in bytes. Maximally 16 bytes.
 	 *  @return true if one of the given tokens was found
 	 *
 	 *  @note For convinence, the check is also performed for the
@@ -176,30 +258,320 @@ public abstract class BaseImporter {
 	 *  tokens of size 2,4.
 	 */
 	public static boolean CheckMagicToken(IOSystem pIOHandler, String pFile, 
-		List magic, int num, int offset/* = 0 */, int size/* = 4 */) {
-		
+		byte[][] magic, int offset/* = 0 */) {
+		if (magic.length == 0) {
+			return false;
+		}
+		int size = magic[0].length;
+		ByteBuffer header = ReadHeader(pIOHandler, pFile, offset + size);
+		if (header == null || header.remaining() < offset + size) {
+			return false;
+		}
+
+		for (byte[] token : magic) {
+			boolean match = true, swapped = size == 2 || size == 4;
+			for (int i = 0; i < size; ++i) {
+				byte b = header.get(offset + i);
+				match &= b == token[i];
+				swapped &= b == token[size - 1 - i];
+			}
+			if (match || swapped) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Reads the first bytes of a file. 
+	 *  @param pIOHandler IO system to be used
+	 *  @param pFile Input file
+	 *  @param pMaxBytes Maximum number of bytes to read
+	 *  @return Buffer with the bytes read, NULL if the file can't be opened */
+	public static ByteBuffer ReadHeader(IOSystem pIOHandler, String pFile, int pMaxBytes) {
+		IOStream stream = pIOHandler.Open(pFile, "rb");
+		if (stream == null) {
+			return null;
+		}
+		try {
+			ByteBuffer header = ByteBuffer.allocate(Math.min(pMaxBytes, stream.FileSize()));
+			stream.Read(header, 1, header.capacity());
+			header.flip();
+			return header;
+		} finally {
+			pIOHandler.Close(stream);
+		}
+	}
+
+	/** Get the whole file as a buffer. Streams which are addressable in
+	 *  memory are not copied, the view is valid until the stream is closed.
+	 *  @param pStream Stream to read from, at its start
+	 *  @return Buffer with the content of the file */
+	public static ByteBuffer ReadFully(IOStream pStream) {
+		if (pStream instanceof DirectIOStream) {
+			DirectIOStream direct = (DirectIOStream)pStream;
+			if (direct.Length() > Integer.MAX_VALUE) {
+				throw new DeadlyImportError("File is too large, 2GB at most are supported");
+			}
+			return direct.Slice(0, (int)direct.Length());
+		}
+		ByteBuffer buffer = ByteBuffer.allocateDirect(pStream.FileSize());
+		pStream.Read(buffer, 1, buffer.capacity());
+		buffer.flip();
+		return buffer;
+	}
+
+	/** Character encodings of text files, see DetectEncoding() */
+	public enum TextEncoding {
+		UTF8, UTF16_LE, UTF16_BE, UTF32_LE, UTF32_BE
+	}
+
+	/** Replaces characters which can't be decoded */
+	private static final int REPLACEMENT_CHARACTER = 0xfffd;
+
+	/** Determine the encoding of a text file from its byte order mark.
+	 *  Files without one are checked for the zero bytes ASCII text has
+	 *  in UTF-16 and UTF-32, everything else is taken as UTF-8.
+	 *  @param pData Buffer holding the start of the file at its position
+	 *  @return The encoding */
+	public static TextEncoding DetectEncoding(ByteBuffer pData) {
+		final int p = pData.position(), n = pData.remaining();
+		if (n < 2) {
+			return TextEncoding.UTF8;
+		}
+		final int b0 = pData.get(p) & 0xff, b1 = pData.get(p + 1) & 0xff;
+		final int b2 = n >= 4 ? pData.get(p + 2) & 0xff : -1, b3 = n >= 4 ? pData.get(p + 3) & 0xff : -1;
+
+		// byte order marks, the UTF-32 LE one starts with the UTF-16 LE one
+		if (b0 == 0xff && b1 == 0xfe) {
+			return b2 == 0 && b3 == 0 ? TextEncoding.UTF32_LE : TextEncoding.UTF16_LE;
+		}
+		if (b0 == 0 && b1 == 0 && b2 == 0xfe && b3 == 0xff) {
+			return TextEncoding.UTF32_BE;
+		}
+		if (b0 == 0xfe && b1 == 0xff) {
+			return TextEncoding.UTF16_BE;
+		}
+		if (n < 4) {
+			return TextEncoding.UTF8;
+		}
+
+		// no mark, but the first characters are ASCII
+		if (b0 != 0 && b1 == 0 && b2 == 0 && b3 == 0) {
+			return TextEncoding.UTF32_LE;
+		}
+		if (b0 == 0 && b1 == 0 && b2 == 0 && b3 != 0) {
+			return TextEncoding.UTF32_BE;
+		}
+		if (b0 != 0 && b1 == 0 && b2 != 0 && b3 == 0) {
+			return TextEncoding.UTF16_LE;
+		}
+		if (b0 == 0 && b1 != 0 && b2 == 0 && b3 != 0) {
+			return TextEncoding.UTF16_BE;
+		}
+		return TextEncoding.UTF8;
 	}
 
-	/** An utility for all text file loaders. It converts a file to our
-	 *   UTF8 character set. Errors are reported, but ignored.
+	/** An utility for all text file loaders. It converts a file to UTF-8,
+	 *  the only encoding the loaders parse. UTF-8 and ASCII files are not
+	 *  copied, only a UTF-8 byte order mark is skipped. UTF-16 and UTF-32
+	 *  files are converted, characters which can't be decoded become
+	 *  U+FFFD.
 	 *
-	 *  @param data File buffer to be converted to UTF8 data. The buffer 
-	 *  is resized as appropriate. */
-	public static void ConvertToUTF8(String data) {
-		
+	 *  @param pData File buffer, from its position to its limit
+	 *  @param pTarget Buffer to receive a conversion if it is large 
+	 *   enough, may be NULL. Its content is overwritten.
+	 *  @return pData or a slice of it if the file is UTF-8. Otherwise
+	 *   pTarget or a new direct buffer, holding the converted text from
+	 *   position 0 to its limit. */
+	public static ByteBuffer ConvertToUTF8(ByteBuffer pData, ByteBuffer pTarget) {
+		final TextEncoding encoding = DetectEncoding(pData);
+		final int start = pData.position(), end = pData.limit();
+		if (encoding == TextEncoding.UTF8) {
+			if (end - start >= 3 && (pData.get(start) & 0xff) == 0xef
+				&& (pData.get(start + 1) & 0xff) == 0xbb && (pData.get(start + 2) & 0xff) == 0xbf) {
+				ByteBuffer out = pData.duplicate();
+				out.position(start + 3);
+				return out.slice();
+			}
+			return pData;
+		}
+
+		final boolean wide = encoding == TextEncoding.UTF32_LE || encoding == TextEncoding.UTF32_BE;
+		final ByteBuffer src = pData.duplicate().order(encoding == TextEncoding.UTF16_LE
+			|| encoding == TextEncoding.UTF32_LE ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+		final int unit = wide ? 4 : 2;
+		int first = start;
+		if (wide ? src.getInt(start) == 0xfeff : src.getShort(start) == (short)0xfeff) {
+			first += unit;
+		}
+		// a trailing partial code unit is dropped
+		final int last = end - (end - first) % unit;
+
+		// count first, to size the output exactly
+		int size = 0;
+		for (int p = first; p < last; ) {
+			int c;
+			if (wide) {
+				c = src.getInt(p);
+				p += 4;
+			} else {
+				c = src.getShort(p) & 0xffff;
+				p += 2;
+				if (c >= 0xd800 && c < 0xdc00 && p < last) {
+					int low = src.getShort(p) & 0xffff;
+					if (low >= 0xdc00 && low < 0xe000) {
+						c = 0x10000 + ((c - 0xd800) << 10) + (low - 0xdc00);
+						p += 2;
+					}
+				}
+			}
+			size += GetUTF8Length(c);
+		}
+
+		ByteBuffer out = pTarget != null && pTarget.capacity() >= size ? pTarget : ByteBuffer.allocateDirect(size);
+		out.clear();
+		int q = 0;
+		for (int p = first; p < last; ) {
+			int c;
+			if (wide) {
+				c = src.getInt(p);
+				p += 4;
+			} else {
+				c = src.getShort(p) & 0xffff;
+				p += 2;
+				if (c >= 0xd800 && c < 0xdc00 && p < last) {
+					int low = src.getShort(p) & 0xffff;
+					if (low >= 0xdc00 && low < 0xe000) {
+						c = 0x10000 + ((c - 0xd800) << 10) + (low - 0xdc00);
+						p += 2;
+					}
+				}
+			}
+			q = PutUTF8(out, q, c);
+		}
+		out.limit(q);
+		return out;
+	}
+
+	/** @return Number of bytes of a code point in UTF-8 */
+	private static int GetUTF8Length(int pCodePoint) {
+		if (pCodePoint >= 0 && pCodePoint < 0x80) {
+			return 1;
+		}
+		if (pCodePoint >= 0 && pCodePoint < 0x800) {
+			return 2;
+		}
+		if (pCodePoint >= 0 && pCodePoint < 0x10000 || !IsValidCodePoint(pCodePoint)) {
+			// the replacement character also takes 3 bytes
+			return 3;
+		}
+		return 4;
+	}
+
+	/** Write a code point in UTF-8 at an absolute position
+	 *  @return Position behind it */
+	private static int PutUTF8(ByteBuffer pOut, int pPos, int pCodePoint) {
+		int c = IsValidCodePoint(pCodePoint) ? pCodePoint : REPLACEMENT_CHARACTER;
+		if (c < 0x80) {
+			pOut.put(pPos, (byte)c);
+			return pPos + 1;
+		}
+		if (c < 0x800) {
+			pOut.put(pPos, (byte)(0xc0 | c >> 6));
+			pOut.put(pPos + 1, (byte)(0x80 | c & 0x3f));
+			return pPos + 2;
+		}
+		if (c < 0x10000) {
+			pOut.put(pPos, (byte)(0xe0 | c >> 12));
+			pOut.put(pPos + 1, (byte)(0x80 | c >> 6 & 0x3f));
+			pOut.put(pPos + 2, (byte)(0x80 | c & 0x3f));
+			return pPos + 3;
+		}
+		pOut.put(pPos, (byte)(0xf0 | c >> 18));
+		pOut.put(pPos + 1, (byte)(0x80 | c >> 12 & 0x3f));
+		pOut.put(pPos + 2, (byte)(0x80 | c >> 6 & 0x3f));
+		pOut.put(pPos + 3, (byte)(0x80 | c & 0x3f));
+		return pPos + 4;
+	}
+
+	/** Surrogates and values beyond U+10FFFF are not characters */
+	private static boolean IsValidCodePoint(int pCodePoint) {
+		return pCodePoint >= 0 && pCodePoint <= 0x10ffff && (pCodePoint < 0xd800 || pCodePoint >= 0xe000);
+	}
+
+	/** Utility for text file loaders which gets the contents of the
+	 *  file as UTF-8, see ConvertToUTF8(). Files which need a conversion
+	 *  are converted into a direct buffer which the loader keeps for the
+	 *  next file, the result is valid until the next call.
+	 *  @param pStream Stream to read from, at its start
+	 *  @return Buffer with the text */
+	protected final ByteBuffer TextFileToBuffer(IOStream pStream) {
+		ByteBuffer data = ReadFully(pStream);
+		if (DetectEncoding(data) == TextEncoding.UTF8) {
+			return ConvertToUTF8(data, null);
+		}
+		mTextBuffer = ConvertToUTF8(data, mTextBuffer);
+		return mTextBuffer;
+	}
+
+	/** Check whether the meshes of this import are to be loaded on first
+	 *  access. Loaders which support this index the file and pass the
+	 *  handles to SetLazyMeshes() instead of building the meshes. */
+	protected final boolean IsLazyImport() {
+		return mLazy;
+	}
+
+	/** Check whether lazy meshes are dropped once unreferenced, to be
+	 *  passed to the LazyMeshes of the import */
+	protected final boolean IsLazyEvict() {
+		return mEvict;
+	}
+
+	/** Target of the last conversion in TextFileToBuffer() */
+	private ByteBuffer mTextBuffer;
+
+	/** Lazy import settings of the running import */
+	private boolean mLazy;
+	private boolean mEvict;
+
+	/** Arena for the data of a single mesh. During a streaming import
+	 *  (see #ImportListener) it is a child of the scene arena, so the
+	 *  mesh can be released on its own, otherwise the scene arena.
+	 *  @param pScene Scene being imported
+	 *  @return Arena to allocate the channels and faces of one mesh from */
+	protected final SceneArena GetMeshArena(aiScene pScene) {
+		return mStreaming != null ? pScene.mPrivate.CreateChild() : pScene.mPrivate;
+	}
+
+	/** Hand a finished material to the listener of a streaming import.
+	 *  Loaders emit their materials before the meshes using them. Does
+	 *  nothing if the import doesn't stream.
+	 *  @param pIndex Index of the material in the scene
+	 *  @param pMaterial The material */
+	protected final void EmitMaterial(int pIndex, aiMaterial pMaterial) {
+		if (mStreaming != null) {
+			mStreaming.EmitMaterial(pIndex, pMaterial);
+		}
 	}
 
-	/** Utility for text file loaders which copies the contents of the
-	 *  file into a memory buffer and converts it to our UTF8
-	 *  representation.
-	 *  @param stream Stream to read from. 
-	 *  @param data Output buffer to be resized and filled with the
-	 *   converted text file data. The buffer is terminated with
-	 *   a binary 0. */
-	public static void TextFileToBuffer(IOStream stream, String data) {
-		
+	/** Hand a finished mesh to the listener of a streaming import, after
+	 *  the per-mesh post-processing steps. The listener may release the
+	 *  mesh, so the loader must not touch it afterwards. Does nothing if
+	 *  the import doesn't stream. May be called from several threads.
+	 *  @param pScene Scene being imported
+	 *  @param pIndex Index the mesh will have in the scene
+	 *  @param pMesh The mesh
+	 *  @param pArena Arena the mesh has been allocated from, see 
+	 *   GetMeshArena() */
+	protected final void EmitMesh(aiScene pScene, int pIndex, aiMesh pMesh, SceneArena pArena) {
+		if (mStreaming != null) {
+			mStreaming.EmitMesh(pScene, pIndex, pMesh, pArena);
+		}
 	}
 
+	/** State of the current streaming import, NULL if there is none. Set
+	 *  by the Importer around ReadFile(). */
+	StreamingImport mStreaming;
 
 	/** Error description in case there was one. */
 	protected String mErrorText;
@@ -2,6 +2,8 @@ package net.assimpj;
 
 import static net.assimpj.AssertUtils.*;
 
+import java.util.concurrent.ForkJoinPool;
+
 abstract class BaseProcess {
 
 	/** See the doc of #SharedPostProcessInfo for more details */
@@ -10,9 +12,19 @@ abstract class BaseProcess {
 	/** Currently active progress handler */
 	protected ProgressHandler progress;
 
+	/** Receives the work done by Execute(), see BeginProgress(). Never
+	 *  NULL, reports nothing outside of ExecuteOnScene(). */
+	protected ProgressTracker tracker;
+
+	/** Position of the step in the pipeline of the running import */
+	private int mStep;
+	private int mNumSteps;
+
 	public BaseProcess() {
 		this.shared = new SharedPostProcessInfo();
-		this.progress = new ProgressHandler();
+		this.progress = new DefaultProgressHandler();
+		this.tracker = ProgressTracker.NONE;
+		this.mNumSteps = 1;
 	}
 
 
@@ -33,7 +45,9 @@ abstract class BaseProcess {
 	// -------------------------------------------------------------------
 	/** Executes the post processing step on the given imported data.
 	* The function deletes the scene if the postprocess step fails (
-	* the object pointer will be set to NULL).
+	* the object pointer will be set to NULL). Steps deriving from 
+	* #MeshProcess run in parallel if the Importer has a post-processing
+	* pool.
 	* @param pImp Importer instance (pImp->mScene must be valid)
 	*/
 	public void ExecuteOnScene(Importer pImp) throws NullPointerException {
@@ -45,9 +59,15 @@ abstract class BaseProcess {
 
 		SetupProperties(pImp);
 
-		// catch exceptions thrown inside the PostProcess-Step
+		// catch exceptions thrown inside the PostProcess-Step, this is
+		// also where a cancelled import ends up
 		try {
-			Execute(pImp.Pimpl().mScene);
+			ForkJoinPool pool = pImp.GetPostProcessingPool();
+			if (pool != null && this instanceof MeshProcess) {
+				((MeshProcess)this).ExecuteParallel(pImp.Pimpl().mScene, pool);
+			} else {
+				Execute(pImp.Pimpl().mScene);
+			}
 
 		} catch(Exception err) {
 			// extract error description
@@ -55,9 +75,32 @@ abstract class BaseProcess {
 			// TODO
 			//DefaultLogger::get()->error(pImp->Pimpl()->mErrorString);
 
-			// and kill the partially imported data
+			// and kill the partially imported data, including the streams
+			// and off-heap memory it holds
+			pImp.Pimpl().mScene.Release();
 			pImp.Pimpl().mScene = null;
-		}		
+		} finally {
+			tracker = ProgressTracker.NONE;
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Called by the Importer before ExecuteOnScene(), so the progress
+	 *  of the step can be reported within the whole pipeline.
+	 * @param pStep Index of the step among the active ones
+	 * @param pNumSteps Number of steps */
+	void SetPipelinePosition(int pStep, int pNumSteps) {
+		mStep = pStep;
+		mNumSteps = Math.max(1, pNumSteps);
+	}
+
+	// -------------------------------------------------------------------
+	/** Start reporting the work of Execute() to the progress handler.
+	 *  Execute() then passes the work it has done to tracker.Add() every
+	 *  now and then, which throws once the handler asked to stop.
+	 * @param pTotal Units of work in total, i.e. vertices + indices */
+	protected final void BeginProgress(long pTotal) {
+		tracker = ProgressTracker.ForPostProcess(progress, mStep, mNumSteps, pTotal);
 	}
 
 	// -------------------------------------------------------------------
@@ -0,0 +1,173 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/** Imports many files or buffers concurrently.
+ *
+ *  An #Importer keeps the current scene and error in its state and can 
+ *  run only one import at a time. The BatchImporter runs every import on
+ *  a fresh Importer, all of them sharing one frozen #ImportConfig, so
+ *  imports share no mutable state and any number of them can run in 
+ *  parallel on the given executor. A fixed thread pool, a ForkJoinPool 
+ *  or a virtual thread per task executor are all fine.
+ *  <br>
+ *  If a custom IOSystem is used, all imports share it: it
+ *  must be thread-safe. #MappedIOSystem is.
+ */
+public class BatchImporter {
+
+	/** Executor running the imports, not owned */
+	private final ExecutorService mExecutor;
+
+	/** Configuration shared by all imports */
+	private final ImportConfig mConfig;
+
+	/** IOSystem shared by all imports, NULL for the default one */
+	private final IOSystem mIOHandler;
+
+	// -------------------------------------------------------------------
+	/** @param pTemplate Importer whose configuration properties and 
+	 *    IOSystem are used for all imports. Its configuration is frozen,
+	 *    later changes to it have no effect on the batch.
+	 *  @param pExecutor Executor to run the imports on. It isn't shut
+	 *    down by the BatchImporter. */
+	public BatchImporter(Importer pTemplate, ExecutorService pExecutor) {
+		mConfig = pTemplate.GetConfig();
+		mIOHandler = pTemplate.IsDefaultIOHandler() ? null : pTemplate.GetIOHandler();
+		mExecutor = pExecutor;
+	}
+
+	// -------------------------------------------------------------------
+	/** @param pConfig Configuration used for all imports
+	 *  @param pIOHandler IOSystem shared by all imports, NULL to use the
+	 *    default one. Must be thread-safe.
+	 *  @param pExecutor Executor to run the imports on. It isn't shut
+	 *    down by the BatchImporter. */
+	public BatchImporter(ImportConfig pConfig, IOSystem pIOHandler, ExecutorService pExecutor) {
+		mConfig = pConfig;
+		mIOHandler = pIOHandler;
+		mExecutor = pExecutor;
+	}
+
+	// -------------------------------------------------------------------
+	/** Schedules the import of a single file.
+	 *  @param pFile Path of the file
+	 *  @param pFlags Post processing steps, see Importer.ReadFile()
+	 *  @return Future delivering the result, never failing */
+	public Future<ImportResult> Submit(final String pFile, final int pFlags) {
+		return mExecutor.submit(new Callable<ImportResult>() {
+			@Override
+			public ImportResult call() {
+				Importer imp = CreateImporter();
+				try {
+					imp.ReadFile(pFile, pFlags);
+				} catch (RuntimeException err) {
+					return new ImportResult(pFile, null, err.toString());
+				}
+				return Orphan(pFile, imp);
+			}
+		});
+	}
+
+	// -------------------------------------------------------------------
+	/** Schedules the import of a memory buffer.
+	 *  @param pName Name reported in the result
+	 *  @param pBuffer File data, see Importer.ReadFileFromMemory(). It
+	 *    must not be modified until the import has finished.
+	 *  @param pFlags Post processing steps
+	 *  @param pHint File extension hint for the loader selection
+	 *  @return Future delivering the result, never failing */
+	public Future<ImportResult> SubmitBuffer(final String pName, final ByteBuffer pBuffer, 
+		final int pFlags, final String pHint) {
+		// each task needs its own cursor on the caller's memory
+		final ByteBuffer view = pBuffer.duplicate();
+		return mExecutor.submit(new Callable<ImportResult>() {
+			@Override
+			public ImportResult call() {
+				Importer imp = CreateImporter();
+				try {
+					imp.ReadFileFromMemory(view, pFlags, pHint);
+				} catch (RuntimeException err) {
+					return new ImportResult(pName, null, err.toString());
+				}
+				return Orphan(pName, imp);
+			}
+		});
+	}
+
+	// -------------------------------------------------------------------
+	/** Imports a list of files in parallel and waits for all of them.
+	 *  @param pFiles Paths of the files
+	 *  @param pFlags Post processing steps, applied to every file
+	 *  @return One result per file, in the order of pFiles 
+	 *  @throws InterruptedException If the calling thread is interrupted 
+	 *    while waiting. Imports already running are not cancelled. */
+	public List<ImportResult> ReadFiles(List<String> pFiles, int pFlags) throws InterruptedException {
+		List<Future<ImportResult>> pending = new ArrayList<Future<ImportResult>>(pFiles.size());
+		for (String file : pFiles) {
+			pending.add(Submit(file, pFlags));
+		}
+		return Collect(pFiles, pending);
+	}
+
+	// -------------------------------------------------------------------
+	/** Imports a list of memory buffers in parallel and waits for all 
+	 *  of them.
+	 *  @param pBuffers File data, one buffer per file
+	 *  @param pHints File extension hint per buffer, may be null
+	 *  @param pFlags Post processing steps, applied to every buffer
+	 *  @return One result per buffer, in the order of pBuffers. The 
+	 *    results are named after the index of the buffer. */
+	public List<ImportResult> ReadBuffers(List<ByteBuffer> pBuffers, List<String> pHints, int pFlags) 
+		throws InterruptedException {
+		List<String> names = new ArrayList<String>(pBuffers.size());
+		List<Future<ImportResult>> pending = new ArrayList<Future<ImportResult>>(pBuffers.size());
+		for (int i = 0; i < pBuffers.size(); ++i) {
+			String hint = pHints != null ? pHints.get(i) : "";
+			names.add("buffer " + i);
+			pending.add(SubmitBuffer(names.get(i), pBuffers.get(i), pFlags, hint));
+		}
+		return Collect(names, pending);
+	}
+
+	// -------------------------------------------------------------------
+	/** Creates the Importer for a single run */
+	private Importer CreateImporter() {
+		Importer imp = new Importer();
+		imp.SetConfig(mConfig);
+		if (mIOHandler != null) {
+			imp.SetIOHandler(mIOHandler);
+		}
+		return imp;
+	}
+
+	// -------------------------------------------------------------------
+	/** Takes the scene and the error of a finished run */
+	private static ImportResult Orphan(String pName, Importer pImp) {
+		String error = pImp.GetErrorString();
+		aiScene scene = pImp.GetOrphanedScene();
+		return new ImportResult(pName, scene, scene != null ? "" : error);
+	}
+
+	// -------------------------------------------------------------------
+	/** Waits for all pending imports */
+	private static List<ImportResult> Collect(List<String> pNames, List<Future<ImportResult>> pPending) 
+		throws InterruptedException {
+		List<ImportResult> results = new ArrayList<ImportResult>(pPending.size());
+		for (int i = 0; i < pPending.size(); ++i) {
+			try {
+				results.add(pPending.get(i).get());
+			} catch (ExecutionException err) {
+				results.add(new ImportResult(pNames.get(i), null, String.valueOf(err.getCause())));
+			}
+		}
+		return results;
+	}
+
+}
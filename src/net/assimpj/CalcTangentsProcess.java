@@ -0,0 +1,304 @@
+package net.assimpj;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static net.assimpj.TangentKernel.*;
+
+/** The CalcTangentsProcess calculates the tangent and bitangent for each
+ *  vertex of all meshes with normals and texture coordinates. The
+ *  tangent points where the positive U texture axis points in model
+ *  space, the bitangent along the V axis, with the same handedness as
+ *  upstream assimp.
+ *
+ *  Faces are processed in blocks of #TangentKernel.BLOCK: their edges
+ *  and texture coordinate deltas are gathered from the interleaved
+ *  channels into a block, which the kernel turns into face tangents.
+ *  These are summed per vertex, so meshes don't need to be in verbose
+ *  format, then made orthonormal to the vertex normals block by block.
+ *  The kernel uses the Vector API where available. Finally, the tangents
+ *  of vertices at the same position with the same normal are smoothed
+ *  unless they meet at a larger angle than
+ *  #AI_CONFIG_PP_CT_MAX_SMOOTHING_ANGLE.
+ */
+final class CalcTangentsProcess extends MeshProcess {
+
+	private static final int SLOT_MAX_ANGLE = ImportConfig.GetSlot(aiConfig.AI_CONFIG_PP_CT_MAX_SMOOTHING_ANGLE);
+	private static final int SLOT_UV_CHANNEL = ImportConfig.GetSlot(aiConfig.AI_CONFIG_PP_CT_TEXTURE_CHANNEL_INDEX);
+
+	/** Default smoothing angle, in degrees */
+	static final float DEFAULT_SMOOTHING_ANGLE = 45.f;
+
+	/** Largest smoothing angle, in degrees */
+	static final float MAX_SMOOTHING_ANGLE = 175.f;
+
+	/** Minimum cosine between the normals of vertices to smooth */
+	private static final float NORMAL_EPSILON = 0.9999f;
+
+	/** Configuration option: maximum smoothing angle, in radians */
+	private float configMaxAngle;
+
+	/** Configuration option: source UV channel */
+	private int configSourceUV;
+
+	private TangentKernel mKernel;
+
+	public CalcTangentsProcess() {
+		configMaxAngle = (float)Math.toRadians(DEFAULT_SMOOTHING_ANGLE);
+		configSourceUV = 0;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean IsActive(int pFlags) {
+		return (pFlags & aiPostProcessSteps.aiProcess_CalcTangentSpace) != 0;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean RequireVerboseFormat() {
+		return false;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void SetupProperties(Importer pImp) {
+		// get the current value of the property
+		float angle = pImp.GetConfig().GetFloat(SLOT_MAX_ANGLE, DEFAULT_SMOOTHING_ANGLE);
+		configMaxAngle = (float)Math.toRadians(Math.max(0.f, Math.min(angle, MAX_SMOOTHING_ANGLE)));
+		configSourceUV = pImp.GetConfig().GetInteger(SLOT_UV_CHANNEL, 0);
+		mKernel = TangentKernel.Get();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	MeshProcess NewInstance() {
+		return new CalcTangentsProcess();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void ExecuteOnMesh(aiMesh pMesh, SceneArena pArena, ProgressTracker pTracker) {
+		ProcessMesh(pMesh, pArena, pTracker, mKernel != null ? mKernel : TangentKernel.Get(), configMaxAngle, configSourceUV);
+	}
+
+	// -------------------------------------------------------------------
+	/** Calculates tangents and bitangents for a mesh unless it has some
+	 * @param pMesh Mesh to work at
+	 * @param pArena Arena to allocate the tangents and bitangents from
+	 * @param pTracker Receives the faces and vertices processed
+	 * @param pKernel Kernel to compute with
+	 * @param pMaxAngle Maximum smoothing angle, in radians
+	 * @param pUVChannel Texture coordinate set to follow
+	 * @return true if tangents have been added */
+	static boolean ProcessMesh(aiMesh pMesh, SceneArena pArena, ProgressTracker pTracker, TangentKernel pKernel,
+		float pMaxAngle, int pUVChannel) {
+		if (!ComputeTangents(pMesh, pArena, pTracker, pKernel, pUVChannel)) {
+			return false;
+		}
+		SmoothTangents(pMesh, pTracker, pMaxAngle);
+		return true;
+	}
+
+	// -------------------------------------------------------------------
+	/** Calculates unsmoothed tangents and bitangents for a mesh. Vertices
+	 *  used by points and lines only get qNaN tangents.
+	 * @param pArena Arena to allocate the tangents and bitangents from
+	 * @param pTracker Receives the faces and vertices processed
+	 * @return false if the mesh has tangents already, lacks normals or
+	 *   the texture coordinates or has no faces with an area */
+	static boolean ComputeTangents(aiMesh pMesh, SceneArena pArena, ProgressTracker pTracker, TangentKernel pKernel,
+		int pUVChannel) {
+		// we assume that the mesh is still in the verbose vertex format where each face has its own set
+		// of vertices and no vertices are shared between faces. Tangents are summed per vertex, though,
+		// so shared vertices work as well.
+		if (pMesh.HasTangentsAndBitangents() || !pMesh.HasNormals()) {
+			return false;
+		}
+		if (pUVChannel < 0 || !pMesh.HasTextureCoords(pUVChannel)) {
+			return false;
+		}
+		final IntBuffer faces = pMesh.GetFaces();
+		if (faces == null || (pMesh.GetFaceOffsets() == null && pMesh.GetFaceSize() < 3)) {
+			// tangents are undefined for line and point meshes
+			return false;
+		}
+
+		final FloatBuffer pos = pMesh.GetVertices(), uv = pMesh.GetTextureCoords(pUVChannel);
+		final int numVertices = pMesh.GetNumVertices(), numFaces = pMesh.GetNumFaces();
+		final float[] block = new float[BLOCK_SIZE];
+		final int[] blockFaces = new int[BLOCK];
+
+		// tangent and bitangent sums, 6 floats per vertex
+		final float[] sums = new float[numVertices * 6];
+		int num = 0;
+		boolean any = false;
+		for (int f = 0; f < numFaces; ++f) {
+			pTracker.AddElement(f);
+			int start = pMesh.GetFaceOffset(f);
+			if (pMesh.GetFaceNumIndices(f) < 3) {
+				continue;
+			}
+			any = true;
+
+			// triangle or polygon; we always use only the first three indices
+			int p0 = faces.get(start), p1 = faces.get(start + 1), p2 = faces.get(start + 2);
+			float x0 = pos.get(p0 * 3), y0 = pos.get(p0 * 3 + 1), z0 = pos.get(p0 * 3 + 2);
+			block[E1X + num] = pos.get(p1 * 3) - x0;
+			block[E1Y + num] = pos.get(p1 * 3 + 1) - y0;
+			block[E1Z + num] = pos.get(p1 * 3 + 2) - z0;
+			block[E2X + num] = pos.get(p2 * 3) - x0;
+			block[E2Y + num] = pos.get(p2 * 3 + 1) - y0;
+			block[E2Z + num] = pos.get(p2 * 3 + 2) - z0;
+
+			float u0 = uv.get(p0 * 3), v0 = uv.get(p0 * 3 + 1);
+			block[S1 + num] = uv.get(p1 * 3) - u0;
+			block[T1 + num] = uv.get(p1 * 3 + 1) - v0;
+			block[S2 + num] = uv.get(p2 * 3) - u0;
+			block[T2 + num] = uv.get(p2 * 3 + 1) - v0;
+			blockFaces[num++] = f;
+
+			if (num == BLOCK) {
+				AddFaceTangents(pMesh, pKernel, block, blockFaces, num, sums);
+				num = 0;
+			}
+		}
+		if (!any) {
+			return false;
+		}
+		AddFaceTangents(pMesh, pKernel, block, blockFaces, num, sums);
+
+		// project the sums into the tangent plane of each vertex
+		final FloatBuffer normals = pMesh.GetNormals();
+		final FloatBuffer tangents = pArena.AllocChannel(numVertices, aiMeshConst.AI_VECTOR_COMPONENTS);
+		final FloatBuffer bitangents = pArena.AllocChannel(numVertices, aiMeshConst.AI_VECTOR_COMPONENTS);
+		for (int base = 0; base < numVertices; base += BLOCK) {
+			num = Math.min(BLOCK, numVertices - base);
+			for (int k = 0; k < num; ++k) {
+				pTracker.AddElement(base + k);
+				int i = (base + k) * 3, s = (base + k) * 6;
+				block[NX + k] = normals.get(i);
+				block[NY + k] = normals.get(i + 1);
+				block[NZ + k] = normals.get(i + 2);
+				block[TX + k] = sums[s];
+				block[TY + k] = sums[s + 1];
+				block[TZ + k] = sums[s + 2];
+				block[BX + k] = sums[s + 3];
+				block[BY + k] = sums[s + 4];
+				block[BZ + k] = sums[s + 5];
+			}
+			pKernel.Orthogonalize(block, 0, num);
+			for (int k = 0; k < num; ++k) {
+				int i = (base + k) * 3;
+				tangents.put(i, block[TX + k]).put(i + 1, block[TY + k]).put(i + 2, block[TZ + k]);
+				bitangents.put(i, block[BX + k]).put(i + 1, block[BY + k]).put(i + 2, block[BZ + k]);
+			}
+		}
+		pMesh.SetTangents(tangents);
+		pMesh.SetBitangents(bitangents);
+		return true;
+	}
+
+	// -------------------------------------------------------------------
+	/** Run the kernel over a block of faces and add the results to all
+	 *  vertices of each face */
+	private static void AddFaceTangents(aiMesh pMesh, TangentKernel pKernel, float[] pBlock, int[] pBlockFaces,
+		int pNum, float[] pSums) {
+
+		pKernel.FaceTangents(pBlock, 0, pNum);
+		final IntBuffer faces = pMesh.GetFaces();
+		for (int k = 0; k < pNum; ++k) {
+			int start = pMesh.GetFaceOffset(pBlockFaces[k]), n = pMesh.GetFaceNumIndices(pBlockFaces[k]);
+			float tx = pBlock[TX + k], ty = pBlock[TY + k], tz = pBlock[TZ + k];
+			float bx = pBlock[BX + k], by = pBlock[BY + k], bz = pBlock[BZ + k];
+			for (int c = 0; c < n; ++c) {
+				int s = faces.get(start + c) * 6;
+				pSums[s] += tx;
+				pSums[s + 1] += ty;
+				pSums[s + 2] += tz;
+				pSums[s + 3] += bx;
+				pSums[s + 4] += by;
+				pSums[s + 5] += bz;
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Smooth the tangents and bitangents of vertices at the same position
+	 *  if their normals are equal and their tangents and bitangents are
+	 *  within the smoothing angle of each other.
+	 * @param pMesh Mesh with normals, tangents and bitangents
+	 * @param pTracker Receives the vertices processed
+	 * @param pMaxAngle Maximum smoothing angle, in radians */
+	static void SmoothTangents(aiMesh pMesh, ProgressTracker pTracker, float pMaxAngle) {
+		final int numVertices = pMesh.GetNumVertices();
+		final FloatBuffer pos = pMesh.GetVertices(), normals = pMesh.GetNormals();
+		final FloatBuffer tangents = pMesh.GetTangents(), bitangents = pMesh.GetBitangents();
+		final float limit = (float)Math.cos(pMaxAngle);
+
+		float epsilon = SpatialSort.ComputePositionEpsilon(pos, numVertices);
+		SpatialSort sort = new SpatialSort(pos, numVertices, epsilon);
+		boolean[] done = new boolean[numVertices];
+		int[] found = new int[16], close = new int[16];
+
+		for (int s = 0; s < numVertices; ++s) {
+			pTracker.AddElement(s);
+			int a = sort.GetSortedVertex(s), i = a * 3;
+			if (done[a]) {
+				continue;
+			}
+			done[a] = true;
+			float px = pos.get(i), py = pos.get(i + 1), pz = pos.get(i + 2);
+			int num = sort.FindPositions(px, py, pz, found);
+			if (num > found.length) {
+				found = new int[Integer.highestOneBit(num) << 1];
+				close = new int[found.length];
+				num = sort.FindPositions(px, py, pz, found);
+			}
+
+			// look among them for other vertices sharing the same normal and a close-enough tangent/bitangent
+			float nx = normals.get(i), ny = normals.get(i + 1), nz = normals.get(i + 2);
+			float tx = tangents.get(i), ty = tangents.get(i + 1), tz = tangents.get(i + 2);
+			float bx = bitangents.get(i), by = bitangents.get(i + 1), bz = bitangents.get(i + 2);
+			int numClose = 0;
+			float stx = tx, sty = ty, stz = tz, sbx = bx, sby = by, sbz = bz;
+			for (int k = 0; k < num; ++k) {
+				int b = found[k], j = b * 3;
+				if (done[b]) {
+					continue;
+				}
+				if (!(normals.get(j) * nx + normals.get(j + 1) * ny + normals.get(j + 2) * nz >= NORMAL_EPSILON)) {
+					continue;
+				}
+				float ox = tangents.get(j), oy = tangents.get(j + 1), oz = tangents.get(j + 2);
+				if (!(ox * tx + oy * ty + oz * tz >= limit)) {
+					continue;
+				}
+				float qx = bitangents.get(j), qy = bitangents.get(j + 1), qz = bitangents.get(j + 2);
+				if (!(qx * bx + qy * by + qz * bz >= limit)) {
+					continue;
+				}
+				stx += ox; sty += oy; stz += oz;
+				sbx += qx; sby += qy; sbz += qz;
+				close[numClose++] = b;
+				done[b] = true;
+			}
+			if (numClose == 0) {
+				continue;
+			}
+
+			// smooth the tangents and bitangents of all vertices that were found to be close enough
+			float lt = (float)Math.sqrt(stx * stx + sty * sty + stz * stz);
+			float lb = (float)Math.sqrt(sbx * sbx + sby * sby + sbz * sbz);
+			stx /= lt; sty /= lt; stz /= lt;
+			sbx /= lb; sby /= lb; sbz /= lb;
+			tangents.put(i, stx).put(i + 1, sty).put(i + 2, stz);
+			bitangents.put(i, sbx).put(i + 1, sby).put(i + 2, sbz);
+			for (int k = 0; k < numClose; ++k) {
+				int j = close[k] * 3;
+				tangents.put(j, stx).put(j + 1, sty).put(j + 2, stz);
+				bitangents.put(j, sbx).put(j + 1, sby).put(j + 2, sbz);
+			}
+		}
+	}
+}
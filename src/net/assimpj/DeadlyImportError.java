@@ -0,0 +1,18 @@
+package net.assimpj;
+
+/** FOR IMPORTER PLUGINS ONLY: Simple exception class to be thrown if an 
+ *  unrecoverable error occurs while importing. Loading APIs return
+ *  NULL instead of a valid aiScene then.  */
+public class DeadlyImportError extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Constructor with arguments */
+	public DeadlyImportError(String pErrorText) {
+		super(pErrorText);
+	}
+
+	public DeadlyImportError(String pErrorText, Throwable pCause) {
+		super(pErrorText, pCause);
+	}
+}
@@ -0,0 +1,10 @@
+package net.assimpj;
+
+/** Default implementation of IOSystem, used by the #Importer as long as
+ *  the application doesn't supply its own handler via 
+ *  Importer.SetIOHandler().
+ *
+ *  Files are memory-mapped, see #MappedIOSystem.
+ */
+public class DefaultIOSystem extends MappedIOSystem {
+}
@@ -0,0 +1,12 @@
+package net.assimpj;
+
+/** @brief Internal default implementation of the #ProgressHandler 
+ *  interface. Ignores the updates and never asks to abort. */
+class DefaultProgressHandler extends ProgressHandler {
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean Update(float percentage) {
+		return true;
+	}
+}
@@ -0,0 +1,61 @@
+package net.assimpj;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/** Releases the native memory of direct and mapped buffers without 
+ *  waiting for the garbage collector.
+ *
+ *  This relies on sun.misc.Unsafe.invokeCleaner(), which is available 
+ *  since Java 9. On other runtimes Clean() does nothing and the memory
+ *  is freed as soon as the buffer becomes unreachable.
+ */
+final class DirectBufferCleaner {
+
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> clazz = Class.forName("sun.misc.Unsafe");
+			Field field = clazz.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+			invokeCleaner = clazz.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (Exception err) {
+			unsafe = null;
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	private DirectBufferCleaner() {
+	}
+
+	// -------------------------------------------------------------------
+	/** Frees the memory of a direct buffer.
+	 *
+	 *  Any view created from the buffer (slice(), duplicate(), 
+	 *  asFloatBuffer() ...) becomes invalid, touching it afterwards 
+	 *  crashes the VM. 
+	 *  @param pBuffer Buffer as returned by allocateDirect() or map(),
+	 *    not a view of it. May be null.
+	 *  @return true if the memory has been released */
+	public static boolean Clean(ByteBuffer pBuffer) {
+		if (pBuffer == null || !pBuffer.isDirect() || INVOKE_CLEANER == null) {
+			return false;
+		}
+		try {
+			INVOKE_CLEANER.invoke(UNSAFE, pBuffer);
+			return true;
+		} catch (Exception err) {
+			// views and foreign buffers can't be cleaned - leave it to the GC
+			return false;
+		}
+	}
+
+}
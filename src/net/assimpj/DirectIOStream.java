@@ -0,0 +1,36 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+
+/** 
+ * An IOStream whose whole content is addressable in memory.
+ *
+ * Binary loaders can test for this interface and parse straight from 
+ * the returned views instead of copying the file through Read(). 
+ */
+public interface DirectIOStream extends IOStream {
+
+	/** Get a read-only view of a range of the file.
+	 *
+	 * No data is copied if the range is contiguous in memory. The 
+	 * returned buffer starts at position 0, its limit is pLength and,
+	 * as every new ByteBuffer, it is big endian. Set the byte order 
+	 * the file format requires before reading multi-byte values.
+	 * The view is valid until the stream is closed.
+	 * @param pOffset Offset from the start of the file, in bytes
+	 * @param pLength Number of bytes to be returned
+	 * @return Read-only view of the requested range */
+	ByteBuffer Slice(long pOffset, int pLength);
+
+	/** Get a read-only view of the next bytes of the file and advance 
+	 * the read cursor past them.
+	 * @param pLength Number of bytes to be returned. The view is shorter
+	 *   if the end of the file is reached first.
+	 * @see Slice(long, int) */
+	ByteBuffer ReadSlice(int pLength);
+
+	/** Returns the file size, in bytes. Unlike FileSize() this does
+	 *  not overflow for files larger than 2GB. */
+	long Length();
+
+}
@@ -0,0 +1,249 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Selects the loader for a file by looking at its header once.
+ *
+ *  The signatures of all loaders (see BaseImporter.GetSignatures()) are
+ *  compiled into one Aho-Corasick automaton. Detection reads the first 
+ *  HEADER_SIZE bytes of the file a single time and runs them through the
+ *  automaton, so its cost doesn't depend on the number of loaders. Magic
+ *  tokens at a fixed offset beat keywords, longer tokens beat shorter 
+ *  ones and on ties the loader registered first wins. If no signature 
+ *  matches, the loaders get a chance to claim the file through 
+ *  BaseImporter.CanReadHeader(), on the same header bytes.
+ */
+final class FormatDetector {
+
+	/** Number of bytes read from the start of a file */
+	static final int HEADER_SIZE = 1024;
+
+	/** ASCII lower case mapping for all byte values */
+	private static final byte[] LOWER = new byte[256];
+	static {
+		for (int i = 0; i < 256; ++i) {
+			LOWER[i] = (byte)(i >= 'A' && i <= 'Z' ? i + ('a' - 'A') : i);
+		}
+	}
+
+	/** Loaders, in registration order */
+	private final BaseImporter[] mImporters;
+
+	/** True for loaders which publish at least one signature */
+	private final boolean[] mHasSignatures;
+
+	/** All signatures and the index of the loader owning each */
+	private final FormatSignature[] mPatterns;
+	private final int[] mPatternOwner;
+
+	/** Next pattern ending in the same state, -1 terminated */
+	private final int[] mPatternNext;
+
+	/** Automaton: transition table (256 entries per state), first 
+	 *  pattern ending in a state and nearest state on the failure 
+	 *  chain with patterns of its own (-1 if none). */
+	private final int[] mDelta;
+	private final int[] mStatePatterns;
+	private final int[] mDictLink;
+
+	// -------------------------------------------------------------------
+	/** Compiles the signatures of the given loaders.
+	 * @param pImporters Loaders in registration order */
+	public FormatDetector(List<BaseImporter> pImporters) {
+		mImporters = pImporters.toArray(new BaseImporter[pImporters.size()]);
+		mHasSignatures = new boolean[mImporters.length];
+
+		List<FormatSignature> patterns = new ArrayList<FormatSignature>();
+		List<Integer> owners = new ArrayList<Integer>();
+		List<FormatSignature> tmp = new ArrayList<FormatSignature>();
+		for (int i = 0; i < mImporters.length; ++i) {
+			tmp.clear();
+			mImporters[i].GetSignatures(tmp);
+			mHasSignatures[i] = !tmp.isEmpty();
+			for (FormatSignature sig : tmp) {
+				patterns.add(sig);
+				owners.add(i);
+			}
+		}
+		mPatterns = patterns.toArray(new FormatSignature[patterns.size()]);
+		mPatternOwner = new int[mPatterns.length];
+		mPatternNext = new int[mPatterns.length];
+
+		int maxStates = 1;
+		for (int p = 0; p < mPatterns.length; ++p) {
+			mPatternOwner[p] = owners.get(p);
+			maxStates += mPatterns[p].mToken.length;
+		}
+
+		// build the trie on lower case tokens, case sensitive ones are verified on a hit
+		int[] delta = new int[maxStates * 256];
+		Arrays.fill(delta, -1);
+		int[] statePatterns = new int[maxStates];
+		Arrays.fill(statePatterns, -1);
+		int numStates = 1;
+		for (int p = 0; p < mPatterns.length; ++p) {
+			int state = 0;
+			for (byte b : mPatterns[p].mToken) {
+				int c = LOWER[b & 0xff] & 0xff;
+				if (delta[state * 256 + c] < 0) {
+					delta[state * 256 + c] = numStates++;
+				}
+				state = delta[state * 256 + c];
+			}
+			mPatternNext[p] = statePatterns[state];
+			statePatterns[state] = p;
+		}
+
+		// breadth-first: failure links, complete transitions, dictionary links
+		int[] fail = new int[numStates];
+		int[] dict = new int[numStates];
+		int[] queue = new int[numStates];
+		int head = 0, tail = 0;
+		dict[0] = -1;
+		for (int c = 0; c < 256; ++c) {
+			int next = delta[c];
+			if (next < 0) {
+				delta[c] = 0;
+			} else {
+				fail[next] = 0;
+				dict[next] = -1;
+				queue[tail++] = next;
+			}
+		}
+		while (head < tail) {
+			int state = queue[head++];
+			for (int c = 0; c < 256; ++c) {
+				int next = delta[state * 256 + c];
+				int viaFail = delta[fail[state] * 256 + c];
+				if (next < 0) {
+					delta[state * 256 + c] = viaFail;
+				} else {
+					fail[next] = viaFail;
+					dict[next] = statePatterns[viaFail] >= 0 ? viaFail : dict[viaFail];
+					queue[tail++] = next;
+				}
+			}
+		}
+
+		mDelta = Arrays.copyOf(delta, numStates * 256);
+		mStatePatterns = Arrays.copyOf(statePatterns, numStates);
+		mDictLink = dict;
+	}
+
+	// -------------------------------------------------------------------
+	/** Checks whether a loader publishes signatures. Loaders which don't
+	 *  can only be found through their own CanRead(). */
+	public boolean HasSignatures(BaseImporter pImp) {
+		for (int i = 0; i < mImporters.length; ++i) {
+			if (mImporters[i] == pImp) {
+				return mHasSignatures[i];
+			}
+		}
+		return false;
+	}
+
+	// -------------------------------------------------------------------
+	/** Reads the header of a file and selects a loader for it.
+	 * @param pFile Path of the file
+	 * @param pIOHandler IO system to read the file with
+	 * @return The loader, NULL if no loader recognizes the file */
+	public BaseImporter Detect(String pFile, IOSystem pIOHandler) {
+		IOStream stream = pIOHandler.Open(pFile, "rb");
+		if (stream == null) {
+			return null;
+		}
+		long fileSize;
+		ByteBuffer header;
+		try {
+			fileSize = stream instanceof DirectIOStream ? ((DirectIOStream)stream).Length() : stream.FileSize();
+			header = ByteBuffer.allocate((int)Math.min(HEADER_SIZE, fileSize));
+			stream.Read(header, 1, header.capacity());
+			header.flip();
+		} finally {
+			pIOHandler.Close(stream);
+		}
+		return Detect(pFile, header, fileSize);
+	}
+
+	// -------------------------------------------------------------------
+	/** Selects a loader from the header of a file.
+	 * @param pFile Path of the file, for the loaders
+	 * @param pHeader First bytes of the file, from position to limit
+	 * @param pFileSize Total size of the file
+	 * @return The loader, NULL if no loader recognizes the file */
+	public BaseImporter Detect(String pFile, ByteBuffer pHeader, long pFileSize) {
+		byte[] raw = new byte[pHeader.remaining()];
+		pHeader.duplicate().get(raw);
+
+		// rudimentary UTF-16 handling: drop the zero bytes, keywords are ASCII
+		byte[] text = raw;
+		boolean utf16 = raw.length >= 2 && ((raw[0] == (byte)0xff && raw[1] == (byte)0xfe) 
+			|| (raw[0] == (byte)0xfe && raw[1] == (byte)0xff));
+		if (utf16) {
+			int n = 0;
+			text = new byte[raw.length];
+			for (byte b : raw) {
+				if (b != 0) {
+					text[n++] = b;
+				}
+			}
+			text = Arrays.copyOf(text, n);
+		}
+
+		int best = -1;
+		int bestScore = 0;
+		int state = 0;
+		for (int i = 0; i < text.length; ++i) {
+			state = mDelta[state * 256 + (LOWER[text[i] & 0xff] & 0xff)];
+			for (int s = mStatePatterns[state] >= 0 ? state : mDictLink[state]; s >= 0; s = mDictLink[s]) {
+				for (int p = mStatePatterns[s]; p >= 0; p = mPatternNext[p]) {
+					FormatSignature sig = mPatterns[p];
+					int start = i - sig.mToken.length + 1;
+					if (!Accept(sig, text, start, utf16)) {
+						continue;
+					}
+					int score = (sig.IsMagic() ? 1 << 16 : 0) + sig.mToken.length;
+					int owner = mPatternOwner[p];
+					if (score > bestScore || (score == bestScore && owner < best)) {
+						best = owner;
+						bestScore = score;
+					}
+				}
+			}
+		}
+		if (best >= 0) {
+			return mImporters[best];
+		}
+
+		// no signature, let the loaders look at the header themselves
+		for (BaseImporter imp : mImporters) {
+			if (imp.CanReadHeader(pFile, ByteBuffer.wrap(raw).asReadOnlyBuffer(), pFileSize)) {
+				return imp;
+			}
+		}
+		return null;
+	}
+
+	// -------------------------------------------------------------------
+	/** Verifies the constraints of a signature the automaton has found */
+	private static boolean Accept(FormatSignature pSig, byte[] pText, int pStart, boolean pStripped) {
+		if (pSig.IsMagic() && (pStripped || pStart != pSig.mOffset)) {
+			return false;
+		}
+		if (pSig.mLineStart && pStart > 0 && pText[pStart - 1] != '\n' && pText[pStart - 1] != '\r') {
+			return false;
+		}
+		if (pSig.mCaseSensitive) {
+			for (int k = 0; k < pSig.mToken.length; ++k) {
+				if (pText[pStart + k] != pSig.mToken[k]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+}
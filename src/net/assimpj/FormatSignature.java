@@ -0,0 +1,68 @@
+package net.assimpj;
+
+import java.nio.charset.Charset;
+
+/** A token identifying a file format in the header of a file.
+ *
+ *  Loaders publish their signatures via BaseImporter.GetSignatures().
+ *  The #FormatDetector matches the signatures of all registered loaders
+ *  against the header of a file in a single pass. 
+ */
+public final class FormatSignature {
+
+	/** The token, as it appears in the file */
+	final byte[] mToken;
+
+	/** Offset the token must start at, -1 if it may appear anywhere in
+	 *  the header */
+	final int mOffset;
+
+	/** True if the token must match exactly, false if ASCII letters 
+	 *  match regardless of their case */
+	final boolean mCaseSensitive;
+
+	/** True if the token must be at the start of a line */
+	final boolean mLineStart;
+
+	private FormatSignature(byte[] pToken, int pOffset, boolean pCaseSensitive, boolean pLineStart) {
+		if (pToken.length == 0) {
+			throw new IllegalArgumentException("[FormatSignature] Empty token");
+		}
+		mToken = pToken;
+		mOffset = pOffset;
+		mCaseSensitive = pCaseSensitive;
+		mLineStart = pLineStart;
+	}
+
+	// -------------------------------------------------------------------
+	/** Binary magic bytes at a fixed position.
+	 *  @param pToken Magic bytes, compared exactly
+	 *  @param pOffset Offset from the start of the file */
+	public static FormatSignature Magic(byte[] pToken, int pOffset) {
+		return new FormatSignature(pToken.clone(), pOffset, true, false);
+	}
+
+	// -------------------------------------------------------------------
+	/** ASCII magic word at a fixed position, i.e. "ply" at offset 0.
+	 *  @param pToken Magic word, compared exactly
+	 *  @param pOffset Offset from the start of the file */
+	public static FormatSignature Magic(String pToken, int pOffset) {
+		return new FormatSignature(pToken.getBytes(Charset.forName("US-ASCII")), pOffset, true, false);
+	}
+
+	// -------------------------------------------------------------------
+	/** Keyword appearing anywhere in the header of a text file. The 
+	 *  comparison is case independent, as in SearchFileHeaderForToken().
+	 *  @param pToken Keyword
+	 *  @param pLineStart True if the keyword must start a line */
+	public static FormatSignature Keyword(String pToken, boolean pLineStart) {
+		return new FormatSignature(pToken.getBytes(Charset.forName("US-ASCII")), -1, false, pLineStart);
+	}
+
+	/** True for magic at a fixed offset, which identifies a format much
+	 *  more reliably than a keyword */
+	boolean IsMagic() {
+		return mOffset >= 0;
+	}
+
+}
@@ -0,0 +1,194 @@
+package net.assimpj;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/** The GenFaceNormalsProcess computes face normals for all faces of all
+ *  meshes without normals. Each vertex gets the normal of its face. The
+ *  scene doesn't need to be in verbose format: vertices shared by 
+ *  several faces are duplicated first, so each face is shaded flat. 
+ *  Meshes with bones are the exception, their weights can't be remapped
+ *  through the mesh API, so shared vertices get the area-weighted 
+ *  average of the normals of their faces. Vertices used by points and 
+ *  lines only, or by faces without an area, get qNaN normals.
+ */
+final class GenFaceNormalsProcess extends MeshProcess {
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean IsActive(int pFlags) {
+		return (pFlags & aiPostProcessSteps.aiProcess_GenNormals) != 0;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean RequireVerboseFormat() {
+		return false;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void SetupProperties(Importer pImp) {
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	MeshProcess NewInstance() {
+		return new GenFaceNormalsProcess();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void ExecuteOnMesh(aiMesh pMesh, SceneArena pArena, ProgressTracker pTracker) {
+		GenMeshFaceNormals(pMesh, pArena, pTracker);
+	}
+
+	// -------------------------------------------------------------------
+	/** Computes the normals of a mesh unless it has some
+	 * @param pMesh Mesh to work at
+	 * @param pArena Arena to allocate the normals from
+	 * @param pTracker Receives the faces and vertices processed
+	 * @return true if normals have been added */
+	static boolean GenMeshFaceNormals(aiMesh pMesh, SceneArena pArena, ProgressTracker pTracker) {
+		if (pMesh.HasNormals() || !pMesh.HasPositions()) {
+			return false;
+		}
+		if (!pMesh.HasBones()) {
+			UnshareVertices(pMesh, pArena);
+		}
+		final int numVertices = pMesh.GetNumVertices();
+		float[] sums = new float[numVertices * 3];
+		if (!AccumulateFaceNormals(pMesh, sums, pTracker)) {
+			return false;
+		}
+
+		FloatBuffer normals = pArena.AllocChannel(numVertices, aiMeshConst.AI_VECTOR_COMPONENTS);
+		for (int v = 0; v < numVertices; ++v) {
+			int i = v * 3;
+			float x = sums[i], y = sums[i + 1], z = sums[i + 2];
+			float len = (float)Math.sqrt(x * x + y * y + z * z);
+			if (len > 0.f) {
+				normals.put(i, x / len).put(i + 1, y / len).put(i + 2, z / len);
+			} else {
+				normals.put(i, Float.NaN).put(i + 1, Float.NaN).put(i + 2, Float.NaN);
+			}
+			pTracker.AddElement(v);
+		}
+		pMesh.SetNormals(normals);
+		return true;
+	}
+
+	// -------------------------------------------------------------------
+	/** Give each face its own vertices. The first face using a vertex
+	 *  keeps it, the others get copies. Points and lines don't have a
+	 *  normal of their own and keep sharing the vertices of faces.
+	 * @param pMesh Mesh to work at
+	 * @param pArena Arena to allocate the new channels and faces from
+	 * @return false if no vertex was shared */
+	static boolean UnshareVertices(aiMesh pMesh, SceneArena pArena) {
+		final IntBuffer faces = pMesh.GetFaces();
+		final int numVertices = pMesh.GetNumVertices(), numFaces = pMesh.GetNumFaces();
+		if (faces == null || (pMesh.GetFaceOffsets() == null && pMesh.GetFaceSize() < 3)) {
+			return false;
+		}
+
+		// face owning each vertex, and the source of each copy
+		final int[] owner = new int[numVertices];
+		Arrays.fill(owner, -1);
+		int[] source = null;
+		int[] indices = null;
+		int num = numVertices;
+		for (int f = 0; f < numFaces; ++f) {
+			int start = pMesh.GetFaceOffset(f), n = pMesh.GetFaceNumIndices(f);
+			if (n < 3) {
+				continue;
+			}
+			for (int k = start; k < start + n; ++k) {
+				int v = faces.get(k);
+				if (owner[v] < 0) {
+					owner[v] = f;
+				} else if (owner[v] != f) {
+					if (source == null) {
+						source = new int[numVertices + pMesh.GetNumIndices()];
+						for (int i = 0; i < numVertices; ++i) {
+							source[i] = i;
+						}
+						indices = new int[pMesh.GetNumIndices()];
+						for (int i = 0; i < indices.length; ++i) {
+							indices[i] = faces.get(i);
+						}
+					}
+					source[num] = v;
+					indices[k] = num++;
+				}
+			}
+		}
+		if (source == null) {
+			return false;
+		}
+
+		JoinVerticesProcess.RemapChannels(pMesh, pArena, source, num);
+		IntBuffer out = pArena.AllocInts(indices.length).put(0, indices);
+		if (pMesh.GetFaceOffsets() != null) {
+			pMesh.SetFaces(out, pMesh.GetFaceOffsets());
+		} else {
+			pMesh.SetFaces(out, numFaces, pMesh.GetFaceSize());
+		}
+		return true;
+	}
+
+	// -------------------------------------------------------------------
+	/** Add the normal of each face to its vertices. The normals aren't
+	 *  normalized, their length is twice the area of the face. Faces
+	 *  with more than three indices use the Newell normal.
+	 * @param pMesh Mesh to work at
+	 * @param pOut Receives 3 floats per vertex, zero for vertices used
+	 *   by points and lines only
+	 * @param pTracker Receives the faces processed
+	 * @return false if the mesh has no faces with an area */
+	static boolean AccumulateFaceNormals(aiMesh pMesh, float[] pOut, ProgressTracker pTracker) {
+		final FloatBuffer pos = pMesh.GetVertices();
+		final IntBuffer faces = pMesh.GetFaces();
+		final int numFaces = pMesh.GetNumFaces();
+		if (faces == null || (pMesh.GetFaceOffsets() == null && pMesh.GetFaceSize() < 3)) {
+			return false;
+		}
+
+		boolean any = false;
+		for (int f = 0; f < numFaces; ++f) {
+			pTracker.AddElement(f);
+			int start = pMesh.GetFaceOffset(f), n = pMesh.GetFaceNumIndices(f);
+			if (n < 3) {
+				continue;
+			}
+			any = true;
+			float nx = 0.f, ny = 0.f, nz = 0.f;
+			if (n == 3) {
+				int a = faces.get(start) * 3, b = faces.get(start + 1) * 3, c = faces.get(start + 2) * 3;
+				float ax = pos.get(a), ay = pos.get(a + 1), az = pos.get(a + 2);
+				float ux = pos.get(b) - ax, uy = pos.get(b + 1) - ay, uz = pos.get(b + 2) - az;
+				float vx = pos.get(c) - ax, vy = pos.get(c + 1) - ay, vz = pos.get(c + 2) - az;
+				nx = uy * vz - uz * vy;
+				ny = uz * vx - ux * vz;
+				nz = ux * vy - uy * vx;
+			} else {
+				for (int k = 0, prev = n - 1; k < n; prev = k++) {
+					int a = faces.get(start + prev) * 3, b = faces.get(start + k) * 3;
+					float ax = pos.get(a), ay = pos.get(a + 1), az = pos.get(a + 2);
+					float bx = pos.get(b), by = pos.get(b + 1), bz = pos.get(b + 2);
+					nx += (ay - by) * (az + bz);
+					ny += (az - bz) * (ax + bx);
+					nz += (ax - bx) * (ay + by);
+				}
+			}
+			for (int k = 0; k < n; ++k) {
+				int v = faces.get(start + k) * 3;
+				pOut[v] += nx;
+				pOut[v + 1] += ny;
+				pOut[v + 2] += nz;
+			}
+		}
+		return any;
+	}
+}
@@ -0,0 +1,247 @@
+package net.assimpj;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/** The GenVertexNormalsProcess computes smooth vertex normals for all
+ *  meshes without normals.
+ *
+ *  The normal of a vertex is the area-weighted sum of the normals of the
+ *  faces at all vertices within a small epsilon of its position, found
+ *  with a #SpatialSort. Faces whose normal is at a larger angle to the
+ *  vertex' own than #AI_CONFIG_PP_GSN_MAX_SMOOTHING_ANGLE are left out,
+ *  which keeps such edges sharp. With such an angle, vertices shared by
+ *  several faces are duplicated first, as in #GenFaceNormalsProcess, so
+ *  each face can be left out on its own. Each normal depends on the 
+ *  input only, so vertex ranges are smoothed in parallel if the Importer
+ *  has a post-processing pool. Vertices are visited in the order of the
+ *  sort, and without a smoothing angle all vertices at the same position
+ *  share a single lookup.
+ */
+final class GenVertexNormalsProcess extends MeshProcess {
+
+	private static final int SLOT_MAX_ANGLE = ImportConfig.GetSlot(aiConfig.AI_CONFIG_PP_GSN_MAX_SMOOTHING_ANGLE);
+
+	/** Largest smoothing angle, in degrees. Above it all faces at a
+	 *  vertex are smoothed. */
+	static final float MAX_SMOOTHING_ANGLE = 175.f;
+
+	/** Configuration option: maximum smoothing angle, in radians */
+	private float configMaxAngle;
+
+	/** Pool to smooth large meshes on, NULL to stay on one thread */
+	private ForkJoinPool mPool;
+
+	public GenVertexNormalsProcess() {
+		configMaxAngle = (float)Math.toRadians(MAX_SMOOTHING_ANGLE);
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean IsActive(int pFlags) {
+		return (pFlags & aiPostProcessSteps.aiProcess_GenSmoothNormals) != 0;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean RequireVerboseFormat() {
+		return false;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void SetupProperties(Importer pImp) {
+		// get the current value of the property
+		float angle = pImp.GetConfig().GetFloat(SLOT_MAX_ANGLE, MAX_SMOOTHING_ANGLE);
+		configMaxAngle = (float)Math.toRadians(Math.max(0.f, Math.min(angle, MAX_SMOOTHING_ANGLE)));
+		mPool = pImp.GetPostProcessingPool();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	MeshProcess NewInstance() {
+		return new GenVertexNormalsProcess();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void ExecuteOnMesh(aiMesh pMesh, SceneArena pArena, ProgressTracker pTracker) {
+		GenMeshVertexNormals(pMesh, pArena, pTracker, configMaxAngle, mPool);
+	}
+
+	// -------------------------------------------------------------------
+	/** Computes smooth normals for a mesh unless it has some
+	 * @param pMesh Mesh to work at
+	 * @param pArena Arena to allocate the normals from
+	 * @param pTracker Receives the faces and vertices processed
+	 * @param pMaxAngle Maximum smoothing angle, in radians
+	 * @param pPool Pool to run on, NULL for the calling thread
+	 * @return true if normals have been added */
+	static boolean GenMeshVertexNormals(aiMesh pMesh, SceneArena pArena, ProgressTracker pTracker, float pMaxAngle,
+		ForkJoinPool pPool) {
+		if (pMesh.HasNormals() || !pMesh.HasPositions()) {
+			return false;
+		}
+		final boolean smoothAll = pMaxAngle >= Math.toRadians(MAX_SMOOTHING_ANGLE);
+		if (!smoothAll && !pMesh.HasBones()) {
+			// the sum at a shared vertex would mix the faces to compare
+			GenFaceNormalsProcess.UnshareVertices(pMesh, pArena);
+		}
+		final int numVertices = pMesh.GetNumVertices();
+		final float[] sums = new float[numVertices * 3];
+		if (!GenFaceNormalsProcess.AccumulateFaceNormals(pMesh, sums, pTracker)) {
+			return false;
+		}
+
+		FloatBuffer pos = pMesh.GetVertices();
+		float epsilon = SpatialSort.ComputePositionEpsilon(pos, numVertices);
+		Smoother smoother = new Smoother(pos, sums, new SpatialSort(pos, numVertices, epsilon),
+			smoothAll ? -2.f : (float)Math.cos(pMaxAngle),
+			pArena.AllocChannel(numVertices, aiMeshConst.AI_VECTOR_COMPONENTS), pTracker);
+
+		if (pPool == null || numVertices <= MIN_PARALLEL_COST) {
+			smoother.Smooth(0, numVertices);
+		} else {
+			SmoothTask task = new SmoothTask(smoother, 0, numVertices);
+			if (ForkJoinTask.inForkJoinPool()) {
+				task.invoke();
+			} else {
+				pPool.invoke(task);
+			}
+		}
+		pMesh.SetNormals(smoother.mNormals);
+		return true;
+	}
+
+	// -------------------------------------------------------------------
+	/** Smooths the normals of a range of vertices */
+	private static final class Smoother {
+
+		final FloatBuffer mPositions;
+
+		/** Area-weighted face normals summed per vertex */
+		final float[] mSums;
+
+		/** Length of each sum, 0 for vertices without faces */
+		final float[] mLengths;
+
+		final SpatialSort mSort;
+
+		/** Cosine of the smoothing angle, below -1 to smooth all */
+		final float mMinCos;
+
+		final FloatBuffer mNormals;
+
+		/** Set for vertices whose normal has been written along with that
+		 *  of a vertex at the same position. Races only cost a lookup. */
+		final boolean[] mDone;
+
+		/** Receives the vertices smoothed, from any thread */
+		final ProgressTracker mTracker;
+
+		Smoother(FloatBuffer pPositions, float[] pSums, SpatialSort pSort, float pMinCos, FloatBuffer pNormals,
+			ProgressTracker pTracker) {
+			mPositions = pPositions;
+			mSums = pSums;
+			mSort = pSort;
+			mMinCos = pMinCos;
+			mNormals = pNormals;
+			mTracker = pTracker;
+			mLengths = new float[pSums.length / 3];
+			mDone = pMinCos < -1.f ? new boolean[mLengths.length] : null;
+			for (int v = 0; v < mLengths.length; ++v) {
+				float x = pSums[v * 3], y = pSums[v * 3 + 1], z = pSums[v * 3 + 2];
+				mLengths[v] = (float)Math.sqrt(x * x + y * y + z * z);
+			}
+		}
+
+		/** Smooth the vertices in a range of the sort */
+		void Smooth(int pBegin, int pEnd) {
+			int[] found = new int[16];
+			for (int s = pBegin; s < pEnd; ++s) {
+				mTracker.AddElement(s);
+				int v = mSort.GetSortedVertex(s), i = v * 3;
+				if (mDone != null && mDone[v]) {
+					continue;
+				}
+				if (!(mLengths[v] > 0.f)) {
+					// points, lines or degenerate faces only
+					mNormals.put(i, Float.NaN).put(i + 1, Float.NaN).put(i + 2, Float.NaN);
+					continue;
+				}
+				float px = mPositions.get(i), py = mPositions.get(i + 1), pz = mPositions.get(i + 2);
+				int num = mSort.FindPositions(px, py, pz, found);
+				if (num > found.length) {
+					found = new int[Integer.highestOneBit(num) << 1];
+					num = mSort.FindPositions(px, py, pz, found);
+				}
+
+				float dx = mSums[i] / mLengths[v], dy = mSums[i + 1] / mLengths[v], dz = mSums[i + 2] / mLengths[v];
+				float x = 0.f, y = 0.f, z = 0.f;
+				for (int k = 0; k < num; ++k) {
+					int j = found[k] * 3;
+					float sx = mSums[j], sy = mSums[j + 1], sz = mSums[j + 2];
+					if (mMinCos >= -1.f && !((dx * sx + dy * sy + dz * sz) >= mMinCos * mLengths[found[k]])) {
+						continue;
+					}
+					x += sx;
+					y += sy;
+					z += sz;
+				}
+				float len = (float)Math.sqrt(x * x + y * y + z * z);
+				if (len > 0.f) {
+					x /= len;
+					y /= len;
+					z /= len;
+				} else {
+					// opposite faces cancelled out, keep the vertex' own
+					x = dx;
+					y = dy;
+					z = dz;
+				}
+				mNormals.put(i, x).put(i + 1, y).put(i + 2, z);
+
+				if (mDone != null) {
+					// same position, same neighbours and no angle to check
+					for (int k = 0; k < num; ++k) {
+						int w = found[k], j = w * 3;
+						if (w != v && mLengths[w] > 0.f && mPositions.get(j) == px
+							&& mPositions.get(j + 1) == py && mPositions.get(j + 2) == pz) {
+							mNormals.put(j, x).put(j + 1, y).put(j + 2, z);
+							mDone[w] = true;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Splits the sorted vertices into ranges of #MIN_PARALLEL_COST */
+	private static final class SmoothTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Smoother mSmoother;
+		private final int mBegin;
+		private final int mEnd;
+
+		SmoothTask(Smoother pSmoother, int pBegin, int pEnd) {
+			mSmoother = pSmoother;
+			mBegin = pBegin;
+			mEnd = pEnd;
+		}
+
+		@Override
+		protected void compute() {
+			if (mEnd - mBegin <= MIN_PARALLEL_COST) {
+				mSmoother.Smooth(mBegin, mEnd);
+				return;
+			}
+			int split = (mBegin + mEnd) >>> 1;
+			invokeAll(new SmoothTask(mSmoother, mBegin, split), new SmoothTask(mSmoother, split, mEnd));
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package net.assimpj;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.lwjgl.util.vector.Matrix4f;
+
+/** Frozen set of configuration properties for an import.
+ *
+ *  Every property name is resolved once to a fixed slot index, shared 
+ *  by all configurations. Loaders and post-processing steps resolve the
+ *  slots of the properties they read when their class is initialized:
+ *  @code
+ *  private static final int SLOT_MAX_ANGLE = ImportConfig.GetSlot(aiConfig.AI_CONFIG_PP_GSN_MAX_SMOOTHING_ANGLE);
+ *  ...
+ *  float angle = pImp.GetConfig().GetFloat(SLOT_MAX_ANGLE, 175.f);
+ *  @endcode
+ *  which is a plain array access, no hashing and no boxing. The name 
+ *  based getters are there for convenience.
+ *  <br>
+ *  Integer, float, string and matrix properties are kept in separate 
+ *  typed slots, as in the Importer. An ImportConfig never changes after 
+ *  #Builder.Build(), so a single instance can be shared by any number of
+ *  concurrent imports. Matrices returned by the getters must not be 
+ *  modified.
+ */
+public final class ImportConfig {
+
+	/** Property name to slot index, shared by all configurations */
+	private static final ConcurrentHashMap<String, Integer> sSlots = new ConcurrentHashMap<String, Integer>();
+
+	/** Number of slots assigned so far */
+	private static int sNumSlots = 0;
+
+	/** An empty configuration */
+	public static final ImportConfig EMPTY = new Builder().Build();
+
+	private final int[] mInts;
+	private final long[] mIntsSet;
+	private final float[] mFloats;
+	private final long[] mFloatsSet;
+	private final String[] mStrings;
+	private final Matrix4f[] mMatrices;
+
+	private ImportConfig(Builder pBuilder) {
+		mInts = Arrays.copyOf(pBuilder.mInts, pBuilder.mInts.length);
+		mIntsSet = Arrays.copyOf(pBuilder.mIntsSet, pBuilder.mIntsSet.length);
+		mFloats = Arrays.copyOf(pBuilder.mFloats, pBuilder.mFloats.length);
+		mFloatsSet = Arrays.copyOf(pBuilder.mFloatsSet, pBuilder.mFloatsSet.length);
+		mStrings = Arrays.copyOf(pBuilder.mStrings, pBuilder.mStrings.length);
+		mMatrices = new Matrix4f[pBuilder.mMatrices.length];
+		for (int i = 0; i < mMatrices.length; ++i) {
+			if (pBuilder.mMatrices[i] != null) {
+				mMatrices[i] = new Matrix4f(pBuilder.mMatrices[i]);
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Resolves a property name to its slot index.
+	 *
+	 *  Unknown names get the next free slot. The result for a given name
+	 *  never changes, so it can be kept in a static final field.
+	 *  @param pName Name of the property, one of the AI_CONFIG_XXX keys
+	 *  @return Slot index of the property */
+	public static int GetSlot(String pName) {
+		Integer slot = sSlots.get(pName);
+		if (slot != null) {
+			return slot;
+		}
+		synchronized (sSlots) {
+			slot = sSlots.get(pName);
+			if (slot == null) {
+				slot = sNumSlots++;
+				sSlots.put(pName, slot);
+			}
+			return slot;
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Get an integer property by slot.
+	 *  @param pSlot Slot index, see GetSlot()
+	 *  @param iErrorReturn Value returned if the property isn't set */
+	public int GetInteger(int pSlot, int iErrorReturn) {
+		return IsSet(mIntsSet, pSlot) ? mInts[pSlot] : iErrorReturn;
+	}
+
+	//! Get a boolean property by slot. Booleans are integer properties.
+	public boolean GetBool(int pSlot, boolean bErrorReturn) {
+		return GetInteger(pSlot, bErrorReturn ? 1 : 0) != 0;
+	}
+
+	//! Get a floating-point property by slot
+	public float GetFloat(int pSlot, float fErrorReturn) {
+		return IsSet(mFloatsSet, pSlot) ? mFloats[pSlot] : fErrorReturn;
+	}
+
+	//! Get a string property by slot
+	public String GetString(int pSlot, String sErrorReturn) {
+		String s = pSlot < mStrings.length ? mStrings[pSlot] : null;
+		return s != null ? s : sErrorReturn;
+	}
+
+	//! Get a matrix property by slot. The result must not be modified.
+	public Matrix4f GetMatrix(int pSlot, Matrix4f sErrorReturn) {
+		Matrix4f m = pSlot < mMatrices.length ? mMatrices[pSlot] : null;
+		return m != null ? m : sErrorReturn;
+	}
+
+	// -------------------------------------------------------------------
+	// Name based access, resolving the slot on every call.
+
+	public int GetPropertyInteger(String szName, int iErrorReturn) {
+		return GetInteger(GetSlot(szName), iErrorReturn);
+	}
+
+	public boolean GetPropertyBool(String szName, boolean bErrorReturn) {
+		return GetBool(GetSlot(szName), bErrorReturn);
+	}
+
+	public float GetPropertyFloat(String szName, float fErrorReturn) {
+		return GetFloat(GetSlot(szName), fErrorReturn);
+	}
+
+	public String GetPropertyString(String szName, String sErrorReturn) {
+		return GetString(GetSlot(szName), sErrorReturn);
+	}
+
+	public Matrix4f GetPropertyMatrix(String szName, Matrix4f sErrorReturn) {
+		return GetMatrix(GetSlot(szName), sErrorReturn);
+	}
+
+	private static boolean IsSet(long[] pBits, int pSlot) {
+		int word = pSlot >>> 6;
+		return word < pBits.length && (pBits[word] & (1L << pSlot)) != 0;
+	}
+
+	// -------------------------------------------------------------------
+	/** Mutable set of properties, frozen into an ImportConfig by Build().
+	 *  Builders are not thread-safe. */
+	public static final class Builder {
+
+		private int[] mInts = new int[0];
+		private long[] mIntsSet = new long[0];
+		private float[] mFloats = new float[0];
+		private long[] mFloatsSet = new long[0];
+		private String[] mStrings = new String[0];
+		private Matrix4f[] mMatrices = new Matrix4f[0];
+
+		public Builder() {
+		}
+
+		//! Start from the properties of an existing configuration
+		public Builder(ImportConfig pConfig) {
+			mInts = Arrays.copyOf(pConfig.mInts, pConfig.mInts.length);
+			mIntsSet = Arrays.copyOf(pConfig.mIntsSet, pConfig.mIntsSet.length);
+			mFloats = Arrays.copyOf(pConfig.mFloats, pConfig.mFloats.length);
+			mFloatsSet = Arrays.copyOf(pConfig.mFloatsSet, pConfig.mFloatsSet.length);
+			mStrings = Arrays.copyOf(pConfig.mStrings, pConfig.mStrings.length);
+			mMatrices = Arrays.copyOf(pConfig.mMatrices, pConfig.mMatrices.length);
+		}
+
+		// -------------------------------------------------------------------
+		/** Set an integer property.
+		 *  @return true if the property was set before */
+		public boolean SetPropertyInteger(String szName, int iValue) {
+			int slot = GetSlot(szName);
+			if (slot >= mInts.length) {
+				mInts = Arrays.copyOf(mInts, slot + 1);
+				mIntsSet = Arrays.copyOf(mIntsSet, (slot >>> 6) + 1);
+			}
+			boolean existing = IsSet(mIntsSet, slot);
+			mInts[slot] = iValue;
+			mIntsSet[slot >>> 6] |= 1L << slot;
+			return existing;
+		}
+
+		//! Set a boolean property, stored as integer property
+		public boolean SetPropertyBool(String szName, boolean value) {
+			return SetPropertyInteger(szName, value ? 1 : 0);
+		}
+
+		//! Set a floating-point property
+		public boolean SetPropertyFloat(String szName, float fValue) {
+			int slot = GetSlot(szName);
+			if (slot >= mFloats.length) {
+				mFloats = Arrays.copyOf(mFloats, slot + 1);
+				mFloatsSet = Arrays.copyOf(mFloatsSet, (slot >>> 6) + 1);
+			}
+			boolean existing = IsSet(mFloatsSet, slot);
+			mFloats[slot] = fValue;
+			mFloatsSet[slot >>> 6] |= 1L << slot;
+			return existing;
+		}
+
+		//! Set a string property
+		public boolean SetPropertyString(String szName, String sValue) {
+			int slot = GetSlot(szName);
+			if (slot >= mStrings.length) {
+				mStrings = Arrays.copyOf(mStrings, slot + 1);
+			}
+			boolean existing = mStrings[slot] != null;
+			mStrings[slot] = sValue;
+			return existing;
+		}
+
+		//! Set a matrix property. The matrix is copied by Build().
+		public boolean SetPropertyMatrix(String szName, Matrix4f sValue) {
+			int slot = GetSlot(szName);
+			if (slot >= mMatrices.length) {
+				mMatrices = Arrays.copyOf(mMatrices, slot + 1);
+			}
+			boolean existing = mMatrices[slot] != null;
+			mMatrices[slot] = sValue;
+			return existing;
+		}
+
+		//! Freeze the current properties
+		public ImportConfig Build() {
+			return new ImportConfig(this);
+		}
+	}
+
+}
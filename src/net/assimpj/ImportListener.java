@@ -0,0 +1,39 @@
+package net.assimpj;
+
+/** Receives the parts of a scene while it is imported, see
+ *  Importer.ReadFile(String, int, ImportListener).
+ *
+ *  Materials come first, then the meshes, each as soon as the loader has
+ *  built it and the post-processing steps which work on single meshes
+ *  (see #MeshProcess) have run on it. Loaders which build meshes one at
+ *  a time (OBJ, glTF, ASCII STL) deliver them while the rest of the file
+ *  is still being read, the others when they are done. The nodes follow
+ *  once the whole scene has been post-processed.
+ *  <br>
+ *  The methods are never called concurrently, but not necessarily on the
+ *  thread calling ReadFile(). An exception thrown by a method aborts the
+ *  import.
+ */
+public interface ImportListener {
+
+	// -------------------------------------------------------------------
+	/** Called for each material, before any mesh refers to it.
+	 *  @param pIndex Index of the material in the scene
+	 *  @param pMaterial The material */
+	void OnMaterial(int pIndex, aiMaterial pMaterial);
+
+	// -------------------------------------------------------------------
+	/** Called for each mesh. Meshes may arrive in any order.
+	 *  @param pIndex Index of the mesh in the scene
+	 *  @param pMesh The mesh, with the per-mesh steps applied
+	 *  @return true to release the mesh: its buffers are freed on return
+	 *    and the scene keeps NULL in its place. false to keep it in the
+	 *    scene. */
+	boolean OnMesh(int pIndex, aiMesh pMesh);
+
+	// -------------------------------------------------------------------
+	/** Called for each node of the final hierarchy, parents before their
+	 *  children.
+	 *  @param pNode The node, GetParent() is NULL for the root */
+	void OnNode(aiNode pNode);
+}
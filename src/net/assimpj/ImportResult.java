@@ -0,0 +1,46 @@
+package net.assimpj;
+
+/** Outcome of a single import run by #BatchImporter.
+ *
+ *  Holds either the imported scene or the error description, never 
+ *  both. The scene is orphaned: the caller owns it and should call
+ *  aiScene.Release() once it is done with it.
+ */
+public class ImportResult {
+
+	/** Path of the file or name of the buffer that was imported */
+	private final String mName;
+
+	/** The imported scene, NULL if the import failed */
+	private final aiScene mScene;
+
+	/** Error description, empty if the import succeeded */
+	private final String mErrorString;
+
+	public ImportResult(String pName, aiScene pScene, String pErrorString) {
+		mName = pName;
+		mScene = pScene;
+		mErrorString = pErrorString != null ? pErrorString : "";
+	}
+
+	//! Get the path of the file or the name of the buffer
+	public String GetName() {
+		return mName;
+	}
+
+	//! Get the imported scene, NULL if the import failed
+	public aiScene GetScene() {
+		return mScene;
+	}
+
+	//! Get the error description, empty if the import succeeded
+	public String GetErrorString() {
+		return mErrorString;
+	}
+
+	//! Check whether the import succeeded
+	public boolean IsSuccessful() {
+		return mScene != null;
+	}
+
+}
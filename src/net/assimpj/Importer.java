@@ -1,5 +1,17 @@
 package net.assimpj;
 
+import static net.assimpj.ImporterRegistry.GetImporterInstanceList;
+import static net.assimpj.PostStepRegistry.GetPostProcessingStepInstanceList;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+
 import org.lwjgl.util.vector.Matrix4f;
 
 public class Importer {
@@ -19,6 +31,11 @@ public class Importer {
 		pimpl.mProgressHandler = new DefaultProgressHandler();
 		pimpl.mIsDefaultProgressHandler = true;
 
+		pimpl.mProperties = new ImportConfig.Builder();
+		pimpl.mConfig = null;
+
+		pimpl.mImporter = new Vector<BaseImporter>();
+		pimpl.mPostProcessingSteps = new Vector<BaseProcess>();
 		GetImporterInstanceList(pimpl.mImporter);
 		GetPostProcessingStepInstanceList(pimpl.mPostProcessingSteps);
 
@@ -30,8 +47,15 @@ public class Importer {
 		}		
 	}
 	
+	/** Copy constructor.
+	 *
+	 * This copies the configuration properties of another Importer.
+	 * If this Importer owns a scene it won't be copied.
+	 * Call ReadFile() to start the import process.
+	 */
 	public Importer(Importer copy) {
-		
+		this();
+		SetConfig(copy.GetConfig());
 	}
 	
 	// -------------------------------------------------------------------
@@ -43,7 +67,22 @@ public class Importer {
 	 * @return AI_SUCCESS if the loader has been added. The registration
 	 *   fails if there is already a loader for a specific file extension.
 	 */
-	public aiReturn RegisterLoader(BaseImporter pImp);	
+	public aiReturn RegisterLoader(BaseImporter pImp) {
+		if (pImp == null) {
+			return aiReturn.aiReturn_FAILURE;
+		}
+		// Check whether we would have two loaders for the same file extension
+		Set<String> extensions = new HashSet<String>();
+		pImp.GetExtensionList(extensions);
+		for (String ext : extensions) {
+			if (GetImporter(ext) != null) {
+				return aiReturn.aiReturn_FAILURE;
+			}
+		}
+		pimpl.mImporter.add(pImp);
+		pimpl.mFormatDetector = null;
+		return aiReturn.aiReturn_SUCCESS;
+	}
 	
 	// -------------------------------------------------------------------
 	/** Unregisters a loader.
@@ -54,7 +93,13 @@ public class Importer {
 	 *   if the #Importer instance is used by more than one thread) or
 	 *   if it has not yet been registered.
 	 */
-	public aiReturn UnregisterLoader(BaseImporter pImp);
+	public aiReturn UnregisterLoader(BaseImporter pImp) {
+		if (pImp == null || !pimpl.mImporter.remove(pImp)) {
+			return aiReturn.aiReturn_FAILURE;
+		}
+		pimpl.mFormatDetector = null;
+		return aiReturn.aiReturn_SUCCESS;
+	}
 
 	// -------------------------------------------------------------------
 	/** Registers a new post-process step.
@@ -67,7 +112,14 @@ public class Importer {
 	 *   deleted with the Importer instance.
 	 * @return AI_SUCCESS if the step has been added correctly.
 	 */
-	public aiReturn RegisterPPStep(BaseProcess pImp);
+	public aiReturn RegisterPPStep(BaseProcess pImp) {
+		if (pImp == null) {
+			return aiReturn.aiReturn_FAILURE;
+		}
+		pImp.SetSharedData(pimpl.mPPShared);
+		pimpl.mPostProcessingSteps.add(pImp);
+		return aiReturn.aiReturn_SUCCESS;
+	}
 
 	// -------------------------------------------------------------------
 	/** Unregisters a post-process step.
@@ -78,7 +130,12 @@ public class Importer {
 	 *   if the #Importer instance is used by more than one thread) or
 	 *   if it has not yet been registered.
 	 */
-	public aiReturn UnregisterPPStep(BaseProcess pImp);
+	public aiReturn UnregisterPPStep(BaseProcess pImp) {
+		if (pImp == null || !pimpl.mPostProcessingSteps.remove(pImp)) {
+			return aiReturn.aiReturn_FAILURE;
+		}
+		return aiReturn.aiReturn_SUCCESS;
+	}
 
 
 	// -------------------------------------------------------------------
@@ -87,15 +144,17 @@ public class Importer {
 	 *   are defined in the aiConfig.g header (all constants share the
 	 *   prefix AI_CONFIG_XXX and are simple strings).
 	 * @param iValue New value of the property
-	 * @param bWasExisting Optional pointer to receive true if the
-	 *   property was set before. The new value replaces the previous value
-	 *   in this case.
+	 * @param bWasExisting Unused, Java can't write through it. Kept for
+	 *   compatibility with the assimp API.
 	 * @note Property of different types (float, int, string ..) are kept
 	 *   on different stacks, so calling SetPropertyInteger() for a 
 	 *   floating-point property has no effect - the loader will call
 	 *   GetPropertyFloat() to read the property, but it won't be there.
 	 */
-	public void SetPropertyInteger(String szName, int iValue, Boolean bWasExisting /* = NULL */);
+	public void SetPropertyInteger(String szName, int iValue, Boolean bWasExisting /* = NULL */) {
+		pimpl.mProperties.SetPropertyInteger(szName, iValue);
+		pimpl.mConfig = null;
+	}
 
 	// -------------------------------------------------------------------
 	/** Set a boolean configuration property. Boolean properties
@@ -112,19 +171,28 @@ public class Importer {
 	/** Set a floating-point configuration property.
 	 * @see SetPropertyInteger()
 	 */
-	public void SetPropertyFloat(String szName, float fValue, Boolean bWasExisting /*= NULL */);
+	public void SetPropertyFloat(String szName, float fValue, Boolean bWasExisting /*= NULL */) {
+		pimpl.mProperties.SetPropertyFloat(szName, fValue);
+		pimpl.mConfig = null;
+	}
 
 	// -------------------------------------------------------------------
 	/** Set a string configuration property.
 	 * @see SetPropertyInteger()
 	 */
-	public void SetPropertyString(String szName, String sValue,	Boolean bWasExisting /*= NULL */);
+	public void SetPropertyString(String szName, String sValue,	Boolean bWasExisting /*= NULL */) {
+		pimpl.mProperties.SetPropertyString(szName, sValue);
+		pimpl.mConfig = null;
+	}
 
 	// -------------------------------------------------------------------
 	/** Set a matrix configuration property.
 	 * @see SetPropertyInteger()
 	 */
-	public void SetPropertyMatrix(String szName, Matrix4f sValue, Boolean bWasExisting /*= NULL */);
+	public void SetPropertyMatrix(String szName, Matrix4f sValue, Boolean bWasExisting /*= NULL */) {
+		pimpl.mProperties.SetPropertyMatrix(szName, sValue);
+		pimpl.mConfig = null;
+	}
 
 	// -------------------------------------------------------------------
 	/** Get a configuration property.
@@ -139,7 +207,9 @@ public class Importer {
 	 *   floating-point property has no effect - the loader will call
 	 *   GetPropertyFloat() to read the property, but it won't be there.
 	 */
-	public int GetPropertyInteger(String szName, int iErrorReturn /*= 0xffffffff*/);
+	public int GetPropertyInteger(String szName, int iErrorReturn /*= 0xffffffff*/) {
+		return GetConfig().GetPropertyInteger(szName, iErrorReturn);
+	}
 
 	// -------------------------------------------------------------------
 	/** Get a boolean configuration property. Boolean properties
@@ -156,7 +226,9 @@ public class Importer {
 	/** Get a floating-point configuration property
 	 * @see GetPropertyInteger()
 	 */
-	public float GetPropertyFloat(String szName, float fErrorReturn /*= 10e10f */);
+	public float GetPropertyFloat(String szName, float fErrorReturn /*= 10e10f */) {
+		return GetConfig().GetPropertyFloat(szName, fErrorReturn);
+	}
 
 	// -------------------------------------------------------------------
 	/** Get a string configuration property
@@ -164,7 +236,9 @@ public class Importer {
 	 *  The return value remains valid until the property is modified.
 	 * @see GetPropertyInteger()
 	 */
-	public String GetPropertyString(String szName, String sErrorReturn /*= "" */);
+	public String GetPropertyString(String szName, String sErrorReturn /*= "" */) {
+		return GetConfig().GetPropertyString(szName, sErrorReturn);
+	}
 
 	// -------------------------------------------------------------------
 	/** Get a matrix configuration property
@@ -172,7 +246,33 @@ public class Importer {
 	 *  The return value remains valid until the property is modified.
 	 * @see GetPropertyInteger()
 	 */
-	public Matrix4f GetPropertyMatrix(String szName, Matrix4f sErrorReturn /*= new Matrix4f() */);
+	public Matrix4f GetPropertyMatrix(String szName, Matrix4f sErrorReturn /*= new Matrix4f() */) {
+		return GetConfig().GetPropertyMatrix(szName, sErrorReturn);
+	}
+
+	// -------------------------------------------------------------------
+	/** Get a frozen snapshot of all configuration properties.
+	 *
+	 *  Loaders and post-processing steps read their settings from it in
+	 *  SetupProperties(). The snapshot is taken once and reused until a
+	 *  property is modified. It never changes and may be shared freely,
+	 *  e.g. across threads or with #SetConfig() of other Importers.
+	 * @return Current configuration, never NULL */
+	public ImportConfig GetConfig() {
+		if (pimpl.mConfig == null) {
+			pimpl.mConfig = pimpl.mProperties.Build();
+		}
+		return pimpl.mConfig;
+	}
+
+	// -------------------------------------------------------------------
+	/** Replace all configuration properties.
+	 * @param pConfig Configuration to use. It is not copied, Set*() calls
+	 *   made afterwards start from its contents. */
+	public void SetConfig(ImportConfig pConfig) {
+		pimpl.mProperties = new ImportConfig.Builder(pConfig);
+		pimpl.mConfig = pConfig;
+	}
 
 	/** Supplies a custom IO handler to the importer to use to open and
 	 * access files. If you need the importer to use custion IO logic to 
@@ -188,7 +288,15 @@ public class Importer {
 	 * @param pIOHandler The IO handler to be used in all file accesses 
 	 *   of the Importer. 
 	 */
-	public void SetIOHandler(IOSystem pIOHandler);
+	public void SetIOHandler(IOSystem pIOHandler) {
+		if (pIOHandler == null) {
+			pimpl.mIOHandler = new DefaultIOSystem();
+			pimpl.mIsDefaultHandler = true;
+		} else if (pimpl.mIOHandler != pIOHandler) {
+			pimpl.mIOHandler = pIOHandler;
+			pimpl.mIsDefaultHandler = false;
+		}
+	}
 
 	// -------------------------------------------------------------------
 	/** Retrieves the IO handler that is currently set.
@@ -198,7 +306,9 @@ public class Importer {
 	 * custom IO handler via #SetIOHandler().
 	 * @return A valid IOSystem interface, never NULL.
 	 */
-	public IOSystem GetIOHandler();
+	public IOSystem GetIOHandler() {
+		return pimpl.mIOHandler;
+	}
 
 	// -------------------------------------------------------------------
 	/** Checks whether a default IO handler is active 
@@ -206,7 +316,9 @@ public class Importer {
 	 * supply its own custom IO handler via #SetIOHandler().
 	 * @return true by default
 	 */
-	public boolean IsDefaultIOHandler();
+	public boolean IsDefaultIOHandler() {
+		return pimpl.mIsDefaultHandler;
+	}
 
 	// -------------------------------------------------------------------
 	/** Supplies a custom progress handler to the importer. This 
@@ -219,7 +331,15 @@ public class Importer {
 	 *    disable progress reporting. 
 	 *  @note Progress handlers can be used to abort the loading
 	 *    at almost any time.*/
-	public void SetProgressHandler(ProgressHandler pHandler);
+	public void SetProgressHandler(ProgressHandler pHandler) {
+		if (pHandler == null) {
+			pimpl.mProgressHandler = new DefaultProgressHandler();
+			pimpl.mIsDefaultProgressHandler = true;
+		} else if (pimpl.mProgressHandler != pHandler) {
+			pimpl.mProgressHandler = pHandler;
+			pimpl.mIsDefaultProgressHandler = false;
+		}
+	}
 
 	// -------------------------------------------------------------------
 	/** Retrieves the progress handler that is currently set. 
@@ -229,7 +349,9 @@ public class Importer {
 	 * custom handler via #SetProgressHandler().
 	 * @return A valid ProgressHandler interface, never NULL.
 	 */
-	ProgressHandler GetProgressHandler();
+	ProgressHandler GetProgressHandler() {
+		return pimpl.mProgressHandler;
+	}
 
 	// -------------------------------------------------------------------
 	/** Checks whether a default progress handler is active 
@@ -237,7 +359,30 @@ public class Importer {
 	 * supply its own custom progress handler via #SetProgressHandler().
 	 * @return true by default
 	 */
-	public boolean IsDefaultProgressHandler();
+	public boolean IsDefaultProgressHandler() {
+		return pimpl.mIsDefaultProgressHandler;
+	}
+
+	// -------------------------------------------------------------------
+	/** Supplies a pool to run post-processing steps on.
+	 *
+	 *  Steps which work on each mesh on its own (see #MeshProcess) are
+	 *  then run on all meshes of the scene in parallel. The other steps 
+	 *  and the loaders are not affected. By default no pool is set and 
+	 *  everything runs on the thread calling ReadFile().
+	 *  @param pPool Pool to use, e.g. ForkJoinPool.commonPool(). Pass 
+	 *    NULL to run all steps on the calling thread again. The pool is
+	 *    not owned by the Importer. */
+	public void SetPostProcessingPool(ForkJoinPool pPool) {
+		pimpl.mPostProcessPool = pPool;
+	}
+
+	// -------------------------------------------------------------------
+	/** Retrieves the pool post-processing steps run on.
+	 * @return The pool, NULL if steps run on the calling thread. */
+	public ForkJoinPool GetPostProcessingPool() {
+		return pimpl.mPostProcessPool;
+	}
 
 	// -------------------------------------------------------------------
 	/** @brief Check whether a given set of postprocessing flags
@@ -251,7 +396,35 @@ public class Importer {
 	 *  @param pFlags Bitwise combination of the aiPostProcess flags.
 	 *  @return true if this flag combination is fine.
 	 */
-	public boolean ValidateFlags(int pFlags);
+	public boolean ValidateFlags(int pFlags) {
+		// run basic checks for mutually exclusive flags
+		if ((pFlags & aiPostProcessSteps.aiProcess_GenSmoothNormals) != 0 
+			&& (pFlags & aiPostProcessSteps.aiProcess_GenNormals) != 0) {
+			return false;
+		}
+		if ((pFlags & aiPostProcessSteps.aiProcess_OptimizeGraph) != 0 
+			&& (pFlags & aiPostProcessSteps.aiProcess_PreTransformVertices) != 0) {
+			return false;
+		}
+
+		// Now iterate through all bits which are set in the flags and check 
+		// whether we find at least one pp plugin which handles it.
+		for (int mask = 1; mask != 0; mask <<= 1) {
+			if ((pFlags & mask) != 0) {
+				boolean have = false;
+				for (BaseProcess process : pimpl.mPostProcessingSteps) {
+					if (process.IsActive(mask)) {
+						have = true;
+						break;
+					}
+				}
+				if (!have) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
 
 	// -------------------------------------------------------------------
 	/** Reads the given file and returns its contents if successful. 
@@ -275,7 +448,111 @@ public class Importer {
 	 * @note Assimp is able to determine the file format of a file
 	 * automatically. 
 	 */
-	public aiScene ReadFile(String pFile, int pFlags);
+	public aiScene ReadFile(String pFile, int pFlags) {
+		// Check whether this Importer instance has already loaded
+		// a scene. In this case we need to delete the old one
+		if (pimpl.mScene != null) {
+			FreeScene();
+		}
+
+		// First check if the file is accessible at all
+		if (!pimpl.mIOHandler.Exists(pFile)) {
+			pimpl.mErrorString = "Unable to open file \"" + pFile + "\".";
+			return null;
+		}
+
+		// Find an worker class which can handle the file
+		BaseImporter imp = null;
+		for (BaseImporter candidate : pimpl.mImporter) {
+			if (candidate.CanRead(pFile, pimpl.mIOHandler, false)) {
+				imp = candidate;
+				break;
+			}
+		}
+
+		if (imp == null) {
+			// not so bad yet ... try format auto detection. The detector reads
+			// the header once and matches the signatures of all loaders in one go.
+			if (pimpl.mFormatDetector == null) {
+				pimpl.mFormatDetector = new FormatDetector(pimpl.mImporter);
+			}
+			imp = pimpl.mFormatDetector.Detect(pFile, pimpl.mIOHandler);
+
+			// loaders without signatures have to look at the file themselves
+			if (imp == null) {
+				for (BaseImporter candidate : pimpl.mImporter) {
+					if (!pimpl.mFormatDetector.HasSignatures(candidate) 
+						&& candidate.CanRead(pFile, pimpl.mIOHandler, true)) {
+						imp = candidate;
+						break;
+					}
+				}
+			}
+			// Put a proper error message if no suitable importer was found
+			if (imp == null) {
+				pimpl.mErrorString = "No suitable reader found for the file format of file \"" + pFile + "\".";
+				return null;
+			}
+		}
+
+		// Dispatch the reading to the worker class for this format
+		pimpl.mProgressHandler.UpdateFileRead(0, 1);
+		imp.mStreaming = pimpl.mStreaming;
+		try {
+			pimpl.mScene = imp.ReadFile(this, pFile, pimpl.mIOHandler);
+		} finally {
+			imp.mStreaming = null;
+		}
+		pimpl.mProgressHandler.UpdateFileRead(1, 1);
+
+		// If successful, apply all active post processing steps to the imported data
+		if (pimpl.mScene != null) {
+			if (pimpl.mStreaming != null) {
+				// deliver what the loader kept until the end
+				try {
+					pimpl.mStreaming.EmitRemaining(pimpl.mScene);
+				} catch (RuntimeException err) {
+					pimpl.mErrorString = err.getMessage();
+					FreeScene();
+					return null;
+				}
+			}
+			ApplyPostProcessing(pFlags);
+			if (pimpl.mStreaming != null && pimpl.mScene != null) {
+				pimpl.mStreaming.EmitNodes(pimpl.mScene.GetRootNode());
+			}
+		}
+		// if failed, extract the error string
+		else {
+			pimpl.mErrorString = imp.GetErrorText();
+		}
+		return pimpl.mScene;
+	}
+
+	// -------------------------------------------------------------------
+	/** Reads the given file and delivers its contents while they are
+	 *  imported.
+	 *
+	 *  Works like ReadFile(String, int), but each material, mesh and node
+	 *  is passed to the listener as soon as it is ready, see 
+	 *  #ImportListener. Meshes get the per-mesh post-processing steps 
+	 *  (#MeshProcess) before they are delivered, the other steps run on 
+	 *  the scene afterwards and don't see the meshes the listener 
+	 *  released. Releasing every mesh keeps the memory needed for a huge
+	 *  scene bounded by its largest meshes.
+	 * @param pFile Path and filename to the file to be imported.
+	 * @param pFlags Optional post processing steps, see ReadFile().
+	 * @param pListener Receiver of the scene parts
+	 * @return The imported scene, NULL if the import failed. Meshes the
+	 *   listener released are NULL in it. */
+	public aiScene ReadFile(String pFile, int pFlags, ImportListener pListener) {
+		pimpl.mStreaming = new StreamingImport(this, pFlags, pListener);
+		try {
+			return ReadFile(pFile, pFlags);
+		} finally {
+			pimpl.mStreaming = null;
+		}
+	}
 
 	// -------------------------------------------------------------------
 	/** Reads the given file from a memory buffer and returns its
@@ -288,8 +565,12 @@ public class Importer {
 	 * A human-readable error description can be retrieved by calling 
 	 * GetErrorString(). The previous scene will be deleted during this call.
 	 * Calling this method doesn't affect the active IOSystem.
-	 * @param pBuffer Pointer to the file data
-	 * @param pLength Length of pBuffer, in bytes
+	 * <br>
+	 * The buffer is not copied: loaders read slices of it through a
+	 * #MemoryIOSystem, so heap, direct and mapped buffers can be passed
+	 * as they are. The buffer must not be modified during the call.
+	 * @param pBuffer The file data, from its position to its limit. The 
+	 *   position of the buffer is not changed.
 	 * @param pFlags Optional post processing steps to be executed after 
 	 *   a successful import. Provide a bitwise combination of the 
 	 *   #aiPostProcessSteps flags. If you wish to inspect the imported
@@ -314,7 +595,30 @@ public class Importer {
 	 * a custom IOSystem to make Assimp find these files and use
 	 * the regular ReadFile() API.
 	 */
-	public aiScene ReadFileFromMemory(void* pBuffer, size_t pLength, int pFlags, String pHint = "");
+	public aiScene ReadFileFromMemory(ByteBuffer pBuffer, int pFlags, String pHint /*= "" */) {
+		if (pHint == null) {
+			pHint = "";
+		}
+		if (pBuffer == null || !pBuffer.hasRemaining() || pHint.length() > MemoryIOSystem.MAX_HINT_LENGTH) {
+			pimpl.mErrorString = "Invalid parameters passed to ReadFileFromMemory()";
+			return null;
+		}
+
+		// serve the magic file name from memory, everything else from the previous IOHandler
+		IOSystem io = pimpl.mIOHandler;
+		boolean isDefault = pimpl.mIsDefaultHandler;
+		pimpl.mIOHandler = new MemoryIOSystem(pBuffer.slice(), io);
+		pimpl.mIsDefaultHandler = false;
+
+		// read the file and recover the previous IOSystem
+		try {
+			ReadFile(MemoryIOSystem.AI_MEMORYIO_MAGIC_FILENAME + "." + pHint, pFlags);
+		} finally {
+			pimpl.mIOHandler = io;
+			pimpl.mIsDefaultHandler = isDefault;
+		}
+		return pimpl.mScene;
+	}
 
 	// -------------------------------------------------------------------
 	/** Apply post-processing to an already-imported scene.
@@ -334,23 +638,80 @@ public class Importer {
 	 *
 	 *  @note The method does nothing if no scene is currently bound
 	 *    to the #Importer instance.  */
-	public aiScene ApplyPostProcessing(int pFlags);
+	public aiScene ApplyPostProcessing(int pFlags) {
+		// Return immediately if no scene is active
+		if (pimpl.mScene == null) {
+			return null;
+		}
+		// drop the data of the previous run
+		pimpl.mPPShared.Clean();
+
+		// If no flags are given, return the current scene with no further action
+		if (pFlags == 0) {
+			return pimpl.mScene;
+		}
+
+		int numSteps = pimpl.mPostProcessingSteps.size();
+		for (int a = 0; a < numSteps; a++) {
+			BaseProcess process = pimpl.mPostProcessingSteps.get(a);
+			pimpl.mProgressHandler.UpdatePostProcess(a, numSteps);
+			if (process.IsActive(pFlags)) {
+				process.SetPipelinePosition(a, numSteps);
+				if (pimpl.mStreaming != null && pimpl.mStreaming.HandlesStep(process)) {
+					// the meshes have been processed while streaming
+					PostExecuteStep((MeshProcess)process);
+				} else if (pimpl.mScene.HasLazyMeshes() && process instanceof MeshProcess) {
+					// lazy meshes are processed when they are loaded, by a
+					// step of their own set up with the current properties
+					MeshProcess step = ((MeshProcess)process).NewInstance();
+					step.SetupProperties(this);
+					pimpl.mScene.mLazy.AddStep(step);
+					PostExecuteStep(step);
+				} else {
+					process.ExecuteOnScene(this);
+				}
+			}
+			if (pimpl.mScene == null) {
+				break;
+			}
+		}
+		pimpl.mProgressHandler.UpdatePostProcess(numSteps, numSteps);
+
+		// the data allocated by post-process steps stays until the next
+		// run, see GetSharedPostProcessInfo()
+		return pimpl.mScene;
+	}
 
 	// -------------------------------------------------------------------
-	/** @brief Reads the given file and returns its contents if successful. 
-	 *
-	 * This function is provided for backward compatibility.
-	 * See the const char* version for detailled docs.
-	 * @see ReadFile(const char*, pFlags)  */
-	public aiScene* ReadFile(String pFile, int pFlags);
+	/** Finishes a step whose meshes are processed outside of 
+	 *  ApplyPostProcessing(), by streaming or lazy loading. Like 
+	 *  BaseProcess.ExecuteOnScene(), a failure releases the scene.
+	 *  @param pProcess The step to finish */
+	private void PostExecuteStep(MeshProcess pProcess) {
+		try {
+			pProcess.PostExecute(pimpl.mScene);
+		} catch (Exception err) {
+			pimpl.mErrorString = err.getMessage();
+			pimpl.mScene.Release();
+			pimpl.mScene = null;
+		}
+	}
 
 	// -------------------------------------------------------------------
 	/** Frees the current scene.
 	 *
 	 *  The function does nothing if no scene has previously been 
 	 *  read via ReadFile(). FreeScene() is called automatically by the
-	 *  destructor and ReadFile() itself.  */
-	public void FreeScene();
+	 *  destructor and ReadFile() itself. The off-heap data of the scene
+	 *  is released immediately, see aiScene.Release(). */
+	public void FreeScene() {
+		if (pimpl.mScene != null) {
+			pimpl.mScene.Release();
+			pimpl.mScene = null;
+		}
+		pimpl.mPPShared.Clean();
+		pimpl.mErrorString = "";
+	}
 
 	// -------------------------------------------------------------------
 	/** Returns an error description of an error that occurred in ReadFile(). 
@@ -361,13 +722,29 @@ public class Importer {
 	 *
 	 * @note The returned function remains valid until one of the 
 	 * following methods is called: #ReadFile(), #FreeScene(). */
-	public String GetErrorString();
+	public String GetErrorString() {
+		return pimpl.mErrorString;
+	}
 
 	// -------------------------------------------------------------------
 	/** Returns the scene loaded by the last successful call to ReadFile()
 	 *
 	 * @return Current scene or NULL if there is currently no scene loaded */
-	public aiScene GetScene();
+	public aiScene GetScene() {
+		return pimpl.mScene;
+	}
+
+	// -------------------------------------------------------------------
+	/** Returns the data the post-processing steps of the last run shared
+	 *  and reported, e.g. the cache miss ratios of 
+	 *  aiProcess_ImproveCacheLocality (SharedPostProcessInfo.ICL_ACMR_IN).
+	 *
+	 * @note The properties remain valid until one of the following 
+	 * methods is called: #ReadFile(), #ApplyPostProcessing(), 
+	 * #FreeScene(). */
+	public SharedPostProcessInfo GetSharedPostProcessInfo() {
+		return pimpl.mPPShared;
+	}
 
 	// -------------------------------------------------------------------
 	/** Returns the scene loaded by the last successful call to ReadFile()
@@ -388,7 +765,12 @@ public class Importer {
 	 *   On Windows, it's typically fine provided everything is linked
 	 *   against the multithreaded-dll version of the runtime library.
 	 *   It will work as well for static linkage with Assimp.*/
-	public aiScene GetOrphanedScene();
+	public aiScene GetOrphanedScene() {
+		aiScene s = pimpl.mScene;
+		pimpl.mScene = null;
+		pimpl.mErrorString = "";
+		return s;
+	}
 
 
 
@@ -400,15 +782,9 @@ public class Importer {
 	 *   Must include a trailing dot '.'. Example: ".3ds", ".md3".
 	 *   Cases-insensitive.
 	 * @return true if the extension is supported, false otherwise */
-	public boolean IsExtensionSupported(String szExtension);
-
-	// -------------------------------------------------------------------
-	/** @brief Returns whether a given file extension is supported by ASSIMP.
-	 *
-	 * This function is provided for backward compatibility.
-	 * See the const char* version for detailed and up-to-date docs.
-	 * @see IsExtensionSupported(const char*) */
-	public boolean IsExtensionSupported(String szExtension);
+	public boolean IsExtensionSupported(String szExtension) {
+		return GetImporter(szExtension) != null;
+	}
 
 	// -------------------------------------------------------------------
 	/** Get a full list of all file extensions supported by ASSIMP.
@@ -417,32 +793,42 @@ public class Importer {
 	 * mean that ASSIMP is able to load all files with this extension ---
      * it simply means there is an importer loaded which claims to handle
 	 * files with this file extension.
-	 * @param szOut String to receive the extension list. 
-	 *   Format of the list: "*.3ds;*.obj;*.dae". This is useful for
-	 *   use with the WinAPI call GetOpenFileName(Ex). */
-	public void GetExtensionList(String szOut);
-
-	// -------------------------------------------------------------------
-	/** @brief Get a full list of all file extensions supported by ASSIMP.
-	 *
-	 * This function is provided for backward compatibility.
-	 * See the aiString version for detailed and up-to-date docs.
-	 * @see GetExtensionList(aiString&)*/
-	public void GetExtensionList(String szOut);
+	 * @return The extension list. Format of the list: "*.3ds;*.obj;*.dae". 
+	 *   This is useful for use with file choosers. */
+	public String GetExtensionList() {
+		Set<String> extensions = new LinkedHashSet<String>();
+		for (BaseImporter imp : pimpl.mImporter) {
+			imp.GetExtensionList(extensions);
+		}
+		StringBuilder out = new StringBuilder();
+		for (String ext : extensions) {
+			if (out.length() > 0) {
+				out.append(';');
+			}
+			out.append("*.").append(ext);
+		}
+		return out.toString();
+	}
 
 	// -------------------------------------------------------------------
 	/** Get the number of importrs currently registered with Assimp. */
-	public size_t GetImporterCount();
+	public int GetImporterCount() {
+		return pimpl.mImporter.size();
+	}
 
 	// -------------------------------------------------------------------
 	/** Get meta data for the importer corresponding to a specific index..
 	*
-	*  For the declaration of #aiImporterDesc, include <assimp/importerdesc.h>.
 	*  @param index Index to query, must be within [0,GetImporterCount())
 	*  @return Importer meta data structure, NULL if the index does not
 	*     exist or if the importer doesn't offer meta information (
 	*     importers may do this at the cost of being hated by their peers).*/
-	public aiImporterDesc GetImporterInfo(size_t index);
+	public aiImporterDesc GetImporterInfo(int index) {
+		if (index < 0 || index >= pimpl.mImporter.size()) {
+			return null;
+		}
+		return pimpl.mImporter.get(index).GetInfo();
+	}
 
 	// -------------------------------------------------------------------
 	/** Find the importer corresponding to a specific index.
@@ -450,7 +836,12 @@ public class Importer {
 	*  @param index Index to query, must be within [0,GetImporterCount())
 	*  @return Importer instance. NULL if the index does not
 	*     exist. */
-	public BaseImporter GetImporter(size_t index);
+	public BaseImporter GetImporter(int index) {
+		if (index < 0 || index >= pimpl.mImporter.size()) {
+			return null;
+		}
+		return pimpl.mImporter.get(index);
+	}
 
 	// -------------------------------------------------------------------
 	/** Find the importer corresponding to a specific file extension.
@@ -462,7 +853,9 @@ public class Importer {
 	*    is case-insensitive), ".bah", "*.bah" (wild card and dot
 	*    characters at the beginning of the extension are skipped).
 	*  @return NULL if no importer is found*/
-	public BaseImporter GetImporter(String szExtension);
+	public BaseImporter GetImporter(String szExtension) {
+		return GetImporter(GetImporterIndex(szExtension));
+	}
 
 	// -------------------------------------------------------------------
 	/** Find the importer index corresponding to a specific file extension.
@@ -471,8 +864,34 @@ public class Importer {
 	*    are recognized (BAH being the file extension): "BAH" (comparison
 	*    is case-insensitive), ".bah", "*.bah" (wild card and dot
 	*    characters at the beginning of the extension are skipped).
-	*  @return (size_t)-1 if no importer is found */
-	public size_t GetImporterIndex (String szExtension);
+	*  @return -1 if no importer is found */
+	public int GetImporterIndex(String szExtension) {
+		if (szExtension == null) {
+			return -1;
+		}
+		// skip over wildcard and dot characters at string head --
+		int begin = 0;
+		while (begin < szExtension.length() 
+			&& (szExtension.charAt(begin) == '*' || szExtension.charAt(begin) == '.')) {
+			++begin;
+		}
+		String ext = szExtension.substring(begin).toLowerCase(Locale.ROOT);
+		if (ext.length() == 0) {
+			return -1;
+		}
+
+		Set<String> extensions = new HashSet<String>();
+		for (int a = 0; a < pimpl.mImporter.size(); ++a) {
+			extensions.clear();
+			pimpl.mImporter.get(a).GetExtensionList(extensions);
+			for (String e : extensions) {
+				if (e.toLowerCase(Locale.ROOT).equals(ext)) {
+					return a;
+				}
+			}
+		}
+		return -1;
+	}
 
 
 
@@ -486,7 +905,65 @@ public class Importer {
 	 * @note The returned memory statistics refer to the actual
 	 *   size of the use data of the aiScene. Heap-related overhead
 	 *   is (naturally) not included.*/
-	public void GetMemoryRequirements(aiMemoryInfo in);
+	public void GetMemoryRequirements(aiMemoryInfo in) {
+		in.Clear();
+		aiScene scene = pimpl.mScene;
+		if (scene == null) {
+			return;
+		}
+
+		// add all meshes, lazy ones only if they are loaded
+		for (int i = 0; i < scene.GetNumMeshes(); ++i) {
+			if (!scene.IsMeshLoaded(i)) {
+				continue;
+			}
+			aiMesh mesh = scene.GetMesh(i);
+			in.meshes += ChannelSize(mesh.GetVertices()) + ChannelSize(mesh.GetNormals())
+				+ ChannelSize(mesh.GetTangents()) + ChannelSize(mesh.GetBitangents());
+			for (int a = 0; a < aiMeshConst.AI_MAX_NUMBER_OF_TEXTURECOORDS; ++a) {
+				in.meshes += ChannelSize(mesh.GetTextureCoords(a));
+			}
+			for (int a = 0; a < aiMeshConst.AI_MAX_NUMBER_OF_COLOR_SETS; ++a) {
+				in.meshes += ChannelSize(mesh.GetColors(a));
+			}
+			in.meshes += 4L * mesh.GetNumIndices();
+			if (mesh.GetFaceOffsets() != null) {
+				in.meshes += 4L * mesh.GetFaceOffsets().length;
+			}
+		}
+		in.total += in.meshes;
+
+		// add all materials
+		for (int i = 0; i < scene.GetNumMaterials(); ++i) {
+			aiMaterial mat = scene.GetMaterial(i);
+			for (int a = 0; a < mat.GetNumProperties(); ++a) {
+				in.materials += mat.GetPropertyAt(a).mDataLength;
+			}
+		}
+		in.total += in.materials;
+
+		// add all nodes
+		if (scene.GetRootNode() != null) {
+			in.nodes = NodeSize(scene.GetRootNode());
+		}
+		in.total += in.nodes;
+	}
+
+	// -------------------------------------------------------------------
+	private static long ChannelSize(Buffer pChannel) {
+		return pChannel != null ? 4L * pChannel.capacity() : 0;
+	}
+
+	// -------------------------------------------------------------------
+	/** Size of a node and all of its children: the transformation 
+	 *  and the mesh indices */
+	private static long NodeSize(aiNode pNode) {
+		long size = 16 * 4 + 4L * pNode.GetNumMeshes();
+		for (int i = 0; i < pNode.GetNumChildren(); ++i) {
+			size += NodeSize(pNode.GetChild(i));
+		}
+		return size;
+	}
 
 	// -------------------------------------------------------------------
 	/** Enables "extra verbose" mode. 
@@ -495,7 +972,9 @@ public class Importer {
 	 * single post processing step to make sure everyone modifies the data
 	 * structure in a well-defined manner. This is a debug feature and not
 	 * intended for use in production environments. */
-	public void SetExtraVerbose(boolean bDo);
+	public void SetExtraVerbose(boolean bDo) {
+		pimpl.bExtraVerbose = bDo;
+	}
 
 
 	// -------------------------------------------------------------------
@@ -503,10 +982,6 @@ public class Importer {
 	protected ImporterPimpl Pimpl() { 
 		return pimpl; 
 	}
-	
-	protected ImporterPimpl Pimpl() {
-		return pimpl; 
-	}
 
 	// Just because we don't want you to know how we're hacking around.
 	protected ImporterPimpl pimpl;
@@ -1,9 +1,7 @@
 package net.assimpj;
 
 import java.util.Vector;
-import java.util.Map;
-
-import org.lwjgl.util.vector.Matrix4f;
+import java.util.concurrent.ForkJoinPool;
 
 class ImporterPimpl {
 	/** IO handler to use for all file accesses. */
@@ -17,6 +15,10 @@ class ImporterPimpl {
 	/** Format-specific importer worker objects - one for each format we can read.*/
 	public Vector<BaseImporter> mImporter;
 	
+	/** Header based loader selection over all of mImporter, NULL until
+	 *  it is first needed or after the list of loaders changed */
+	public FormatDetector mFormatDetector;
+	
 	/** Post processing steps we can apply at the imported data. */
 	public Vector<BaseProcess> mPostProcessingSteps;
 	
@@ -26,23 +28,27 @@ class ImporterPimpl {
 	/** The error description, if there was one. */
 	String mErrorString;
 	
-	/** List of integer properties */
-	public Map<Integer, Integer> mIntProperties;
-	
-	/** List of floating-point properties */
-	public Map<Integer, Float> mFloatProperties;
+	/** Configuration properties, integer, floating-point, string and
+	 *  matrix properties are kept in separate slots */
+	public ImportConfig.Builder mProperties;
 	
-	/** List of string properties */
-	public Map<Integer, String> mStringProperties;
-	
-	/** List of Matrix properties */
-	public Map<Integer, Matrix4f> mMatrixProperties;
+	/** Frozen snapshot of mProperties, NULL if a property has been 
+	 *  modified since the last snapshot was taken */
+	public ImportConfig mConfig;
 	
 	/** Used for testing - extra verbose mode causes the ValidateDataStructure-Step
 	 *  to be executed before and after every single postprocess step */
 	public boolean bExtraVerbose;
 	
+	/** Pool running #MeshProcess steps in parallel, NULL to run all 
+	 *  steps on the calling thread */
+	public ForkJoinPool mPostProcessPool;
+	
 	/** Used by post-process steps to share data */
 	SharedPostProcessInfo mPPShared;
+
+	/** State of the running streaming import, NULL if the import
+	 *  doesn't stream */
+	StreamingImport mStreaming;
 	
 }
@@ -0,0 +1,20 @@
+package net.assimpj;
+
+import java.util.List;
+
+/** Central registry for all loaders. Add new loaders here, the order 
+ *  defines which loader is asked first if several accept a file. */
+final class ImporterRegistry {
+
+	private ImporterRegistry() {
+	}
+
+	// -------------------------------------------------------------------
+	/** Add an instance of each loader to the given list */
+	static void GetImporterInstanceList(List<BaseImporter> out) {
+		out.add(new ObjFileImporter());
+		out.add(new STLImporter());
+		out.add(new PLYImporter());
+		out.add(new glTF2Importer());
+	}
+}
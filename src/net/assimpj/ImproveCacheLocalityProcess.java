@@ -0,0 +1,356 @@
+package net.assimpj;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** The ImproveCacheLocalityProcess reorders the triangles of all meshes
+ *  for better use of the post-transform vertex cache of the GPU, then
+ *  reorders the vertices in the order they are first used.
+ *
+ *  Triangles are ordered with Tom Forsyth's linear-speed vertex cache
+ *  optimization: each vertex is scored by its position in a simulated
+ *  LRU cache of #AI_CONFIG_PP_ICL_PTCACHE_SIZE entries and by the
+ *  number of triangles still using it, and the triangle with the highest
+ *  sum among those at the vertices in the cache is emitted next. The
+ *  quality is measured as the average cache miss ratio (ACMR), the
+ *  number of vertices transformed per triangle with a FIFO cache of the
+ *  same size. A mesh keeps its order if the new one doesn't lower it.
+ *  The ACMR of all meshes before and after the step is stored in the
+ *  #SharedPostProcessInfo, see SharedPostProcessInfo.ICL_ACMR_IN.
+ *  Only meshes made of triangles alone are processed.
+ */
+final class ImproveCacheLocalityProcess extends MeshProcess {
+
+	private static final int SLOT_CACHE_SIZE = ImportConfig.GetSlot(aiConfig.AI_CONFIG_PP_ICL_PTCACHE_SIZE);
+
+	/** Default size of the vertex cache */
+	static final int PP_ICL_PTCACHE_SIZE = 12;
+
+	/** Smallest cache size, the last triangle alone takes 3 entries */
+	static final int MIN_CACHE_SIZE = 4;
+
+	// scoring parameters from Forsyth's paper
+	private static final float CACHE_DECAY_POWER = 1.5f;
+	private static final float LAST_TRI_SCORE = 0.75f;
+	private static final float VALENCE_BOOST_SCALE = 2.0f;
+	private static final float VALENCE_BOOST_POWER = 0.5f;
+
+	/** Valences the boost is tabulated for */
+	private static final int MAX_VALENCE_TABLE = 32;
+
+	/** Configuration option: size of the vertex cache */
+	private int configCacheDepth;
+
+	/** Triangles of the meshes processed and their cache misses before
+	 *  and after, summed by ExecuteOnMesh() */
+	private final AtomicLong mNumTriangles = new AtomicLong();
+	private final AtomicLong mMissesIn = new AtomicLong();
+	private final AtomicLong mMissesOut = new AtomicLong();
+	private final AtomicLong mNumMeshes = new AtomicLong();
+
+	public ImproveCacheLocalityProcess() {
+		configCacheDepth = PP_ICL_PTCACHE_SIZE;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean IsActive(int pFlags) {
+		return (pFlags & aiPostProcessSteps.aiProcess_ImproveCacheLocality) != 0;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean RequireVerboseFormat() {
+		return false;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void SetupProperties(Importer pImp) {
+		// AI_CONFIG_PP_ICL_PTCACHE_SIZE controls the target cache size for the optimizer
+		configCacheDepth = Math.max(MIN_CACHE_SIZE, pImp.GetConfig().GetInteger(SLOT_CACHE_SIZE, PP_ICL_PTCACHE_SIZE));
+		mNumTriangles.set(0);
+		mMissesIn.set(0);
+		mMissesOut.set(0);
+		mNumMeshes.set(0);
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	MeshProcess NewInstance() {
+		return new ImproveCacheLocalityProcess();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void ExecuteOnMesh(aiMesh pMesh, SceneArena pArena, ProgressTracker pTracker) {
+		long[] misses = new long[2];
+		if (ProcessMesh(pMesh, pArena, pTracker, configCacheDepth, misses)) {
+			mNumTriangles.addAndGet(pMesh.GetNumFaces());
+			mMissesIn.addAndGet(misses[0]);
+			mMissesOut.addAndGet(misses[1]);
+			mNumMeshes.incrementAndGet();
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	protected void PostExecute(aiScene pScene) {
+		long numTriangles = mNumTriangles.get();
+		if (numTriangles == 0 || shared == null) {
+			return;
+		}
+		shared.AddProperty(SharedPostProcessInfo.ICL_ACMR_IN, (float)((double)mMissesIn.get() / numTriangles));
+		shared.AddProperty(SharedPostProcessInfo.ICL_ACMR_OUT, (float)((double)mMissesOut.get() / numTriangles));
+		shared.AddProperty(SharedPostProcessInfo.ICL_NUM_MESHES, (int)mNumMeshes.get());
+		shared.AddProperty(SharedPostProcessInfo.ICL_NUM_TRIANGLES, numTriangles);
+	}
+
+	// -------------------------------------------------------------------
+	/** Optimize the order of the triangles and vertices of a mesh
+	 * @param pMesh The mesh to process
+	 * @param pArena Arena to allocate the new channels and faces from
+	 * @param pTracker Receives the triangles and indices processed
+	 * @param pCacheSize Size of the vertex cache
+	 * @param pMisses Receives the cache misses before and after, NULL if
+	 *   not needed
+	 * @return false if the mesh wasn't cache relevant: not made of
+	 *   triangles alone, or not more vertices than the cache holds */
+	static boolean ProcessMesh(aiMesh pMesh, SceneArena pArena, ProgressTracker pTracker, int pCacheSize, long[] pMisses) {
+		final int numVertices = pMesh.GetNumVertices(), numFaces = pMesh.GetNumFaces();
+		final IntBuffer faces = pMesh.GetFaces();
+		if (faces == null || numFaces == 0 || !pMesh.HasPositions()) {
+			return false;
+		}
+		if (pMesh.GetFaceOffsets() != null || pMesh.GetFaceSize() != 3) {
+			return false;
+		}
+		if (numVertices <= pCacheSize) {
+			return false;
+		}
+		pCacheSize = Math.max(MIN_CACHE_SIZE, pCacheSize);
+
+		final int numIndices = numFaces * 3;
+		int[] in = new int[numIndices];
+		for (int i = 0; i < numIndices; ++i) {
+			in[i] = faces.get(i);
+		}
+		int[] out = OrderTriangles(in, numFaces, numVertices, pCacheSize, pTracker);
+
+		long missesIn = CountCacheMisses(in, numVertices, pCacheSize);
+		long missesOut = CountCacheMisses(out, numVertices, pCacheSize);
+		if (missesOut >= missesIn) {
+			// the input is as good already, keep it
+			out = in;
+			missesOut = missesIn;
+		}
+		if (pMisses != null) {
+			pMisses[0] = missesIn;
+			pMisses[1] = missesOut;
+		}
+		if (pMesh.HasBones()) {
+			// vertex weights refer to the vertices, only reorder the faces
+			if (out != in) {
+				pMesh.SetFaces(pArena.AllocInts(numIndices).put(0, out), numFaces, 3);
+			}
+			return true;
+		}
+
+		// reorder the vertices in the order of first use, unused ones last
+		int[] remap = new int[numVertices], order = new int[numVertices];
+		Arrays.fill(remap, -1);
+		int num = 0;
+		for (int i = 0; i < numIndices; ++i) {
+			int v = out[i];
+			if (remap[v] < 0) {
+				remap[v] = num;
+				order[num++] = v;
+			}
+		}
+		for (int v = 0; v < numVertices; ++v) {
+			if (remap[v] < 0) {
+				remap[v] = num;
+				order[num++] = v;
+			}
+		}
+		IntBuffer indices = pArena.AllocInts(numIndices);
+		for (int i = 0; i < numIndices; ++i) {
+			indices.put(i, remap[out[i]]);
+			pTracker.AddElement(i);
+		}
+		JoinVerticesProcess.RemapChannels(pMesh, pArena, order, numVertices);
+		pMesh.SetFaces(indices, numFaces, 3);
+		return true;
+	}
+
+	// -------------------------------------------------------------------
+	/** Count the vertices transformed when the triangles are drawn in
+	 *  order, with a FIFO vertex cache. The ACMR is this divided by the
+	 *  number of triangles.
+	 * @param pIndices 3 indices per triangle
+	 * @param pNumVertices Number of vertices
+	 * @param pCacheSize Size of the vertex cache */
+	static long CountCacheMisses(int[] pIndices, int pNumVertices, int pCacheSize) {
+		// a vertex is in the cache if less than pCacheSize vertices have
+		// been added since it was, no need to simulate the queue
+		int[] added = new int[pNumVertices];
+		Arrays.fill(added, -pCacheSize);
+		int time = 0;
+		long misses = 0;
+		for (int v : pIndices) {
+			if (time - added[v] >= pCacheSize) {
+				added[v] = ++time;
+				++misses;
+			}
+		}
+		return misses;
+	}
+
+	// -------------------------------------------------------------------
+	/** Order triangles for the vertex cache, Tom Forsyth's algorithm
+	 * @param pIndices 3 indices per triangle
+	 * @param pNumFaces Number of triangles
+	 * @param pNumVertices Number of vertices
+	 * @param pCacheSize Size of the simulated LRU cache
+	 * @param pTracker Receives the triangles emitted
+	 * @return The reordered indices */
+	static int[] OrderTriangles(int[] pIndices, int pNumFaces, int pNumVertices, int pCacheSize,
+		ProgressTracker pTracker) {
+		final float[] cacheScores = new float[pCacheSize], valenceScores = new float[MAX_VALENCE_TABLE];
+		for (int i = 0; i < pCacheSize; ++i) {
+			cacheScores[i] = i < 3 ? LAST_TRI_SCORE
+				: (float)Math.pow(1.f - (i - 3) / (float)(pCacheSize - 3), CACHE_DECAY_POWER);
+		}
+		for (int i = 1; i < MAX_VALENCE_TABLE; ++i) {
+			valenceScores[i] = VALENCE_BOOST_SCALE * (float)Math.pow(i, -VALENCE_BOOST_POWER);
+		}
+
+		// triangles using each vertex; the first mLive of each list are
+		// the ones not emitted yet
+		int[] adjStart = new int[pNumVertices + 1];
+		for (int i = 0, n = pNumFaces * 3; i < n; ++i) {
+			++adjStart[pIndices[i] + 1];
+		}
+		for (int v = 0; v < pNumVertices; ++v) {
+			adjStart[v + 1] += adjStart[v];
+		}
+		int[] adj = new int[pNumFaces * 3], live = new int[pNumVertices];
+		for (int t = 0; t < pNumFaces; ++t) {
+			for (int c = 0; c < 3; ++c) {
+				int v = pIndices[t * 3 + c];
+				adj[adjStart[v] + live[v]++] = t;
+			}
+		}
+
+		float[] vertexScores = new float[pNumVertices];
+		int[] cachePos = new int[pNumVertices];
+		for (int v = 0; v < pNumVertices; ++v) {
+			cachePos[v] = -1;
+			vertexScores[v] = Score(-1, live[v], cacheScores, valenceScores);
+		}
+		boolean[] emitted = new boolean[pNumFaces];
+		int best = -1;
+		float bestScore = -1.f;
+		for (int t = 0; t < pNumFaces; ++t) {
+			float score = vertexScores[pIndices[t * 3]] + vertexScores[pIndices[t * 3 + 1]]
+				+ vertexScores[pIndices[t * 3 + 2]];
+			if (score > bestScore) {
+				bestScore = score;
+				best = t;
+			}
+		}
+
+		int[] out = new int[pNumFaces * 3];
+		int[] cache = new int[pCacheSize + 3], next = new int[pCacheSize + 3];
+		int cacheCount = 0, cursor = 0;
+		for (int f = 0; f < pNumFaces; ++f) {
+			if (best < 0) {
+				// no triangle left at the cache, continue with the first one left
+				while (emitted[cursor]) {
+					++cursor;
+				}
+				best = cursor;
+			}
+			final int t = best;
+			emitted[t] = true;
+			int v0 = pIndices[t * 3], v1 = pIndices[t * 3 + 1], v2 = pIndices[t * 3 + 2];
+			out[f * 3] = v0;
+			out[f * 3 + 1] = v1;
+			out[f * 3 + 2] = v2;
+
+			// take the triangle off the lists of its vertices
+			for (int c = 0; c < 3; ++c) {
+				int v = pIndices[t * 3 + c], start = adjStart[v], last = start + --live[v];
+				for (int k = start; k <= last; ++k) {
+					if (adj[k] == t) {
+						adj[k] = adj[last];
+						adj[last] = t;
+						break;
+					}
+				}
+			}
+
+			// its vertices move to the front of the cache
+			int num = 0;
+			next[num++] = v0;
+			if (v1 != v0) {
+				next[num++] = v1;
+			}
+			if (v2 != v0 && v2 != v1) {
+				next[num++] = v2;
+			}
+			for (int i = 0; i < cacheCount; ++i) {
+				int v = cache[i];
+				if (v != v0 && v != v1 && v != v2) {
+					next[num++] = v;
+				}
+			}
+			for (int i = 0; i < num; ++i) {
+				int v = next[i];
+				cachePos[v] = i < pCacheSize ? i : -1;
+				vertexScores[v] = Score(cachePos[v], live[v], cacheScores, valenceScores);
+			}
+
+			// rescore the triangles at these vertices and pick the best
+			best = -1;
+			bestScore = -1.f;
+			for (int i = 0; i < num; ++i) {
+				int v = next[i];
+				for (int k = adjStart[v], end = k + live[v]; k < end; ++k) {
+					int u = adj[k], a = u * 3;
+					float score = vertexScores[pIndices[a]] + vertexScores[pIndices[a + 1]]
+						+ vertexScores[pIndices[a + 2]];
+					if (score > bestScore) {
+						bestScore = score;
+						best = u;
+					}
+				}
+			}
+
+			int[] tmp = cache;
+			cache = next;
+			next = tmp;
+			cacheCount = Math.min(num, pCacheSize);
+			pTracker.AddElement(f);
+		}
+		return out;
+	}
+
+	// -------------------------------------------------------------------
+	/** Score of a vertex
+	 * @param pCachePos Position in the cache, -1 if not in it
+	 * @param pNumTrisLeft Number of triangles not emitted yet using it */
+	private static float Score(int pCachePos, int pNumTrisLeft, float[] pCacheScores, float[] pValenceScores) {
+		if (pNumTrisLeft == 0) {
+			// no triangle needs this vertex
+			return -1.f;
+		}
+		float score = pCachePos >= 0 ? pCacheScores[pCachePos] : 0.f;
+
+		// bonus points for having a low number of triangles left, so
+		// lone vertices are taken care of early
+		return score + (pNumTrisLeft < pValenceScores.length ? pValenceScores[pNumTrisLeft]
+			: VALENCE_BOOST_SCALE * (float)Math.pow(pNumTrisLeft, -VALENCE_BOOST_POWER));
+	}
+}
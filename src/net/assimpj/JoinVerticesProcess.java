@@ -0,0 +1,298 @@
+package net.assimpj;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/** The JoinVerticesProcess unites identical vertices in all imported
+ *  meshes. By default the importer returns meshes where each face
+ *  addressed its own set of vertices even if that means that identical
+ *  vertices are stored multiple times. The JoinVerticesProcess finds
+ *  these identical vertices and erases all but one of the copies. This
+ *  usually reduces the number of vertices in a mesh by a serious amount
+ *  and is the standard form to render a mesh.
+ *  <br>
+ *  Vertices are looked up in a grid of cells four position epsilons
+ *  wide. Each cell is a slot in an open-addressing table of packed cell
+ *  coordinates, the vertices kept in a cell are chained through an int
+ *  array. A vertex is compared against its own cell and, per axis, the
+ *  neighbour cell it is closer than an epsilon to, so the step runs in
+ *  linear time. The table is at most four times as large as the mesh,
+ *  which keeps the extra memory below 60 bytes per vertex.
+ */
+final class JoinVerticesProcess extends MeshProcess {
+
+	/** Maximum distance of joined positions, relative to the diagonal of
+	 *  the bounding box of the mesh */
+	static final float POSITION_EPSILON = 1e-4f;
+
+	/** Maximum difference of all other joined components */
+	static final float COMPONENT_EPSILON = 1e-5f;
+
+	/** Width of a grid cell, in position epsilons */
+	private static final float CELL_SIZE = 4.f;
+
+	/** Bits per axis of a packed cell coordinate */
+	private static final int CELL_BITS = 21;
+	private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean IsActive(int pFlags) {
+		return (pFlags & aiPostProcessSteps.aiProcess_JoinIdenticalVertices) != 0;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean RequireVerboseFormat() {
+		return false;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void SetupProperties(Importer pImp) {
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	MeshProcess NewInstance() {
+		return new JoinVerticesProcess();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void ExecuteOnMesh(aiMesh pMesh, SceneArena pArena, ProgressTracker pTracker) {
+		ProcessMesh(pMesh, pArena, pTracker);
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	protected void PostExecute(aiScene pScene) {
+		pScene.SetFlags(pScene.GetFlags() | aiScene.AI_SCENE_FLAGS_NON_VERBOSE_FORMAT);
+	}
+
+	// -------------------------------------------------------------------
+	/** Unites identical vertices in a mesh.
+	 * @param pMesh The mesh to process
+	 * @param pArena Arena to allocate the new channels and faces from
+	 * @param pTracker Receives the vertices and indices processed
+	 * @return The number of vertices left */
+	static int ProcessMesh(aiMesh pMesh, SceneArena pArena, ProgressTracker pTracker) {
+		final int numVertices = pMesh.GetNumVertices();
+		// the weights of bones can't be remapped through the mesh API
+		if (numVertices < 2 || !pMesh.HasPositions() || pMesh.HasBones()) {
+			return numVertices;
+		}
+		final FloatBuffer pos = pMesh.GetVertices();
+
+		// position epsilon, relative to the size of the mesh
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+		for (int i = 0, n = numVertices * 3; i < n; i += 3) {
+			float x = pos.get(i), y = pos.get(i + 1), z = pos.get(i + 2);
+			minX = Math.min(minX, x); maxX = Math.max(maxX, x);
+			minY = Math.min(minY, y); maxY = Math.max(maxY, y);
+			minZ = Math.min(minZ, z); maxZ = Math.max(maxZ, z);
+		}
+		float dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+		float epsilon = (float)Math.sqrt(dx * dx + dy * dy + dz * dz) * POSITION_EPSILON;
+		if (!(epsilon > 0.f) || Float.isInfinite(epsilon)) {
+			// single point or unbounded mesh, join bit-identical positions only
+			epsilon = 0.f;
+		}
+		final float epsilonSqr = epsilon * epsilon;
+		final float cell = epsilon > 0.f ? epsilon * CELL_SIZE : 1.f;
+		final float invCell = 1.f / cell, border = epsilon * invCell;
+
+		// other channels, compared component by component
+		FloatBuffer[] channels = new FloatBuffer[3 + aiMeshConst.AI_MAX_NUMBER_OF_TEXTURECOORDS
+			+ aiMeshConst.AI_MAX_NUMBER_OF_COLOR_SETS];
+		int[] components = new int[channels.length];
+		int numChannels = 0;
+		for (FloatBuffer c : new FloatBuffer[] { pMesh.GetNormals(), pMesh.GetTangents(), pMesh.GetBitangents() }) {
+			if (c != null) {
+				channels[numChannels] = c;
+				components[numChannels++] = aiMeshConst.AI_VECTOR_COMPONENTS;
+			}
+		}
+		for (int a = 0; a < aiMeshConst.AI_MAX_NUMBER_OF_TEXTURECOORDS; ++a) {
+			if (pMesh.GetTextureCoords(a) != null) {
+				channels[numChannels] = pMesh.GetTextureCoords(a);
+				components[numChannels++] = aiMeshConst.AI_VECTOR_COMPONENTS;
+			}
+		}
+		for (int a = 0; a < aiMeshConst.AI_MAX_NUMBER_OF_COLOR_SETS; ++a) {
+			if (pMesh.GetColors(a) != null) {
+				channels[numChannels] = pMesh.GetColors(a);
+				components[numChannels++] = aiMeshConst.AI_COLOR_COMPONENTS;
+			}
+		}
+		final float componentEpsilonSqr = COMPONENT_EPSILON * COMPONENT_EPSILON;
+
+		// cells: packed coordinates and the last vertex kept in each
+		final int capacity = Math.max(16, Integer.highestOneBit(Math.min(numVertices - 1, 1 << 28)) << 2);
+		final int shift = 64 - Integer.numberOfTrailingZeros(capacity);
+		final long[] cellKeys = new long[capacity];
+		final int[] cellHeads = new int[capacity];
+		Arrays.fill(cellHeads, -1);
+
+		// vertices kept: source vertex and the next one in the same cell
+		final int[] kept = new int[numVertices];
+		final int[] next = new int[numVertices];
+		final int[] remap = new int[numVertices];
+		int numKept = 0;
+
+		for (int v = 0; v < numVertices; ++v) {
+			float x = pos.get(v * 3), y = pos.get(v * 3 + 1), z = pos.get(v * 3 + 2);
+			float fx = (x - minX) * invCell, fy = (y - minY) * invCell, fz = (z - minZ) * invCell;
+			int cx = (int)Math.floor(fx), cy = (int)Math.floor(fy), cz = (int)Math.floor(fz);
+
+			// per axis, the neighbour cell a match might be in
+			int nx = fx - cx < border ? -1 : fx - cx > 1.f - border ? 1 : 0;
+			int ny = fy - cy < border ? -1 : fy - cy > 1.f - border ? 1 : 0;
+			int nz = fz - cz < border ? -1 : fz - cz > 1.f - border ? 1 : 0;
+
+			int match = -1;
+			search:
+			for (int ox = 0; ox <= (nx != 0 ? 1 : 0); ++ox) {
+				for (int oy = 0; oy <= (ny != 0 ? 1 : 0); ++oy) {
+					for (int oz = 0; oz <= (nz != 0 ? 1 : 0); ++oz) {
+						long key = PackCell(cx + ox * nx, cy + oy * ny, cz + oz * nz);
+						int slot = FindSlot(cellKeys, cellHeads, key, shift);
+						for (int k = cellHeads[slot]; k >= 0; k = next[k]) {
+							if (IsEqual(pos, channels, components, numChannels, v, kept[k], epsilonSqr, componentEpsilonSqr)) {
+								match = k;
+								break search;
+							}
+						}
+					}
+				}
+			}
+
+			if (match < 0) {
+				long key = PackCell(cx, cy, cz);
+				int slot = FindSlot(cellKeys, cellHeads, key, shift);
+				cellKeys[slot] = key;
+				match = numKept++;
+				kept[match] = v;
+				next[match] = cellHeads[slot];
+				cellHeads[slot] = match;
+			}
+			remap[v] = match;
+			pTracker.AddElement(v);
+		}
+
+		if (numKept == numVertices) {
+			return numVertices;
+		}
+
+		// copy the vertices kept to new channels, the old ones may be
+		// shared with other meshes or read-only views on the file
+		RemapChannels(pMesh, pArena, kept, numKept);
+
+		// and point the faces at them
+		IntBuffer faces = pMesh.GetFaces();
+		int numIndices = pMesh.GetNumIndices();
+		IntBuffer indices = pArena.AllocInts(numIndices);
+		for (int i = 0; i < numIndices; ++i) {
+			indices.put(i, remap[faces.get(i)]);
+			pTracker.AddElement(i);
+		}
+		if (pMesh.GetFaceOffsets() != null) {
+			pMesh.SetFaces(indices, pMesh.GetFaceOffsets());
+		} else {
+			pMesh.SetFaces(indices, pMesh.GetNumFaces(), pMesh.GetFaceSize());
+		}
+		return numKept;
+	}
+
+	// -------------------------------------------------------------------
+	/** Replace all vertex channels of a mesh by new ones holding the
+	 *  given vertices, in the given order. The faces are not touched.
+	 * @param pMesh The mesh to work at
+	 * @param pArena Arena to allocate the new channels from
+	 * @param pKept Old indices of the new vertices
+	 * @param pNumKept Number of new vertices */
+	static void RemapChannels(aiMesh pMesh, SceneArena pArena, int[] pKept, int pNumKept) {
+		pMesh.SetVertices(Compact(pArena, pMesh.GetVertices(), aiMeshConst.AI_VECTOR_COMPONENTS, pKept, pNumKept));
+		if (pMesh.GetNormals() != null) {
+			pMesh.SetNormals(Compact(pArena, pMesh.GetNormals(), aiMeshConst.AI_VECTOR_COMPONENTS, pKept, pNumKept));
+		}
+		if (pMesh.GetTangents() != null) {
+			pMesh.SetTangents(Compact(pArena, pMesh.GetTangents(), aiMeshConst.AI_VECTOR_COMPONENTS, pKept, pNumKept));
+		}
+		if (pMesh.GetBitangents() != null) {
+			pMesh.SetBitangents(Compact(pArena, pMesh.GetBitangents(), aiMeshConst.AI_VECTOR_COMPONENTS, pKept, pNumKept));
+		}
+		for (int a = 0; a < aiMeshConst.AI_MAX_NUMBER_OF_TEXTURECOORDS; ++a) {
+			if (pMesh.GetTextureCoords(a) != null) {
+				pMesh.SetTextureCoords(a, Compact(pArena, pMesh.GetTextureCoords(a), aiMeshConst.AI_VECTOR_COMPONENTS,
+					pKept, pNumKept), pMesh.GetNumUVComponents(a));
+			}
+		}
+		for (int a = 0; a < aiMeshConst.AI_MAX_NUMBER_OF_COLOR_SETS; ++a) {
+			if (pMesh.GetColors(a) != null) {
+				pMesh.SetColors(a, Compact(pArena, pMesh.GetColors(a), aiMeshConst.AI_COLOR_COMPONENTS, pKept, pNumKept));
+			}
+		}
+		pMesh.SetNumVertices(pNumKept);
+	}
+
+	// -------------------------------------------------------------------
+	/** Compare two vertices, positions within the position epsilon and
+	 *  all other channels within #COMPONENT_EPSILON */
+	private static boolean IsEqual(FloatBuffer pPos, FloatBuffer[] pChannels, int[] pComponents, int pNumChannels,
+		int pA, int pB, float pEpsilonSqr, float pComponentEpsilonSqr) {
+
+		float dx = pPos.get(pA * 3) - pPos.get(pB * 3);
+		float dy = pPos.get(pA * 3 + 1) - pPos.get(pB * 3 + 1);
+		float dz = pPos.get(pA * 3 + 2) - pPos.get(pB * 3 + 2);
+		if (!(dx * dx + dy * dy + dz * dz <= pEpsilonSqr)) {
+			return false;
+		}
+		for (int c = 0; c < pNumChannels; ++c) {
+			FloatBuffer channel = pChannels[c];
+			int n = pComponents[c], a = pA * n, b = pB * n;
+			float sum = 0.f;
+			for (int i = 0; i < n; ++i) {
+				float d = channel.get(a + i) - channel.get(b + i);
+				sum += d * d;
+			}
+			if (!(sum <= pComponentEpsilonSqr)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// -------------------------------------------------------------------
+	/** Pack cell coordinates into a table key */
+	private static long PackCell(int pX, int pY, int pZ) {
+		return ((long)(pX & CELL_MASK) << (2 * CELL_BITS)) | ((long)(pY & CELL_MASK) << CELL_BITS) | (pZ & CELL_MASK);
+	}
+
+	// -------------------------------------------------------------------
+	/** Find the slot of a cell by linear probing
+	 * @return The slot holding the key or the empty slot to put it in */
+	private static int FindSlot(long[] pKeys, int[] pHeads, long pKey, int pShift) {
+		int mask = pKeys.length - 1;
+		int slot = (int)((pKey * 0x9E3779B97F4A7C15L) >>> pShift);
+		while (pHeads[slot] >= 0 && pKeys[slot] != pKey) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	// -------------------------------------------------------------------
+	/** Copy the vertices kept of a channel to a new one */
+	private static FloatBuffer Compact(SceneArena pArena, FloatBuffer pChannel, int pComponents, int[] pKept, int pNumKept) {
+		FloatBuffer out = pArena.AllocChannel(pNumKept, pComponents);
+		for (int k = 0; k < pNumKept; ++k) {
+			int src = pKept[k] * pComponents, dst = k * pComponents;
+			for (int i = 0; i < pComponents; ++i) {
+				out.put(dst + i, pChannel.get(src + i));
+			}
+		}
+		return out;
+	}
+}
@@ -0,0 +1,257 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Minimal JSON reader for the JSON based formats (glTF).
+ *
+ *  Objects become a Map<String, Object>, arrays a List<Object>, numbers
+ *  Double, strings String and true/false Boolean. JSON null is returned
+ *  as NULL. The input must be UTF-8, which is all glTF allows.
+ */
+final class JsonParser {
+
+	/** Data of the file */
+	private final ByteBuffer mBuffer;
+
+	/** Current read position, absolute */
+	private int mPos;
+
+	/** End of the JSON text, exclusive */
+	private final int mEnd;
+
+	private JsonParser(ByteBuffer pBuffer, int pStart, int pEnd) {
+		mBuffer = pBuffer;
+		mPos = pStart;
+		mEnd = pEnd;
+	}
+
+	// -------------------------------------------------------------------
+	/** Parse a JSON text
+	 *  @param pBuffer Buffer holding the text
+	 *  @param pStart First byte of the text, absolute
+	 *  @param pEnd End of the text, exclusive
+	 *  @return The top-level value */
+	static Object Parse(ByteBuffer pBuffer, int pStart, int pEnd) {
+		JsonParser parser = new JsonParser(pBuffer, pStart, pEnd);
+		// skip an UTF-8 byte order mark
+		if (pEnd - pStart >= 3 && (pBuffer.get(pStart) & 0xff) == 0xef
+			&& (pBuffer.get(pStart + 1) & 0xff) == 0xbb && (pBuffer.get(pStart + 2) & 0xff) == 0xbf) {
+			parser.mPos += 3;
+		}
+		Object value = parser.ParseValue();
+		parser.SkipWhitespace();
+		if (parser.mPos < pEnd && pBuffer.get(parser.mPos) != 0) {
+			throw parser.Error("Unexpected data after the end of the document");
+		}
+		return value;
+	}
+
+	// -------------------------------------------------------------------
+	private Object ParseValue() {
+		SkipWhitespace();
+		if (mPos >= mEnd) {
+			throw Error("Unexpected end of data");
+		}
+		switch (mBuffer.get(mPos)) {
+		case '{':
+			return ParseObject();
+		case '[':
+			return ParseArray();
+		case '"':
+			return ParseString();
+		case 't':
+			Expect("true");
+			return Boolean.TRUE;
+		case 'f':
+			Expect("false");
+			return Boolean.FALSE;
+		case 'n':
+			Expect("null");
+			return null;
+		default:
+			return ParseNumber();
+		}
+	}
+
+	private Map<String, Object> ParseObject() {
+		Map<String, Object> out = new LinkedHashMap<String, Object>();
+		++mPos;
+		SkipWhitespace();
+		if (Peek() == '}') {
+			++mPos;
+			return out;
+		}
+		while (true) {
+			SkipWhitespace();
+			if (Peek() != '"') {
+				throw Error("Expected a member name");
+			}
+			String key = ParseString();
+			SkipWhitespace();
+			if (Peek() != ':') {
+				throw Error("Expected ':'");
+			}
+			++mPos;
+			out.put(key, ParseValue());
+			SkipWhitespace();
+			byte c = Peek();
+			++mPos;
+			if (c == '}') {
+				return out;
+			}
+			if (c != ',') {
+				throw Error("Expected ',' or '}'");
+			}
+		}
+	}
+
+	private List<Object> ParseArray() {
+		List<Object> out = new ArrayList<Object>();
+		++mPos;
+		SkipWhitespace();
+		if (Peek() == ']') {
+			++mPos;
+			return out;
+		}
+		while (true) {
+			out.add(ParseValue());
+			SkipWhitespace();
+			byte c = Peek();
+			++mPos;
+			if (c == ']') {
+				return out;
+			}
+			if (c != ',') {
+				throw Error("Expected ',' or ']'");
+			}
+		}
+	}
+
+	private String ParseString() {
+		final int start = ++mPos;
+		// fast path, no escapes
+		int p = start;
+		while (p < mEnd) {
+			byte c = mBuffer.get(p);
+			if (c == '"') {
+				mPos = p + 1;
+				return Decode(start, p);
+			}
+			if (c == '\\') {
+				break;
+			}
+			++p;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		int run = start;
+		for (p = start; p < mEnd; ++p) {
+			byte c = mBuffer.get(p);
+			if (c == '"') {
+				sb.append(Decode(run, p));
+				mPos = p + 1;
+				return sb.toString();
+			}
+			if (c != '\\') {
+				continue;
+			}
+			sb.append(Decode(run, p));
+			if (++p >= mEnd) {
+				break;
+			}
+			switch (mBuffer.get(p)) {
+			case 'b':
+				sb.append('\b');
+				break;
+			case 'f':
+				sb.append('\f');
+				break;
+			case 'n':
+				sb.append('\n');
+				break;
+			case 'r':
+				sb.append('\r');
+				break;
+			case 't':
+				sb.append('\t');
+				break;
+			case 'u':
+				if (p + 4 >= mEnd) {
+					throw Error("Invalid escape sequence");
+				}
+				sb.append((char)Integer.parseInt(Decode(p + 1, p + 5), 16));
+				p += 4;
+				break;
+			default:
+				// '"', '\\' and '/' stand for themselves
+				sb.append((char)mBuffer.get(p));
+				break;
+			}
+			run = p + 1;
+		}
+		throw Error("Unterminated string");
+	}
+
+	private Double ParseNumber() {
+		int start = mPos;
+		while (mPos < mEnd) {
+			byte c = mBuffer.get(mPos);
+			if ((c < '0' || c > '9') && c != '-' && c != '+' && c != '.' && c != 'e' && c != 'E') {
+				break;
+			}
+			++mPos;
+		}
+		if (mPos == start) {
+			throw Error("Unexpected character '" + (char)mBuffer.get(mPos) + "'");
+		}
+		try {
+			return Double.valueOf(Decode(start, mPos));
+		} catch (NumberFormatException err) {
+			throw Error("Invalid number");
+		}
+	}
+
+	// -------------------------------------------------------------------
+	private void Expect(String pWord) {
+		for (int i = 0; i < pWord.length(); ++i) {
+			if (mPos + i >= mEnd || mBuffer.get(mPos + i) != pWord.charAt(i)) {
+				throw Error("Expected '" + pWord + "'");
+			}
+		}
+		mPos += pWord.length();
+	}
+
+	private byte Peek() {
+		if (mPos >= mEnd) {
+			throw Error("Unexpected end of data");
+		}
+		return mBuffer.get(mPos);
+	}
+
+	private void SkipWhitespace() {
+		while (mPos < mEnd) {
+			byte c = mBuffer.get(mPos);
+			if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+				break;
+			}
+			++mPos;
+		}
+	}
+
+	private String Decode(int pStart, int pEnd) {
+		byte[] bytes = new byte[pEnd - pStart];
+		for (int i = 0; i < bytes.length; ++i) {
+			bytes[i] = mBuffer.get(pStart + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private DeadlyImportError Error(String pMessage) {
+		return new DeadlyImportError("JSON: " + pMessage + " at offset " + mPos);
+	}
+}
@@ -0,0 +1,183 @@
+package net.assimpj;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Meshes of a scene which are loaded on first access.
+ *
+ *  A loader importing in lazy mode (see aiConfig.AI_CONFIG_IMPORT_LAZY_MESHES)
+ *  only runs a quick index pass over the file and hands the scene a
+ *  LazyMeshes holding where each mesh is found. aiScene.GetMesh() loads a
+ *  mesh the first time it is asked for: the loader parses it via
+ *  LoadMesh(), then the #MeshProcess steps of the import are applied.
+ *  <br>
+ *  Every mesh lives in a child arena of the scene arena, so it can be
+ *  evicted on its own and loaded again on the next access. With
+ *  AI_CONFIG_IMPORT_LAZY_EVICT_MESHES the scene keeps only weak
+ *  references to loaded meshes and drops those nobody refers to anymore.
+ *  Their arenas are not released but left to the garbage collector, so
+ *  buffers taken from such a mesh stay valid as long as they are used.
+ *  <br>
+ *  All methods are thread-safe. Meshes are loaded one at a time.
+ */
+abstract class LazyMeshes {
+
+	/** Weak reference to a loaded mesh which knows its slot */
+	private static final class MeshRef extends WeakReference<aiMesh> {
+
+		final int mIndex;
+
+		MeshRef(aiMesh pMesh, int pIndex, ReferenceQueue<aiMesh> pQueue) {
+			super(pMesh, pQueue);
+			mIndex = pIndex;
+		}
+	}
+
+	/** Number of meshes in the scene */
+	private final int mNumMeshes;
+
+	/** Loaded meshes, NULL if not loaded or evicted. Only used if the
+	 *  meshes are kept. */
+	private final aiMesh[] mMeshes;
+
+	/** Loaded meshes if unreferenced meshes are evicted */
+	private final MeshRef[] mRefs;
+	private final ReferenceQueue<aiMesh> mQueue;
+
+	/** Arena of each loaded mesh */
+	private final SceneArena[] mArenas;
+
+	/** Per-mesh steps to apply after loading, in pipeline order */
+	private final List<MeshProcess> mSteps;
+
+	/** Number of LoadMesh() calls so far */
+	private int mNumLoads;
+
+	// -------------------------------------------------------------------
+	/** @param pNumMeshes Number of meshes found by the index pass
+	 *  @param pEvict Drop meshes which aren't referenced anymore */
+	protected LazyMeshes(int pNumMeshes, boolean pEvict) {
+		mNumMeshes = pNumMeshes;
+		mMeshes = pEvict ? null : new aiMesh[pNumMeshes];
+		mRefs = pEvict ? new MeshRef[pNumMeshes] : null;
+		mQueue = pEvict ? new ReferenceQueue<aiMesh>() : null;
+		mArenas = new SceneArena[pNumMeshes];
+		mSteps = new ArrayList<MeshProcess>();
+	}
+
+	// -------------------------------------------------------------------
+	/** Parse a single mesh. Called with the lock held, never twice for
+	 *  the same mesh unless it has been evicted in between.
+	 *  @param pIndex Index of the mesh in the scene
+	 *  @param pArena Arena to allocate the mesh data from
+	 *  @return The mesh, with its name and material index set */
+	protected abstract aiMesh LoadMesh(int pIndex, SceneArena pArena);
+
+	// -------------------------------------------------------------------
+	/** Returns the number of meshes */
+	final int GetNumMeshes() {
+		return mNumMeshes;
+	}
+
+	// -------------------------------------------------------------------
+	/** Add a step to apply to each mesh after loading. Instead of 
+	 *  running the active #MeshProcess steps, the Importer adds new 
+	 *  instances of them, set up once with the properties of the import,
+	 *  see MeshProcess.NewInstance(). */
+	final synchronized void AddStep(MeshProcess pStep) {
+		mSteps.add(pStep);
+	}
+
+	// -------------------------------------------------------------------
+	/** Get a mesh, loading it if needed
+	 *  @param pScene Scene the meshes belong to
+	 *  @param pIndex Index of the mesh */
+	final synchronized aiMesh Get(aiScene pScene, int pIndex) {
+		DropUnreferenced(pScene);
+		aiMesh mesh = Peek(pIndex);
+		if (mesh != null) {
+			return mesh;
+		}
+
+		// the arena is only kept once the mesh is complete
+		SceneArena arena = pScene.mPrivate.CreateChild();
+		try {
+			mesh = LoadMesh(pIndex, arena);
+			for (MeshProcess step : mSteps) {
+				step.ExecuteOnMesh(mesh, arena, ProgressTracker.NONE);
+			}
+		} catch (RuntimeException err) {
+			arena.Release();
+			throw err;
+		}
+		++mNumLoads;
+		mArenas[pIndex] = arena;
+		if (mRefs != null) {
+			mRefs[pIndex] = new MeshRef(mesh, pIndex, mQueue);
+		} else {
+			mMeshes[pIndex] = mesh;
+		}
+		return mesh;
+	}
+
+	// -------------------------------------------------------------------
+	/** Check whether a mesh is loaded, without loading it */
+	final synchronized boolean IsLoaded(int pIndex) {
+		return Peek(pIndex) != null;
+	}
+
+	// -------------------------------------------------------------------
+	/** Returns how often a mesh has been parsed, including reloads after
+	 *  eviction */
+	final synchronized int GetNumLoads() {
+		return mNumLoads;
+	}
+
+	// -------------------------------------------------------------------
+	/** Evict a mesh and release its arena. Its buffers become invalid,
+	 *  the next access loads it again. */
+	final synchronized void Evict(int pIndex) {
+		if (mRefs != null) {
+			if (mRefs[pIndex] != null) {
+				mRefs[pIndex].clear();
+				mRefs[pIndex] = null;
+			}
+		} else {
+			mMeshes[pIndex] = null;
+		}
+		if (mArenas[pIndex] != null) {
+			mArenas[pIndex].Release();
+			mArenas[pIndex] = null;
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** The loaded mesh in a slot, NULL if there is none */
+	private aiMesh Peek(int pIndex) {
+		if (mRefs != null) {
+			return mRefs[pIndex] != null ? mRefs[pIndex].get() : null;
+		}
+		return mMeshes[pIndex];
+	}
+
+	// -------------------------------------------------------------------
+	/** Forget the meshes the garbage collector found unreferenced. Their
+	 *  arenas are detached but not released, views on their buffers may
+	 *  still be around. */
+	private void DropUnreferenced(aiScene pScene) {
+		if (mQueue == null) {
+			return;
+		}
+		for (Reference<? extends aiMesh> ref; (ref = mQueue.poll()) != null;) {
+			int index = ((MeshRef)ref).mIndex;
+			if (mRefs[index] == ref) {
+				mRefs[index] = null;
+				pScene.mPrivate.DetachChild(mArenas[index]);
+				mArenas[index] = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/** Cursor over a range of a line based text file, shared by the text
+ *  loaders (#ObjFileParser, #ObjFileMtlImporter, #STLImporter).
+ *
+ *  The tokenizer works on the raw bytes with absolute gets, it creates no
+ *  String for the lines it reads and parses numbers in place with
+ *  #fast_atof. Only names (objects, groups, materials, files) become
+ *  Strings.
+ */
+abstract class LineTokenizer {
+
+	/** Data of the file */
+	protected final ByteBuffer mBuffer;
+
+	/** Current read position, absolute */
+	protected int mPos;
+
+	/** End of the range to be parsed, absolute */
+	protected final int mEnd;
+
+	/** Receive the values of the number parsers */
+	private final int[] mIntScratch = new int[1];
+	private final float[] mFloatScratch = new float[1];
+
+	/** Bytes between two progress reports, see CheckProgress() */
+	private static final int PROGRESS_INTERVAL = 1 << 16;
+
+	/** Receives the number of bytes parsed */
+	private ProgressTracker mTracker;
+
+	/** Position up to which progress has been reported, and position of
+	 *  the next report */
+	private int mReported;
+	private int mNextReport;
+
+	/** @param pBuffer Data of the file
+	 *  @param pStart First byte of the range to parse
+	 *  @param pEnd End of the range to parse, exclusive. The range must
+	 *    be line-aligned. */
+	LineTokenizer(ByteBuffer pBuffer, int pStart, int pEnd) {
+		mBuffer = pBuffer;
+		mPos = pStart;
+		mEnd = pEnd;
+		mTracker = ProgressTracker.NONE;
+		mNextReport = Integer.MAX_VALUE;
+	}
+
+	// -------------------------------------------------------------------
+	/** Report the bytes parsed from now on
+	 *  @param pTracker Tracker of the loader, counting bytes */
+	final void SetProgress(ProgressTracker pTracker) {
+		mTracker = pTracker;
+		mReported = mPos;
+		mNextReport = mPos + PROGRESS_INTERVAL;
+	}
+
+	// -------------------------------------------------------------------
+	/** Report the bytes parsed since the last report, once there are
+	 *  enough of them. Parsers call this for every line, it costs a
+	 *  comparison unless a report is due.
+	 *  @throws DeadlyImportError if the import has been cancelled */
+	protected final void CheckProgress() {
+		if (mPos >= mNextReport) {
+			mTracker.Add(mPos - mReported);
+			mReported = mPos;
+			mNextReport = mPos + PROGRESS_INTERVAL;
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Skip blanks, stops at line ends */
+	protected final void SkipSpaces() {
+		int p = mPos;
+		while (p < mEnd) {
+			byte c = mBuffer.get(p);
+			if (c != ' ' && c != '\t') {
+				break;
+			}
+			++p;
+		}
+		mPos = p;
+	}
+
+	// -------------------------------------------------------------------
+	/** Move to the first byte of the next line */
+	protected final void SkipLine() {
+		int p = mPos;
+		while (p < mEnd && mBuffer.get(p) != '\n') {
+			++p;
+		}
+		mPos = p < mEnd ? p + 1 : p;
+	}
+
+	// -------------------------------------------------------------------
+	/** Check whether the rest of the line holds no more tokens */
+	protected final boolean IsLineEnd() {
+		SkipSpaces();
+		if (mPos >= mEnd) {
+			return true;
+		}
+		byte c = mBuffer.get(mPos);
+		return c == '\n' || c == '\r' || c == '#';
+	}
+
+	// -------------------------------------------------------------------
+	/** Check whether the current token is the given keyword. On a match
+	 *  the cursor is moved behind the keyword.
+	 *  @param pKeyword Lower case keyword
+	 *  @return true if the keyword matches and is followed by a blank
+	 *    or the end of the line */
+	protected final boolean MatchKeyword(String pKeyword) {
+		int n = pKeyword.length();
+		if (mPos + n > mEnd) {
+			return false;
+		}
+		for (int i = 0; i < n; ++i) {
+			int c = mBuffer.get(mPos + i);
+			if (c >= 'A' && c <= 'Z') {
+				c += 'a' - 'A';
+			}
+			if (c != pKeyword.charAt(i)) {
+				return false;
+			}
+		}
+		if (mPos + n < mEnd) {
+			byte c = mBuffer.get(mPos + n);
+			if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+				return false;
+			}
+		}
+		mPos += n;
+		return true;
+	}
+
+	// -------------------------------------------------------------------
+	/** Read the rest of the line, without surrounding blanks and comments
+	 *  @return The text, an empty string if there is none */
+	protected final String ReadRestOfLine() {
+		SkipSpaces();
+		int start = mPos, end = start;
+		while (mPos < mEnd) {
+			byte c = mBuffer.get(mPos);
+			if (c == '\n' || c == '\r' || c == '#') {
+				break;
+			}
+			if (c != ' ' && c != '\t') {
+				end = mPos + 1;
+			}
+			++mPos;
+		}
+		return Decode(start, end);
+	}
+
+	// -------------------------------------------------------------------
+	/** Read the last blank-separated token of the line, which skips the
+	 *  options in front of a file name */
+	protected final String ReadLastToken() {
+		int start = mPos, end = mPos, token = -1;
+		for (; mPos < mEnd; ++mPos) {
+			byte c = mBuffer.get(mPos);
+			if (c == '\n' || c == '\r') {
+				break;
+			}
+			if (c == ' ' || c == '\t') {
+				if (token >= 0) {
+					start = token;
+					end = mPos;
+					token = -1;
+				}
+			} else if (token < 0) {
+				token = mPos;
+			}
+		}
+		if (token >= 0) {
+			start = token;
+			end = mPos;
+		}
+		return Decode(start, end);
+	}
+
+	// -------------------------------------------------------------------
+	/** Parse an integer, with optional sign
+	 *  @return The value */
+	protected final int ParseInt() {
+		SkipSpaces();
+		mPos = fast_atof.ParseInt(mBuffer, mPos, mEnd, mIntScratch, 0);
+		return mIntScratch[0];
+	}
+
+	// -------------------------------------------------------------------
+	/** Parse a floating-point number, see #fast_atof
+	 *  @return The value */
+	protected final float ParseFloat() {
+		SkipSpaces();
+		mPos = fast_atof.ParseFloat(mBuffer, mPos, mEnd, mFloatScratch, 0);
+		return mFloatScratch[0];
+	}
+
+	// -------------------------------------------------------------------
+	/** Parse an OBJ style index triplet v[/[t][/n]], missing indices
+	 *  are 0
+	 *  @param pOut Receives the three indices */
+	protected final void ParseIndexTriplet(int[] pOut) {
+		SkipSpaces();
+		mPos = fast_atof.ParseIndexTriplet(mBuffer, mPos, mEnd, pOut, 0);
+	}
+
+	/** Create a String from a range of the buffer */
+	protected final String Decode(int pStart, int pEnd) {
+		byte[] bytes = new byte[pEnd - pStart];
+		for (int i = 0; i < bytes.length; ++i) {
+			bytes[i] = mBuffer.get(pStart + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
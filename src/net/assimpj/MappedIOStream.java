@@ -0,0 +1,205 @@
+package net.assimpj;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/** Read-only IOStream backed by a memory mapping of the file.
+ *
+ *  The file is mapped in regions of REGION_SIZE bytes because a single
+ *  FileChannel.map() is limited to 2GB. Slices within a region are
+ *  views on the mapping, the rare slice crossing a region boundary is
+ *  assembled in a heap buffer. Instances are created by #MappedIOSystem.
+ */
+public class MappedIOStream implements DirectIOStream {
+
+	/** Size of a single mapped region, in bytes */
+	static final int REGION_SIZE = 1 << 30;
+
+	/** Path of the file, for diagnostics */
+	private final String mPath;
+
+	/** The file, kept open until Close() */
+	private final RandomAccessFile mFile;
+
+	/** Mapped regions, in file order */
+	private final MappedByteBuffer[] mRegions;
+
+	/** File size, in bytes */
+	private final long mLength;
+
+	/** Read cursor */
+	private long mPosition;
+
+	// -------------------------------------------------------------------
+	/** Maps the given file.
+	 * @param pPath Path to the file 
+	 * @throws IOException If the file can't be opened or mapped */
+	public MappedIOStream(String pPath) throws IOException {
+		mPath = pPath;
+		mFile = new RandomAccessFile(pPath, "r");
+		try {
+			FileChannel channel = mFile.getChannel();
+			mLength = channel.size();
+
+			int numRegions = (int)((mLength + REGION_SIZE - 1) / REGION_SIZE);
+			mRegions = new MappedByteBuffer[numRegions];
+			for (int i = 0; i < numRegions; ++i) {
+				long start = (long)i * REGION_SIZE;
+				long size = Math.min(REGION_SIZE, mLength - start);
+				mRegions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+			}
+		} catch (IOException err) {
+			mFile.close();
+			throw err;
+		}
+		mPosition = 0;
+	}
+
+	// -------------------------------------------------------------------
+	/** Read from the file.
+	 *
+	 * Only ByteBuffers are accepted as destination. The number of 
+	 * elements is clamped to the space left in pvBuffer.
+	 * @see IOStream#Read(Buffer, int, int) */
+	@Override
+	public int Read(Buffer pvBuffer, int pSize, int pCount) {
+		if (!(pvBuffer instanceof ByteBuffer)) {
+			throw new IllegalArgumentException("[MappedIOStream.Read] Destination must be a ByteBuffer");
+		}
+		if (pSize <= 0 || pCount <= 0) {
+			return 0;
+		}
+		ByteBuffer out = (ByteBuffer)pvBuffer;
+		long count = Math.min(pCount, (mLength - mPosition) / pSize);
+		count = Math.min(count, out.remaining() / pSize);
+
+		int numBytes = (int)count * pSize;
+		CopyTo(mPosition, numBytes, out);
+		mPosition += numBytes;
+		return (int)count;
+	}
+
+	// -------------------------------------------------------------------
+	/** Writing is not supported, the mapping is read-only. */
+	@Override
+	public int Write(Buffer pvBuffer, int pSize, int pCount) {
+		return 0;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public aiReturn Seek(int pOffset, aiOrigin pOrigin) {
+		long target;
+		switch (pOrigin) {
+		case aiOrigin_SET:
+			target = pOffset;
+			break;
+		case aiOrigin_CUR:
+			target = mPosition + pOffset;
+			break;
+		default:
+			target = mLength + pOffset;
+			break;
+		}
+		if (target < 0 || target > mLength) {
+			return aiReturn.aiReturn_FAILURE;
+		}
+		mPosition = target;
+		return aiReturn.aiReturn_SUCCESS;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public int Tell() {
+		return (int)Math.min(mPosition, Integer.MAX_VALUE);
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public int FileSize() {
+		return (int)Math.min(mLength, Integer.MAX_VALUE);
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void Flush() {
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public long Length() {
+		return mLength;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public ByteBuffer Slice(long pOffset, int pLength) {
+		if (pOffset < 0 || pLength < 0 || pOffset + pLength > mLength) {
+			throw new IndexOutOfBoundsException("[MappedIOStream.Slice] Range exceeds " + mPath);
+		}
+		if (pLength == 0) {
+			// there is no region at the end of the file, i.e. of an empty 
+			// one or one of a multiple of REGION_SIZE bytes
+			return ByteBuffer.allocate(0).asReadOnlyBuffer();
+		}
+		int region = (int)(pOffset / REGION_SIZE);
+		int start = (int)(pOffset % REGION_SIZE);
+		if (start + pLength <= mRegions[region].capacity()) {
+			ByteBuffer view = mRegions[region].duplicate();
+			view.limit(start + pLength).position(start);
+			return view.slice().asReadOnlyBuffer();
+		}
+
+		// the range crosses a region boundary
+		ByteBuffer out = ByteBuffer.allocate(pLength);
+		CopyTo(pOffset, pLength, out);
+		out.flip();
+		return out.asReadOnlyBuffer();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public ByteBuffer ReadSlice(int pLength) {
+		int numBytes = (int)Math.min(pLength, mLength - mPosition);
+		ByteBuffer view = Slice(mPosition, numBytes);
+		mPosition += numBytes;
+		return view;
+	}
+
+	// -------------------------------------------------------------------
+	/** Unmaps the file and closes it. All views returned by Slice()
+	 *  become invalid. */
+	public void Close() {
+		for (int i = 0; i < mRegions.length; ++i) {
+			DirectBufferCleaner.Clean(mRegions[i]);
+			mRegions[i] = null;
+		}
+		try {
+			mFile.close();
+		} catch (IOException err) {
+			// nothing we could do about it, the mapping is gone anyway
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Copies a range of the file into the given buffer */
+	private void CopyTo(long pOffset, int pLength, ByteBuffer pOut) {
+		while (pLength > 0) {
+			int region = (int)(pOffset / REGION_SIZE);
+			int start = (int)(pOffset % REGION_SIZE);
+			int chunk = Math.min(pLength, mRegions[region].capacity() - start);
+
+			ByteBuffer view = mRegions[region].duplicate();
+			view.limit(start + chunk).position(start);
+			pOut.put(view);
+
+			pOffset += chunk;
+			pLength -= chunk;
+		}
+	}
+
+}
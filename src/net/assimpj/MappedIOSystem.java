@@ -0,0 +1,65 @@
+package net.assimpj;
+
+import java.io.File;
+import java.io.IOException;
+
+/** IOSystem that memory-maps the files it opens.
+ *
+ *  This avoids copying the file contents into the Java heap: binary 
+ *  loaders can get views of the mapped file via #DirectIOStream.Slice() 
+ *  and parse them in place. Only read access is supported, Open() fails 
+ *  for the write modes.
+ */
+public class MappedIOSystem implements IOSystem {
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean Exists(String pFile) {
+		return new File(pFile).isFile();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public String getOsSeparator() {
+		return File.separator;
+	}
+
+	// -------------------------------------------------------------------
+	/** Maps the given file.
+	 * @return A #MappedIOStream or null if the file can't be mapped or 
+	 *   pMode requests write access. */
+	@Override
+	public IOStream Open(String pFile, String pMode) {
+		if (pMode != null && (pMode.indexOf('w') >= 0 || pMode.indexOf('a') >= 0 || pMode.indexOf('+') >= 0)) {
+			return null;
+		}
+		try {
+			return new MappedIOStream(pFile);
+		} catch (IOException err) {
+			return null;
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void Close(IOStream pFile) {
+		if (pFile instanceof MappedIOStream) {
+			((MappedIOStream)pFile).Close();
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Compares the canonical paths of both files */
+	@Override
+	public boolean ComparePaths(String one, String second) {
+		if (one.equalsIgnoreCase(second)) {
+			return true;
+		}
+		try {
+			return new File(one).getCanonicalPath().equals(new File(second).getCanonicalPath());
+		} catch (IOException err) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+package net.assimpj;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/** Read-only IOStream over a ByteBuffer.
+ *
+ *  Reading and slicing never copy the underlying buffer, so a loader 
+ *  parsing through #DirectIOStream.Slice() works directly on the memory
+ *  passed to Importer.ReadFileFromMemory().
+ */
+public class MemoryIOStream implements DirectIOStream {
+
+	/** The file data, position 0 is the start of the file */
+	private final ByteBuffer mBuffer;
+
+	/** Read cursor */
+	private int mPosition;
+
+	/** @param pBuffer File data from its position to its limit. The 
+	 *    buffer itself is not modified. */
+	public MemoryIOStream(ByteBuffer pBuffer) {
+		mBuffer = pBuffer.slice();
+		mPosition = 0;
+	}
+
+	// -------------------------------------------------------------------
+	/** Read from the buffer.
+	 *
+	 * Only ByteBuffers are accepted as destination. The number of 
+	 * elements is clamped to the space left in pvBuffer.
+	 * @see IOStream#Read(Buffer, int, int) */
+	@Override
+	public int Read(Buffer pvBuffer, int pSize, int pCount) {
+		if (!(pvBuffer instanceof ByteBuffer)) {
+			throw new IllegalArgumentException("[MemoryIOStream.Read] Destination must be a ByteBuffer");
+		}
+		if (pSize <= 0 || pCount <= 0) {
+			return 0;
+		}
+		ByteBuffer out = (ByteBuffer)pvBuffer;
+		int count = Math.min(pCount, (mBuffer.limit() - mPosition) / pSize);
+		count = Math.min(count, out.remaining() / pSize);
+
+		out.put(Slice(mPosition, count * pSize));
+		mPosition += count * pSize;
+		return count;
+	}
+
+	// -------------------------------------------------------------------
+	/** Writing is not supported, the stream is read-only. */
+	@Override
+	public int Write(Buffer pvBuffer, int pSize, int pCount) {
+		return 0;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public aiReturn Seek(int pOffset, aiOrigin pOrigin) {
+		long target;
+		switch (pOrigin) {
+		case aiOrigin_SET:
+			target = pOffset;
+			break;
+		case aiOrigin_CUR:
+			target = (long)mPosition + pOffset;
+			break;
+		default:
+			target = (long)mBuffer.limit() + pOffset;
+			break;
+		}
+		if (target < 0 || target > mBuffer.limit()) {
+			return aiReturn.aiReturn_FAILURE;
+		}
+		mPosition = (int)target;
+		return aiReturn.aiReturn_SUCCESS;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public int Tell() {
+		return mPosition;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public int FileSize() {
+		return mBuffer.limit();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void Flush() {
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public long Length() {
+		return mBuffer.limit();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public ByteBuffer Slice(long pOffset, int pLength) {
+		if (pOffset < 0 || pLength < 0 || pOffset + pLength > mBuffer.limit()) {
+			throw new IndexOutOfBoundsException("[MemoryIOStream.Slice] Range exceeds the buffer");
+		}
+		ByteBuffer view = mBuffer.duplicate();
+		view.limit((int)pOffset + pLength).position((int)pOffset);
+		return view.slice().asReadOnlyBuffer();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public ByteBuffer ReadSlice(int pLength) {
+		int numBytes = Math.min(pLength, mBuffer.limit() - mPosition);
+		ByteBuffer view = Slice(mPosition, numBytes);
+		mPosition += numBytes;
+		return view;
+	}
+
+}
@@ -0,0 +1,79 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+
+/** IOSystem serving a single file from a memory buffer.
+ *
+ *  This is used by Importer.ReadFileFromMemory(). The buffer is exposed
+ *  under the magic file name AI_MEMORYIO_MAGIC_FILENAME, followed by a 
+ *  dot and the hint passed by the caller so the usual extension-based 
+ *  loader selection keeps working. All other paths are forwarded to the
+ *  IOSystem that was active before, which allows loaders to open files
+ *  referenced by the model (e.g. OBJ material libraries).
+ */
+public class MemoryIOSystem implements IOSystem {
+
+	/** File name the memory buffer is accessible by */
+	public static final String AI_MEMORYIO_MAGIC_FILENAME = "$$$___magic___$$$";
+
+	/** Maximum length of the format hint */
+	public static final int MAX_HINT_LENGTH = 100;
+
+	/** The file data, never modified */
+	private final ByteBuffer mBuffer;
+
+	/** IOSystem to forward all other files to, may be null */
+	private final IOSystem mExistingIO;
+
+	// -------------------------------------------------------------------
+	/** @param pBuffer File data from its position to its limit
+	 *  @param pExistingIO IOSystem for all other files, may be null */
+	public MemoryIOSystem(ByteBuffer pBuffer, IOSystem pExistingIO) {
+		mBuffer = pBuffer.slice();
+		mExistingIO = pExistingIO;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean Exists(String pFile) {
+		if (pFile.startsWith(AI_MEMORYIO_MAGIC_FILENAME)) {
+			return true;
+		}
+		return mExistingIO != null && mExistingIO.Exists(pFile);
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public String getOsSeparator() {
+		return mExistingIO != null ? mExistingIO.getOsSeparator() : "/";
+	}
+
+	// -------------------------------------------------------------------
+	/** Opens the memory buffer, or forwards to the previous IOSystem.
+	 *  Each call returns an independent stream on the same memory. */
+	@Override
+	public IOStream Open(String pFile, String pMode) {
+		if (pFile.startsWith(AI_MEMORYIO_MAGIC_FILENAME)) {
+			return new MemoryIOStream(mBuffer);
+		}
+		return mExistingIO != null ? mExistingIO.Open(pFile, pMode) : null;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void Close(IOStream pFile) {
+		if (!(pFile instanceof MemoryIOStream) && mExistingIO != null) {
+			mExistingIO.Close(pFile);
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean ComparePaths(String one, String second) {
+		if (one.startsWith(AI_MEMORYIO_MAGIC_FILENAME) || second.startsWith(AI_MEMORYIO_MAGIC_FILENAME)) {
+			return one.equals(second);
+		}
+		return mExistingIO != null ? mExistingIO.ComparePaths(one, second) : one.equalsIgnoreCase(second);
+	}
+
+}
@@ -0,0 +1,173 @@
+package net.assimpj;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** Base class for post-processing steps that work on each mesh on its
+ *  own.
+ *
+ *  Most steps (normals, tangents, triangulation, vertex joining ...) 
+ *  touch nothing but the mesh they process. Deriving from MeshProcess 
+ *  declares this: the step implements ExecuteOnMesh() and the Importer 
+ *  may run it on many meshes at once if a post-processing pool has been 
+ *  set via Importer.SetPostProcessingPool(). ExecuteOnMesh() must then be
+ *  safe to call concurrently for different meshes: keep per-mesh state 
+ *  in locals, not in fields. Scene-wide work goes to PostExecute(), 
+ *  which always runs once on the calling thread.
+ */
+abstract class MeshProcess extends BaseProcess {
+
+	/** Meshes, or groups of meshes, cheaper than this are not split any
+	 *  further. Unit: vertices + indices. */
+	static final long MIN_PARALLEL_COST = 1 << 14;
+
+	// -------------------------------------------------------------------
+	/** Executes the step on a single mesh.
+	 * @param pMesh The mesh to work at, never NULL
+	 * @param pArena Arena holding the data of the mesh. Channels and
+	 *   faces the step replaces are allocated from it, never NULL
+	 * @param pTracker Receives the elements processed by the loops of the
+	 *   step, see ProgressTracker.AddElement(). Never NULL. */
+	public abstract void ExecuteOnMesh(aiMesh pMesh, SceneArena pArena, ProgressTracker pTracker);
+
+	// -------------------------------------------------------------------
+	/** Creates a new instance of the step, not yet set up. A lazy scene
+	 *  processes its meshes with instances of its own, so importing the
+	 *  next file with other properties doesn't change how the meshes of
+	 *  this one are loaded. */
+	abstract MeshProcess NewInstance();
+
+	// -------------------------------------------------------------------
+	/** Called after all meshes have been processed, i.e. to update the
+	 *  scene flags.
+	 * @param pScene The imported data to work at. */
+	protected void PostExecute(aiScene pScene) {
+	}
+
+	// -------------------------------------------------------------------
+	/** Estimates the relative cost of processing a mesh, used to balance
+	 *  the parallel execution. The default is the number of vertices plus 
+	 *  the number of indices. */
+	protected long EstimateCost(aiMesh pMesh) {
+		return (long)pMesh.GetNumVertices() + pMesh.GetNumIndices();
+	}
+
+	// -------------------------------------------------------------------
+	/** Processes all meshes on the calling thread */
+	@Override
+	public void Execute(aiScene pScene) {
+		// the cost of a mesh is estimated before the step changes it
+		long total = 0;
+		long[] cost = new long[pScene.GetNumMeshes()];
+		for (int i = 0; i < cost.length; ++i) {
+			aiMesh mesh = pScene.GetMesh(i);
+			if (mesh != null) {
+				cost[i] = EstimateCost(mesh);
+				total += cost[i];
+			}
+		}
+		BeginProgress(total);
+		for (int i = 0; i < cost.length; ++i) {
+			aiMesh mesh = pScene.GetMesh(i);
+			if (mesh != null) {
+				ProgressTracker meshTracker = tracker.ForMesh(cost[i]);
+				ExecuteOnMesh(mesh, pScene.mPrivate, meshTracker);
+				meshTracker.Complete();
+			}
+		}
+		PostExecute(pScene);
+	}
+
+	// -------------------------------------------------------------------
+	/** Processes all meshes on a fork-join pool.
+	 *
+	 *  Meshes are ordered by decreasing cost and the list is split 
+	 *  recursively into halves of equal cost, so the largest meshes are
+	 *  started first and small meshes are batched instead of forking a 
+	 *  task for each of them.
+	 * @param pScene The imported data to work at.
+	 * @param pPool Pool to run on */
+	public void ExecuteParallel(aiScene pScene, ForkJoinPool pPool) {
+		int num = 0;
+		aiMesh[] meshes = new aiMesh[pScene.GetNumMeshes()];
+		for (int i = 0; i < meshes.length; ++i) {
+			if (pScene.GetMesh(i) != null) {
+				meshes[num++] = pScene.GetMesh(i);
+			}
+		}
+
+		final long[] cost = new long[num];
+		Integer[] order = new Integer[num];
+		for (int i = 0; i < num; ++i) {
+			cost[i] = Math.max(1, EstimateCost(meshes[i]));
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Long.compare(cost[b], cost[a]);
+			}
+		});
+
+		aiMesh[] sorted = new aiMesh[num];
+		long[] prefix = new long[num + 1];
+		for (int i = 0; i < num; ++i) {
+			sorted[i] = meshes[order[i]];
+			prefix[i + 1] = prefix[i] + cost[order[i]];
+		}
+
+		BeginProgress(prefix[num]);
+		if (num > 0) {
+			pPool.invoke(new MeshTask(this, sorted, pScene.mPrivate, prefix, 0, num));
+		}
+		PostExecute(pScene);
+	}
+
+	// -------------------------------------------------------------------
+	/** Processes a range of meshes, splitting it while it is worth it */
+	private static final class MeshTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final MeshProcess mProcess;
+		private final aiMesh[] mMeshes;
+		private final SceneArena mArena;
+		private final long[] mPrefix;
+		private final int mBegin;
+		private final int mEnd;
+
+		MeshTask(MeshProcess pProcess, aiMesh[] pMeshes, SceneArena pArena, long[] pPrefix, int pBegin, int pEnd) {
+			mProcess = pProcess;
+			mMeshes = pMeshes;
+			mArena = pArena;
+			mPrefix = pPrefix;
+			mBegin = pBegin;
+			mEnd = pEnd;
+		}
+
+		@Override
+		protected void compute() {
+			long total = mPrefix[mEnd] - mPrefix[mBegin];
+			if (mEnd - mBegin == 1 || total <= MIN_PARALLEL_COST) {
+				for (int i = mBegin; i < mEnd; ++i) {
+					ProgressTracker meshTracker = mProcess.tracker.ForMesh(mPrefix[i + 1] - mPrefix[i]);
+					mProcess.ExecuteOnMesh(mMeshes[i], mArena, meshTracker);
+					meshTracker.Complete();
+				}
+				return;
+			}
+
+			// split where half of the cost of the range is reached
+			long half = mPrefix[mBegin] + total / 2;
+			int split = Arrays.binarySearch(mPrefix, mBegin + 1, mEnd, half);
+			split = split >= 0 ? split : -split - 1;
+			split = Math.max(mBegin + 1, Math.min(mEnd - 1, split));
+
+			invokeAll(new MeshTask(mProcess, mMeshes, mArena, mPrefix, mBegin, split),
+				new MeshTask(mProcess, mMeshes, mArena, mPrefix, split, mEnd));
+		}
+	}
+
+}
@@ -0,0 +1,584 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.lwjgl.util.vector.Matrix4f;
+
+/** Imports a Wavefront OBJ file, together with its material libraries.
+ *
+ *  The file is parsed straight from its bytes, see #ObjFileParser. Files
+ *  larger than PARALLEL_THRESHOLD are split into line-aligned ranges which
+ *  are parsed concurrently on the post-processing pool of the Importer,
+ *  or on the common pool if none is set.
+ *  <br>
+ *  Each object ('o', or 'g' in files without 'o') becomes a child of the
+ *  root node, with one mesh per material used by the object. As with all
+ *  loaders, the meshes are in verbose format: every face corner is a
+ *  vertex of its own. Files without faces are imported as a point cloud.
+ */
+public class ObjFileImporter extends BaseImporter {
+
+	private static final aiImporterDesc desc = new aiImporterDesc(
+		"Wavefront Object Importer",
+		"",
+		"",
+		"surfaces not supported",
+		aiImporterDesc.aiImporterFlags_SupportTextFlavour,
+		0,
+		0,
+		0,
+		0,
+		"obj"
+	);
+
+	/** Files smaller than this can't contain a face */
+	private static final int OBJ_MIN_SIZE = 16;
+
+	/** Files from this size on are parsed in parallel */
+	static final int PARALLEL_THRESHOLD = 4 << 20;
+
+	/** Minimum size of a range parsed by a single task */
+	private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+	/** Name of the object holding faces that precede any 'o' or 'g' */
+	private static final String DEFAULT_OBJECT = "defaultobject";
+
+	/** Pool to parse on, from the Importer */
+	private ForkJoinPool mPool;
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean CanRead(String pFile, IOSystem pIOHandler, boolean checkSig) {
+		if (!checkSig) {
+			// Check File Extension
+			return SimpleExtensionCheck(pFile, "obj", null, null);
+		}
+		// Check file Header
+		String[] tokens = { "mtllib", "usemtl", "v ", "vt ", "vn ", "o ", "g ", "s ", "f " };
+		return SearchFileHeaderForToken(pIOHandler, pFile, tokens, 200, true);
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void GetSignatures(List<FormatSignature> pSignatures) {
+		pSignatures.add(FormatSignature.Keyword("mtllib", true));
+		pSignatures.add(FormatSignature.Keyword("usemtl", true));
+		pSignatures.add(FormatSignature.Keyword("v ", true));
+		pSignatures.add(FormatSignature.Keyword("vt ", true));
+		pSignatures.add(FormatSignature.Keyword("vn ", true));
+		pSignatures.add(FormatSignature.Keyword("f ", true));
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void SetupProperties(Importer pImp) {
+		mPool = pImp.GetPostProcessingPool();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public aiImporterDesc GetInfo() {
+		return desc;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	protected void InternReadFile(String pFile, aiScene pScene, IOSystem pIOHandler) {
+		IOStream file = pIOHandler.Open(pFile, "rb");
+		if (file == null) {
+			throw new DeadlyImportError("Failed to open file " + pFile + ".");
+		}
+		try {
+			ByteBuffer buffer = TextFileToBuffer(file);
+			if (buffer.remaining() < OBJ_MIN_SIZE) {
+				throw new DeadlyImportError("OBJ-file is too small.");
+			}
+			progress.UpdateFileRead(1, 3);
+
+			ObjFileParser[] chunks = Parse(buffer);
+			progress.UpdateFileRead(2, 3);
+
+			CreateDataFromImport(pFile, chunks, pScene, pIOHandler);
+			progress.UpdateFileRead(3, 3);
+		} finally {
+			pIOHandler.Close(file);
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Split the file into line-aligned ranges and parse them */
+	private ObjFileParser[] Parse(ByteBuffer pBuffer) {
+		final int start = pBuffer.position(), end = pBuffer.limit();
+		final int size = end - start;
+		final ForkJoinPool pool = mPool != null ? mPool : ForkJoinPool.commonPool();
+
+		int numChunks = 1;
+		if (size >= PARALLEL_THRESHOLD && pool.getParallelism() > 1) {
+			numChunks = Math.min(pool.getParallelism() * 4, size / MIN_CHUNK_SIZE);
+		}
+
+		// the chunks count their bytes together, all stop on cancellation
+		ProgressTracker tracker = ProgressTracker.ForFileRead(progress, 1, 3, size);
+		ObjFileParser[] chunks = new ObjFileParser[numChunks];
+		int begin = start;
+		for (int i = 0; i < numChunks; ++i) {
+			int stop = i == numChunks - 1 ? end : Math.max(begin, start + (int)((long)size * (i + 1) / numChunks));
+			// extend the range to the next line end
+			while (stop < end && pBuffer.get(stop - 1) != '\n') {
+				++stop;
+			}
+			chunks[i] = new ObjFileParser(pBuffer, begin, stop);
+			chunks[i].SetProgress(tracker);
+			begin = stop;
+		}
+
+		if (numChunks == 1) {
+			chunks[0].Parse();
+			return chunks;
+		}
+
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(numChunks);
+		for (final ObjFileParser chunk : chunks) {
+			tasks.add(pool.submit(new Runnable() {
+				public void run() {
+					chunk.Parse();
+				}
+			}));
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+		return chunks;
+	}
+
+	// -------------------------------------------------------------------
+	/** A run of faces of one range that share object and material */
+	private static final class Segment {
+		final ObjFileParser mChunk;
+		final int mFaceStart, mFaceEnd, mCornerStart;
+
+		Segment(ObjFileParser pChunk, int pFaceStart, int pFaceEnd, int pCornerStart) {
+			mChunk = pChunk;
+			mFaceStart = pFaceStart;
+			mFaceEnd = pFaceEnd;
+			mCornerStart = pCornerStart;
+		}
+	}
+
+	/** All faces of one object that use the same material */
+	private static final class MeshDesc {
+		final int mObject, mMaterial;
+		final List<Segment> mSegments = new ArrayList<Segment>();
+
+		MeshDesc(int pObject, int pMaterial) {
+			mObject = pObject;
+			mMaterial = pMaterial;
+		}
+	}
+
+	/** Vertex data of the whole file */
+	private static final class VertexData {
+		float[] mPositions, mColors, mTexCoords, mNormals;
+		int mNumPositions, mNumTexCoords, mNumNormals;
+		boolean mHasW;
+	}
+
+	// -------------------------------------------------------------------
+	/** Stitch the ranges together and build the scene */
+	private void CreateDataFromImport(String pFile, ObjFileParser[] pChunks,
+		aiScene pScene, IOSystem pIOHandler) {
+		final VertexData data = MergeVertexData(pChunks);
+
+		// load all referenced material libraries first
+		List<aiMaterial> materials = new ArrayList<aiMaterial>();
+		Map<String, Integer> materialMap = new HashMap<String, Integer>();
+		materials.add(ObjFileMtlImporter.CreateMaterial(pScene.mPrivate, ObjFileMtlImporter.DEFAULT_MATERIAL));
+		List<String> libraries = new ArrayList<String>();
+		for (ObjFileParser chunk : pChunks) {
+			for (ObjFileParser.Event e : chunk.mEvents) {
+				if (e.mType == ObjFileParser.EVENT_MTLLIB && !libraries.contains(e.mName)) {
+					libraries.add(e.mName);
+					LoadMaterialLibrary(pFile, e.mName, pIOHandler, pScene.mPrivate, materials, materialMap);
+				}
+			}
+		}
+		for (int i = 0; i < materials.size(); ++i) {
+			EmitMaterial(i, materials.get(i));
+		}
+
+		// replay the state changes to assign the faces to objects and meshes
+		List<String> objects = new ArrayList<String>();
+		Map<String, Integer> objectMap = new HashMap<String, Integer>();
+		Map<Long, MeshDesc> meshMap = new LinkedHashMap<Long, MeshDesc>();
+		int object = -1, material = 0;
+		boolean useObjects = false;
+		for (ObjFileParser chunk : pChunks) {
+			int face = 0, corner = 0;
+			for (ObjFileParser.Event e : chunk.mEvents) {
+				if (e.mFace > face) {
+					if (object < 0) {
+						object = GetObject(DEFAULT_OBJECT, objects, objectMap);
+					}
+					AddSegment(meshMap, object, material, new Segment(chunk, face, e.mFace, corner));
+				}
+				face = e.mFace;
+				corner = e.mCorner;
+
+				switch (e.mType) {
+				case ObjFileParser.EVENT_OBJECT:
+					useObjects = true;
+					object = GetObject(e.mName, objects, objectMap);
+					break;
+				case ObjFileParser.EVENT_GROUP:
+					if (!useObjects) {
+						object = GetObject(e.mName, objects, objectMap);
+					}
+					break;
+				case ObjFileParser.EVENT_MATERIAL:
+					Integer index = materialMap.get(e.mName);
+					material = index != null ? index : 0;
+					break;
+				default:
+					break;
+				}
+			}
+			if (chunk.mNumFaces > face) {
+				if (object < 0) {
+					object = GetObject(DEFAULT_OBJECT, objects, objectMap);
+				}
+				AddSegment(meshMap, object, material, new Segment(chunk, face, chunk.mNumFaces, corner));
+			}
+		}
+
+		// build the meshes
+		final List<MeshDesc> descs = new ArrayList<MeshDesc>(meshMap.values());
+		final aiMesh[] meshes;
+		if (descs.isEmpty()) {
+			if (data.mNumPositions == 0) {
+				throw new DeadlyImportError("OBJ: File contains neither faces nor vertices");
+			}
+			meshes = new aiMesh[] { CreatePointCloud(data, pScene.mPrivate) };
+			meshes[0].SetName(DEFAULT_OBJECT);
+			object = GetObject(DEFAULT_OBJECT, objects, objectMap);
+			descs.add(new MeshDesc(object, 0));
+		} else {
+			meshes = new aiMesh[descs.size()];
+			BuildMeshes(descs, objects, data, pScene, meshes);
+		}
+
+		// and the node hierarchy, one node per object
+		aiNode root = new aiNode(GetFileName(pFile));
+		root.SetTransformation(Identity());
+		aiNode[] nodes = new aiNode[objects.size()];
+		for (int i = 0; i < nodes.length; ++i) {
+			nodes[i] = new aiNode(objects.get(i));
+			nodes[i].SetTransformation(Identity());
+			root.AddChild(nodes[i]);
+		}
+		for (int i = 0; i < descs.size(); ++i) {
+			nodes[descs.get(i).mObject].AddMesh(i);
+		}
+
+		pScene.SetMeshes(meshes);
+		pScene.SetMaterials(materials.toArray(new aiMaterial[materials.size()]));
+		pScene.SetRootNode(root);
+	}
+
+	// -------------------------------------------------------------------
+	/** Resolve relative indices and concatenate the vertex data of all ranges */
+	private static VertexData MergeVertexData(ObjFileParser[] pChunks) {
+		VertexData data = new VertexData();
+		boolean colors = false;
+		for (ObjFileParser chunk : pChunks) {
+			// relative indices become absolute once the preceding ranges are known
+			for (int i = 0; i < chunk.mNumRelative; ++i) {
+				int slot = chunk.mRelative[i];
+				switch (slot % 3) {
+				case 0:
+					chunk.mCorners[slot] += data.mNumPositions;
+					break;
+				case 1:
+					chunk.mCorners[slot] += data.mNumTexCoords;
+					break;
+				default:
+					chunk.mCorners[slot] += data.mNumNormals;
+					break;
+				}
+			}
+			data.mNumPositions += chunk.mNumVertices;
+			data.mNumTexCoords += chunk.mNumTexCoords;
+			data.mNumNormals += chunk.mNumNormals;
+			data.mHasW |= chunk.mHasW;
+			colors |= chunk.mColors != null;
+		}
+
+		if (pChunks.length == 1) {
+			ObjFileParser chunk = pChunks[0];
+			data.mPositions = chunk.mVertices;
+			data.mColors = chunk.mColors;
+			data.mTexCoords = chunk.mTexCoords;
+			data.mNormals = chunk.mNormals;
+			return data;
+		}
+
+		data.mPositions = new float[data.mNumPositions * 3];
+		data.mTexCoords = new float[data.mNumTexCoords * 3];
+		data.mNormals = new float[data.mNumNormals * 3];
+		data.mColors = colors ? new float[data.mNumPositions * 3] : null;
+		int p = 0, t = 0, n = 0;
+		for (ObjFileParser chunk : pChunks) {
+			System.arraycopy(chunk.mVertices, 0, data.mPositions, p, chunk.mNumVertices * 3);
+			if (colors) {
+				if (chunk.mColors != null) {
+					System.arraycopy(chunk.mColors, 0, data.mColors, p, chunk.mNumVertices * 3);
+				} else {
+					Arrays.fill(data.mColors, p, p + chunk.mNumVertices * 3, 1.f);
+				}
+			}
+			System.arraycopy(chunk.mTexCoords, 0, data.mTexCoords, t, chunk.mNumTexCoords * 3);
+			System.arraycopy(chunk.mNormals, 0, data.mNormals, n, chunk.mNumNormals * 3);
+			p += chunk.mNumVertices * 3;
+			t += chunk.mNumTexCoords * 3;
+			n += chunk.mNumNormals * 3;
+		}
+		return data;
+	}
+
+	// -------------------------------------------------------------------
+	private static int GetObject(String pName, List<String> pObjects, Map<String, Integer> pObjectMap) {
+		String name = pName.length() > 0 ? pName : DEFAULT_OBJECT;
+		Integer index = pObjectMap.get(name);
+		if (index == null) {
+			index = pObjects.size();
+			pObjects.add(name);
+			pObjectMap.put(name, index);
+		}
+		return index;
+	}
+
+	private static void AddSegment(Map<Long, MeshDesc> pMeshMap, int pObject, int pMaterial, Segment pSegment) {
+		Long key = ((long)pObject << 32) | pMaterial;
+		MeshDesc desc = pMeshMap.get(key);
+		if (desc == null) {
+			desc = new MeshDesc(pObject, pMaterial);
+			pMeshMap.put(key, desc);
+		}
+		desc.mSegments.add(pSegment);
+	}
+
+	// -------------------------------------------------------------------
+	/** Build all meshes, in parallel if there are several. Each mesh is
+	 *  emitted as soon as it is done. */
+	private void BuildMeshes(final List<MeshDesc> pDescs, final List<String> pObjects,
+		final VertexData pData, final aiScene pScene, final aiMesh[] pOut) {
+		if (pDescs.size() == 1) {
+			BuildMesh(0, pDescs, pObjects, pData, pScene, pOut);
+		} else {
+			ForkJoinPool pool = mPool != null ? mPool : ForkJoinPool.commonPool();
+			List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(pDescs.size());
+			for (int i = 0; i < pDescs.size(); ++i) {
+				final int index = i;
+				tasks.add(pool.submit(new Runnable() {
+					public void run() {
+						BuildMesh(index, pDescs, pObjects, pData, pScene, pOut);
+					}
+				}));
+			}
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		}
+	}
+
+	private void BuildMesh(int pIndex, List<MeshDesc> pDescs, List<String> pObjects,
+		VertexData pData, aiScene pScene, aiMesh[] pOut) {
+		SceneArena arena = GetMeshArena(pScene);
+		aiMesh mesh = CreateMesh(pDescs.get(pIndex), pData, arena);
+		mesh.SetName(pObjects.get(pDescs.get(pIndex).mObject));
+		pOut[pIndex] = mesh;
+		EmitMesh(pScene, pIndex, mesh, arena);
+	}
+
+	// -------------------------------------------------------------------
+	/** Create the mesh for a run of faces, writing the channels directly */
+	private static aiMesh CreateMesh(MeshDesc pDesc, VertexData pData, SceneArena pArena) {
+		// count faces and corners first, lines are split into segments
+		int numFaces = 0, numCorners = 0, faceSize = -1, types = 0;
+		for (Segment seg : pDesc.mSegments) {
+			final int[] faces = seg.mChunk.mFaces;
+			for (int f = seg.mFaceStart; f < seg.mFaceEnd; ++f) {
+				int n = faces[f];
+				if (n < 0) {
+					numFaces += -n - 1;
+					numCorners += (-n - 1) * 2;
+					n = 2;
+				} else {
+					++numFaces;
+					numCorners += n;
+				}
+				faceSize = faceSize < 0 || faceSize == n ? n : 0;
+				types |= n == 1 ? aiMeshConst.aiPrimitiveType_POINT
+					: n == 2 ? aiMeshConst.aiPrimitiveType_LINE
+					: n == 3 ? aiMeshConst.aiPrimitiveType_TRIANGLE : aiMeshConst.aiPrimitiveType_POLYGON;
+			}
+		}
+
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(numCorners);
+		mesh.SetMaterialIndex(pDesc.mMaterial);
+		mesh.SetPrimitiveTypes(types);
+
+		final FloatBuffer pos = pArena.AllocChannel(numCorners, aiMeshConst.AI_VECTOR_COMPONENTS);
+		final FloatBuffer col = pData.mColors != null ? pArena.AllocChannel(numCorners, aiMeshConst.AI_COLOR_COMPONENTS) : null;
+		FloatBuffer uv = null, nor = null;
+		final int[] offsets = faceSize == 0 ? new int[numFaces + 1] : null;
+		final float[] positions = pData.mPositions, colors = pData.mColors;
+		final float[] texCoords = pData.mTexCoords, normals = pData.mNormals;
+
+		int out = 0, face = 0;
+		for (Segment seg : pDesc.mSegments) {
+			final int[] faces = seg.mChunk.mFaces, corners = seg.mChunk.mCorners;
+			int c = seg.mCornerStart;
+			for (int f = seg.mFaceStart; f < seg.mFaceEnd; ++f) {
+				final int n = faces[f];
+				final int first = c, count = n < 0 ? (-n - 1) * 2 : n;
+				for (int k = 0; k < count; ++k, ++out) {
+					// corners k and k+1 of a polyline make a segment
+					final int ci = (n < 0 ? first + ((k + 1) >> 1) : first + k) * 3;
+
+					final int v = CheckIndex(corners[ci], pData.mNumPositions) * 3;
+					pos.put(out * 3, positions[v]).put(out * 3 + 1, positions[v + 1]).put(out * 3 + 2, positions[v + 2]);
+					if (col != null) {
+						col.put(out * 4, colors[v]).put(out * 4 + 1, colors[v + 1]).put(out * 4 + 2, colors[v + 2]).put(out * 4 + 3, 1.f);
+					}
+
+					final int t = corners[ci + 1];
+					if (t != ObjFileParser.ABSENT) {
+						if (uv == null) {
+							uv = pArena.AllocChannel(numCorners, aiMeshConst.AI_VECTOR_COMPONENTS);
+						}
+						final int ti = CheckIndex(t, pData.mNumTexCoords) * 3;
+						uv.put(out * 3, texCoords[ti]).put(out * 3 + 1, texCoords[ti + 1]).put(out * 3 + 2, texCoords[ti + 2]);
+					}
+
+					final int vn = corners[ci + 2];
+					if (vn != ObjFileParser.ABSENT) {
+						if (nor == null) {
+							nor = pArena.AllocChannel(numCorners, aiMeshConst.AI_VECTOR_COMPONENTS);
+						}
+						final int ni = CheckIndex(vn, pData.mNumNormals) * 3;
+						nor.put(out * 3, normals[ni]).put(out * 3 + 1, normals[ni + 1]).put(out * 3 + 2, normals[ni + 2]);
+					}
+
+					if (offsets != null && (n > 0 ? k == 0 : (k & 1) == 0)) {
+						offsets[face++] = out;
+					}
+				}
+				c += n < 0 ? -n : n;
+			}
+		}
+
+		mesh.SetVertices(pos);
+		mesh.SetNormals(nor);
+		if (col != null) {
+			mesh.SetColors(0, col);
+		}
+		if (uv != null) {
+			mesh.SetTextureCoords(0, uv, pData.mHasW ? 3 : 2);
+		}
+
+		// verbose format, the faces simply enumerate the vertices
+		IntBuffer indices = pArena.AllocInts(numCorners);
+		for (int i = 0; i < numCorners; ++i) {
+			indices.put(i, i);
+		}
+		if (offsets != null) {
+			offsets[numFaces] = numCorners;
+			mesh.SetFaces(indices, offsets);
+		} else {
+			mesh.SetFaces(indices, numFaces, faceSize);
+		}
+		return mesh;
+	}
+
+	private static int CheckIndex(int pIndex, int pCount) {
+		if (pIndex < 0 || pIndex >= pCount) {
+			throw new DeadlyImportError("OBJ: Index out of range");
+		}
+		return pIndex;
+	}
+
+	// -------------------------------------------------------------------
+	/** Create a mesh with a point face for each vertex */
+	private static aiMesh CreatePointCloud(VertexData pData, SceneArena pArena) {
+		final int num = pData.mNumPositions;
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(num);
+		mesh.SetPrimitiveTypes(aiMeshConst.aiPrimitiveType_POINT);
+
+		FloatBuffer pos = pArena.AllocChannel(num, aiMeshConst.AI_VECTOR_COMPONENTS);
+		pos.put(pData.mPositions, 0, num * 3).clear();
+		mesh.SetVertices(pos);
+
+		if (pData.mNumNormals == num) {
+			FloatBuffer nor = pArena.AllocChannel(num, aiMeshConst.AI_VECTOR_COMPONENTS);
+			nor.put(pData.mNormals, 0, num * 3).clear();
+			mesh.SetNormals(nor);
+		}
+		if (pData.mColors != null) {
+			FloatBuffer col = pArena.AllocChannel(num, aiMeshConst.AI_COLOR_COMPONENTS);
+			for (int i = 0; i < num; ++i) {
+				col.put(i * 4, pData.mColors[i * 3]).put(i * 4 + 1, pData.mColors[i * 3 + 1])
+					.put(i * 4 + 2, pData.mColors[i * 3 + 2]).put(i * 4 + 3, 1.f);
+			}
+			mesh.SetColors(0, col);
+		}
+
+		IntBuffer indices = pArena.AllocInts(num);
+		for (int i = 0; i < num; ++i) {
+			indices.put(i, i);
+		}
+		mesh.SetFaces(indices, num, 1);
+		return mesh;
+	}
+
+	// -------------------------------------------------------------------
+	/** Load a material library, relative to the OBJ file */
+	private static void LoadMaterialLibrary(String pFile, String pLibrary, IOSystem pIOHandler,
+		SceneArena pArena, List<aiMaterial> pMaterials, Map<String, Integer> pMaterialMap) {
+		int sep = Math.max(pFile.lastIndexOf('/'), pFile.lastIndexOf('\\'));
+		String path = pFile.substring(0, sep + 1) + pLibrary;
+
+		IOStream stream = pIOHandler.Open(path, "rb");
+		if (stream == null) {
+			// a missing library is not fatal, the default material is used
+			return;
+		}
+		try {
+			new ObjFileMtlImporter(ConvertToUTF8(ReadFully(stream), null), pArena, pMaterials, pMaterialMap).Load();
+		} finally {
+			pIOHandler.Close(stream);
+		}
+	}
+
+	private static String GetFileName(String pFile) {
+		int sep = Math.max(pFile.lastIndexOf('/'), pFile.lastIndexOf('\\'));
+		return pFile.substring(sep + 1);
+	}
+
+	private static Matrix4f Identity() {
+		Matrix4f m = new Matrix4f();
+		m.setIdentity();
+		return m;
+	}
+}
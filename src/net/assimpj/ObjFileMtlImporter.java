@@ -0,0 +1,171 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import net.assimpj.aiMaterialConst.aiMatkeyBase;
+import net.assimpj.aiMaterialConst.aiShadingMode;
+import net.assimpj.aiMaterialConst.aiTextureType;
+
+/** Loads the materials of a Wavefront material library (.mtl)
+ *  referenced by an OBJ file.
+ */
+final class ObjFileMtlImporter extends LineTokenizer {
+
+	/** Name of the material used by faces without a (known) material */
+	static final String DEFAULT_MATERIAL = "DefaultMaterial";
+
+	/** Scene the materials are created for */
+	private final SceneArena mArena;
+
+	/** Output list */
+	private final List<aiMaterial> mMaterials;
+
+	/** Index of each material in mMaterials, by name */
+	private final Map<String, Integer> mMaterialMap;
+
+	/** Material currently filled */
+	private aiMaterial mCurrent;
+
+	/** @param pBuffer Content of the library
+	 *  @param pArena Storage of the material properties
+	 *  @param pMaterials List to append the materials to
+	 *  @param pMaterialMap Map to receive the index of each material.
+	 *    A material which has already been defined is not overridden. */
+	ObjFileMtlImporter(ByteBuffer pBuffer, SceneArena pArena,
+		List<aiMaterial> pMaterials, Map<String, Integer> pMaterialMap) {
+		super(pBuffer, pBuffer.position(), pBuffer.limit());
+		mArena = pArena;
+		mMaterials = pMaterials;
+		mMaterialMap = pMaterialMap;
+	}
+
+	// -------------------------------------------------------------------
+	/** Parse the library */
+	void Load() {
+		while (mPos < mEnd) {
+			SkipSpaces();
+			if (mPos >= mEnd) {
+				break;
+			}
+			if (MatchKeyword("newmtl")) {
+				String name = ReadRestOfLine();
+				mCurrent = CreateMaterial(mArena, name);
+				if (!mMaterialMap.containsKey(name)) {
+					mMaterialMap.put(name, mMaterials.size());
+					mMaterials.add(mCurrent);
+				}
+			} else if (mCurrent != null) {
+				ReadProperty();
+			}
+			SkipLine();
+		}
+	}
+
+	// -------------------------------------------------------------------
+	private void ReadProperty() {
+		if (MatchKeyword("kd")) {
+			ReadColor(aiMaterialConst.AI_MATKEY_COLOR_DIFFUSE);
+		} else if (MatchKeyword("ka")) {
+			ReadColor(aiMaterialConst.AI_MATKEY_COLOR_AMBIENT);
+		} else if (MatchKeyword("ks")) {
+			ReadColor(aiMaterialConst.AI_MATKEY_COLOR_SPECULAR);
+		} else if (MatchKeyword("ke")) {
+			ReadColor(aiMaterialConst.AI_MATKEY_COLOR_EMISSIVE);
+		} else if (MatchKeyword("ns")) {
+			ReadFloat(aiMaterialConst.AI_MATKEY_SHININESS, false);
+		} else if (MatchKeyword("ni")) {
+			ReadFloat(aiMaterialConst.AI_MATKEY_REFRACTI, false);
+		} else if (MatchKeyword("d")) {
+			ReadFloat(aiMaterialConst.AI_MATKEY_OPACITY, false);
+		} else if (MatchKeyword("tr")) {
+			ReadFloat(aiMaterialConst.AI_MATKEY_OPACITY, true);
+		} else if (MatchKeyword("illum")) {
+			int[] mode = { GetShadingMode(ParseInt()) };
+			mCurrent.AddProperty(mode, 1, aiMaterialConst.AI_MATKEY_SHADING_MODEL, 0, 0);
+		} else if (MatchKeyword("map_kd")) {
+			ReadTexture(aiTextureType.aiTextureType_DIFFUSE);
+		} else if (MatchKeyword("map_ka")) {
+			ReadTexture(aiTextureType.aiTextureType_AMBIENT);
+		} else if (MatchKeyword("map_ks")) {
+			ReadTexture(aiTextureType.aiTextureType_SPECULAR);
+		} else if (MatchKeyword("map_ke")) {
+			ReadTexture(aiTextureType.aiTextureType_EMISSIVE);
+		} else if (MatchKeyword("map_ns")) {
+			ReadTexture(aiTextureType.aiTextureType_SHININESS);
+		} else if (MatchKeyword("map_d")) {
+			ReadTexture(aiTextureType.aiTextureType_OPACITY);
+		} else if (MatchKeyword("map_bump") || MatchKeyword("bump")) {
+			ReadTexture(aiTextureType.aiTextureType_HEIGHT);
+		} else if (MatchKeyword("norm") || MatchKeyword("map_kn")) {
+			ReadTexture(aiTextureType.aiTextureType_NORMALS);
+		} else if (MatchKeyword("disp")) {
+			ReadTexture(aiTextureType.aiTextureType_DISPLACEMENT);
+		} else if (MatchKeyword("refl")) {
+			ReadTexture(aiTextureType.aiTextureType_REFLECTION);
+		}
+	}
+
+	private void ReadColor(String pKey) {
+		float r = ParseFloat(), g = r, b = r;
+		if (!IsLineEnd()) {
+			g = ParseFloat();
+			b = ParseFloat();
+		}
+		float[] color = { r, g, b };
+		mCurrent.AddProperty(color, 3, pKey, 0, 0);
+	}
+
+	private void ReadFloat(String pKey, boolean pInvert) {
+		float f = ParseFloat();
+		float[] value = { pInvert ? 1.f - f : f };
+		mCurrent.AddProperty(value, 1, pKey, 0, 0);
+	}
+
+	private void ReadTexture(aiTextureType pType) {
+		String path = ReadLastToken();
+		if (path.length() > 0) {
+			mCurrent.AddProperty(path, aiMatkeyBase._AI_MATKEY_TEXTURE_BASE.getKey(), pType.ordinal(), 0);
+		}
+	}
+
+	/** Map an MTL illumination model to a shading mode */
+	private static int GetShadingMode(int pIllum) {
+		switch (pIllum) {
+		case 0:
+			return aiShadingMode.aiShadingMode_NoShading.getValue();
+		case 1:
+			return aiShadingMode.aiShadingMode_Gouraud.getValue();
+		case 2:
+			return aiShadingMode.aiShadingMode_Phong.getValue();
+		default:
+			return aiShadingMode.aiShadingMode_Gouraud.getValue();
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Create a material with the defaults of the MTL format
+	 *  @param pArena Storage of the material properties
+	 *  @param pName Name of the material
+	 *  @return The material */
+	static aiMaterial CreateMaterial(SceneArena pArena, String pName) {
+		aiMaterial mat = new aiMaterial(pArena);
+		mat.AddProperty(pName, aiMaterialConst.AI_MATKEY_NAME, 0, 0);
+
+		int[] mode = { aiShadingMode.aiShadingMode_Gouraud.getValue() };
+		mat.AddProperty(mode, 1, aiMaterialConst.AI_MATKEY_SHADING_MODEL, 0, 0);
+
+		float[] black = { 0.f, 0.f, 0.f }, grey = { 0.6f, 0.6f, 0.6f };
+		mat.AddProperty(black, 3, aiMaterialConst.AI_MATKEY_COLOR_AMBIENT, 0, 0);
+		mat.AddProperty(grey, 3, aiMaterialConst.AI_MATKEY_COLOR_DIFFUSE, 0, 0);
+		mat.AddProperty(black, 3, aiMaterialConst.AI_MATKEY_COLOR_SPECULAR, 0, 0);
+		mat.AddProperty(black, 3, aiMaterialConst.AI_MATKEY_COLOR_EMISSIVE, 0, 0);
+
+		float[] zero = { 0.f }, one = { 1.f };
+		mat.AddProperty(zero, 1, aiMaterialConst.AI_MATKEY_SHININESS, 0, 0);
+		mat.AddProperty(one, 1, aiMaterialConst.AI_MATKEY_OPACITY, 0, 0);
+		mat.AddProperty(one, 1, aiMaterialConst.AI_MATKEY_REFRACTI, 0, 0);
+		return mat;
+	}
+}
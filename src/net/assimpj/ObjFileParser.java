@@ -0,0 +1,349 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Parser for a line-aligned range of an OBJ file.
+ *
+ *  Large files are split into several ranges which are parsed in
+ *  parallel, see #ObjFileImporter. A parser therefore can't resolve
+ *  anything that depends on the preceding ranges: vertex data is kept
+ *  in local arrays, relative (negative) face indices are stored relative
+ *  to the start of the range and listed in mRelative, and state changes
+ *  (objects, groups, materials) are recorded as events at the face they
+ *  apply to. The importer stitches the ranges together afterwards.
+ *  <br>
+ *  All output goes to growable primitive arrays, parsing a line
+ *  allocates nothing.
+ */
+final class ObjFileParser extends LineTokenizer {
+
+	/** 'o' statement, starts a new object */
+	static final int EVENT_OBJECT = 0;
+
+	/** 'g' statement, starts a new object unless the file uses 'o' */
+	static final int EVENT_GROUP = 1;
+
+	/** 'usemtl' statement */
+	static final int EVENT_MATERIAL = 2;
+
+	/** 'mtllib' statement */
+	static final int EVENT_MTLLIB = 3;
+
+	/** Marks a missing texture coordinate or normal index of a corner */
+	static final int ABSENT = Integer.MIN_VALUE;
+
+	private static final int FACE = 0, LINE = 1, POINT = 2;
+
+	/** A state change, effective from a specific face on */
+	static final class Event {
+		/** One of the EVENT_XXX constants */
+		final int mType;
+
+		/** Index of the first face the event applies to */
+		final int mFace;
+
+		/** Index of the first corner of that face */
+		final int mCorner;
+
+		/** Argument of the statement */
+		final String mName;
+
+		Event(int pType, int pFace, int pCorner, String pName) {
+			mType = pType;
+			mFace = pFace;
+			mCorner = pCorner;
+			mName = pName;
+		}
+	}
+
+	/** Positions, 3 floats per vertex */
+	float[] mVertices;
+	int mNumVertices;
+
+	/** Vertex colors, 3 floats per vertex. NULL if no vertex in the
+	 *  range has a color, otherwise sized like mVertices. */
+	float[] mColors;
+
+	/** Texture coordinates, 3 floats each */
+	float[] mTexCoords;
+	int mNumTexCoords;
+
+	/** Normals, 3 floats each */
+	float[] mNormals;
+	int mNumNormals;
+
+	/** Position, texture coordinate and normal index of each corner,
+	 *  0-based. Texture coordinate and normal may be ABSENT. */
+	int[] mCorners;
+	int mNumCorners;
+
+	/** Number of corners of each face. 'l' statements are stored as a
+	 *  single polyline with a negative number of corners. */
+	int[] mFaces;
+	int mNumFaces;
+
+	/** Entries of mCorners which are relative to the start of the range */
+	int[] mRelative;
+	int mNumRelative;
+
+	/** State changes in order of appearance */
+	final List<Event> mEvents;
+
+	/** Set if a texture coordinate has a third component */
+	boolean mHasW;
+
+	/** Indices of the face corner being read */
+	private final int[] mTriplet = new int[3];
+
+	/** @param pBuffer Data of the file
+	 *  @param pStart First byte of the range, the start of a line
+	 *  @param pEnd End of the range, exclusive, the end of a line */
+	ObjFileParser(ByteBuffer pBuffer, int pStart, int pEnd) {
+		super(pBuffer, pStart, pEnd);
+
+		// rough guess, the arrays grow as needed
+		int guess = Math.max(64, (pEnd - pStart) / 32);
+		mVertices = new float[guess * 3];
+		mTexCoords = new float[192];
+		mNormals = new float[192];
+		mCorners = new int[guess * 3];
+		mFaces = new int[guess];
+		mRelative = new int[16];
+		mEvents = new ArrayList<Event>();
+	}
+
+	// -------------------------------------------------------------------
+	/** Parse the whole range */
+	void Parse() {
+		while (mPos < mEnd) {
+			CheckProgress();
+			SkipSpaces();
+			if (mPos >= mEnd) {
+				break;
+			}
+			switch (mBuffer.get(mPos)) {
+			case 'v':
+				if (IsBlank(mPos + 1)) {
+					++mPos;
+					ReadVertex();
+				} else if (IsBlank(mPos + 2)) {
+					byte c = mBuffer.get(mPos + 1);
+					if (c == 't') {
+						mPos += 2;
+						ReadTexCoord();
+					} else if (c == 'n') {
+						mPos += 2;
+						ReadNormal();
+					}
+				}
+				break;
+			case 'f':
+				if (IsBlank(mPos + 1)) {
+					++mPos;
+					ReadFace(FACE);
+				}
+				break;
+			case 'l':
+				if (IsBlank(mPos + 1)) {
+					++mPos;
+					ReadFace(LINE);
+				}
+				break;
+			case 'p':
+				if (IsBlank(mPos + 1)) {
+					++mPos;
+					ReadFace(POINT);
+				}
+				break;
+			case 'o':
+				if (IsBlank(mPos + 1)) {
+					++mPos;
+					AddEvent(EVENT_OBJECT, ReadRestOfLine());
+				}
+				break;
+			case 'g':
+				if (IsBlank(mPos + 1)) {
+					++mPos;
+					AddEvent(EVENT_GROUP, ReadRestOfLine());
+				}
+				break;
+			case 'u':
+				if (MatchKeyword("usemtl")) {
+					AddEvent(EVENT_MATERIAL, ReadRestOfLine());
+				}
+				break;
+			case 'm':
+				if (MatchKeyword("mtllib")) {
+					AddEvent(EVENT_MTLLIB, ReadRestOfLine());
+				}
+				break;
+			default:
+				// comments, smoothing groups and unsupported statements
+				break;
+			}
+			SkipLine();
+		}
+	}
+
+	// -------------------------------------------------------------------
+	private boolean IsBlank(int pPos) {
+		if (pPos >= mEnd) {
+			return false;
+		}
+		byte c = mBuffer.get(pPos);
+		return c == ' ' || c == '\t';
+	}
+
+	// -------------------------------------------------------------------
+	/** v x y z [w] or v x y z r g b */
+	private void ReadVertex() {
+		float x = ParseFloat(), y = ParseFloat(), z = ParseFloat();
+		float r = 1.f, g = 1.f, b = 1.f;
+		boolean color = false;
+		if (!IsLineEnd()) {
+			float w = ParseFloat();
+			if (!IsLineEnd()) {
+				r = w;
+				g = ParseFloat();
+				b = ParseFloat();
+				color = true;
+			} else if (w != 0.f) {
+				x /= w;
+				y /= w;
+				z /= w;
+			}
+		}
+
+		int i = mNumVertices * 3;
+		if (i + 3 > mVertices.length) {
+			mVertices = Arrays.copyOf(mVertices, mVertices.length * 2);
+			if (mColors != null) {
+				mColors = Arrays.copyOf(mColors, mVertices.length);
+			}
+		}
+		mVertices[i] = x;
+		mVertices[i + 1] = y;
+		mVertices[i + 2] = z;
+
+		if (color && mColors == null) {
+			mColors = new float[mVertices.length];
+			Arrays.fill(mColors, 0, i, 1.f);
+		}
+		if (mColors != null) {
+			mColors[i] = r;
+			mColors[i + 1] = g;
+			mColors[i + 2] = b;
+		}
+		++mNumVertices;
+	}
+
+	// -------------------------------------------------------------------
+	/** vt u [v [w]] */
+	private void ReadTexCoord() {
+		float u = ParseFloat(), v = 0.f, w = 0.f;
+		if (!IsLineEnd()) {
+			v = ParseFloat();
+			if (!IsLineEnd()) {
+				w = ParseFloat();
+				mHasW = true;
+			}
+		}
+
+		int i = mNumTexCoords * 3;
+		if (i + 3 > mTexCoords.length) {
+			mTexCoords = Arrays.copyOf(mTexCoords, mTexCoords.length * 2);
+		}
+		mTexCoords[i] = u;
+		mTexCoords[i + 1] = v;
+		mTexCoords[i + 2] = w;
+		++mNumTexCoords;
+	}
+
+	// -------------------------------------------------------------------
+	/** vn x y z */
+	private void ReadNormal() {
+		float x = ParseFloat(), y = ParseFloat(), z = ParseFloat();
+
+		int i = mNumNormals * 3;
+		if (i + 3 > mNormals.length) {
+			mNormals = Arrays.copyOf(mNormals, mNormals.length * 2);
+		}
+		mNormals[i] = x;
+		mNormals[i + 1] = y;
+		mNormals[i + 2] = z;
+		++mNumNormals;
+	}
+
+	// -------------------------------------------------------------------
+	/** f, l and p statements: a list of v[/[vt][/vn]] corners */
+	private void ReadFace(int pType) {
+		final int first = mNumCorners, firstRelative = mNumRelative;
+		while (!IsLineEnd()) {
+			ParseIndexTriplet(mTriplet);
+			final int v = mTriplet[0], t = mTriplet[1], n = mTriplet[2];
+			if (v == 0) {
+				throw new DeadlyImportError("OBJ: Invalid face index 0");
+			}
+
+			int i = mNumCorners * 3;
+			if (i + 3 > mCorners.length) {
+				mCorners = Arrays.copyOf(mCorners, mCorners.length * 2);
+			}
+			mCorners[i] = Resolve(v, mNumVertices, i);
+			mCorners[i + 1] = t == 0 ? ABSENT : Resolve(t, mNumTexCoords, i + 1);
+			mCorners[i + 2] = n == 0 ? ABSENT : Resolve(n, mNumNormals, i + 2);
+			++mNumCorners;
+		}
+
+		final int count = mNumCorners - first;
+		if (count == 0) {
+			return;
+		}
+		switch (pType) {
+		case POINT:
+			for (int i = 0; i < count; ++i) {
+				AddFace(1);
+			}
+			break;
+		case LINE:
+			if (count < 2) {
+				// a line needs two points at least
+				mNumCorners = first;
+				mNumRelative = firstRelative;
+				break;
+			}
+			AddFace(-count);
+			break;
+		default:
+			AddFace(count);
+			break;
+		}
+	}
+
+	/** Convert a 1-based or negative index to a 0-based one */
+	private int Resolve(int pIndex, int pCount, int pSlot) {
+		if (pIndex > 0) {
+			return pIndex - 1;
+		}
+		// relative to the current element, which may lie in a preceding range
+		if (mNumRelative == mRelative.length) {
+			mRelative = Arrays.copyOf(mRelative, mRelative.length * 2);
+		}
+		mRelative[mNumRelative++] = pSlot;
+		return pCount + pIndex;
+	}
+
+	private void AddFace(int pNumCorners) {
+		if (mNumFaces == mFaces.length) {
+			mFaces = Arrays.copyOf(mFaces, mFaces.length * 2);
+		}
+		mFaces[mNumFaces++] = pNumCorners;
+	}
+
+	private void AddEvent(int pType, String pName) {
+		mEvents.add(new Event(pType, mNumFaces, mNumCorners, pName));
+	}
+}
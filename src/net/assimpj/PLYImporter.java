@@ -0,0 +1,867 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.lwjgl.util.vector.Matrix4f;
+
+import net.assimpj.PlyParser.EDataType;
+import net.assimpj.PlyParser.Element;
+import net.assimpj.PlyParser.Property;
+
+/** Imports a Stanford polygon file (PLY), ASCII or binary.
+ *
+ *  The header is compiled into a #DecodePlan per element: the properties
+ *  the loader uses, their offset in the record and the channel component
+ *  they go to. Everything else is skipped without being looked at.
+ *  Binary records of fixed size are decoded straight into the mesh
+ *  channels: a channel which makes up the whole record is copied with a
+ *  single bulk put() from a FloatBuffer view in the byte order of the
+ *  file, float records are read through such a view, and only other
+ *  layouts fall back to per-value conversions. Large vertex elements are
+ *  decoded in parallel on the post-processing pool of the Importer.
+ *  <br>
+ *  PLY is an indexed format, the mesh keeps the indices of the file and
+ *  the scene is flagged as non-verbose. Files without faces are imported
+ *  as a point cloud.
+ */
+public class PLYImporter extends BaseImporter {
+
+	private static final aiImporterDesc desc = new aiImporterDesc(
+		"Stanford Polygon Library (PLY) Importer",
+		"",
+		"",
+		"",
+		aiImporterDesc.aiImporterFlags_SupportTextFlavour | aiImporterDesc.aiImporterFlags_SupportBinaryFlavour,
+		0,
+		0,
+		0,
+		0,
+		"ply"
+	);
+
+	/** Vertex elements from this number of records on are decoded in
+	 *  parallel */
+	static final int PARALLEL_THRESHOLD = 1 << 20;
+
+	/** Records of variable size between two progress reports, a power
+	 *  of two */
+	private static final int PROGRESS_RECORDS = 1 << 14;
+
+	/** Most face indices of a file, they have to fit into one buffer */
+	private static final int MAX_INDICES = SceneArena.MAX_ELEMENTS;
+
+	/** Faces the ASCII reader makes room for before it has seen them */
+	private static final int INITIAL_FACES = 1 << 12;
+
+	/** Channels the vertex properties are decoded to */
+	private static final int CH_POSITION = 0, CH_NORMAL = 1, CH_COLOR = 2, CH_UV = 3;
+
+	/** Number of components of each channel */
+	private static final int[] CHANNEL_COMPONENTS = {
+		aiMeshConst.AI_VECTOR_COMPONENTS,
+		aiMeshConst.AI_VECTOR_COMPONENTS,
+		aiMeshConst.AI_COLOR_COMPONENTS,
+		aiMeshConst.AI_VECTOR_COMPONENTS
+	};
+
+	/** Pool to decode on, from the Importer */
+	private ForkJoinPool mPool;
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean CanRead(String pFile, IOSystem pIOHandler, boolean checkSig) {
+		if (!checkSig) {
+			// Check File Extension
+			return SimpleExtensionCheck(pFile, "ply", null, null);
+		}
+		// Check file Header
+		String[] tokens = { "ply" };
+		return SearchFileHeaderForToken(pIOHandler, pFile, tokens, 50, false);
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void GetSignatures(List<FormatSignature> pSignatures) {
+		pSignatures.add(FormatSignature.Magic("ply", 0));
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void SetupProperties(Importer pImp) {
+		mPool = pImp.GetPostProcessingPool();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public aiImporterDesc GetInfo() {
+		return desc;
+	}
+
+	// -------------------------------------------------------------------
+	/** The properties of an element the loader uses, compiled from the
+	 *  header. Each op reads one scalar property into one component of a
+	 *  channel. */
+	private static final class DecodePlan {
+		/** Size of a binary record, -1 if it varies */
+		final int mStride;
+
+		int mNumOps;
+
+		/** Byte offset of the property in a record of fixed size */
+		final int[] mOffset;
+
+		/** Type of the property */
+		final EDataType[] mType;
+
+		/** Target channel and component */
+		final int[] mChannel;
+		final int[] mComponent;
+
+		/** Factor applied to the value */
+		final float[] mScale;
+
+		/** Op reading each property, -1 for properties which are skipped */
+		final int[] mOpOfProperty;
+
+		DecodePlan(Element pElement) {
+			int n = pElement.mProperties.size();
+			mStride = pElement.GetStride();
+			mOffset = new int[n];
+			mType = new EDataType[n];
+			mChannel = new int[n];
+			mComponent = new int[n];
+			mScale = new float[n];
+			mOpOfProperty = new int[n];
+			Arrays.fill(mOpOfProperty, -1);
+		}
+
+		/** Add an op for the first property with one of the given names
+		 *  @return true if there is such a property */
+		boolean Add(Element pElement, int pChannel, int pComponent, boolean pNormalize, String... pNames) {
+			int prop = pElement.FindProperty(pNames);
+			if (prop < 0 || pElement.mProperties.get(prop).IsList()) {
+				return false;
+			}
+			int offset = 0;
+			for (int i = 0; i < prop; ++i) {
+				// only meaningful for records of fixed size
+				offset += pElement.mProperties.get(i).mType.mSize;
+			}
+			EDataType type = pElement.mProperties.get(prop).mType;
+			int op = mNumOps++;
+			mOffset[op] = offset;
+			mType[op] = type;
+			mChannel[op] = pChannel;
+			mComponent[op] = pComponent;
+			mScale[op] = pNormalize ? type.GetNormalizationFactor() : 1.f;
+			mOpOfProperty[prop] = op;
+			return true;
+		}
+
+		/** Check whether all ops read floats as they are */
+		boolean IsAllFloat() {
+			for (int op = 0; op < mNumOps; ++op) {
+				if (mType[op] != EDataType.Float || mScale[op] != 1.f) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/** Check whether a record consists of exactly the components of a
+		 *  single channel, as floats in their natural order. Such records
+		 *  can be copied in bulk.
+		 *  @return The channel, -1 if the records have a different layout */
+		int GetBulkChannel() {
+			if (mNumOps == 0 || !IsAllFloat()) {
+				return -1;
+			}
+			int channel = mChannel[0];
+			if (mStride != mNumOps * 4 || mNumOps != CHANNEL_COMPONENTS[channel]) {
+				return -1;
+			}
+			for (int op = 0; op < mNumOps; ++op) {
+				if (mChannel[op] != channel || mComponent[op] != op || mOffset[op] != op * 4) {
+					return -1;
+				}
+			}
+			return channel;
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Compile the plan for the vertex element
+	 *  @param pElement The element
+	 *  @param pHas Receives whether each channel is present */
+	private static DecodePlan CompileVertexPlan(Element pElement, boolean[] pHas) {
+		DecodePlan plan = new DecodePlan(pElement);
+		pHas[CH_POSITION] = plan.Add(pElement, CH_POSITION, 0, false, "x")
+			| plan.Add(pElement, CH_POSITION, 1, false, "y")
+			| plan.Add(pElement, CH_POSITION, 2, false, "z");
+		pHas[CH_NORMAL] = plan.Add(pElement, CH_NORMAL, 0, false, "nx", "normal_x")
+			| plan.Add(pElement, CH_NORMAL, 1, false, "ny", "normal_y")
+			| plan.Add(pElement, CH_NORMAL, 2, false, "nz", "normal_z");
+		pHas[CH_COLOR] = plan.Add(pElement, CH_COLOR, 0, true, "red", "r", "diffuse_red")
+			| plan.Add(pElement, CH_COLOR, 1, true, "green", "g", "diffuse_green")
+			| plan.Add(pElement, CH_COLOR, 2, true, "blue", "b", "diffuse_blue");
+		if (pHas[CH_COLOR]) {
+			plan.Add(pElement, CH_COLOR, 3, true, "alpha", "a", "diffuse_alpha");
+		}
+		pHas[CH_UV] = plan.Add(pElement, CH_UV, 0, false, "u", "s", "texture_u", "texture_s")
+			| plan.Add(pElement, CH_UV, 1, false, "v", "t", "texture_v", "texture_t");
+		return plan;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	protected void InternReadFile(String pFile, aiScene pScene, IOSystem pIOHandler) {
+		IOStream file = pIOHandler.Open(pFile, "rb");
+		if (file == null) {
+			throw new DeadlyImportError("Failed to open PLY file " + pFile + ".");
+		}
+		try {
+			ByteBuffer buffer = ReadFully(file);
+			PlyParser header = new PlyParser(buffer);
+			header.ParseHeader();
+			progress.UpdateFileRead(1, 3);
+
+			Element vertices = header.FindElement("vertex");
+			if (vertices == null || vertices.mCount == 0) {
+				throw new DeadlyImportError("Invalid .ply file: No vertices found. Unable to load empty data");
+			}
+			boolean[] has = new boolean[4];
+			DecodePlan plan = CompileVertexPlan(vertices, has);
+			if (!has[CH_POSITION]) {
+				throw new DeadlyImportError("Invalid .ply file: Vertices have no position");
+			}
+
+			// the channels are filled directly
+			final SceneArena arena = pScene.mPrivate;
+			final int numVertices = vertices.mCount;
+			FloatBuffer[] channels = new FloatBuffer[4];
+			for (int ch = 0; ch < channels.length; ++ch) {
+				if (has[ch]) {
+					if (numVertices > SceneArena.MAX_ELEMENTS / CHANNEL_COMPONENTS[ch]) {
+						throw new DeadlyImportError("Invalid .ply file: " + numVertices + " vertices, the limit is "
+							+ SceneArena.MAX_ELEMENTS / CHANNEL_COMPONENTS[ch]);
+					}
+					channels[ch] = arena.AllocChannel(numVertices, CHANNEL_COMPONENTS[ch]);
+				}
+			}
+
+			FaceData faces = new FaceData(arena);
+			ProgressTracker tracker = ProgressTracker.ForFileRead(progress, 1, 3, buffer.limit() - header.mBodyStart);
+			if (header.mFormat == PlyParser.EFormat.ASCII) {
+				AsciiReader reader = new AsciiReader(buffer, header.mBodyStart);
+				reader.SetProgress(tracker);
+				reader.Read(header.mElements, vertices, plan, channels, faces);
+			} else {
+				ReadBinaryBody(buffer, header, vertices, plan, channels, faces, tracker);
+			}
+			progress.UpdateFileRead(2, 3);
+
+			if (has[CH_COLOR] && !HasAlpha(plan)) {
+				// opaque unless the file says otherwise
+				FloatBuffer col = channels[CH_COLOR];
+				for (int i = 0; i < numVertices; ++i) {
+					col.put(i * 4 + 3, 1.f);
+				}
+			}
+
+			aiMesh mesh = CreateMesh(numVertices, channels, faces, arena);
+			if (faces.mNumFaces > 0) {
+				pScene.SetFlags(pScene.GetFlags() | aiScene.AI_SCENE_FLAGS_NON_VERBOSE_FORMAT);
+			}
+
+			aiNode root = new aiNode("<PLY_ROOT>");
+			Matrix4f identity = new Matrix4f();
+			identity.setIdentity();
+			root.SetTransformation(identity);
+			root.AddMesh(0);
+
+			pScene.SetMeshes(new aiMesh[] { mesh });
+			pScene.SetMaterials(new aiMaterial[] { CreateMaterial(arena) });
+			pScene.SetRootNode(root);
+			progress.UpdateFileRead(3, 3);
+		} finally {
+			pIOHandler.Close(file);
+		}
+	}
+
+	private static boolean HasAlpha(DecodePlan pPlan) {
+		for (int op = 0; op < pPlan.mNumOps; ++op) {
+			if (pPlan.mChannel[op] == CH_COLOR && pPlan.mComponent[op] == 3) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// -------------------------------------------------------------------
+	/** Faces read from the file */
+	private static final class FaceData {
+		/** Indices of all faces, back to back */
+		IntBuffer mIndices;
+		int mNumIndices;
+
+		int mNumFaces;
+
+		/** Number of indices of all faces, 0 if the sizes differ */
+		int mFaceSize = -1;
+
+		/** Start of each face in mIndices plus the end, only if the faces
+		 *  differ in size */
+		int[] mOffsets;
+
+		/** Bit mask of aiPrimitiveType values */
+		int mPrimitiveTypes;
+
+		/** Storage of the index buffer */
+		private final SceneArena mArena;
+
+		FaceData(SceneArena pArena) {
+			mArena = pArena;
+		}
+
+		IntBuffer AllocIndices(int pCount) {
+			mIndices = mArena.AllocInts(pCount);
+			return mIndices;
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Create the mesh from the decoded channels and faces */
+	private static aiMesh CreateMesh(int pNumVertices, FloatBuffer[] pChannels, FaceData pFaces, SceneArena pArena) {
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(pNumVertices);
+		mesh.SetMaterialIndex(0);
+		mesh.SetVertices(pChannels[CH_POSITION]);
+		mesh.SetNormals(pChannels[CH_NORMAL]);
+		if (pChannels[CH_COLOR] != null) {
+			mesh.SetColors(0, pChannels[CH_COLOR]);
+		}
+		if (pChannels[CH_UV] != null) {
+			mesh.SetTextureCoords(0, pChannels[CH_UV], 2);
+		}
+
+		if (pFaces.mNumFaces == 0) {
+			// a point cloud, one point per vertex
+			IntBuffer indices = pArena.AllocInts(pNumVertices);
+			for (int i = 0; i < pNumVertices; ++i) {
+				indices.put(i, i);
+			}
+			mesh.SetFaces(indices, pNumVertices, 1);
+			mesh.SetPrimitiveTypes(aiMeshConst.aiPrimitiveType_POINT);
+			return mesh;
+		}
+
+		// a single pass checks all indices
+		final IntBuffer indices = pFaces.mIndices;
+		int min = 0, max = 0;
+		for (int i = 0; i < pFaces.mNumIndices; ++i) {
+			int idx = indices.get(i);
+			min = Math.min(min, idx);
+			max = Math.max(max, idx);
+		}
+		if (min < 0 || max >= pNumVertices) {
+			throw new DeadlyImportError("Invalid .ply file: Vertex index out of range");
+		}
+
+		if (pFaces.mFaceSize > 0) {
+			mesh.SetFaces(indices, pFaces.mNumFaces, pFaces.mFaceSize);
+		} else {
+			mesh.SetFaces(indices, pFaces.mOffsets);
+		}
+		mesh.SetPrimitiveTypes(pFaces.mPrimitiveTypes);
+		return mesh;
+	}
+
+	private static int GetPrimitiveType(int pNumIndices) {
+		switch (pNumIndices) {
+		case 1:
+			return aiMeshConst.aiPrimitiveType_POINT;
+		case 2:
+			return aiMeshConst.aiPrimitiveType_LINE;
+		case 3:
+			return aiMeshConst.aiPrimitiveType_TRIANGLE;
+		default:
+			return aiMeshConst.aiPrimitiveType_POLYGON;
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Decode a binary body, element by element */
+	private void ReadBinaryBody(ByteBuffer pBuffer, PlyParser pHeader, Element pVertices,
+		DecodePlan pPlan, FloatBuffer[] pChannels, FaceData pFaces, ProgressTracker pTracker) {
+		final ByteBuffer buf = pBuffer.duplicate().order(pHeader.GetByteOrder());
+		int pos = pHeader.mBodyStart;
+		boolean readFaces = false;
+		for (Element element : pHeader.mElements) {
+			if (element == pVertices) {
+				pos = ReadBinaryVertices(buf, pos, element, pPlan, pChannels, pTracker);
+			} else if (!readFaces && element.mName.equals("face")
+				&& element.FindProperty("vertex_indices", "vertex_index") >= 0) {
+				pos = ReadBinaryFaces(buf, pos, element, pFaces, pTracker);
+				readFaces = true;
+			} else {
+				int end = SkipBinaryElement(buf, pos, element);
+				pTracker.Add(end - pos);
+				pos = end;
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Decode the vertex element
+	 *  @return Position behind the element */
+	private int ReadBinaryVertices(final ByteBuffer pBuffer, final int pPos, Element pElement,
+		final DecodePlan pPlan, final FloatBuffer[] pChannels, final ProgressTracker pTracker) {
+		final int count = pElement.mCount, stride = pPlan.mStride;
+		if (stride < 0) {
+			return DecodeVariable(pBuffer, pPos, pElement, pPlan, pChannels, pTracker);
+		}
+		if ((long)pPos + (long)count * stride > pBuffer.limit()) {
+			throw new DeadlyImportError("Invalid .ply file: Unexpected end of file");
+		}
+
+		final ForkJoinPool pool = mPool != null ? mPool : ForkJoinPool.commonPool();
+		if (count < PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+			DecodeFixedBlocks(pBuffer, pPos, 0, count, pPlan, pChannels, pTracker);
+		} else {
+			int numRanges = pool.getParallelism() * 4;
+			List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(numRanges);
+			for (int i = 0; i < numRanges; ++i) {
+				final int first = (int)((long)count * i / numRanges);
+				final int last = (int)((long)count * (i + 1) / numRanges);
+				tasks.add(pool.submit(new Runnable() {
+					public void run() {
+						DecodeFixedBlocks(pBuffer, pPos, first, last, pPlan, pChannels, pTracker);
+					}
+				}));
+			}
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		}
+		return pPos + count * stride;
+	}
+
+	// -------------------------------------------------------------------
+	/** Decode a range of records of fixed size in blocks of about one
+	 *  progress granule, reporting the bytes of each block */
+	private static void DecodeFixedBlocks(ByteBuffer pBuffer, int pBase, int pFirst, int pLast,
+		DecodePlan pPlan, FloatBuffer[] pChannels, ProgressTracker pTracker) {
+		final int stride = Math.max(1, pPlan.mStride);
+		final int block = (int)Math.max(1, ProgressTracker.BYTE_GRANULARITY / stride);
+		for (int first = pFirst; first < pLast; ) {
+			int last = (int)Math.min(pLast, (long)first + block);
+			DecodeFixed(pBuffer, pBase, first, last, pPlan, pChannels);
+			pTracker.Add((long)(last - first) * stride);
+			first = last;
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Decode a range of records of fixed size. Safe to be called for
+	 *  disjoint ranges concurrently.
+	 *  @param pBuffer Content of the file, in the byte order of the body
+	 *  @param pBase Position of the first record of the element
+	 *  @param pFirst First record to decode
+	 *  @param pLast End of the range, exclusive */
+	private static void DecodeFixed(ByteBuffer pBuffer, int pBase, int pFirst, int pLast,
+		DecodePlan pPlan, FloatBuffer[] pChannels) {
+		if (pFirst >= pLast || pPlan.mNumOps == 0) {
+			return;
+		}
+		final int stride = pPlan.mStride, numOps = pPlan.mNumOps;
+		final ByteBuffer src = pBuffer.duplicate().order(pBuffer.order());
+		src.limit(pBase + pLast * stride).position(pBase + pFirst * stride);
+
+		final int bulk = pPlan.GetBulkChannel();
+		if (bulk >= 0) {
+			// the records are the channel, i.e. a plain list of xyz
+			FloatBuffer dst = pChannels[bulk].duplicate();
+			dst.position(pFirst * CHANNEL_COMPONENTS[bulk]);
+			dst.put(src.slice().order(pBuffer.order()).asFloatBuffer());
+			return;
+		}
+
+		final int[] channel = pPlan.mChannel, component = pPlan.mComponent, offset = pPlan.mOffset;
+		if ((stride & 3) == 0 && pPlan.IsAllFloat()) {
+			// float records, read through a float view of the range
+			final FloatBuffer view = src.slice().order(pBuffer.order()).asFloatBuffer();
+			final int fstride = stride >> 2;
+			for (int op = 0; op < numOps; ++op) {
+				final FloatBuffer dst = pChannels[channel[op]];
+				final int comps = CHANNEL_COMPONENTS[channel[op]], c = component[op], off = offset[op] >> 2;
+				for (int i = 0, r = off, out = pFirst * comps + c; i < pLast - pFirst; ++i, r += fstride, out += comps) {
+					dst.put(out, view.get(r));
+				}
+			}
+			return;
+		}
+
+		// mixed types, convert each value
+		final EDataType[] type = pPlan.mType;
+		final float[] scale = pPlan.mScale;
+		for (int op = 0; op < numOps; ++op) {
+			final FloatBuffer dst = pChannels[channel[op]];
+			final int comps = CHANNEL_COMPONENTS[channel[op]], c = component[op];
+			for (int i = pFirst, r = pBase + pFirst * stride + offset[op]; i < pLast; ++i, r += stride) {
+				dst.put(i * comps + c, ReadFloat(pBuffer, r, type[op]) * scale[op]);
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Decode records which contain lists, one after the other
+	 *  @return Position behind the element */
+	private static int DecodeVariable(ByteBuffer pBuffer, int pPos, Element pElement,
+		DecodePlan pPlan, FloatBuffer[] pChannels, ProgressTracker pTracker) {
+		final List<Property> props = pElement.mProperties;
+		final int numProps = props.size();
+		int pos = pPos, reported = pPos;
+		for (int i = 0; i < pElement.mCount; ++i) {
+			if ((i & (PROGRESS_RECORDS - 1)) == 0) {
+				pTracker.Add(pos - reported);
+				reported = pos;
+			}
+			for (int p = 0; p < numProps; ++p) {
+				final Property prop = props.get(p);
+				if (prop.IsList()) {
+					int n = ReadInt(pBuffer, pos, prop.mCountType);
+					pos += prop.mCountType.mSize + n * prop.mType.mSize;
+					continue;
+				}
+				final int op = pPlan.mOpOfProperty[p];
+				if (op >= 0) {
+					final int ch = pPlan.mChannel[op];
+					pChannels[ch].put(i * CHANNEL_COMPONENTS[ch] + pPlan.mComponent[op],
+						ReadFloat(pBuffer, pos, prop.mType) * pPlan.mScale[op]);
+				}
+				pos += prop.mType.mSize;
+			}
+		}
+		pTracker.Add(pos - reported);
+		return pos;
+	}
+
+	// -------------------------------------------------------------------
+	/** Decode the face element. A first pass over the counts sizes the
+	 *  index buffer, the second one fills it.
+	 *  @return Position behind the element */
+	private static int ReadBinaryFaces(ByteBuffer pBuffer, int pPos, Element pElement, FaceData pFaces,
+		ProgressTracker pTracker) {
+		final List<Property> props = pElement.mProperties;
+		final int numProps = props.size(), count = pElement.mCount;
+		final int target = pElement.FindProperty("vertex_indices", "vertex_index");
+		final Property list = props.get(target);
+		if (!list.IsList()) {
+			throw new DeadlyImportError("Invalid .ply file: Vertex indices are not a list");
+		}
+
+		// count the indices and check whether all faces are of one size
+		long numIndices = 0;
+		int faceSize = -1, types = 0;
+		int pos = pPos;
+		for (int i = 0; i < count; ++i) {
+			for (int p = 0; p < numProps; ++p) {
+				final Property prop = props.get(p);
+				if (!prop.IsList()) {
+					pos += prop.mType.mSize;
+					continue;
+				}
+				final int n = ReadInt(pBuffer, pos, prop.mCountType);
+				if (n < 0) {
+					throw new DeadlyImportError("Invalid .ply file: Negative list size");
+				}
+				if (p == target) {
+					numIndices += n;
+					faceSize = faceSize < 0 || faceSize == n ? n : 0;
+					types |= GetPrimitiveType(n);
+				}
+				pos += prop.mCountType.mSize + n * prop.mType.mSize;
+			}
+		}
+		if (pos > pBuffer.limit()) {
+			throw new DeadlyImportError("Invalid .ply file: Unexpected end of file");
+		}
+		if (numIndices > MAX_INDICES) {
+			throw new DeadlyImportError("Invalid .ply file: Too many face indices");
+		}
+
+		final IntBuffer out = pFaces.AllocIndices((int)numIndices);
+		final int[] offsets = faceSize == 0 ? new int[count + 1] : null;
+		final EDataType itemType = list.mType;
+		final int itemSize = itemType.mSize;
+		int k = 0, reported = pPos;
+		pos = pPos;
+		for (int i = 0; i < count; ++i) {
+			// the counting pass is cheap, only this one is reported
+			if ((i & (PROGRESS_RECORDS - 1)) == 0) {
+				pTracker.Add(pos - reported);
+				reported = pos;
+			}
+			for (int p = 0; p < numProps; ++p) {
+				final Property prop = props.get(p);
+				if (!prop.IsList()) {
+					pos += prop.mType.mSize;
+					continue;
+				}
+				final int n = ReadInt(pBuffer, pos, prop.mCountType);
+				pos += prop.mCountType.mSize;
+				if (p == target) {
+					if (offsets != null) {
+						offsets[i] = k;
+					}
+					if (itemType == EDataType.Int || itemType == EDataType.UInt) {
+						for (int j = 0; j < n; ++j, pos += 4) {
+							out.put(k++, pBuffer.getInt(pos));
+						}
+					} else {
+						for (int j = 0; j < n; ++j, pos += itemSize) {
+							out.put(k++, ReadInt(pBuffer, pos, itemType));
+						}
+					}
+				} else {
+					pos += n * prop.mType.mSize;
+				}
+			}
+		}
+		if (offsets != null) {
+			offsets[count] = k;
+		}
+		pTracker.Add(pos - reported);
+
+		pFaces.mNumIndices = k;
+		pFaces.mNumFaces = count;
+		pFaces.mFaceSize = faceSize;
+		pFaces.mOffsets = offsets;
+		pFaces.mPrimitiveTypes = types;
+		return pos;
+	}
+
+	// -------------------------------------------------------------------
+	/** Skip an element the loader doesn't use
+	 *  @return Position behind the element */
+	private static int SkipBinaryElement(ByteBuffer pBuffer, int pPos, Element pElement) {
+		final int stride = pElement.GetStride();
+		if (stride >= 0) {
+			return pPos + pElement.mCount * stride;
+		}
+		int pos = pPos;
+		for (int i = 0; i < pElement.mCount; ++i) {
+			for (Property prop : pElement.mProperties) {
+				if (prop.IsList()) {
+					int n = ReadInt(pBuffer, pos, prop.mCountType);
+					pos += prop.mCountType.mSize + n * prop.mType.mSize;
+				} else {
+					pos += prop.mType.mSize;
+				}
+			}
+		}
+		return pos;
+	}
+
+	// -------------------------------------------------------------------
+	/** Read a binary value as float */
+	private static float ReadFloat(ByteBuffer pBuffer, int pPos, EDataType pType) {
+		switch (pType) {
+		case Char:
+			return pBuffer.get(pPos);
+		case UChar:
+			return pBuffer.get(pPos) & 0xff;
+		case Short:
+			return pBuffer.getShort(pPos);
+		case UShort:
+			return pBuffer.getShort(pPos) & 0xffff;
+		case Int:
+			return pBuffer.getInt(pPos);
+		case UInt:
+			return pBuffer.getInt(pPos) & 0xffffffffL;
+		case Float:
+			return pBuffer.getFloat(pPos);
+		default:
+			return (float)pBuffer.getDouble(pPos);
+		}
+	}
+
+	/** Read a binary value as int */
+	private static int ReadInt(ByteBuffer pBuffer, int pPos, EDataType pType) {
+		switch (pType) {
+		case Char:
+			return pBuffer.get(pPos);
+		case UChar:
+			return pBuffer.get(pPos) & 0xff;
+		case Short:
+			return pBuffer.getShort(pPos);
+		case UShort:
+			return pBuffer.getShort(pPos) & 0xffff;
+		case Int:
+		case UInt:
+			return pBuffer.getInt(pPos);
+		case Float:
+			return (int)pBuffer.getFloat(pPos);
+		default:
+			return (int)pBuffer.getDouble(pPos);
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** The material of the mesh, as in the C++ loader */
+	private static aiMaterial CreateMaterial(SceneArena pArena) {
+		aiMaterial mat = new aiMaterial(pArena);
+		mat.AddProperty(ObjFileMtlImporter.DEFAULT_MATERIAL, aiMaterialConst.AI_MATKEY_NAME, 0, 0);
+
+		int[] mode = { aiMaterialConst.aiShadingMode.aiShadingMode_Gouraud.getValue() };
+		mat.AddProperty(mode, 1, aiMaterialConst.AI_MATKEY_SHADING_MODEL, 0, 0);
+
+		float[] diffuse = { 0.6f, 0.6f, 0.6f, 1.f }, ambient = { 0.05f, 0.05f, 0.05f, 1.f };
+		mat.AddProperty(diffuse, 4, aiMaterialConst.AI_MATKEY_COLOR_DIFFUSE, 0, 0);
+		mat.AddProperty(diffuse, 4, aiMaterialConst.AI_MATKEY_COLOR_SPECULAR, 0, 0);
+		mat.AddProperty(ambient, 4, aiMaterialConst.AI_MATKEY_COLOR_AMBIENT, 0, 0);
+		return mat;
+	}
+
+	// -------------------------------------------------------------------
+	/** Parser for the body of an ASCII file. Records are sequences of
+	 *  whitespace separated values, usually one per line. */
+	private static final class AsciiReader extends LineTokenizer {
+
+		AsciiReader(ByteBuffer pBuffer, int pBodyStart) {
+			super(pBuffer, pBodyStart, pBuffer.limit());
+		}
+
+		void Read(List<Element> pElements, Element pVertices, DecodePlan pPlan,
+			FloatBuffer[] pChannels, FaceData pFaces) {
+			boolean readFaces = false;
+			for (Element element : pElements) {
+				if (element == pVertices) {
+					ReadVertices(element, pPlan, pChannels);
+				} else if (!readFaces && element.mName.equals("face")
+					&& element.FindProperty("vertex_indices", "vertex_index") >= 0) {
+					ReadFaces(element, pFaces);
+					readFaces = true;
+				} else {
+					for (int i = 0; i < element.mCount; ++i) {
+						CheckProgress();
+						for (Property prop : element.mProperties) {
+							SkipValues(prop.IsList() ? NextInt() : 1);
+						}
+					}
+				}
+			}
+		}
+
+		private void ReadVertices(Element pElement, DecodePlan pPlan, FloatBuffer[] pChannels) {
+			final List<Property> props = pElement.mProperties;
+			for (int i = 0; i < pElement.mCount; ++i) {
+				CheckProgress();
+				for (int p = 0; p < props.size(); ++p) {
+					if (props.get(p).IsList()) {
+						SkipValues(NextInt());
+						continue;
+					}
+					final int op = pPlan.mOpOfProperty[p];
+					if (op < 0) {
+						SkipValues(1);
+						continue;
+					}
+					NextToken();
+					final int ch = pPlan.mChannel[op];
+					pChannels[ch].put(i * CHANNEL_COMPONENTS[ch] + pPlan.mComponent[op], ParseFloat() * pPlan.mScale[op]);
+				}
+			}
+		}
+
+		private void ReadFaces(Element pElement, FaceData pFaces) {
+			final List<Property> props = pElement.mProperties;
+			final int target = pElement.FindProperty("vertex_indices", "vertex_index");
+			if (!props.get(target).IsList()) {
+				throw new DeadlyImportError("Invalid .ply file: Vertex indices are not a list");
+			}
+			// the count comes from the header, the arrays only grow with
+			// the faces actually found in the file
+			final int count = pElement.mCount;
+			int[] indices = new int[Math.min(count, INITIAL_FACES) * 3];
+			int[] offsets = new int[Math.min(count, INITIAL_FACES) + 1];
+			int k = 0, faceSize = -1, types = 0;
+			for (int i = 0; i < count; ++i) {
+				CheckProgress();
+				if (i + 1 >= offsets.length) {
+					offsets = Arrays.copyOf(offsets, (int)Math.min((long)count + 1, 2L * offsets.length));
+				}
+				for (int p = 0; p < props.size(); ++p) {
+					if (p != target) {
+						SkipValues(props.get(p).IsList() ? NextInt() : 1);
+						continue;
+					}
+					final int n = NextInt();
+					if (n < 0) {
+						throw new DeadlyImportError("Invalid .ply file: Negative list size");
+					}
+					offsets[i] = k;
+					if ((long)k + n > MAX_INDICES) {
+						throw new DeadlyImportError("Invalid .ply file: Too many face indices, the limit is "
+							+ MAX_INDICES);
+					}
+					if (k + n > indices.length) {
+						indices = Arrays.copyOf(indices, (int)Math.min(MAX_INDICES,
+							Math.max(k + n, 2L * indices.length)));
+					}
+					for (int j = 0; j < n; ++j) {
+						indices[k++] = NextInt();
+					}
+					faceSize = faceSize < 0 || faceSize == n ? n : 0;
+					types |= GetPrimitiveType(n);
+				}
+			}
+			offsets[count] = k;
+
+			IntBuffer out = pFaces.AllocIndices(k);
+			out.put(indices, 0, k).clear();
+			pFaces.mNumIndices = k;
+			pFaces.mNumFaces = count;
+			pFaces.mFaceSize = faceSize;
+			pFaces.mOffsets = faceSize == 0 ? offsets : null;
+			pFaces.mPrimitiveTypes = types;
+		}
+
+		/** Skip whitespace, including line ends */
+		private void NextToken() {
+			while (mPos < mEnd) {
+				byte c = mBuffer.get(mPos);
+				if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+					return;
+				}
+				++mPos;
+			}
+			throw new DeadlyImportError("Invalid .ply file: Unexpected end of file");
+		}
+
+		private int NextInt() {
+			NextToken();
+			return ParseInt();
+		}
+
+		private void SkipValues(int pCount) {
+			for (int i = 0; i < pCount; ++i) {
+				NextToken();
+				while (mPos < mEnd) {
+					byte c = mBuffer.get(mPos);
+					if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+						break;
+					}
+					++mPos;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Reads the header of a PLY file: the storage format and the layout of
+ *  the elements that follow it. The body is decoded by #PLYImporter.
+ */
+final class PlyParser extends LineTokenizer {
+
+	/** Storage format of the body */
+	enum EFormat {
+		ASCII, BINARY_LE, BINARY_BE
+	}
+
+	/** Scalar data types */
+	enum EDataType {
+		Char(1), UChar(1), Short(2), UShort(2), Int(4), UInt(4), Float(4), Double(8);
+
+		/** Size in bytes */
+		final int mSize;
+
+		EDataType(int pSize) {
+			mSize = pSize;
+		}
+
+		/** Factor which maps the range of an integer type to 0..1, used
+		 *  for colors */
+		float GetNormalizationFactor() {
+			switch (this) {
+			case Char:
+				return 1.f / 127.f;
+			case UChar:
+				return 1.f / 255.f;
+			case Short:
+				return 1.f / 32767.f;
+			case UShort:
+				return 1.f / 65535.f;
+			case Int:
+				return 1.f / 2147483647.f;
+			case UInt:
+				return 1.f / 4294967295.f;
+			default:
+				return 1.f;
+			}
+		}
+	}
+
+	/** A property of an element */
+	static final class Property {
+		/** Name of the property, i.e. 'x' or 'vertex_indices' */
+		final String mName;
+
+		/** Type of the value, or of the list items */
+		final EDataType mType;
+
+		/** Type of the item count of a list, NULL if the property is a
+		 *  single value */
+		final EDataType mCountType;
+
+		Property(String pName, EDataType pType, EDataType pCountType) {
+			mName = pName;
+			mType = pType;
+			mCountType = pCountType;
+		}
+
+		boolean IsList() {
+			return mCountType != null;
+		}
+	}
+
+	/** An element, i.e. 'vertex' or 'face' */
+	static final class Element {
+		/** Name of the element */
+		final String mName;
+
+		/** Number of records */
+		final int mCount;
+
+		/** Properties of each record, in storage order */
+		final List<Property> mProperties = new ArrayList<Property>();
+
+		Element(String pName, int pCount) {
+			mName = pName;
+			mCount = pCount;
+		}
+
+		/** @return Index of the property with one of the given names, -1
+		 *    if there is none */
+		int FindProperty(String... pNames) {
+			for (int i = 0; i < mProperties.size(); ++i) {
+				for (String name : pNames) {
+					if (mProperties.get(i).mName.equals(name)) {
+						return i;
+					}
+				}
+			}
+			return -1;
+		}
+
+		/** @return Size of a record in a binary file, -1 if the records
+		 *    contain lists and vary in size */
+		int GetStride() {
+			int stride = 0;
+			for (Property prop : mProperties) {
+				if (prop.IsList()) {
+					return -1;
+				}
+				stride += prop.mType.mSize;
+			}
+			return stride;
+		}
+	}
+
+	/** Storage format of the body */
+	EFormat mFormat;
+
+	/** Elements in storage order */
+	final List<Element> mElements = new ArrayList<Element>();
+
+	/** Absolute position of the first byte of the body */
+	int mBodyStart;
+
+	/** @param pBuffer Content of the file */
+	PlyParser(ByteBuffer pBuffer) {
+		super(pBuffer, pBuffer.position(), pBuffer.limit());
+	}
+
+	// -------------------------------------------------------------------
+	/** Parse the header, up to and including 'end_header' */
+	void ParseHeader() {
+		if (!MatchKeyword("ply")) {
+			throw new DeadlyImportError("Invalid .ply file: Magic number 'ply' is not there");
+		}
+		SkipLine();
+
+		Element element = null;
+		while (mPos < mEnd) {
+			SkipSpaces();
+			if (MatchKeyword("format")) {
+				SkipSpaces();
+				if (MatchKeyword("ascii")) {
+					mFormat = EFormat.ASCII;
+				} else if (MatchKeyword("binary_little_endian")) {
+					mFormat = EFormat.BINARY_LE;
+				} else if (MatchKeyword("binary_big_endian")) {
+					mFormat = EFormat.BINARY_BE;
+				} else {
+					throw new DeadlyImportError("Invalid .ply file: Unknown file format");
+				}
+			} else if (MatchKeyword("element")) {
+				SkipSpaces();
+				String name = ReadToken();
+				int count = ParseInt();
+				if (count < 0) {
+					throw new DeadlyImportError("Invalid .ply file: Negative element count");
+				}
+				element = new Element(name, count);
+				mElements.add(element);
+			} else if (MatchKeyword("property")) {
+				if (element == null) {
+					throw new DeadlyImportError("Invalid .ply file: Property outside of an element");
+				}
+				SkipSpaces();
+				EDataType countType = null;
+				if (MatchKeyword("list")) {
+					countType = ParseDataType();
+				}
+				EDataType type = ParseDataType();
+				SkipSpaces();
+				element.mProperties.add(new Property(ReadToken(), type, countType));
+			} else if (MatchKeyword("end_header")) {
+				SkipLine();
+				mBodyStart = mPos;
+				if (mFormat == null) {
+					throw new DeadlyImportError("Invalid .ply file: Missing format specification");
+				}
+				return;
+			}
+			// comment, obj_info and unknown header lines
+			SkipLine();
+		}
+		throw new DeadlyImportError("Invalid .ply file: Missing 'end_header'");
+	}
+
+	// -------------------------------------------------------------------
+	/** @return Byte order of a binary body */
+	ByteOrder GetByteOrder() {
+		return mFormat == EFormat.BINARY_BE ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+	}
+
+	// -------------------------------------------------------------------
+	/** @return The element with the given name, NULL if there is none */
+	Element FindElement(String pName) {
+		for (Element e : mElements) {
+			if (e.mName.equals(pName)) {
+				return e;
+			}
+		}
+		return null;
+	}
+
+	// -------------------------------------------------------------------
+	private EDataType ParseDataType() {
+		SkipSpaces();
+		String name = ReadToken();
+		if (name.equals("char") || name.equals("int8")) {
+			return EDataType.Char;
+		} else if (name.equals("uchar") || name.equals("uint8")) {
+			return EDataType.UChar;
+		} else if (name.equals("short") || name.equals("int16")) {
+			return EDataType.Short;
+		} else if (name.equals("ushort") || name.equals("uint16")) {
+			return EDataType.UShort;
+		} else if (name.equals("int") || name.equals("int32")) {
+			return EDataType.Int;
+		} else if (name.equals("uint") || name.equals("uint32")) {
+			return EDataType.UInt;
+		} else if (name.equals("float") || name.equals("float32")) {
+			return EDataType.Float;
+		} else if (name.equals("double") || name.equals("float64")) {
+			return EDataType.Double;
+		}
+		throw new DeadlyImportError("Invalid .ply file: Unknown data type " + name);
+	}
+
+	/** Read a blank-separated token */
+	private String ReadToken() {
+		int start = mPos;
+		while (mPos < mEnd) {
+			byte c = mBuffer.get(mPos);
+			if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+				break;
+			}
+			++mPos;
+		}
+		return Decode(start, mPos);
+	}
+}
@@ -0,0 +1,22 @@
+package net.assimpj;
+
+import java.util.List;
+
+/** Central registry for all post-processing steps. Add new steps here,
+ *  the order defines the order in which they are executed. */
+final class PostStepRegistry {
+
+	private PostStepRegistry() {
+	}
+
+	// -------------------------------------------------------------------
+	/** Add an instance of each post-processing step to the given list */
+	static void GetPostProcessingStepInstanceList(List<BaseProcess> out) {
+		out.add(new TriangulateProcess());
+		out.add(new GenFaceNormalsProcess());
+		out.add(new GenVertexNormalsProcess());
+		out.add(new CalcTangentsProcess());
+		out.add(new JoinVerticesProcess());
+		out.add(new ImproveCacheLocalityProcess());
+	}
+}
@@ -21,6 +21,12 @@ public abstract class ProgressHandler {
 	 *   all needed cleanup tasks prior to returning control to the
 	 *   caller). If the loading is aborted, #Importer::ReadFile()
 	 *   returns always NULL.
+	 *
+	 *  Loaders call this while they parse, about once per megabyte of
+	 *  the file, post-processing steps once per 64k vertices and indices
+	 *  processed. The calls are never concurrent, but may come from the
+	 *  threads of the post-processing pool. After false has been 
+	 *  returned, the work stops within such a granule.
 	 *   */
 	public abstract boolean Update(float percentage /*= -1.f*/);
 
@@ -33,8 +39,8 @@ public abstract class ProgressHandler {
 	 *   them has finished. This number is always strictly monotone
 	 *   increasing, although not necessarily linearly.
 	 *
-	 *  @note This is currently only used at the start and the end
-	 *   of the file parsing.
+	 *  @note Called between the stages of a loader. The progress 
+	 *   within a stage is reported through Update().
 	 *   */
 	public void UpdateFileRead(int currentStep /*= 0*/, int numberOfSteps /*= 0*/) {
 		float f = numberOfSteps !=0 ? currentStep / (float)numberOfSteps : 1.0f;
@@ -0,0 +1,195 @@
+package net.assimpj;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Reports the work done in the hot loops of an import to a
+ *  #ProgressHandler and stops the loops once the handler asks for it.
+ *
+ *  Loaders count the bytes of the file they have parsed, post-processing
+ *  steps the vertices and indices they have processed. Add() is cheap
+ *  enough to be called every few kilobytes: the handler is only called
+ *  whenever another granule of work is done, never by two threads at
+ *  once. As soon as ProgressHandler.Update() returns false, the current
+ *  and every later Add() throws a #DeadlyImportError, so loops running
+ *  on several threads stop within a granule and the import fails with
+ *  #CANCELLED as its error string.
+ *
+ *  Post-processing steps count the elements of their loops with 
+ *  AddElement() on a tracker for the mesh they work at, see ForMesh(). 
+ *  It forwards no more than the estimated cost of the mesh, so the 
+ *  progress doesn't run ahead if a step loops over a mesh more than 
+ *  once, and Complete() adds what the loops didn't report.
+ */
+final class ProgressTracker {
+
+	/** Error message of a cancelled import */
+	static final String CANCELLED = "Import cancelled by the progress handler";
+
+	/** Units between two calls of the handler, for bytes of a file */
+	static final long BYTE_GRANULARITY = 1 << 20;
+
+	/** Units between two calls of the handler, for vertices + indices */
+	static final long ELEMENT_GRANULARITY = 1 << 16;
+
+	/** A tracker which reports nothing, for steps running outside of an
+	 *  import (i.e. on lazy or streamed meshes) */
+	static final ProgressTracker NONE = new ProgressTracker(null, 0.f, 0.f, 1, Long.MAX_VALUE);
+
+	/** Receiver of the reports, NULL for #NONE and mesh trackers */
+	private final ProgressHandler mHandler;
+
+	/** Tracker the work on a mesh is forwarded to, NULL if this isn't a
+	 *  tracker for a mesh */
+	private final ProgressTracker mParent;
+
+	/** Overall progress at the start and the end of the tracked work */
+	private final float mBase;
+	private final float mScale;
+
+	/** Units of work in total */
+	private final long mTotal;
+
+	private final long mGranularity;
+
+	/** Units done so far */
+	private final AtomicLong mDone;
+
+	/** Units after which the handler is called next */
+	private volatile long mNextReport;
+
+	/** Set once the handler asked to stop */
+	private volatile boolean mCancelled;
+
+	// -------------------------------------------------------------------
+	/** @param pHandler Handler to report to
+	 *  @param pBase Overall progress when nothing is done, 0..1
+	 *  @param pScale Share of the tracked work of the overall progress
+	 *  @param pTotal Units of work in total
+	 *  @param pGranularity Units between two calls of the handler */
+	ProgressTracker(ProgressHandler pHandler, float pBase, float pScale, long pTotal, long pGranularity) {
+		mHandler = pHandler;
+		mParent = null;
+		mBase = pBase;
+		mScale = pScale;
+		mTotal = Math.max(1, pTotal);
+		mGranularity = pGranularity;
+		mDone = new AtomicLong();
+		mNextReport = pGranularity;
+	}
+
+	// -------------------------------------------------------------------
+	/** Tracker for the work on a mesh, see ForMesh() */
+	private ProgressTracker(ProgressTracker pParent, long pTotal) {
+		mHandler = null;
+		mParent = pParent;
+		mBase = 0.f;
+		mScale = 0.f;
+		mTotal = pTotal;
+		mGranularity = ELEMENT_GRANULARITY;
+		mDone = new AtomicLong();
+		mNextReport = Long.MAX_VALUE;
+	}
+
+	// -------------------------------------------------------------------
+	/** Tracker for one of the stages of the file reading, matching
+	 *  ProgressHandler.UpdateFileRead()
+	 *  @param pHandler Handler to report to
+	 *  @param pStep Stage the tracked work belongs to, 0 based
+	 *  @param pNumSteps Number of stages of the loader
+	 *  @param pTotalBytes Bytes to be parsed in the stage */
+	static ProgressTracker ForFileRead(ProgressHandler pHandler, int pStep, int pNumSteps, long pTotalBytes) {
+		return new ProgressTracker(pHandler, 0.5f * pStep / pNumSteps, 0.5f / pNumSteps,
+			pTotalBytes, BYTE_GRANULARITY);
+	}
+
+	// -------------------------------------------------------------------
+	/** Tracker for a post-processing step, matching
+	 *  ProgressHandler.UpdatePostProcess()
+	 *  @param pHandler Handler to report to
+	 *  @param pStep Index of the step
+	 *  @param pNumSteps Number of steps
+	 *  @param pTotalElements Vertices + indices to be processed */
+	static ProgressTracker ForPostProcess(ProgressHandler pHandler, int pStep, int pNumSteps, long pTotalElements) {
+		return new ProgressTracker(pHandler, 0.5f + 0.5f * pStep / pNumSteps, 0.5f / pNumSteps,
+			pTotalElements, ELEMENT_GRANULARITY);
+	}
+
+	// -------------------------------------------------------------------
+	/** Tracker for the work of a post-processing step on one mesh
+	 *  @param pCost Estimated cost of the mesh, vertices + indices
+	 *  @return A tracker forwarding to this one, #NONE if this one
+	 *    reports nothing */
+	ProgressTracker ForMesh(long pCost) {
+		if (mHandler == null && mParent == null) {
+			return NONE;
+		}
+		return new ProgressTracker(this, pCost);
+	}
+
+	// -------------------------------------------------------------------
+	/** Count work done, thread-safe
+	 *  @param pUnits Units done since the last call
+	 *  @throws DeadlyImportError if the import has been cancelled */
+	void Add(long pUnits) {
+		if (mParent != null) {
+			long done = mDone.getAndAdd(pUnits);
+			mParent.Add(Math.max(0, Math.min(done + pUnits, mTotal) - Math.min(done, mTotal)));
+			return;
+		}
+		if (mHandler == null) {
+			return;
+		}
+		if (mCancelled) {
+			throw new DeadlyImportError(CANCELLED);
+		}
+		long done = mDone.addAndGet(pUnits);
+		if (done >= mNextReport) {
+			Report(done);
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Count an element of a loop over vertices, indices or faces. Cheap
+	 *  enough to be called in each iteration, every #ELEMENT_GRANULARITY
+	 *  elements it adds them.
+	 *  @param pIndex Index of the element, counting from 0 
+	 *  @throws DeadlyImportError if the import has been cancelled */
+	void AddElement(long pIndex) {
+		if (((pIndex + 1) & (ELEMENT_GRANULARITY - 1)) == 0) {
+			Add(ELEMENT_GRANULARITY);
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Add the work on a mesh the loops haven't reported, once the step
+	 *  is done with it. Does nothing unless this is a tracker for a mesh,
+	 *  see ForMesh(). */
+	void Complete() {
+		if (mParent != null) {
+			Add(Math.max(0, mTotal - mDone.get()));
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Check whether the handler asked to stop */
+	boolean IsCancelled() {
+		return mParent != null ? mParent.IsCancelled() : mCancelled;
+	}
+
+	// -------------------------------------------------------------------
+	private synchronized void Report(long pDone) {
+		if (mCancelled) {
+			throw new DeadlyImportError(CANCELLED);
+		}
+		if (pDone < mNextReport) {
+			// another thread reported this granule already
+			return;
+		}
+		mNextReport = (pDone / mGranularity + 1) * mGranularity;
+		float f = Math.min(1.f, pDone / (float)mTotal);
+		if (!mHandler.Update(mBase + mScale * f)) {
+			mCancelled = true;
+			throw new DeadlyImportError(CANCELLED);
+		}
+	}
+}
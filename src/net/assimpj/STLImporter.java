@@ -0,0 +1,653 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.lwjgl.util.vector.Matrix4f;
+
+/** Imports a Stereolithography (STL) file, binary or ASCII.
+ *
+ *  Binary files are decoded straight from the file buffer, one pass
+ *  over the 50 byte facet records writes the positions and normals into
+ *  the channels of the mesh. ASCII files are parsed in place by a
+ *  #LineTokenizer, each 'solid' becomes a mesh of its own.
+ *  <br>
+ *  By default the meshes are in verbose format and carry the facet
+ *  normal at all three corners. With AI_CONFIG_IMPORT_STL_WELD_VERTICES
+ *  bit-identical positions are merged while the file is read, which gives
+ *  an indexed mesh without normals.
+ */
+public class STLImporter extends BaseImporter {
+
+	private static final aiImporterDesc desc = new aiImporterDesc(
+		"Stereolithography (STL) Importer",
+		"",
+		"",
+		"",
+		aiImporterDesc.aiImporterFlags_SupportTextFlavour | aiImporterDesc.aiImporterFlags_SupportBinaryFlavour,
+		0,
+		0,
+		0,
+		0,
+		"stl"
+	);
+
+	/** Size of the header of a binary file: 80 bytes of text and the
+	 *  number of facets */
+	private static final int BINARY_HEADER_SIZE = 84;
+
+	/** Size of a facet record in a binary file: normal, three positions
+	 *  and the 16 bit attribute */
+	private static final int BINARY_FACET_SIZE = 50;
+
+	/** Binary facets between two progress reports, a power of two */
+	private static final int PROGRESS_FACETS = 1 << 14;
+
+	private static final int SLOT_WELD = ImportConfig.GetSlot(aiConfig.AI_CONFIG_IMPORT_STL_WELD_VERTICES);
+
+	/** Configuration option: weld identical positions */
+	private boolean mWeld;
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean CanRead(String pFile, IOSystem pIOHandler, boolean checkSig) {
+		if (!checkSig) {
+			// Check File Extension
+			return SimpleExtensionCheck(pFile, "stl", null, null);
+		}
+		// Check file Header
+		IOStream stream = pIOHandler.Open(pFile, "rb");
+		if (stream == null) {
+			return false;
+		}
+		long size;
+		try {
+			size = stream.FileSize();
+		} finally {
+			pIOHandler.Close(stream);
+		}
+		ByteBuffer header = ReadHeader(pIOHandler, pFile, 200);
+		return header != null && CanReadHeader(pFile, header, size);
+	}
+
+	// -------------------------------------------------------------------
+	/** STL has no reliable magic: binary files are recognized by their
+	 *  size, ASCII files by the leading 'solid' keyword. */
+	@Override
+	public boolean CanReadHeader(String pFile, ByteBuffer pHeader, long pFileSize) {
+		return IsBinarySTL(pHeader, pFileSize) || IsAsciiSTL(pHeader, pFileSize);
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void SetupProperties(Importer pImp) {
+		mWeld = pImp.GetConfig().GetBool(SLOT_WELD, false);
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public aiImporterDesc GetInfo() {
+		return desc;
+	}
+
+	// -------------------------------------------------------------------
+	/** Check whether the size of the file matches the facet count of a
+	 *  binary file
+	 *  @param pBuffer Buffer holding the start of the file at its position
+	 *  @param pFileSize Size of the whole file */
+	static boolean IsBinarySTL(ByteBuffer pBuffer, long pFileSize) {
+		if (pFileSize < BINARY_HEADER_SIZE || pBuffer.remaining() < BINARY_HEADER_SIZE) {
+			return false;
+		}
+		long numFaces = pBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN)
+			.getInt(pBuffer.position() + 80) & 0xffffffffL;
+		return pFileSize == BINARY_HEADER_SIZE + numFaces * BINARY_FACET_SIZE;
+	}
+
+	// -------------------------------------------------------------------
+	/** Check whether the file starts with the 'solid' keyword. Binary
+	 *  files may do so as well, so IsBinarySTL() must be checked first.
+	 *  @param pBuffer Buffer holding the start of the file at its position
+	 *  @param pFileSize Size of the whole file */
+	static boolean IsAsciiSTL(ByteBuffer pBuffer, long pFileSize) {
+		int p = pBuffer.position(), end = pBuffer.limit();
+		while (p < end && pBuffer.get(p) <= ' ' && pBuffer.get(p) >= 0) {
+			++p;
+		}
+		final String keyword = "solid";
+		if (end - p < keyword.length()) {
+			return false;
+		}
+		for (int i = 0; i < keyword.length(); ++i) {
+			if ((pBuffer.get(p + i) | 0x20) != keyword.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	protected void InternReadFile(String pFile, aiScene pScene, IOSystem pIOHandler) {
+		IOStream file = pIOHandler.Open(pFile, "rb");
+		if (file == null) {
+			throw new DeadlyImportError("Failed to open STL file " + pFile + ".");
+		}
+		boolean retained = false;
+		try {
+			ByteBuffer buffer = ReadFully(file);
+			progress.UpdateFileRead(1, 2);
+
+			// the default color is also used for the material
+			float[] color = { 0.6f, 0.6f, 0.6f, 1.f };
+			List<aiMesh> meshes = new ArrayList<aiMesh>();
+			aiMaterial material;
+			String name;
+			if (IsBinarySTL(buffer, buffer.remaining())) {
+				meshes.add(LoadBinaryFile(buffer, pScene.mPrivate, color,
+					ProgressTracker.ForFileRead(progress, 1, 2, buffer.remaining())));
+				material = CreateMaterial(pScene.mPrivate, color);
+				name = "<STL_BINARY>";
+			} else {
+				ByteBuffer text = ConvertToUTF8(buffer, null);
+				if (!IsAsciiSTL(text, text.remaining())) {
+					throw new DeadlyImportError("Failed to determine STL storage representation for " + pFile + ".");
+				}
+				// ASCII files have no colors, the material is known upfront
+				material = CreateMaterial(pScene.mPrivate, color);
+				EmitMaterial(0, material);
+				ProgressTracker tracker = ProgressTracker.ForFileRead(progress, 1, 2, text.remaining());
+				if (IsLazyImport()) {
+					// the solids are parsed from the file data later on
+					pScene.mPrivate.Retain(file, pIOHandler);
+					retained = true;
+					name = IndexASCIIFile(text, pScene, tracker);
+				} else {
+					name = LoadASCIIFile(text, pScene, meshes, tracker);
+				}
+			}
+			progress.UpdateFileRead(2, 2);
+
+			if (mWeld) {
+				pScene.SetFlags(pScene.GetFlags() | aiScene.AI_SCENE_FLAGS_NON_VERBOSE_FORMAT);
+			}
+
+			// a single node references all meshes
+			aiNode root = new aiNode(name);
+			Matrix4f identity = new Matrix4f();
+			identity.setIdentity();
+			root.SetTransformation(identity);
+			if (!pScene.HasLazyMeshes()) {
+				pScene.SetMeshes(meshes.toArray(new aiMesh[meshes.size()]));
+			}
+			for (int i = 0; i < pScene.GetNumMeshes(); ++i) {
+				root.AddMesh(i);
+			}
+
+			pScene.SetMaterials(new aiMaterial[] { material });
+			pScene.SetRootNode(root);
+		} finally {
+			if (!retained) {
+				pIOHandler.Close(file);
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Read a binary file
+	 *  @param pBuffer Content of the file
+	 *  @param pArena Storage of the mesh
+	 *  @param pColor Receives the default color from the header, if any
+	 *  @param pTracker Receives the bytes decoded
+	 *  @return The mesh */
+	private aiMesh LoadBinaryFile(ByteBuffer pBuffer, SceneArena pArena, float[] pColor, ProgressTracker pTracker) {
+		final ByteBuffer buf = pBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		final int base = buf.position();
+
+		// Materialise exports 'COLOR=' and four bytes RGBA in the header,
+		// which also means the facet attributes hold 15 bit colors.
+		boolean colors = false;
+		for (int i = 0; i + 10 <= 80; ++i) {
+			if (buf.get(base + i) == 'C' && buf.get(base + i + 1) == 'O' && buf.get(base + i + 2) == 'L'
+				&& buf.get(base + i + 3) == 'O' && buf.get(base + i + 4) == 'R' && buf.get(base + i + 5) == '=') {
+				for (int k = 0; k < 4; ++k) {
+					pColor[k] = (buf.get(base + i + 6 + k) & 0xff) / 255.f;
+				}
+				colors = true;
+				break;
+			}
+		}
+
+		final int numFaces = buf.getInt(base + 80);
+		if (numFaces == 0) {
+			throw new DeadlyImportError("STL: file is empty. There are no facets defined");
+		}
+		final int numCorners = numFaces * 3;
+
+		aiMesh mesh = new aiMesh();
+		mesh.SetPrimitiveTypes(aiMeshConst.aiPrimitiveType_TRIANGLE);
+		mesh.SetMaterialIndex(0);
+
+		if (mWeld) {
+			PositionWelder welder = new PositionWelder(numCorners);
+			IntBuffer indices = pArena.AllocInts(numCorners);
+			for (int f = 0, rec = base + BINARY_HEADER_SIZE + 12; f < numFaces; ++f, rec += BINARY_FACET_SIZE) {
+				if (f != 0 && (f & (PROGRESS_FACETS - 1)) == 0) {
+					pTracker.Add(PROGRESS_FACETS * BINARY_FACET_SIZE);
+				}
+				for (int k = 0; k < 3; ++k) {
+					int p = rec + k * 12;
+					indices.put(f * 3 + k, welder.Add(buf.getFloat(p), buf.getFloat(p + 4), buf.getFloat(p + 8)));
+				}
+			}
+			welder.CopyTo(mesh, pArena);
+			mesh.SetFaces(indices, numFaces, 3);
+			return mesh;
+		}
+
+		final FloatBuffer pos = pArena.AllocChannel(numCorners, aiMeshConst.AI_VECTOR_COMPONENTS);
+		final FloatBuffer nor = pArena.AllocChannel(numCorners, aiMeshConst.AI_VECTOR_COMPONENTS);
+		final FloatBuffer col = colors ? pArena.AllocChannel(numCorners, aiMeshConst.AI_COLOR_COMPONENTS) : null;
+		for (int f = 0, rec = base + BINARY_HEADER_SIZE; f < numFaces; ++f, rec += BINARY_FACET_SIZE) {
+			if (f != 0 && (f & (PROGRESS_FACETS - 1)) == 0) {
+				pTracker.Add(PROGRESS_FACETS * BINARY_FACET_SIZE);
+			}
+			final float nx = buf.getFloat(rec), ny = buf.getFloat(rec + 4), nz = buf.getFloat(rec + 8);
+			final int out = f * 9;
+			for (int k = 0; k < 9; ++k) {
+				pos.put(out + k, buf.getFloat(rec + 12 + k * 4));
+			}
+			for (int k = 0; k < 9; k += 3) {
+				nor.put(out + k, nx).put(out + k + 1, ny).put(out + k + 2, nz);
+			}
+			if (col != null) {
+				float r = pColor[0], g = pColor[1], b = pColor[2], a = pColor[3];
+				final int attr = buf.getShort(rec + 48) & 0xffff;
+				if ((attr & 0x8000) == 0) {
+					// the color of the facet is valid
+					b = (attr & 0x1f) / 31.f;
+					g = ((attr >> 5) & 0x1f) / 31.f;
+					r = ((attr >> 10) & 0x1f) / 31.f;
+					a = 1.f;
+				}
+				for (int k = f * 12; k < f * 12 + 12; k += 4) {
+					col.put(k, r).put(k + 1, g).put(k + 2, b).put(k + 3, a);
+				}
+			}
+		}
+
+		mesh.SetNumVertices(numCorners);
+		mesh.SetVertices(pos);
+		mesh.SetNormals(nor);
+		if (col != null) {
+			mesh.SetColors(0, col);
+		}
+		mesh.SetFaces(SequentialIndices(pArena, numCorners), numFaces, 3);
+		return mesh;
+	}
+
+	// -------------------------------------------------------------------
+	/** Read an ASCII file, one mesh per solid. Each mesh is emitted as
+	 *  soon as its solid has been read.
+	 *  @param pBuffer Content of the file
+	 *  @param pScene Scene the meshes belong to
+	 *  @param pMeshes Receives the meshes
+	 *  @param pTracker Receives the bytes parsed
+	 *  @return Name of the first solid */
+	private String LoadASCIIFile(ByteBuffer pBuffer, aiScene pScene, List<aiMesh> pMeshes, ProgressTracker pTracker) {
+		AsciiReader reader = new AsciiReader(pBuffer);
+		reader.SetProgress(pTracker);
+		String first = null;
+		while (reader.NextSolid()) {
+			if (first == null) {
+				first = reader.mName;
+			}
+			reader.ReadSolid();
+			if (reader.mNumPositions == 0) {
+				continue;
+			}
+			if (reader.mNumPositions % 3 != 0) {
+				throw new DeadlyImportError("STL: Invalid number of vertices");
+			}
+			SceneArena arena = GetMeshArena(pScene);
+			aiMesh mesh = CreateMesh(reader, arena, mWeld);
+			mesh.SetName(reader.mName);
+			pMeshes.add(mesh);
+			EmitMesh(pScene, pMeshes.size() - 1, mesh, arena);
+		}
+		if (pMeshes.isEmpty()) {
+			throw new DeadlyImportError("STL: file is empty. There are no facets defined");
+		}
+		return first != null && first.length() > 0 ? first : "<STL_ASCII>";
+	}
+
+	/** Find the solids of an ASCII file without parsing their facets.
+	 *  The scene gets a lazy mesh for each solid which isn't empty.
+	 *  @param pBuffer Content of the file, must stay valid
+	 *  @param pScene Scene being imported
+	 *  @param pTracker Receives the bytes scanned
+	 *  @return Name of the first solid */
+	private String IndexASCIIFile(ByteBuffer pBuffer, aiScene pScene, ProgressTracker pTracker) {
+		AsciiReader reader = new AsciiReader(pBuffer);
+		reader.SetProgress(pTracker);
+		String first = null;
+		int[] offsets = new int[16], sizes = new int[16];
+		int num = 0;
+		while (reader.NextSolid()) {
+			if (first == null) {
+				first = reader.mName;
+			}
+			int numPositions = reader.SkipSolid();
+			if (numPositions == 0) {
+				continue;
+			}
+			if (numPositions % 3 != 0) {
+				throw new DeadlyImportError("STL: Invalid number of vertices");
+			}
+			if (num == offsets.length) {
+				offsets = Arrays.copyOf(offsets, num * 2);
+				sizes = Arrays.copyOf(sizes, num * 2);
+			}
+			offsets[num] = reader.mSolidStart;
+			sizes[num] = reader.mPos - reader.mSolidStart;
+			++num;
+		}
+		if (num == 0) {
+			throw new DeadlyImportError("STL: file is empty. There are no facets defined");
+		}
+		pScene.SetLazyMeshes(new LazySolids(pBuffer, Arrays.copyOf(offsets, num),
+			Arrays.copyOf(sizes, num), mWeld, IsLazyEvict()));
+		return first != null && first.length() > 0 ? first : "<STL_ASCII>";
+	}
+
+	/** Solids of an ASCII file, parsed on first access */
+	private static final class LazySolids extends LazyMeshes {
+
+		private final ByteBuffer mBuffer;
+
+		/** Position and length of each solid in mBuffer, in bytes */
+		private final int[] mOffsets;
+		private final int[] mSizes;
+
+		private final boolean mWeld;
+
+		LazySolids(ByteBuffer pBuffer, int[] pOffsets, int[] pSizes, boolean pWeld, boolean pEvict) {
+			super(pOffsets.length, pEvict);
+			mBuffer = pBuffer;
+			mOffsets = pOffsets;
+			mSizes = pSizes;
+			mWeld = pWeld;
+		}
+
+		@Override
+		protected aiMesh LoadMesh(int pIndex, SceneArena pArena) {
+			ByteBuffer solid = mBuffer.duplicate();
+			solid.limit(mOffsets[pIndex] + mSizes[pIndex]).position(mOffsets[pIndex]);
+			AsciiReader reader = new AsciiReader(solid);
+			reader.NextSolid();
+			reader.ReadSolid();
+			aiMesh mesh = CreateMesh(reader, pArena, mWeld);
+			mesh.SetName(reader.mName);
+			return mesh;
+		}
+	}
+
+	/** Create a mesh from the data of the solid just read */
+	private static aiMesh CreateMesh(AsciiReader pReader, SceneArena pArena, boolean pWeld) {
+		final int numCorners = pReader.mNumPositions, numFaces = numCorners / 3;
+		aiMesh mesh = new aiMesh();
+		mesh.SetPrimitiveTypes(aiMeshConst.aiPrimitiveType_TRIANGLE);
+		mesh.SetMaterialIndex(0);
+
+		if (pWeld) {
+			final float[] positions = pReader.mPositions;
+			PositionWelder welder = new PositionWelder(numCorners);
+			IntBuffer indices = pArena.AllocInts(numCorners);
+			for (int i = 0; i < numCorners; ++i) {
+				indices.put(i, welder.Add(positions[i * 3], positions[i * 3 + 1], positions[i * 3 + 2]));
+			}
+			welder.CopyTo(mesh, pArena);
+			mesh.SetFaces(indices, numFaces, 3);
+			return mesh;
+		}
+
+		FloatBuffer pos = pArena.AllocChannel(numCorners, aiMeshConst.AI_VECTOR_COMPONENTS);
+		pos.put(pReader.mPositions, 0, numCorners * 3).clear();
+		FloatBuffer nor = pArena.AllocChannel(numCorners, aiMeshConst.AI_VECTOR_COMPONENTS);
+		nor.put(pReader.mNormals, 0, numCorners * 3).clear();
+
+		mesh.SetNumVertices(numCorners);
+		mesh.SetVertices(pos);
+		mesh.SetNormals(nor);
+		mesh.SetFaces(SequentialIndices(pArena, numCorners), numFaces, 3);
+		return mesh;
+	}
+
+	/** Indices of a verbose mesh, which simply enumerate the vertices */
+	private static IntBuffer SequentialIndices(SceneArena pArena, int pCount) {
+		IntBuffer indices = pArena.AllocInts(pCount);
+		for (int i = 0; i < pCount; ++i) {
+			indices.put(i, i);
+		}
+		return indices;
+	}
+
+	// -------------------------------------------------------------------
+	/** The material shared by all meshes, as in the C++ loader */
+	private static aiMaterial CreateMaterial(SceneArena pArena, float[] pColor) {
+		aiMaterial mat = new aiMaterial(pArena);
+		mat.AddProperty(ObjFileMtlImporter.DEFAULT_MATERIAL, aiMaterialConst.AI_MATKEY_NAME, 0, 0);
+
+		float[] diffuse = pColor.clone(), ambient = { 0.05f, 0.05f, 0.05f, 1.f };
+		mat.AddProperty(diffuse, 4, aiMaterialConst.AI_MATKEY_COLOR_DIFFUSE, 0, 0);
+		mat.AddProperty(diffuse, 4, aiMaterialConst.AI_MATKEY_COLOR_SPECULAR, 0, 0);
+		mat.AddProperty(ambient, 4, aiMaterialConst.AI_MATKEY_COLOR_AMBIENT, 0, 0);
+		return mat;
+	}
+
+	// -------------------------------------------------------------------
+	/** Parser for the solids of an ASCII file */
+	private static final class AsciiReader extends LineTokenizer {
+
+		/** Name of the current solid */
+		String mName;
+
+		/** Position of the 'solid' line of the current solid */
+		int mSolidStart;
+
+		/** Corner positions and facet normals of the current solid,
+		 *  3 floats each */
+		float[] mPositions = new float[3 * 3 * 64];
+		float[] mNormals = new float[3 * 3 * 64];
+		int mNumPositions;
+
+		AsciiReader(ByteBuffer pBuffer) {
+			super(pBuffer, pBuffer.position(), pBuffer.limit());
+		}
+
+		/** Move to the next 'solid' line and read its name
+		 *  @return false at the end of the file */
+		boolean NextSolid() {
+			while (mPos < mEnd) {
+				SkipBlankLines();
+				mSolidStart = mPos;
+				if (MatchKeyword("solid")) {
+					mName = ReadRestOfLine();
+					SkipLine();
+					return true;
+				}
+				SkipLine();
+			}
+			return false;
+		}
+
+		/** Read the facets up to 'endsolid' */
+		void ReadSolid() {
+			float nx = 0.f, ny = 0.f, nz = 0.f;
+			mNumPositions = 0;
+			while (mPos < mEnd) {
+				CheckProgress();
+				SkipBlankLines();
+				if (mPos >= mEnd) {
+					break;
+				}
+				if (MatchKeyword("vertex")) {
+					float x = ParseFloat(), y = ParseFloat(), z = ParseFloat();
+					int i = mNumPositions * 3;
+					if (i + 3 > mPositions.length) {
+						mPositions = Arrays.copyOf(mPositions, mPositions.length * 2);
+						mNormals = Arrays.copyOf(mNormals, mPositions.length);
+					}
+					mPositions[i] = x;
+					mPositions[i + 1] = y;
+					mPositions[i + 2] = z;
+					mNormals[i] = nx;
+					mNormals[i + 1] = ny;
+					mNormals[i + 2] = nz;
+					++mNumPositions;
+				} else if (MatchKeyword("facet")) {
+					SkipSpaces();
+					if (!MatchKeyword("normal")) {
+						throw new DeadlyImportError("STL: a facet normal vector was expected but not found");
+					}
+					nx = ParseFloat();
+					ny = ParseFloat();
+					nz = ParseFloat();
+				} else if (MatchKeyword("endsolid")) {
+					SkipLine();
+					return;
+				}
+				// 'outer loop', 'endloop' and 'endfacet' carry no data
+				SkipLine();
+			}
+		}
+
+		/** Skip the facets up to 'endsolid', only counting the vertices
+		 *  @return Number of vertices of the solid */
+		int SkipSolid() {
+			int numPositions = 0;
+			while (mPos < mEnd) {
+				CheckProgress();
+				SkipBlankLines();
+				if (mPos >= mEnd) {
+					break;
+				}
+				if (MatchKeyword("vertex")) {
+					++numPositions;
+				} else if (MatchKeyword("endsolid")) {
+					SkipLine();
+					break;
+				}
+				SkipLine();
+			}
+			return numPositions;
+		}
+
+		/** Skip blanks and empty lines, some exporters write CR LF */
+		private void SkipBlankLines() {
+			while (mPos < mEnd) {
+				byte c = mBuffer.get(mPos);
+				if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+					break;
+				}
+				++mPos;
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Merges bit-identical positions while the file is read. An open
+	 *  addressing hash table of int slots maps each position to its index,
+	 *  nothing is boxed. */
+	private static final class PositionWelder {
+
+		/** Unique positions, 3 floats each */
+		private float[] mPositions;
+		private int mNumPositions;
+
+		/** Position index + 1 of each slot, 0 marks an empty slot */
+		private int[] mTable;
+		private int mMask;
+
+		/** @param pExpected Expected number of positions added */
+		PositionWelder(int pExpected) {
+			// a closed mesh has about half as many positions as triangles
+			int unique = Math.max(16, pExpected / 6);
+			mPositions = new float[unique * 3];
+			mTable = new int[Integer.highestOneBit(unique * 2 - 1) << 1];
+			mMask = mTable.length - 1;
+		}
+
+		/** Add a position
+		 *  @return Index of the position, shared by all equal positions */
+		int Add(float x, float y, float z) {
+			// +0.f and -0.f are the same position
+			final int bx = Float.floatToIntBits(x + 0.f);
+			final int by = Float.floatToIntBits(y + 0.f);
+			final int bz = Float.floatToIntBits(z + 0.f);
+			int h = bx * 0x9e3779b1 ^ by * 0x85ebca6b ^ bz * 0xc2b2ae35;
+			h ^= h >>> 16;
+
+			final float[] positions = mPositions;
+			for (int slot = h & mMask;; slot = (slot + 1) & mMask) {
+				final int entry = mTable[slot];
+				if (entry == 0) {
+					break;
+				}
+				final int i = (entry - 1) * 3;
+				if (Float.floatToIntBits(positions[i] + 0.f) == bx
+					&& Float.floatToIntBits(positions[i + 1] + 0.f) == by
+					&& Float.floatToIntBits(positions[i + 2] + 0.f) == bz) {
+					return entry - 1;
+				}
+			}
+
+			final int index = mNumPositions++;
+			if (index * 3 + 3 > mPositions.length) {
+				mPositions = Arrays.copyOf(mPositions, mPositions.length * 2);
+			}
+			mPositions[index * 3] = x;
+			mPositions[index * 3 + 1] = y;
+			mPositions[index * 3 + 2] = z;
+			if (mNumPositions * 2 > mTable.length) {
+				Rehash();
+			} else {
+				Insert(mTable, mMask, h, index);
+			}
+			return index;
+		}
+
+		private static void Insert(int[] pTable, int pMask, int pHash, int pIndex) {
+			int slot = pHash & pMask;
+			while (pTable[slot] != 0) {
+				slot = (slot + 1) & pMask;
+			}
+			pTable[slot] = pIndex + 1;
+		}
+
+		private void Rehash() {
+			mTable = new int[mTable.length * 2];
+			mMask = mTable.length - 1;
+			for (int i = 0; i < mNumPositions; ++i) {
+				int h = Float.floatToIntBits(mPositions[i * 3] + 0.f) * 0x9e3779b1
+					^ Float.floatToIntBits(mPositions[i * 3 + 1] + 0.f) * 0x85ebca6b
+					^ Float.floatToIntBits(mPositions[i * 3 + 2] + 0.f) * 0xc2b2ae35;
+				h ^= h >>> 16;
+				Insert(mTable, mMask, h, i);
+			}
+		}
+
+		/** Store the unique positions as the vertices of a mesh */
+		void CopyTo(aiMesh pMesh, SceneArena pArena) {
+			FloatBuffer pos = pArena.AllocChannel(mNumPositions, aiMeshConst.AI_VECTOR_COMPONENTS);
+			pos.put(mPositions, 0, mNumPositions * 3).clear();
+			pMesh.SetNumVertices(mNumPositions);
+			pMesh.SetVertices(pos);
+		}
+	}
+}
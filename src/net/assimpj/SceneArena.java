@@ -0,0 +1,247 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Off-heap storage for the bulk data of a single #aiScene.
+ *
+ *  Loaders allocate vertex channels, index buffers, bone weights and
+ *  material property payloads from the arena of the scene they fill.
+ *  Small requests are carved out of large direct blocks, big requests
+ *  get a direct buffer of their own. Release() frees everything at once,
+ *  so dropping a huge scene neither waits for nor triggers a full GC.
+ *  <br>
+ *  All buffers are zero-initialized and use the native byte order.
+ *  Allocation is thread-safe, loaders may fill a scene from several
+ *  threads.
+ *  <br>
+ *  Loaders which hand out views on the file data instead of copies keep
+ *  the stream open with Retain(), it is closed by Release() as well.
+ *  <br>
+ *  Data which may be freed before the rest of the scene, i.e. a mesh
+ *  delivered to an #ImportListener, is allocated from a child arena, see
+ *  CreateChild().
+ */
+public final class SceneArena {
+
+	/** Default size of a block, in bytes */
+	public static final int DEFAULT_BLOCK_SIZE = 4 << 20;
+
+	/** Largest number of floats or ints a single buffer can hold */
+	public static final int MAX_ELEMENTS = Integer.MAX_VALUE / 4;
+
+	/** Alignment of every allocation, in bytes */
+	private static final int ALIGNMENT = 16;
+
+	/** Size of a block */
+	private final int mBlockSize;
+
+	/** Blocks and dedicated buffers handed out so far */
+	private final List<ByteBuffer> mBlocks;
+
+	/** Streams the scene data refers to, and the IOSystems to close them */
+	private final List<IOStream> mStreams;
+	private final List<IOSystem> mStreamSystems;
+
+	/** Block small requests are currently carved from, may be null */
+	private ByteBuffer mCurrent;
+
+	/** Number of bytes handed out to callers */
+	private long mAllocated;
+
+	/** Child arenas, released with this one */
+	private final List<SceneArena> mChildren;
+
+	/** Set once Release() has been called */
+	private boolean mReleased;
+
+	public SceneArena() {
+		this(DEFAULT_BLOCK_SIZE);
+	}
+
+	/** @param pBlockSize Size of a block, in bytes. Requests larger 
+	 *    than a quarter block get a buffer of their own. */
+	public SceneArena(int pBlockSize) {
+		mBlockSize = pBlockSize;
+		mBlocks = new ArrayList<ByteBuffer>();
+		mStreams = new ArrayList<IOStream>();
+		mStreamSystems = new ArrayList<IOSystem>();
+		mChildren = new ArrayList<SceneArena>();
+		mCurrent = null;
+		mAllocated = 0;
+		mReleased = false;
+	}
+
+	// -------------------------------------------------------------------
+	/** Allocate a byte buffer.
+	 *  @param pSize Size in bytes
+	 *  @return Zeroed buffer of exactly pSize bytes, native byte order */
+	public synchronized ByteBuffer AllocBytes(int pSize) {
+		if (mReleased) {
+			throw new IllegalStateException("[SceneArena.AllocBytes] Arena has been released");
+		}
+		mAllocated += pSize;
+
+		ByteBuffer out;
+		if (pSize > mBlockSize / 4) {
+			out = ByteBuffer.allocateDirect(pSize);
+			mBlocks.add(out);
+		} else {
+			if (mCurrent == null || mCurrent.remaining() < pSize) {
+				mCurrent = ByteBuffer.allocateDirect(mBlockSize);
+				mBlocks.add(mCurrent);
+			}
+			int start = mCurrent.position();
+			mCurrent.limit(start + pSize);
+			out = mCurrent.slice();
+			mCurrent.limit(mCurrent.capacity());
+			mCurrent.position(Math.min(mCurrent.capacity(), (start + pSize + ALIGNMENT - 1) & -ALIGNMENT));
+		}
+		return out.order(ByteOrder.nativeOrder());
+	}
+
+	// -------------------------------------------------------------------
+	/** Allocate a float buffer, i.e. a vertex channel or weights.
+	 *  @param pCount Number of floats
+	 *  @throws DeadlyImportError if pCount is negative or exceeds 
+	 *    #MAX_ELEMENTS */
+	public FloatBuffer AllocFloats(int pCount) {
+		return AllocBytes(ByteSize(pCount, "AllocFloats", "floats")).asFloatBuffer();
+	}
+
+	// -------------------------------------------------------------------
+	/** Allocate an int buffer, i.e. face indices or vertex ids.
+	 *  @param pCount Number of ints
+	 *  @throws DeadlyImportError if pCount is negative or exceeds 
+	 *    #MAX_ELEMENTS */
+	public IntBuffer AllocInts(int pCount) {
+		return AllocBytes(ByteSize(pCount, "AllocInts", "ints")).asIntBuffer();
+	}
+
+	// -------------------------------------------------------------------
+	/** Allocate a packed vertex channel, see aiMesh.CreateChannel()
+	 *  @throws DeadlyImportError if the channel would hold more than 
+	 *    #MAX_ELEMENTS floats */
+	public FloatBuffer AllocChannel(int pNumVertices, int pNumComponents) {
+		int count = -1;
+		try {
+			count = Math.multiplyExact(pNumVertices, pNumComponents);
+		} catch (ArithmeticException err) {
+			// reported below
+		}
+		if (count < 0 || count > MAX_ELEMENTS) {
+			throw new DeadlyImportError("[SceneArena.AllocChannel] A channel of " + pNumVertices + " vertices with "
+				+ pNumComponents + " components exceeds the limit of " + MAX_ELEMENTS + " floats");
+		}
+		return AllocBytes(count * 4).asFloatBuffer();
+	}
+
+	// -------------------------------------------------------------------
+	/** Computes the size of a buffer of 4 byte elements
+	 *  @param pCount Number of elements
+	 *  @param pCaller Allocating method, for the error message
+	 *  @param pType Element type, for the error message
+	 *  @return Size in bytes */
+	private static int ByteSize(int pCount, String pCaller, String pType) {
+		if (pCount >= 0) {
+			try {
+				return Math.multiplyExact(pCount, 4);
+			} catch (ArithmeticException err) {
+				// reported below
+			}
+		}
+		throw new DeadlyImportError("[SceneArena." + pCaller + "] A buffer of " + pCount + " " + pType
+			+ " is out of range, the limit is " + MAX_ELEMENTS);
+	}
+
+	// -------------------------------------------------------------------
+	/** Keep a stream open for the lifetime of the scene, because views
+	 *  returned by DirectIOStream.Slice() are part of the scene data.
+	 *  @param pStream Stream to be closed by Release()
+	 *  @param pIOSystem IOSystem the stream has been opened with */
+	public synchronized void Retain(IOStream pStream, IOSystem pIOSystem) {
+		if (mReleased) {
+			throw new IllegalStateException("[SceneArena.Retain] Arena has been released");
+		}
+		mStreams.add(pStream);
+		mStreamSystems.add(pIOSystem);
+	}
+
+	// -------------------------------------------------------------------
+	/** Create an arena for data which can be released on its own, such
+	 *  as a single mesh. It uses smaller blocks, so many small children
+	 *  don't waste memory. Releasing this arena releases the child too.
+	 *  @return The new arena */
+	public synchronized SceneArena CreateChild() {
+		if (mReleased) {
+			throw new IllegalStateException("[SceneArena.CreateChild] Arena has been released");
+		}
+		// children are created and released over and over by lazy scenes
+		for (int i = mChildren.size() - 1; i >= 0; --i) {
+			if (mChildren.get(i).IsReleased()) {
+				mChildren.remove(i);
+			}
+		}
+		SceneArena child = new SceneArena(Math.max(ALIGNMENT, mBlockSize / 16));
+		mChildren.add(child);
+		return child;
+	}
+
+	// -------------------------------------------------------------------
+	/** Stop tracking a child arena without releasing it. Its memory is
+	 *  freed by the garbage collector once no buffer of it is reachable,
+	 *  which is safe if some of them may still be in use.
+	 *  @param pChild Arena returned by CreateChild(), may be NULL */
+	synchronized void DetachChild(SceneArena pChild) {
+		mChildren.remove(pChild);
+	}
+
+	// -------------------------------------------------------------------
+	/** Returns the number of bytes handed out so far, including the
+	 *  children which have not been released. */
+	public synchronized long GetAllocatedBytes() {
+		long allocated = mAllocated;
+		for (SceneArena child : mChildren) {
+			if (!child.IsReleased()) {
+				allocated += child.GetAllocatedBytes();
+			}
+		}
+		return allocated;
+	}
+
+	// -------------------------------------------------------------------
+	/** Frees all memory of the arena.
+	 *
+	 *  Every buffer allocated from the arena becomes invalid, touching
+	 *  one afterwards crashes the VM. Retained streams are closed and
+	 *  child arenas released. Further allocations fail. Releasing an
+	 *  arena a second time does nothing. */
+	public synchronized void Release() {
+		for (SceneArena child : mChildren) {
+			child.Release();
+		}
+		mChildren.clear();
+		for (ByteBuffer block : mBlocks) {
+			DirectBufferCleaner.Clean(block);
+		}
+		mBlocks.clear();
+		for (int i = 0; i < mStreams.size(); ++i) {
+			mStreamSystems.get(i).Close(mStreams.get(i));
+		}
+		mStreams.clear();
+		mStreamSystems.clear();
+		mCurrent = null;
+		mReleased = true;
+	}
+
+	// -------------------------------------------------------------------
+	/** Checks whether Release() has been called. */
+	public synchronized boolean IsReleased() {
+		return mReleased;
+	}
+
+}
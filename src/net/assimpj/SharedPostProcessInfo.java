@@ -1,5 +1,6 @@
 package net.assimpj;
 
+import java.util.HashMap;
 import java.util.Map;
 
 //---------------------------------------------------------------------------
@@ -7,12 +8,32 @@ import java.util.Map;
 *
 *  The class maintains a simple property list that can be used by pp-steps
 *  to provide additional information to other steps. This is primarily
-*  intended for cross-step optimizations.
+*  intended for cross-step optimizations. Steps also leave reports of
+*  their work here; the properties of the last post-processing run can
+*  be read through Importer.GetSharedPostProcessInfo() until the next
+*  one starts or the scene is freed.
 */
 public class SharedPostProcessInfo {
 
 	//! Map of all stored properties
-	private Map<String, Object> pmap;
+	private Map<String, Object> pmap = new HashMap<String, Object>();
+
+	/** Average cache miss ratio of the meshes optimized by the
+	 *  aiProcess_ImproveCacheLocality step before it ran. The number of
+	 *  vertices transformed per triangle, weighted by the triangles of
+	 *  each mesh. Type: Float. Only set if the step found a mesh to
+	 *  optimize. */
+	public static final String ICL_ACMR_IN = "$icl.acmr_in";
+
+	/** Average cache miss ratio of the same meshes after the step.
+	 *  Type: Float. */
+	public static final String ICL_ACMR_OUT = "$icl.acmr_out";
+
+	/** Number of meshes the ACMR is measured over. Type: Integer. */
+	public static final String ICL_NUM_MESHES = "$icl.meshes";
+
+	/** Number of triangles the ACMR is measured over. Type: Long. */
+	public static final String ICL_NUM_TRIANGLES = "$icl.triangles";
 
 	public void AddProperty(String name, Object in ){
 		pmap.put(name, in);
@@ -22,4 +43,9 @@ public class SharedPostProcessInfo {
 		return pmap.get(name);
 	}
 
+	//! Remove all stored properties
+	public void Clean() {
+		pmap.clear();
+	}
+
 }
@@ -0,0 +1,200 @@
+package net.assimpj;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/** A little helper class to quickly find all vertices in the epsilon
+ *  environment of a given position.
+ *
+ *  Positions are quantized to a grid of cells at least four epsilons
+ *  wide. Each vertex becomes a long of its packed cell coordinates and
+ *  its index, and the array of them is radix-sorted once. Finding the vertices
+ *  near a position means a binary search for its cell and, per axis, the
+ *  neighbour cell it is closer than an epsilon to. Queries are
+ *  thread-safe and don't allocate.
+ */
+final class SpatialSort {
+
+	/** Smallest cell width, in epsilons */
+	private static final float CELL_SIZE = 4.f;
+
+	private final FloatBuffer mPositions;
+	private final float mEpsilonSqr;
+
+	/** Origin of the grid and its inverse cell width */
+	private final float mMinX;
+	private final float mMinY;
+	private final float mMinZ;
+	private final float mInvCell;
+	private final float mBorder;
+
+	/** Bits per axis of a packed cell and for the vertex index */
+	private final int mCellBits;
+	private final int mIndexBits;
+
+	/** Packed cell << mIndexBits | vertex index, sorted */
+	private final long[] mSorted;
+
+	// -------------------------------------------------------------------
+	/** Sort the vertices of a mesh
+	 * @param pPositions 3 floats per vertex
+	 * @param pNumVertices Number of vertices
+	 * @param pEpsilon Maximum distance of the vertices FindPositions()
+	 *   returns, see ComputePositionEpsilon() */
+	SpatialSort(FloatBuffer pPositions, int pNumVertices, float pEpsilon) {
+		mPositions = pPositions;
+		mEpsilonSqr = pEpsilon * pEpsilon;
+
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+		for (int i = 0, n = pNumVertices * 3; i < n; i += 3) {
+			float x = pPositions.get(i), y = pPositions.get(i + 1), z = pPositions.get(i + 2);
+			minX = Math.min(minX, x); maxX = Math.max(maxX, x);
+			minY = Math.min(minY, y); maxY = Math.max(maxY, y);
+			minZ = Math.min(minZ, z); maxZ = Math.max(maxZ, z);
+		}
+		mMinX = minX;
+		mMinY = minY;
+		mMinZ = minZ;
+
+		// as many cells per axis as fit next to the index into a long
+		mIndexBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(1, pNumVertices - 1)));
+		mCellBits = (63 - mIndexBits) / 3;
+		float extent = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
+		float cell = Math.max(pEpsilon * CELL_SIZE, extent / ((1 << mCellBits) - 2));
+		if (!(cell > 0.f) || Float.isInfinite(cell)) {
+			cell = 1.f;
+		}
+		mInvCell = Float.isInfinite(extent) ? 0.f : 1.f / cell;
+		mBorder = pEpsilon * mInvCell;
+
+		mSorted = new long[pNumVertices];
+		for (int v = 0; v < pNumVertices; ++v) {
+			int cx = Cell(pPositions.get(v * 3), mMinX);
+			int cy = Cell(pPositions.get(v * 3 + 1), mMinY);
+			int cz = Cell(pPositions.get(v * 3 + 2), mMinZ);
+			mSorted[v] = (PackCell(cx, cy, cz) << mIndexBits) | v;
+		}
+		SortByCell(mSorted, 3 * mCellBits, mIndexBits);
+	}
+
+	// -------------------------------------------------------------------
+	/** Compute the epsilon for vertices to be taken as coincident, 1e-4
+	 *  of the diagonal of the bounding box of the mesh */
+	static float ComputePositionEpsilon(FloatBuffer pPositions, int pNumVertices) {
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+		for (int i = 0, n = pNumVertices * 3; i < n; i += 3) {
+			float x = pPositions.get(i), y = pPositions.get(i + 1), z = pPositions.get(i + 2);
+			minX = Math.min(minX, x); maxX = Math.max(maxX, x);
+			minY = Math.min(minY, y); maxY = Math.max(maxY, y);
+			minZ = Math.min(minZ, z); maxZ = Math.max(maxZ, z);
+		}
+		float dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+		float epsilon = (float)Math.sqrt(dx * dx + dy * dy + dz * dz) * 1e-4f;
+		return epsilon > 0.f && !Float.isInfinite(epsilon) ? epsilon : 0.f;
+	}
+
+	// -------------------------------------------------------------------
+	/** Find the vertices within the epsilon of a position, including a
+	 *  vertex at the position itself.
+	 * @param pX Position to look at
+	 * @param pResults Receives the vertex indices
+	 * @return Number of vertices found. If larger than pResults, only
+	 *   the first pResults.length are stored; call again with an array
+	 *   large enough. */
+	int FindPositions(float pX, float pY, float pZ, int[] pResults) {
+		float fx = (pX - mMinX) * mInvCell, fy = (pY - mMinY) * mInvCell, fz = (pZ - mMinZ) * mInvCell;
+		int cx = (int)Math.floor(fx), cy = (int)Math.floor(fy), cz = (int)Math.floor(fz);
+		int nx = fx - cx < mBorder ? -1 : fx - cx > 1.f - mBorder ? 1 : 0;
+		int ny = fy - cy < mBorder ? -1 : fy - cy > 1.f - mBorder ? 1 : 0;
+		int nz = fz - cz < mBorder ? -1 : fz - cz > 1.f - mBorder ? 1 : 0;
+
+		final int limit = (1 << mCellBits) - 1;
+		final long indexMask = (1L << mIndexBits) - 1;
+		int num = 0;
+		for (int ox = 0; ox <= (nx != 0 ? 1 : 0); ++ox) {
+			int x = cx + ox * nx;
+			for (int oy = 0; oy <= (ny != 0 ? 1 : 0); ++oy) {
+				int y = cy + oy * ny;
+				for (int oz = 0; oz <= (nz != 0 ? 1 : 0); ++oz) {
+					int z = cz + oz * nz;
+					if (x < 0 || y < 0 || z < 0 || x > limit || y > limit || z > limit) {
+						continue;
+					}
+					long cell = PackCell(x, y, z);
+					int i = Arrays.binarySearch(mSorted, cell << mIndexBits);
+					for (i = i >= 0 ? i : -i - 1; i < mSorted.length && (mSorted[i] >>> mIndexBits) == cell; ++i) {
+						int v = (int)(mSorted[i] & indexMask);
+						float dx = mPositions.get(v * 3) - pX;
+						float dy = mPositions.get(v * 3 + 1) - pY;
+						float dz = mPositions.get(v * 3 + 2) - pZ;
+						if (dx * dx + dy * dy + dz * dz <= mEpsilonSqr) {
+							if (num < pResults.length) {
+								pResults[num] = v;
+							}
+							++num;
+						}
+					}
+				}
+			}
+		}
+		return num;
+	}
+
+	// -------------------------------------------------------------------
+	/** Get a vertex by its position in the sort. Neighbouring vertices
+	 *  in the sort are close to each other in space, iterating in this
+	 *  order keeps the queries cache-friendly.
+	 * @param pIndex 0 to the number of vertices - 1 */
+	int GetSortedVertex(int pIndex) {
+		return (int)(mSorted[pIndex] & ((1L << mIndexBits) - 1));
+	}
+
+	// -------------------------------------------------------------------
+	/** Sort packed vertices by their cell. A stable LSD radix sort over
+	 *  the cell bits only, the indices were in order before so they stay
+	 *  ordered within each cell.
+	 * @param pData Cell << pIndexBits | index, ordered by index
+	 * @param pCellBits Bits of the packed cell
+	 * @param pIndexBits Bits of the index */
+	private static void SortByCell(long[] pData, int pCellBits, int pIndexBits) {
+		final int digitBits = 11, numBuckets = 1 << digitBits;
+		long[] src = pData, dst = new long[pData.length];
+		int[] counts = new int[numBuckets];
+		for (int shift = pIndexBits; shift < pIndexBits + pCellBits; shift += digitBits) {
+			Arrays.fill(counts, 0);
+			for (long e : src) {
+				++counts[(int)(e >>> shift) & (numBuckets - 1)];
+			}
+			if (counts[(int)(src[0] >>> shift) & (numBuckets - 1)] == src.length) {
+				// all in one bucket, nothing to reorder by this digit
+				continue;
+			}
+			for (int b = 0, sum = 0; b < numBuckets; ++b) {
+				int c = counts[b];
+				counts[b] = sum;
+				sum += c;
+			}
+			for (long e : src) {
+				dst[counts[(int)(e >>> shift) & (numBuckets - 1)]++] = e;
+			}
+			long[] t = src;
+			src = dst;
+			dst = t;
+		}
+		if (src != pData) {
+			System.arraycopy(src, 0, pData, 0, src.length);
+		}
+	}
+
+	// -------------------------------------------------------------------
+	private int Cell(float pCoord, float pMin) {
+		return Math.max(0, Math.min((1 << mCellBits) - 1, (int)Math.floor((pCoord - pMin) * mInvCell)));
+	}
+
+	// -------------------------------------------------------------------
+	private long PackCell(int pX, int pY, int pZ) {
+		return ((long)pX << (2 * mCellBits)) | ((long)pY << mCellBits) | pZ;
+	}
+}
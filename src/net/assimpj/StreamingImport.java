@@ -0,0 +1,122 @@
+package net.assimpj;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/** State of an import which delivers its parts to an #ImportListener.
+ *
+ *  Loaders hand over materials and meshes through BaseImporter.Emit*().
+ *  Each mesh gets the active #MeshProcess steps applied before it is
+ *  passed on, the Importer skips the per-mesh part of these steps later.
+ *  Whatever a loader didn't emit is delivered by EmitRemaining() once
+ *  the loader has returned.
+ */
+final class StreamingImport {
+
+	/** Receiver of the scene parts */
+	private final ImportListener mListener;
+
+	/** Active per-mesh steps, in pipeline order */
+	private final List<MeshProcess> mSteps;
+
+	/** Materials and meshes delivered so far */
+	private final BitSet mMaterialsSent;
+	private final BitSet mMeshesSent;
+
+	/** Meshes the listener released */
+	private final BitSet mMeshesReleased;
+
+	// -------------------------------------------------------------------
+	/** @param pImp Importer running the import
+	 *  @param pFlags Post-processing flags of the import
+	 *  @param pListener Receiver of the scene parts */
+	StreamingImport(Importer pImp, int pFlags, ImportListener pListener) {
+		mListener = pListener;
+		mSteps = new ArrayList<MeshProcess>();
+		for (BaseProcess process : pImp.Pimpl().mPostProcessingSteps) {
+			if (process instanceof MeshProcess && process.IsActive(pFlags)) {
+				process.progress = pImp.GetProgressHandler();
+				process.SetupProperties(pImp);
+				mSteps.add((MeshProcess)process);
+			}
+		}
+		mMaterialsSent = new BitSet();
+		mMeshesSent = new BitSet();
+		mMeshesReleased = new BitSet();
+	}
+
+	// -------------------------------------------------------------------
+	/** Check whether a step has already been applied to all meshes */
+	boolean HandlesStep(BaseProcess pProcess) {
+		return mSteps.contains(pProcess);
+	}
+
+	// -------------------------------------------------------------------
+	/** Deliver a material */
+	synchronized void EmitMaterial(int pIndex, aiMaterial pMaterial) {
+		if (!mMaterialsSent.get(pIndex)) {
+			mMaterialsSent.set(pIndex);
+			mListener.OnMaterial(pIndex, pMaterial);
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Post-process and deliver a mesh
+	 *  @param pScene Scene the mesh belongs to
+	 *  @param pIndex Index of the mesh in the scene
+	 *  @param pMesh The mesh
+	 *  @param pArena Arena holding the data of the mesh. It is released
+	 *    if the listener releases the mesh, unless it is the arena of
+	 *    the scene. */
+	void EmitMesh(aiScene pScene, int pIndex, aiMesh pMesh, SceneArena pArena) {
+		synchronized (this) {
+			if (mMeshesSent.get(pIndex)) {
+				return;
+			}
+			mMeshesSent.set(pIndex);
+		}
+		// loaders building meshes in parallel post-process them in parallel
+		for (MeshProcess step : mSteps) {
+			step.ExecuteOnMesh(pMesh, pArena != null ? pArena : pScene.mPrivate, ProgressTracker.NONE);
+		}
+		synchronized (this) {
+			if (mListener.OnMesh(pIndex, pMesh)) {
+				mMeshesReleased.set(pIndex);
+				if (pArena != null && pArena != pScene.mPrivate) {
+					pArena.Release();
+				}
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Deliver what the loader didn't and drop the released meshes from
+	 *  the scene. Called once the loader is done. */
+	synchronized void EmitRemaining(aiScene pScene) {
+		for (int i = 0; i < pScene.GetNumMaterials(); ++i) {
+			EmitMaterial(i, pScene.GetMaterial(i));
+		}
+		aiMesh[] meshes = pScene.GetMeshes();
+		for (int i = 0; meshes != null && i < meshes.length; ++i) {
+			if (meshes[i] != null) {
+				EmitMesh(pScene, i, meshes[i], pScene.mPrivate);
+			}
+			if (mMeshesReleased.get(i)) {
+				meshes[i] = null;
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Deliver the node hierarchy, parents first */
+	void EmitNodes(aiNode pNode) {
+		if (pNode == null) {
+			return;
+		}
+		mListener.OnNode(pNode);
+		for (int i = 0; i < pNode.GetNumChildren(); ++i) {
+			EmitNodes(pNode.GetChild(i));
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package net.assimpj;
+
+/** The arithmetic of #CalcTangentsProcess, on blocks of floats.
+ *
+ *  The step gathers the vertex data it needs from the interleaved
+ *  channels into a block holding one array segment per component
+ *  (structure of arrays), so the kernels can run over plain float arrays.
+ *  This class is the scalar implementation. TangentKernelVector does the
+ *  same with the incubating Vector API (jdk.incubator.vector). It lives 
+ *  in the assimpj-vector module, so the library itself compiles without
+ *  the incubator. Get() looks it up reflectively and falls back to this
+ *  class if assimpj-vector isn't on the classpath, the JVM doesn't run
+ *  with --add-modules jdk.incubator.vector or the CPU has no SIMD 
+ *  registers for floats. Both compute bit-identical results.
+ */
+class TangentKernel {
+
+	/** Number of elements in a block */
+	static final int BLOCK = 256;
+
+	// Segments of a block of faces. Inputs: the edges p1 - p0 and p2 - p0,
+	// the texture coordinate deltas uv1 - uv0 (S1, T1) and uv2 - uv0 (S2, T2).
+	// Outputs: tangent and bitangent of the face.
+	static final int E1X = 0, E1Y = BLOCK, E1Z = 2 * BLOCK;
+	static final int E2X = 3 * BLOCK, E2Y = 4 * BLOCK, E2Z = 5 * BLOCK;
+	static final int S1 = 6 * BLOCK, T1 = 7 * BLOCK, S2 = 8 * BLOCK, T2 = 9 * BLOCK;
+	static final int TX = 10 * BLOCK, TY = 11 * BLOCK, TZ = 12 * BLOCK;
+	static final int BX = 13 * BLOCK, BY = 14 * BLOCK, BZ = 15 * BLOCK;
+
+	// Segments of a block of vertices: the normal, tangent and bitangent
+	// sums at TX..BZ are made orthonormal in place.
+	static final int NX = 0, NY = BLOCK, NZ = 2 * BLOCK;
+
+	/** Floats in a block */
+	static final int BLOCK_SIZE = 16 * BLOCK;
+
+	private static final String VECTOR_KERNEL = "net.assimpj.TangentKernelVector";
+
+	private static TangentKernel sInstance;
+
+	// -------------------------------------------------------------------
+	/** Get the fastest kernel available */
+	static synchronized TangentKernel Get() {
+		if (sInstance == null) {
+			sInstance = GetVector();
+			if (sInstance == null) {
+				sInstance = new TangentKernel();
+			}
+		}
+		return sInstance;
+	}
+
+	// -------------------------------------------------------------------
+	/** Get the vectorized kernel
+	 * @return NULL if the Vector API is not available */
+	static TangentKernel GetVector() {
+		try {
+			return (TangentKernel)Class.forName(VECTOR_KERNEL).getDeclaredMethod("Create").invoke(null);
+		} catch (LinkageError err) {
+			// jdk.incubator.vector is not in the module graph
+		} catch (ReflectiveOperationException err) {
+			// assimpj-vector is not on the classpath
+		}
+		return null;
+	}
+
+	// -------------------------------------------------------------------
+	/** Name of the implementation, for logs and benchmarks */
+	String GetName() {
+		return "scalar";
+	}
+
+	// -------------------------------------------------------------------
+	/** Compute the tangent and bitangent of faces, along the U and V
+	 *  texture axes in model space. They aren't normalized. Faces whose
+	 *  texture coordinates are all on a line get an arbitrary direction.
+	 * @param pBlock Block of faces
+	 * @param pBegin First face in the block
+	 * @param pEnd Face behind the last one */
+	void FaceTangents(float[] pBlock, int pBegin, int pEnd) {
+		for (int i = pBegin; i < pEnd; ++i) {
+			float vx = pBlock[E1X + i], vy = pBlock[E1Y + i], vz = pBlock[E1Z + i];
+			float wx = pBlock[E2X + i], wy = pBlock[E2Y + i], wz = pBlock[E2Z + i];
+			float sx = pBlock[S1 + i], sy = pBlock[T1 + i];
+			float tx = pBlock[S2 + i], ty = pBlock[T2 + i];
+			float dirCorrection = (tx * sy - ty * sx) < 0.f ? -1.f : 1.f;
+
+			// when t1, t2, t3 in same position in UV space, just use default UV direction.
+			if (sx * ty == sy * tx) {
+				sx = 0.f; sy = 1.f;
+				tx = 1.f; ty = 0.f;
+			}
+			pBlock[TX + i] = (wx * sy - vx * ty) * dirCorrection;
+			pBlock[TY + i] = (wy * sy - vy * ty) * dirCorrection;
+			pBlock[TZ + i] = (wz * sy - vz * ty) * dirCorrection;
+			pBlock[BX + i] = (wx * sx - vx * tx) * dirCorrection;
+			pBlock[BY + i] = (wy * sx - vy * tx) * dirCorrection;
+			pBlock[BZ + i] = (wz * sx - vz * tx) * dirCorrection;
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Project tangents and bitangents into the plane of their vertex
+	 *  normal and normalize them. If only one of them becomes invalid
+	 *  (NaN or infinite) it is rebuilt from the normal and the other one.
+	 * @param pBlock Block of vertices
+	 * @param pBegin First vertex in the block
+	 * @param pEnd Vertex behind the last one */
+	void Orthogonalize(float[] pBlock, int pBegin, int pEnd) {
+		for (int i = pBegin; i < pEnd; ++i) {
+			float nx = pBlock[NX + i], ny = pBlock[NY + i], nz = pBlock[NZ + i];
+			float tx = pBlock[TX + i], ty = pBlock[TY + i], tz = pBlock[TZ + i];
+			float bx = pBlock[BX + i], by = pBlock[BY + i], bz = pBlock[BZ + i];
+
+			float dt = tx * nx + ty * ny + tz * nz;
+			tx = tx - nx * dt; ty = ty - ny * dt; tz = tz - nz * dt;
+			float lt = (float)Math.sqrt(tx * tx + ty * ty + tz * tz);
+			tx = tx / lt; ty = ty / lt; tz = tz / lt;
+
+			float db = bx * nx + by * ny + bz * nz;
+			bx = bx - nx * db; by = by - ny * db; bz = bz - nz * db;
+			float lb = (float)Math.sqrt(bx * bx + by * by + bz * bz);
+			bx = bx / lb; by = by / lb; bz = bz / lb;
+
+			boolean okT = Float.isFinite(tx) && Float.isFinite(ty) && Float.isFinite(tz);
+			boolean okB = Float.isFinite(bx) && Float.isFinite(by) && Float.isFinite(bz);
+			if (okB && !okT) {
+				tx = ny * bz - nz * by; ty = nz * bx - nx * bz; tz = nx * by - ny * bx;
+				lt = (float)Math.sqrt(tx * tx + ty * ty + tz * tz);
+				tx = tx / lt; ty = ty / lt; tz = tz / lt;
+			} else if (okT && !okB) {
+				bx = ty * nz - tz * ny; by = tz * nx - tx * nz; bz = tx * ny - ty * nx;
+				lb = (float)Math.sqrt(bx * bx + by * by + bz * bz);
+				bx = bx / lb; by = by / lb; bz = bz / lb;
+			}
+			pBlock[TX + i] = tx; pBlock[TY + i] = ty; pBlock[TZ + i] = tz;
+			pBlock[BX + i] = bx; pBlock[BY + i] = by; pBlock[BZ + i] = bz;
+		}
+	}
+}
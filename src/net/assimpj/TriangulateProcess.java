@@ -0,0 +1,276 @@
+package net.assimpj;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/** The TriangulateProcess splits up all faces with more than three
+ *  indices into triangles. Points and lines are kept as they are.
+ *  <br>
+ *  The output indices of a mesh are counted first and written to a single
+ *  index buffer, no per-face objects are created. Convex polygons are
+ *  fan-triangulated. For quads the fan starts at the concave corner if
+ *  there is one. Only concave polygons with more than four corners are
+ *  ear-clipped, in the plane given by their Newell normal.
+ */
+final class TriangulateProcess extends MeshProcess {
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean IsActive(int pFlags) {
+		return (pFlags & aiPostProcessSteps.aiProcess_Triangulate) != 0;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean RequireVerboseFormat() {
+		return false;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void SetupProperties(Importer pImp) {
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	MeshProcess NewInstance() {
+		return new TriangulateProcess();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void ExecuteOnMesh(aiMesh pMesh, SceneArena pArena, ProgressTracker pTracker) {
+		TriangulateMesh(pMesh, pArena, pTracker);
+	}
+
+	// -------------------------------------------------------------------
+	/** Triangulates a mesh.
+	 * @param pMesh The mesh to process
+	 * @param pArena Arena to allocate the new faces from
+	 * @param pTracker Receives the faces processed
+	 * @return true if the mesh had polygons */
+	static boolean TriangulateMesh(aiMesh pMesh, SceneArena pArena, ProgressTracker pTracker) {
+		if (!pMesh.HasFaces() || (pMesh.GetFaceOffsets() == null && pMesh.GetFaceSize() <= 3)) {
+			return false;
+		}
+		final int numFaces = pMesh.GetNumFaces();
+		final IntBuffer faces = pMesh.GetFaces();
+
+		// count the output first, so it goes to a single buffer
+		int numOutFaces = 0, numOutIndices = 0, maxSize = 0;
+		boolean onlyTriangles = true;
+		for (int i = 0; i < numFaces; ++i) {
+			int n = pMesh.GetFaceNumIndices(i);
+			if (n > 3) {
+				numOutFaces += n - 2;
+				numOutIndices += (n - 2) * 3;
+			} else {
+				++numOutFaces;
+				numOutIndices += n;
+				onlyTriangles &= n == 3;
+			}
+			maxSize = Math.max(maxSize, n);
+		}
+		if (maxSize <= 3) {
+			return false;
+		}
+
+		final IntBuffer out = pArena.AllocInts(numOutIndices);
+		final int[] offsets = onlyTriangles ? null : new int[numOutFaces + 1];
+		final Polygon polygon = new Polygon(pMesh.GetVertices(), maxSize);
+
+		int types = 0, o = 0, f = 0;
+		for (int i = 0; i < numFaces; ++i) {
+			pTracker.AddElement(i);
+			int start = pMesh.GetFaceOffset(i), n = pMesh.GetFaceNumIndices(i);
+			if (n <= 3) {
+				if (offsets != null) {
+					offsets[f] = o;
+				}
+				++f;
+				for (int k = 0; k < n; ++k) {
+					out.put(o++, faces.get(start + k));
+				}
+				types |= n == 1 ? aiMeshConst.aiPrimitiveType_POINT
+					: n == 2 ? aiMeshConst.aiPrimitiveType_LINE : aiMeshConst.aiPrimitiveType_TRIANGLE;
+				continue;
+			}
+			if (offsets != null) {
+				for (int k = 0; k < n - 2; ++k) {
+					offsets[f + k] = o + k * 3;
+				}
+			}
+			f += n - 2;
+			o = polygon.Triangulate(faces, start, n, out, o);
+			types |= aiMeshConst.aiPrimitiveType_TRIANGLE;
+		}
+
+		if (offsets != null) {
+			offsets[numOutFaces] = numOutIndices;
+			pMesh.SetFaces(out, offsets);
+		} else {
+			pMesh.SetFaces(out, numOutFaces, 3);
+		}
+		pMesh.SetPrimitiveTypes(types);
+		return true;
+	}
+
+	// -------------------------------------------------------------------
+	/** Scratch space to triangulate the polygons of a mesh, sized for its
+	 *  largest face */
+	private static final class Polygon {
+
+		private final FloatBuffer mPositions;
+
+		/** Corners projected to the plane of the polygon */
+		private final float[] mX;
+		private final float[] mY;
+
+		/** Ring of the corners left while ear clipping */
+		private final int[] mPrev;
+		private final int[] mNext;
+
+		Polygon(FloatBuffer pPositions, int pMaxSize) {
+			mPositions = pPositions;
+			mX = new float[pMaxSize];
+			mY = new float[pMaxSize];
+			mPrev = new int[pMaxSize];
+			mNext = new int[pMaxSize];
+		}
+
+		// -------------------------------------------------------------------
+		/** Triangulate a face with more than three corners
+		 * @param pFaces Indices of the mesh
+		 * @param pStart Position of the first index of the face
+		 * @param pNum Number of corners
+		 * @param pOut Receives (pNum - 2) * 3 indices
+		 * @param pOffset Position in pOut to write to
+		 * @return Position in pOut after the triangles */
+		int Triangulate(IntBuffer pFaces, int pStart, int pNum, IntBuffer pOut, int pOffset) {
+			if (mPositions == null) {
+				return Fan(pFaces, pStart, pNum, 0, pOut, pOffset);
+			}
+
+			// Newell normal, its largest axis is dropped for the projection
+			float nx = 0.f, ny = 0.f, nz = 0.f;
+			for (int k = 0, prev = pNum - 1; k < pNum; prev = k++) {
+				int a = pFaces.get(pStart + prev) * 3, b = pFaces.get(pStart + k) * 3;
+				float ax = mPositions.get(a), ay = mPositions.get(a + 1), az = mPositions.get(a + 2);
+				float bx = mPositions.get(b), by = mPositions.get(b + 1), bz = mPositions.get(b + 2);
+				nx += (ay - by) * (az + bz);
+				ny += (az - bz) * (ax + bx);
+				nz += (ax - bx) * (ay + by);
+			}
+			int u = 0, v = 1;
+			float anx = Math.abs(nx), any = Math.abs(ny), anz = Math.abs(nz);
+			if (anx >= any && anx >= anz) {
+				u = 1; v = 2;
+			} else if (any >= anz) {
+				u = 2; v = 0;
+			}
+			if (!(anx + any + anz > 0.f)) {
+				// degenerate, no plane to work in
+				return Fan(pFaces, pStart, pNum, 0, pOut, pOffset);
+			}
+			for (int k = 0; k < pNum; ++k) {
+				int p = pFaces.get(pStart + k) * 3;
+				mX[k] = mPositions.get(p + u);
+				mY[k] = mPositions.get(p + v);
+			}
+
+			// orientation of the projected polygon
+			float area = 0.f;
+			for (int k = 0, prev = pNum - 1; k < pNum; prev = k++) {
+				area += mX[prev] * mY[k] - mX[k] * mY[prev];
+			}
+			final float sign = area < 0.f ? -1.f : 1.f;
+
+			// fan from the first concave corner; fine for convex polygons
+			// and for quads, which have at most one
+			int concave = -1, numConcave = 0;
+			for (int k = 0; k < pNum; ++k) {
+				int prev = k == 0 ? pNum - 1 : k - 1, next = k == pNum - 1 ? 0 : k + 1;
+				if (Cross(prev, k, next) * sign < 0.f) {
+					if (concave < 0) {
+						concave = k;
+					}
+					++numConcave;
+				}
+			}
+			if (numConcave == 0 || (numConcave == 1 && pNum == 4)) {
+				return Fan(pFaces, pStart, pNum, Math.max(0, concave), pOut, pOffset);
+			}
+			return ClipEars(pFaces, pStart, pNum, sign, pOut, pOffset);
+		}
+
+		// -------------------------------------------------------------------
+		/** Fan-triangulate a face around a corner */
+		private static int Fan(IntBuffer pFaces, int pStart, int pNum, int pPivot, IntBuffer pOut, int pOffset) {
+			int o = pOffset, pivot = pFaces.get(pStart + pPivot);
+			for (int k = 1; k < pNum - 1; ++k) {
+				pOut.put(o++, pivot);
+				pOut.put(o++, pFaces.get(pStart + (pPivot + k) % pNum));
+				pOut.put(o++, pFaces.get(pStart + (pPivot + k + 1) % pNum));
+			}
+			return o;
+		}
+
+		// -------------------------------------------------------------------
+		/** Ear-clip a concave face. Corners are dropped from a ring, an ear
+		 *  is a convex corner whose triangle holds no other corner. If a
+		 *  self-intersecting or degenerate face has none, the current corner
+		 *  is clipped anyway so the face is still covered. */
+		private int ClipEars(IntBuffer pFaces, int pStart, int pNum, float pSign, IntBuffer pOut, int pOffset) {
+			for (int k = 0; k < pNum; ++k) {
+				mPrev[k] = k == 0 ? pNum - 1 : k - 1;
+				mNext[k] = k == pNum - 1 ? 0 : k + 1;
+			}
+			int o = pOffset, left = pNum, cur = 0, tried = 0;
+			while (left > 3) {
+				int prev = mPrev[cur], next = mNext[cur];
+				if (tried < left && !IsEar(prev, cur, next, pSign)) {
+					cur = next;
+					++tried;
+					continue;
+				}
+				pOut.put(o++, pFaces.get(pStart + prev));
+				pOut.put(o++, pFaces.get(pStart + cur));
+				pOut.put(o++, pFaces.get(pStart + next));
+				mNext[prev] = next;
+				mPrev[next] = prev;
+				--left;
+				cur = next;
+				tried = 0;
+			}
+			pOut.put(o++, pFaces.get(pStart + mPrev[cur]));
+			pOut.put(o++, pFaces.get(pStart + cur));
+			pOut.put(o++, pFaces.get(pStart + mNext[cur]));
+			return o;
+		}
+
+		// -------------------------------------------------------------------
+		private boolean IsEar(int pA, int pB, int pC, float pSign) {
+			if (!(Cross(pA, pB, pC) * pSign > 0.f)) {
+				return false;
+			}
+			for (int k = mNext[pC]; k != pA; k = mNext[k]) {
+				// corners on top of the ear's own don't block it
+				if ((mX[k] == mX[pA] && mY[k] == mY[pA]) || (mX[k] == mX[pB] && mY[k] == mY[pB])
+					|| (mX[k] == mX[pC] && mY[k] == mY[pC])) {
+					continue;
+				}
+				if (Cross(pA, pB, k) * pSign >= 0.f && Cross(pB, pC, k) * pSign >= 0.f
+					&& Cross(pC, pA, k) * pSign >= 0.f) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		// -------------------------------------------------------------------
+		/** z of (b - a) x (c - b), positive for a left turn */
+		private float Cross(int pA, int pB, int pC) {
+			return (mX[pB] - mX[pA]) * (mY[pC] - mY[pB]) - (mY[pB] - mY[pA]) * (mX[pC] - mX[pB]);
+		}
+	}
+}
@@ -1,7 +1,6 @@
 package net.assimpj;
 
-import org.lwjgl.util.Color;
-import org.lwjgl.util.vector.Vector3f;
+import java.nio.FloatBuffer;
 
 /** NOT CURRENTLY IN USE. An AnimMesh is an attachment to an #aiMesh stores per-vertex 
  *  animations for a particular frame.
@@ -15,35 +14,35 @@ import org.lwjgl.util.vector.Vector3f;
 */
 public class aiAnimMesh {
 
-	/** Replacement for aiMesh::mVertices. If this array is non-NULL, 
-	 *  it *must* contain mNumVertices entries. The corresponding
+	/** Replacement for aiMesh::mVertices. If this channel is non-NULL, 
+	 *  it *must* contain mNumVertices * 3 floats. The corresponding
 	 *  array in the host mesh must be non-NULL as well - animation
 	 *  meshes may neither add or nor remove vertex components (if
 	 *  a replacement array is NULL and the corresponding source
 	 *  array is not, the source data is taken instead)*/
-	private Vector3f[] mVertices;
+	private FloatBuffer mVertices;
 
 	/** Replacement for aiMesh::mNormals.  */
-	private Vector3f[] mNormals;
+	private FloatBuffer mNormals;
 
 	/** Replacement for aiMesh::mTangents. */
-	private Vector3f[] mTangents;
+	private FloatBuffer mTangents;
 
 	/** Replacement for aiMesh::mBitangents. */
-	private Vector3f[] mBitangents;
+	private FloatBuffer mBitangents;
 
 	/** Replacement for aiMesh::mColors */
-	private Color[] mColors; // //new Color[aiMeshConst.AI_MAX_NUMBER_OF_COLOR_SETS];
+	private FloatBuffer[] mColors;
 
 	/** Replacement for aiMesh::mTextureCoords */
-	private Vector3f[] mTextureCoords; // new Vector3f[aiMeshConst.AI_MAX_NUMBER_OF_TEXTURECOORDS];
+	private FloatBuffer[] mTextureCoords;
 
 	/** The number of vertices in the aiAnimMesh, and thus the length of all
 	 * the member arrays.
 	 *
 	 * This has always the same value as the mNumVertices property in the
 	 * corresponding aiMesh. It is duplicated here merely to make the length
-	 * of the member arrays accessible even if the aiMesh is not known, e.g.
+	 * of the member channels accessible even if the aiMesh is not known, e.g.
 	 * from language bindings.
 	 */
 	private int mNumVertices;
@@ -53,7 +52,8 @@ public class aiAnimMesh {
 		mNormals = null;
 		mTangents = null;
 		mBitangents = null;
-		// fixme consider moving this to the ctor initializer list as well
+		mColors = new FloatBuffer[aiMeshConst.AI_MAX_NUMBER_OF_COLOR_SETS];
+		mTextureCoords = new FloatBuffer[aiMeshConst.AI_MAX_NUMBER_OF_TEXTURECOORDS];
 		for(int a = 0; a < aiMeshConst.AI_MAX_NUMBER_OF_TEXTURECOORDS; a++) {
 			mTextureCoords[a] = null;
 		}
@@ -0,0 +1,9 @@
+package net.assimpj;
+
+/** An animation of the scene.
+ *
+ *  Not ported yet: none of the loaders imports animations, so
+ *  the scene never holds one.
+ */
+public class aiAnimation {
+}
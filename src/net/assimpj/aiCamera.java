@@ -0,0 +1,9 @@
+package net.assimpj;
+
+/** A camera of the scene.
+ *
+ *  Not ported yet: none of the loaders imports cameras, so
+ *  the scene never holds one.
+ */
+public class aiCamera {
+}
@@ -0,0 +1,91 @@
+package net.assimpj;
+
+/** Names of the configuration properties known to the library.
+ *
+ *  Set them through Importer.SetPropertyXXX() or ImportConfig.Builder,
+ *  loaders and post-processing steps read them in SetupProperties().
+ */
+public final class aiConfig {
+
+	private aiConfig() {
+	}
+
+	// ###########################################################################
+	// IMPORTER SETTINGS
+	// ###########################################################################
+
+	/** @brief Set whether meshes are loaded on first access.
+	 *
+	 *  Loaders which can find the meshes in a file without parsing them
+	 *  (glTF, ASCII STL) then only index the file and each mesh is read
+	 *  and post-processed the first time aiScene.GetMesh() asks for it.
+	 *  Opening a huge scene touches only the meshes actually used. Other
+	 *  loaders ignore the property. Streaming imports are never lazy.
+	 *  Property type: bool. Default value: false.
+	 */
+	public static final String AI_CONFIG_IMPORT_LAZY_MESHES = "IMPORT_LAZY_MESHES";
+
+	/** @brief Set whether lazy meshes are dropped once unreferenced.
+	 *
+	 *  Only used with #AI_CONFIG_IMPORT_LAZY_MESHES. The scene keeps weak
+	 *  references to the meshes it loaded, a mesh the application doesn't
+	 *  refer to anymore is freed by the garbage collector and loaded again
+	 *  on the next access. aiScene.EvictMesh() works either way.
+	 *  Property type: bool. Default value: false.
+	 */
+	public static final String AI_CONFIG_IMPORT_LAZY_EVICT_MESHES = "IMPORT_LAZY_EVICT_MESHES";
+
+	/** @brief Set whether the STL loader merges vertices with identical
+	 *  positions.
+	 *
+	 *  STL stores every triangle with three positions of its own. If this
+	 *  is enabled the loader welds bit-identical positions while it reads
+	 *  the file and outputs an indexed mesh without normals (the facet
+	 *  normals can't be shared). The scene is flagged as non-verbose.
+	 *  Property type: bool. Default value: false.
+	 */
+	public static final String AI_CONFIG_IMPORT_STL_WELD_VERTICES = "IMPORT_STL_WELD_VERTICES";
+
+	// ###########################################################################
+	// POST PROCESSING SETTINGS
+	// ###########################################################################
+
+	/** @brief Set the maximum angle between two face normals at a vertex
+	 *  when they are calculated in the normal generation step.
+	 *
+	 *  This applies to the aiProcess_GenSmoothNormals step. Faces meeting
+	 *  at a steeper angle are not smoothed, the edge between them stays
+	 *  sharp. The angle is in degrees, the maximum value is 175.
+	 *  Property type: float. Default value: 175 degrees (all vertex
+	 *  normals are smoothed).
+	 */
+	public static final String AI_CONFIG_PP_GSN_MAX_SMOOTHING_ANGLE = "PP_GSN_MAX_SMOOTHING_ANGLE";
+
+	/** @brief Set the maximum angle between two tangents or bitangents at
+	 *  a vertex when they are calculated in the tangent space step.
+	 *
+	 *  This applies to the aiProcess_CalcTangentSpace step. Vertices at
+	 *  the same position whose tangents meet at a steeper angle keep
+	 *  their own. The angle is in degrees, the maximum value is 175.
+	 *  Property type: float. Default value: 45 degrees.
+	 */
+	public static final String AI_CONFIG_PP_CT_MAX_SMOOTHING_ANGLE = "PP_CT_MAX_SMOOTHING_ANGLE";
+
+	/** @brief Source UV channel for tangent space computation.
+	 *
+	 *  This applies to the aiProcess_CalcTangentSpace step. The channel
+	 *  must exist, otherwise the step leaves the mesh alone.
+	 *  Property type: integer. Default value: 0.
+	 */
+	public static final String AI_CONFIG_PP_CT_TEXTURE_CHANNEL_INDEX = "PP_CT_TEXTURE_CHANNEL_INDEX";
+
+	/** @brief Set the size of the post-transform vertex cache to optimize
+	 *  the vertices for.
+	 *
+	 *  This applies to the aiProcess_ImproveCacheLocality step. The size
+	 *  is given in vertices. Most GPUs have caches of 12 to 32 entries,
+	 *  the step still helps on larger ones. The minimum value is 4.
+	 *  Property type: integer. Default value: 12.
+	 */
+	public static final String AI_CONFIG_PP_ICL_PTCACHE_SIZE = "PP_ICL_PTCACHE_SIZE";
+}
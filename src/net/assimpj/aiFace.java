@@ -1,5 +1,7 @@
 package net.assimpj;
 
+import java.nio.IntBuffer;
+
 /** A single face in a mesh, referring to multiple vertices. 
 *
 * If mNumIndices is 3, we call the face 'triangle', for mNumIndices > 3 
@@ -18,6 +20,11 @@ package net.assimpj;
 * @endcode
 * Together with the #aiProcess_Triangulate flag you can then be sure that
 * #aiFace::mNumIndices is always 3. 
+* <br>
+* The indices of all faces of a mesh are stored back to back in a single 
+* buffer owned by the #aiMesh. An aiFace is a view on that storage: use 
+* aiMesh.GetFace() to move a single instance from face to face instead 
+* of allocating one per face.
 * @note Take a look at the @link data Data Structures page @endlink for
 * more information on the layout and winding order of a face.
 */
@@ -27,17 +34,51 @@ public class aiFace {
 	//! The maximum value for this member is #AI_MAX_FACE_INDICES.
 	private int mNumIndices; 
 
-	//! Pointer to the indices array. Size of the array is given in numIndices.
-	private int[] mIndices;   
+	//! Buffer holding the indices. The face occupies mNumIndices 
+	//! entries starting at mOffset.
+	private IntBuffer mIndices;   
+
+	//! Position of the first index of this face in mIndices
+	private int mOffset;
 
 	public aiFace()	{
-		mNumIndices = 0; mIndices = null;
+		mNumIndices = 0; mIndices = null; mOffset = 0;
+	}
+
+	//! Construction from a standalone index array, which is not copied
+	public aiFace(int[] pIndices)	{
+		Set(IntBuffer.wrap(pIndices), 0, pIndices.length);
 	}
 
-	//! Copy constructor. Copy the index array
+	//! Copy constructor. The copy views the same indices
 	public aiFace(aiFace o)	{
 		this.mNumIndices = o.mNumIndices;
 		this.mIndices = o.mIndices;
+		this.mOffset = o.mOffset;
+	}
+
+	//! Point the face at a range of an index buffer
+	aiFace Set(IntBuffer pIndices, int pOffset, int pNumIndices) {
+		mIndices = pIndices;
+		mOffset = pOffset;
+		mNumIndices = pNumIndices;
+		return this;
+	}
+
+	//! Get the number of indices defining this face
+	public int GetNumIndices() {
+		return mNumIndices;
+	}
+
+	//! Get the n-th vertex index of this face
+	public int GetIndex(int n) {
+		return mIndices.get(mOffset + n);
+	}
+
+	//! Replace the n-th vertex index of this face. This writes through 
+	//! to the index buffer of the mesh.
+	public void SetIndex(int n, int pIndex) {
+		mIndices.put(mOffset + n, pIndex);
 	}
 
 	//! Comparison operator. Checks whether the index array 
@@ -47,11 +88,11 @@ public class aiFace {
 		if (!(obj instanceof aiFace))
 			return false;
 		aiFace face = (aiFace)obj;
-		if (mIndices == face.mIndices)
+		if (mIndices == face.mIndices && mOffset == face.mOffset && mNumIndices == face.mNumIndices)
 			return true;
-		else if (mIndices != null && mNumIndices == face.mNumIndices) {
+		else if (mIndices != null && face.mIndices != null && mNumIndices == face.mNumIndices) {
 			for (int i = 0;i < this.mNumIndices;++i) {
-				if (mIndices[i] != face.mIndices[i])
+				if (GetIndex(i) != face.GetIndex(i))
 					return false;
 			}
 			return true;
@@ -59,4 +100,13 @@ public class aiFace {
 		return false;
 	}
 
+	@Override
+	public int hashCode() {
+		int h = mNumIndices;
+		for (int i = 0;i < this.mNumIndices;++i) {
+			h = h * 31 + GetIndex(i);
+		}
+		return h;
+	}
+
 }
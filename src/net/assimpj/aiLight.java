@@ -0,0 +1,9 @@
+package net.assimpj;
+
+/** A light source of the scene.
+ *
+ *  Not ported yet: none of the loaders imports light sources, so
+ *  the scene never holds one.
+ */
+public class aiLight {
+}
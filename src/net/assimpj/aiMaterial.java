@@ -1,5 +1,14 @@
 package net.assimpj;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.assimpj.aiMaterialConst.aiMatkeyBase;
+import net.assimpj.aiMaterialConst.aiTextureType;
+
 /** @brief Data structure for a material
 *
 *  Material data is stored using a key-value structure. A single key-value
@@ -7,163 +16,337 @@ package net.assimpj;
 *  member functions of aiMaterial to process material properties, C users
 *  have to stick with the aiMaterialGetXXX family of unbound functions.
 *  The library defines a set of standard keys (AI_MATKEY_XXX).
+*  <br>
+*  Property payloads are stored in native byte order. Strings are stored
+*  like an aiString: a 32 bit length, the UTF-8 bytes and a terminating 0.
 */
 public class aiMaterial {
 
 
 	public aiMaterial() {
-		// TODO
+		this(null);
+	}
+
+	/** Construction for loaders. The payloads of all properties are
+	 *  allocated from the given arena, NULL to use the Java heap.
+	 *  @param pArena #SceneArena of the scene the material belongs to */
+	aiMaterial(SceneArena pArena) {
+		mArena = pArena;
+		mProperties = new ArrayList<aiMaterialProperty>();
+		mNumProperties = 0;
 	}
 
 
-	    /** @brief Retrieve an array of Type values with a specific key 
-	     *  from the material
+	    /** @brief Retrieve an array of float values with a specific key
+	     *  from the material. Integer properties are converted.
+	     *
+	     * @param pKey Key to search for. One of the AI_MATKEY_XXX constants.
+	     * @param type .. set by AI_MATKEY_XXX
+	     * @param idx .. set by AI_MATKEY_XXX
+	     * @param pOut Array to receive the result. At most pOut.length
+	     *   values are read.
+	     * @return Number of values read, -1 if the property doesn't exist
+	     *   or is a string or buffer.
+	     */
+	    public int Get(String pKey, int type, int idx, float[] pOut) {
+	    	aiMaterialProperty prop = GetProperty(pKey, type, idx);
+	    	if (prop == null) {
+	    		return -1;
+	    	}
+	    	int n = Math.min(pOut.length, prop.mDataLength / 4);
+	    	if (prop.mType == aiPropertyTypeInfo.aiPTI_Float) {
+	    		for (int i = 0; i < n; ++i) {
+	    			pOut[i] = prop.mData.getFloat(i * 4);
+	    		}
+	    	} else if (prop.mType == aiPropertyTypeInfo.aiPTI_Integer) {
+	    		for (int i = 0; i < n; ++i) {
+	    			pOut[i] = prop.mData.getInt(i * 4);
+	    		}
+	    	} else {
+	    		return -1;
+	    	}
+	    	return n;
+	    }
+
+	    /** @brief Retrieve an array of integer values with a specific key
+	     *  from the material. Float properties are converted.
 	     *
 	     * @param pKey Key to search for. One of the AI_MATKEY_XXX constants.
 	     * @param type .. set by AI_MATKEY_XXX
 	     * @param idx .. set by AI_MATKEY_XXX
-	     * @param pOut Pointer to a buffer to receive the result. 
-	     * @param pMax Specifies the size of the given buffer, in Type's.
-	     * Receives the number of values (not bytes!) read. 
-	     * NULL is a valid value for this parameter.
+	     * @param pOut Array to receive the result. At most pOut.length
+	     *   values are read.
+	     * @return Number of values read, -1 if the property doesn't exist
+	     *   or is a string or buffer.
 	     */
-	    template <typename Type>
-	    aiReturn Get(const char* pKey,unsigned int type,
-			unsigned int idx, Type* pOut, unsigned int* pMax) const;
+	    public int Get(String pKey, int type, int idx, int[] pOut) {
+	    	aiMaterialProperty prop = GetProperty(pKey, type, idx);
+	    	if (prop == null) {
+	    		return -1;
+	    	}
+	    	int n = Math.min(pOut.length, prop.mDataLength / 4);
+	    	if (prop.mType == aiPropertyTypeInfo.aiPTI_Integer) {
+	    		for (int i = 0; i < n; ++i) {
+	    			pOut[i] = prop.mData.getInt(i * 4);
+	    		}
+	    	} else if (prop.mType == aiPropertyTypeInfo.aiPTI_Float) {
+	    		for (int i = 0; i < n; ++i) {
+	    			pOut[i] = (int)prop.mData.getFloat(i * 4);
+	    		}
+	    	} else {
+	    		return -1;
+	    	}
+	    	return n;
+	    }
 
-	    /** @brief Retrieve a Type value with a specific key 
-	     *  from the material
+	    /** @brief Retrieve a string with a specific key from the material
 		 *
 		 * @param pKey Key to search for. One of the AI_MATKEY_XXX constants.
 	    * @param type Specifies the type of the texture to be retrieved (
 	    *    e.g. diffuse, specular, height map ...)
 	    * @param idx Index of the texture to be retrieved.
-		 * @param pOut Reference to receive the output value
+		 * @return The string, NULL if there is no string property with
+		 *   this key
 		 */
-		template <typename Type>
-		aiReturn Get(const char* pKey,unsigned int type,
-			unsigned int idx,Type& pOut) const;
+		public String GetString(String pKey, int type, int idx) {
+			aiMaterialProperty prop = GetProperty(pKey, type, idx);
+			if (prop == null || prop.mType != aiPropertyTypeInfo.aiPTI_String) {
+				return null;
+			}
+			byte[] utf8 = new byte[prop.mData.getInt(0)];
+			for (int i = 0; i < utf8.length; ++i) {
+				utf8[i] = prop.mData.get(4 + i);
+			}
+			return new String(utf8, StandardCharsets.UTF_8);
+		}
+
+		/** @brief Retrieve a material property with a specific key
+		 *
+		 * @param pKey Key to search for. One of the AI_MATKEY_XXX constants.
+		 * @param type .. set by AI_MATKEY_XXX
+		 * @param idx .. set by AI_MATKEY_XXX
+		 * @return The property, NULL if there is none with this key */
+		public aiMaterialProperty GetProperty(String pKey, int type, int idx) {
+			for (aiMaterialProperty prop : mProperties) {
+				if (prop.mSemantic == type && prop.mIndex == idx && prop.mKey.equals(pKey)) {
+					return prop;
+				}
+			}
+			return null;
+		}
 
 		/** Get the number of textures for a particular texture type.
 		 *  @param type Texture type to check for
 		 *  @return Number of textures for this type.
 		 *  @note A texture can be easily queried using #GetTexture() */
-		unsigned int GetTextureCount(aiTextureType type) const;
+		public int GetTextureCount(aiTextureType type) {
+			// Determine the maximum texture index of this type
+			int max = 0;
+			String key = aiMatkeyBase._AI_MATKEY_TEXTURE_BASE.getKey();
+			for (aiMaterialProperty prop : mProperties) {
+				if (prop.mSemantic == type.ordinal() && prop.mKey.equals(key)) {
+					max = Math.max(max, prop.mIndex + 1);
+				}
+			}
+			return max;
+		}
 
-		/** Helper function to get all parameters pertaining to a 
-		 *  particular texture slot from a material.
+		/** Helper function to get the path of a texture from a material.
 		*
 		*  This function is provided just for convenience, you could also
 		*  read the single material properties manually.
 		*  @param type Specifies the type of the texture to be retrieved (
 		*    e.g. diffuse, specular, height map ...)
-		*  @param index Index of the texture to be retrieved. The function fails
-		*    if there is no texture of that type with this index. 
+		*  @param index Index of the texture to be retrieved.
 		*    #GetTextureCount() can be used to determine the number of textures
 		*    per texture type.
-		*  @param path Receives the path to the texture.
-		*	 NULL is a valid value.
-	   *  @param mapping The texture mapping.
-	   *		NULL is allowed as value.
-		*  @param uvindex Receives the UV index of the texture. 
-		*    NULL is a valid value.
-		*  @param blend Receives the blend factor for the texture
-		*	 NULL is a valid value.
-		*  @param op Receives the texture operation to be performed between
-		*	 this texture and the previous texture. NULL is allowed as value.
-		*  @param mapmode Receives the mapping modes to be used for the texture.
-		*    The parameter may be NULL but if it is a valid pointer it MUST
-		*    point to an array of 3 aiTextureMapMode's (one for each
-		*    axis: UVW order (=XYZ)). 
+		*  @return The path to the texture, NULL if there is no texture of
+		*    that type with this index.
 		*/
-
-		aiReturn GetTexture(aiTextureType type,
-			unsigned int  index,
-			C_STRUCT aiString* path,
-			aiTextureMapping* mapping	= NULL,
-			unsigned int* uvindex		= NULL,
-			float* blend				   = NULL,
-			aiTextureOp* op				= NULL,
-			aiTextureMapMode* mapmode	= NULL) const; 
+		public String GetTexture(aiTextureType type, int index) {
+			return GetString(aiMatkeyBase._AI_MATKEY_TEXTURE_BASE.getKey(), type.ordinal(), index);
+		}
 
 
 		// Setters
 
 
 		/** @brief Add a property with a given key and type info to the material
-		 *  structure 
+		 *  structure
 		 *
-		 *  @param pInput Pointer to input data
-		 *  @param pSizeInBytes Size of input data
+		 *  @param pInput Input data, from its position to its limit. The
+		 *    position of pInput is not changed.
 		 *  @param pKey Key/Usage of the property (AI_MATKEY_XXX)
 		 *  @param type Set by the AI_MATKEY_XXX macro
 		 *  @param index Set by the AI_MATKEY_XXX macro
 		 *  @param pType Type information hint */
-		aiReturn AddBinaryProperty (const void* pInput,
-			unsigned int pSizeInBytes,
-			const char* pKey,
-			unsigned int type ,
-			unsigned int index ,
-			aiPropertyTypeInfo pType);
-
-		/** @brief Add a string property with a given key and type info to the 
-		 *  material structure 
+		public aiReturn AddBinaryProperty(ByteBuffer pInput,
+			String pKey,
+			int type,
+			int index,
+			aiPropertyTypeInfo pType) {
+			if (pKey == null || pInput.remaining() == 0) {
+				return aiReturn.aiReturn_FAILURE;
+			}
+
+			ByteBuffer data = Alloc(pInput.remaining());
+			data.put(pInput.duplicate());
+			data.clear();
+			return AddProperty(pKey, type, index, pType, data);
+		}
+
+		/** @brief Add a string property with a given key and type info to the
+		 *  material structure
 		 *
 		 *  @param pInput Input string
 		 *  @param pKey Key/Usage of the property (AI_MATKEY_XXX)
 		 *  @param type Set by the AI_MATKEY_XXX macro
 		 *  @param index Set by the AI_MATKEY_XXX macro */
-		aiReturn AddProperty (const aiString* pInput,
-			const char* pKey,
-			unsigned int type  = 0,
-			unsigned int index = 0);
+		public aiReturn AddProperty(String pInput,
+			String pKey,
+			int type /* = 0 */,
+			int index /* = 0 */) {
+			if (pKey == null || pInput == null) {
+				return aiReturn.aiReturn_FAILURE;
+			}
+
+			byte[] utf8 = pInput.getBytes(StandardCharsets.UTF_8);
+			ByteBuffer data = Alloc(utf8.length + 5);
+			data.putInt(utf8.length).put(utf8).put((byte)0);
+			data.clear();
+			return AddProperty(pKey, type, index, aiPropertyTypeInfo.aiPTI_String, data);
+		}
 
 		// ------------------------------------------------------------------------------
-		/** @brief Add a property with a given key to the material structure 
-		 *  @param pInput Pointer to the input data
+		/** @brief Add a float array property with a given key to the material
+		 *  structure
+		 *  @param pInput Input data
 		 *  @param pNumValues Number of values in the array
 		 *  @param pKey Key/Usage of the property (AI_MATKEY_XXX)
 		 *  @param type Set by the AI_MATKEY_XXX macro
 		 *  @param index Set by the AI_MATKEY_XXX macro  */
-		template<class TYPE>
-		aiReturn AddProperty (const TYPE* pInput,
-			unsigned int pNumValues,
-			const char* pKey,
-			unsigned int type  = 0,
-			unsigned int index = 0);
+		public aiReturn AddProperty(float[] pInput,
+			int pNumValues,
+			String pKey,
+			int type /* = 0 */,
+			int index /* = 0 */) {
+			if (pKey == null || pNumValues <= 0) {
+				return aiReturn.aiReturn_FAILURE;
+			}
+
+			ByteBuffer data = Alloc(pNumValues * 4);
+			for (int i = 0; i < pNumValues; ++i) {
+				data.putFloat(i * 4, pInput[i]);
+			}
+			return AddProperty(pKey, type, index, aiPropertyTypeInfo.aiPTI_Float, data);
+		}
+
+		// ------------------------------------------------------------------------------
+		/** @brief Add an integer array property with a given key to the material
+		 *  structure
+		 *  @param pInput Input data
+		 *  @param pNumValues Number of values in the array
+		 *  @param pKey Key/Usage of the property (AI_MATKEY_XXX)
+		 *  @param type Set by the AI_MATKEY_XXX macro
+		 *  @param index Set by the AI_MATKEY_XXX macro  */
+		public aiReturn AddProperty(int[] pInput,
+			int pNumValues,
+			String pKey,
+			int type /* = 0 */,
+			int index /* = 0 */) {
+			if (pKey == null || pNumValues <= 0) {
+				return aiReturn.aiReturn_FAILURE;
+			}
+
+			ByteBuffer data = Alloc(pNumValues * 4);
+			for (int i = 0; i < pNumValues; ++i) {
+				data.putInt(i * 4, pInput[i]);
+			}
+			return AddProperty(pKey, type, index, aiPropertyTypeInfo.aiPTI_Integer, data);
+		}
 
 		// ------------------------------------------------------------------------------
 		/** @brief Remove a given key from the list.
 		 *
 		 *  The function fails if the key isn't found
 		 *  @param pKey Key to be deleted */
-		aiReturn RemoveProperty (const char* pKey,
-			unsigned int type  = 0,
-			unsigned int index = 0);
+		public aiReturn RemoveProperty(String pKey,
+			int type /* = 0 */,
+			int index /* = 0 */) {
+			aiMaterialProperty prop = GetProperty(pKey, type, index);
+			if (prop == null) {
+				return aiReturn.aiReturn_FAILURE;
+			}
+			mProperties.remove(prop);
+			mNumProperties = mProperties.size();
+			return aiReturn.aiReturn_SUCCESS;
+		}
 
 		// ------------------------------------------------------------------------------
 		/** @brief Removes all properties from the material.
 		 *
 		 *  The data array remains allocated so adding new properties is quite fast.  */
-		void Clear();
+		public void Clear() {
+			mProperties.clear();
+			mNumProperties = 0;
+		}
 
 		// ------------------------------------------------------------------------------
 		/** Copy the property list of a material
 		 *  @param pcDest Destination material
 		 *  @param pcSrc Source material
 		 */
-		static void CopyPropertyList(aiMaterial* pcDest, 
-			const aiMaterial* pcSrc);
+		public static void CopyPropertyList(aiMaterial pcDest,
+			aiMaterial pcSrc) {
+			for (aiMaterialProperty prop : pcSrc.mProperties) {
+				pcDest.AddBinaryProperty(prop.mData, prop.mKey, prop.mSemantic, prop.mIndex, prop.mType);
+			}
+		}
+
+		/** Get the number of properties in the data base */
+		public int GetNumProperties() {
+			return mNumProperties;
+		}
+
+		/** Get a property by its position in the data base */
+		public aiMaterialProperty GetPropertyAt(int pIndex) {
+			return mProperties.get(pIndex);
+		}
+
+		private aiReturn AddProperty(String pKey, int type, int index,
+			aiPropertyTypeInfo pType, ByteBuffer pData) {
+			// first search the list whether there is already an entry with this key
+			aiMaterialProperty prop = GetProperty(pKey, type, index);
+			if (prop == null) {
+				prop = new aiMaterialProperty();
+				prop.mKey = pKey;
+				prop.mSemantic = type;
+				prop.mIndex = index;
+				mProperties.add(prop);
+				mNumProperties = mProperties.size();
+			}
+			prop.mType = pType;
+			prop.mDataLength = pData.capacity();
+			prop.mData = pData;
+			return aiReturn.aiReturn_SUCCESS;
+		}
+
+		private ByteBuffer Alloc(int pSize) {
+			if (mArena != null) {
+				return mArena.AllocBytes(pSize);
+			}
+			return ByteBuffer.allocate(pSize).order(ByteOrder.nativeOrder());
+		}
 
 
 	    /** List of all material properties loaded. */
-	    C_STRUCT aiMaterialProperty** mProperties;
+	    private List<aiMaterialProperty> mProperties;
 
 	    /** Number of properties in the data base */
 	    private int mNumProperties;
 
-		 /** Storage allocated */
-	    //int mNumAllocated;
-	
-	
+	    /** Storage of the property payloads, NULL for the Java heap */
+	    private final SceneArena mArena;
+
+
 }
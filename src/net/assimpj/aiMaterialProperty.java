@@ -1,5 +1,7 @@
 package net.assimpj;
 
+import java.nio.ByteBuffer;
+
 /** @brief Data structure for a single material property
 *
 *  As an user, you'll probably never need to deal with this data structure.
@@ -52,8 +54,15 @@ public class aiMaterialProperty {
     public aiPropertyTypeInfo mType;
 
     /**	Binary buffer to hold the property's value.
-     * The size of the buffer is always mDataLength.
+     * The size of the buffer is always mDataLength. It is allocated
+     * from the #SceneArena of the scene the material belongs to, or 
+     * from the Java heap for materials created by the user.
      */
-    char* mData;
+    ByteBuffer mData;
+
+    /** Get a read-only view of the property's value, native byte order */
+    public ByteBuffer GetData() {
+    	return mData.asReadOnlyBuffer().order(mData.order());
+    }
 
 }
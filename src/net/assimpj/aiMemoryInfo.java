@@ -0,0 +1,38 @@
+package net.assimpj;
+
+/** Stores the memory requirements for different components (e.g. meshes,
+ *  materials, animations) of an import. All sizes are in bytes.
+ *  @see Importer.GetMemoryRequirements() */
+public class aiMemoryInfo {
+
+	/** Storage allocated for texture data */
+	public long textures;
+
+	/** Storage allocated for material data */
+	public long materials;
+
+	/** Storage allocated for mesh data */
+	public long meshes;
+
+	/** Storage allocated for node data */
+	public long nodes;
+
+	/** Storage allocated for animation data */
+	public long animations;
+
+	/** Storage allocated for camera data */
+	public long cameras;
+
+	/** Storage allocated for light data */
+	public long lights;
+
+	/** Total storage allocated for the full import. */
+	public long total;
+
+	// -------------------------------------------------------------------
+	/** Set all sizes to zero */
+	public void Clear() {
+		textures = materials = meshes = nodes = 0;
+		animations = cameras = lights = total = 0;
+	}
+}
@@ -1,7 +1,10 @@
 package net.assimpj;
 
-import org.lwjgl.util.Color;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
 import org.lwjgl.util.vector.Vector3f;
+import org.lwjgl.util.vector.Vector4f;
 
 /** @brief A mesh represents a geometry or model with a single material. 
 *
@@ -10,9 +13,16 @@ import org.lwjgl.util.vector.Vector3f;
 * of them addressing a number of vertices with a certain weight. Vertex data 
 * is presented in channels with each channel containing a single per-vertex 
 * information such as a set of texture coords or a normal vector.
-* If a data pointer is non-null, the corresponding data stream is present.
-* From C++-programs you can also use the comfort functions Has*() to
-* test for the presence of various data streams.
+* If a data buffer is non-null, the corresponding data stream is present.
+* Use the comfort functions Has*() to test for the presence of various 
+* data streams.
+* <br>
+* Each channel is stored packed in a single FloatBuffer: 3 floats per 
+* vertex for positions, normals, tangents, bitangents and texture coords,
+* 4 floats (RGBA) per vertex for colors. Vertex i of a channel starts at
+* float i * components. The buffers may be heap or direct buffers, hot 
+* loops should use absolute get()/put() on them rather than the per-vertex
+* accessors, which exist for convenience.
 *
 * A Mesh uses only a single material which is referenced by a material ID.
 * @note The mPositions member is usually not optional. However, vertex positions 
@@ -37,20 +47,20 @@ public class aiMesh {
 	private int mNumVertices;
 
 	/** The number of primitives (triangles, polygons, lines) in this  mesh. 
-	* This is also the size of the mFaces array.
+	* This is also the number of faces stored in mFaces.
 	* The maximum value for this member is #AI_MAX_FACES.
 	*/
 	private int mNumFaces;
 
 	/** Vertex positions. 
-	* This array is always present in a mesh. The array is 
-	* mNumVertices in size. 
+	* This channel is always present in a mesh. It holds 
+	* mNumVertices * 3 floats. 
 	*/
-	private Vector3f[] mVertices;
+	private FloatBuffer mVertices;
 
 	/** Vertex normals. 
-	* The array contains normalized vectors, NULL if not present. 
-	* The array is mNumVertices in size. Normals are undefined for
+	* The channel contains normalized vectors, NULL if not present. 
+	* It holds mNumVertices * 3 floats. Normals are undefined for
 	* point and line primitives. A mesh consisting of points and
 	* lines only may not have normal vectors. Meshes with mixed
 	* primitive types (i.e. lines and triangles) may have normals,
@@ -68,12 +78,12 @@ public class aiMesh {
 	* However, this needn't apply for normals that have been taken
 	*   directly from the model file.
 	*/
-	private Vector3f[] mNormals;
+	private FloatBuffer mNormals;
 
 	/** Vertex tangents. 
 	* The tangent of a vertex points in the direction of the positive 
-	* X texture axis. The array contains normalized vectors, NULL if
-	* not present. The array is mNumVertices in size. A mesh consisting 
+	* X texture axis. The channel contains normalized vectors, NULL if
+	* not present. It holds mNumVertices * 3 floats. A mesh consisting 
 	* of points and lines only may not have normal vectors. Meshes with 
 	* mixed primitive types (i.e. lines and triangles) may have 
 	* normals, but the normals for vertices that are only referenced by
@@ -82,46 +92,58 @@ public class aiMesh {
 	* @note If the mesh contains tangents, it automatically also 
 	* contains bitangents.
 	*/
-	private Vector3f[] mTangents;
+	private FloatBuffer mTangents;
 
 	/** Vertex bitangents. 
 	* The bitangent of a vertex points in the direction of the positive 
-	* Y texture axis. The array contains normalized vectors, NULL if not
-	* present. The array is mNumVertices in size. 
+	* Y texture axis. The channel contains normalized vectors, NULL if not
+	* present. It holds mNumVertices * 3 floats. 
 	* @note If the mesh contains tangents, it automatically also contains
 	* bitangents.  
 	*/
-	private Vector3f[] mBitangents;
+	private FloatBuffer mBitangents;
 
 	/** Vertex color sets. 
 	* A mesh may contain 0 to #AI_MAX_NUMBER_OF_COLOR_SETS vertex 
-	* colors per vertex. NULL if not present. Each array is
-	* mNumVertices in size if present.
+	* colors per vertex. NULL if not present. Each channel holds
+	* mNumVertices * 4 floats (RGBA) if present.
 	*/
-	private Color[] mColors; //new Color[aiMeshConst.AI_MAX_NUMBER_OF_COLOR_SETS];
+	private FloatBuffer[] mColors;
 
 	/** Vertex texture coords, also known as UV channels.
 	* A mesh may contain 0 to AI_MAX_NUMBER_OF_TEXTURECOORDS per
-	* vertex. NULL if not present. The array is mNumVertices in size. 
+	* vertex. NULL if not present. Each channel holds mNumVertices * 3
+	* floats (UVW) if present. 
 	*/
-	private Vector3f[] mTextureCoords; // new Vector3f[aiMeshConst.AI_MAX_NUMBER_OF_TEXTURECOORDS];
+	private FloatBuffer[] mTextureCoords;
 
 	/** Specifies the number of components for a given UV channel.
 	* Up to three channels are supported (UVW, for accessing volume
 	* or cube maps). If the value is 2 for a given channel n, the
-	* component p.z of mTextureCoords[n][p] is set to 0.0f.
-	* If the value is 1 for a given channel, p.y is set to 0.0f, too.
+	* component w of vertex p in channel n is set to 0.0f.
+	* If the value is 1 for a given channel, v is set to 0.0f, too.
 	* @note 4D coords are not supported 
 	*/
-	private int[] mNumUVComponents; // new int[aiMeshConst.AI_MAX_NUMBER_OF_TEXTURECOORDS];
+	private int[] mNumUVComponents;
 
 	/** The faces the mesh is constructed from. 
 	* Each face refers to a number of vertices by their indices. 
-	* This array is always present in a mesh, its size is given 
-	* in mNumFaces. If the #AI_SCENE_FLAGS_NON_VERBOSE_FORMAT
-	* is NOT set each face references an unique set of vertices.
+	* The indices of all faces are stored back to back in this buffer,
+	* which is always present in a mesh. Point, line and triangle meshes 
+	* can be handed to the GPU as they are. If the 
+	* #AI_SCENE_FLAGS_NON_VERBOSE_FORMAT is NOT set each face references
+	* an unique set of vertices.
+	*/
+	private IntBuffer mFaces;
+
+	/** Start of each face in mFaces, mNumFaces + 1 entries. The last 
+	* entry is the total number of indices. NULL if all faces have
+	* mFaceSize indices, so only polygon meshes pay for it.
 	*/
-	private aiFace[] mFaces;
+	private int[] mFaceOffsets;
+
+	/** Number of indices of every face if mFaceOffsets is NULL. */
+	private int mFaceSize;
 
 	/** The number of bones this mesh contains. 
 	* Can be 0, in which case the mBones array is NULL. 
@@ -169,8 +191,13 @@ public class aiMesh {
 
 		mNumAnimMeshes = 0;
 
+		mColors = new FloatBuffer[aiMeshConst.AI_MAX_NUMBER_OF_COLOR_SETS];
+		mTextureCoords = new FloatBuffer[aiMeshConst.AI_MAX_NUMBER_OF_TEXTURECOORDS];
+		mNumUVComponents = new int[aiMeshConst.AI_MAX_NUMBER_OF_TEXTURECOORDS];
+
 		mPrimitiveTypes = 0;
 		mVertices = null; mFaces    = null;
+		mFaceOffsets = null; mFaceSize = 0;
 		mNormals  = null; mTangents = null;
 		mBitangents = null;
 		mAnimMeshes = null;
@@ -254,4 +281,217 @@ public class aiMesh {
 	public boolean HasBones()
 		{ return mBones != null && mNumBones > 0; }
 
+	//! Get the bitwise combination of #aiPrimitiveType flags present in the mesh
+	public int GetPrimitiveTypes() 
+		{ return mPrimitiveTypes; }
+
+	public void SetPrimitiveTypes(int pTypes) 
+		{ mPrimitiveTypes = pTypes; }
+
+	//! Get the number of vertices, this is the size of all vertex channels
+	public int GetNumVertices() 
+		{ return mNumVertices; }
+
+	//! Set the number of vertices. The channels are not touched, assign 
+	//! buffers of matching size afterwards.
+	public void SetNumVertices(int pNumVertices) 
+		{ mNumVertices = pNumVertices; }
+
+	//! Get the index of the material used by this mesh
+	public int GetMaterialIndex() 
+		{ return mMaterialIndex; }
+
+	public void SetMaterialIndex(int pIndex) 
+		{ mMaterialIndex = pIndex; }
+
+	//! Get the name of the mesh, may be null
+	public String GetName() 
+		{ return mName; }
+
+	public void SetName(String pName) 
+		{ mName = pName; }
+
+	// -------------------------------------------------------------------
+	/** Allocate a packed vertex channel.
+	 *  @param pNumVertices Number of vertices
+	 *  @param pNumComponents Floats per vertex, #AI_VECTOR_COMPONENTS or
+	 *    #AI_COLOR_COMPONENTS
+	 *  @return Zero-initialized heap buffer */
+	public static FloatBuffer CreateChannel(int pNumVertices, int pNumComponents) {
+		return FloatBuffer.allocate(pNumVertices * pNumComponents);
+	}
+
+	//! Get the number of faces
+	public int GetNumFaces() 
+		{ return mNumFaces; }
+
+	//! Get the buffer holding the indices of all faces, back to back
+	public IntBuffer GetFaces() 
+		{ return mFaces; }
+
+	//! Get the start of each face in the index buffer, mNumFaces + 1 
+	//! entries. NULL if all faces have the same number of indices.
+	public int[] GetFaceOffsets() 
+		{ return mFaceOffsets; }
+
+	//! Get the number of indices of every face, 0 if the faces differ
+	//! in size and GetFaceOffsets() must be used.
+	public int GetFaceSize() 
+		{ return mFaceOffsets == null ? mFaceSize : 0; }
+
+	//! Get the total number of indices of all faces
+	public int GetNumIndices() 
+		{ return mFaceOffsets == null ? mNumFaces * mFaceSize : mFaceOffsets[mNumFaces]; }
+
+	//! Get the position of the first index of a face in the index buffer
+	public int GetFaceOffset(int pIndex) 
+		{ return mFaceOffsets == null ? pIndex * mFaceSize : mFaceOffsets[pIndex]; }
+
+	//! Get the number of indices of a face
+	public int GetFaceNumIndices(int pIndex) 
+		{ return mFaceOffsets == null ? mFaceSize : mFaceOffsets[pIndex + 1] - mFaceOffsets[pIndex]; }
+
+	//! Point a face view at the n-th face of the mesh.
+	//! \param pIndex Index of the face
+	//! \param pOut Face to be reused, returned for convenience
+	public aiFace GetFace(int pIndex, aiFace pOut) 
+		{ return pOut.Set(mFaces, GetFaceOffset(pIndex), GetFaceNumIndices(pIndex)); }
+
+	// -------------------------------------------------------------------
+	/** Assign faces which all have the same number of indices.
+	 *  @param pIndices pNumFaces * pFaceSize indices
+	 *  @param pNumFaces Number of faces
+	 *  @param pFaceSize Indices per face (1 for points, 2 for lines,
+	 *    3 for triangles ...) */
+	public void SetFaces(IntBuffer pIndices, int pNumFaces, int pFaceSize) {
+		mFaces = pIndices;
+		mNumFaces = pNumFaces;
+		mFaceSize = pFaceSize;
+		mFaceOffsets = null;
+	}
+
+	// -------------------------------------------------------------------
+	/** Assign faces of different sizes.
+	 *  @param pIndices Indices of all faces, back to back
+	 *  @param pOffsets Start of each face in pIndices, followed by the
+	 *    total number of indices. The number of faces is 
+	 *    pOffsets.length - 1. */
+	public void SetFaces(IntBuffer pIndices, int[] pOffsets) {
+		mFaces = pIndices;
+		mNumFaces = pOffsets.length - 1;
+		mFaceSize = 0;
+		mFaceOffsets = pOffsets;
+	}
+
+	//! Get the position channel, 3 floats per vertex
+	public FloatBuffer GetVertices() 
+		{ return mVertices; }
+
+	public void SetVertices(FloatBuffer pVertices) 
+		{ mVertices = pVertices; }
+
+	//! Get the normal channel, 3 floats per vertex, NULL if not present
+	public FloatBuffer GetNormals() 
+		{ return mNormals; }
+
+	public void SetNormals(FloatBuffer pNormals) 
+		{ mNormals = pNormals; }
+
+	//! Get the tangent channel, 3 floats per vertex, NULL if not present
+	public FloatBuffer GetTangents() 
+		{ return mTangents; }
+
+	public void SetTangents(FloatBuffer pTangents) 
+		{ mTangents = pTangents; }
+
+	//! Get the bitangent channel, 3 floats per vertex, NULL if not present
+	public FloatBuffer GetBitangents() 
+		{ return mBitangents; }
+
+	public void SetBitangents(FloatBuffer pBitangents) 
+		{ mBitangents = pBitangents; }
+
+	//! Get a vertex color channel, 4 floats per vertex, NULL if not present
+	//! \param pIndex Index of the vertex color set
+	public FloatBuffer GetColors(int pIndex) 
+		{ return mColors[pIndex]; }
+
+	public void SetColors(int pIndex, FloatBuffer pColors) 
+		{ mColors[pIndex] = pColors; }
+
+	//! Get a texture coordinate channel, 3 floats per vertex, NULL if not present
+	//! \param pIndex Index of the texture coordinates set
+	public FloatBuffer GetTextureCoords(int pIndex) 
+		{ return mTextureCoords[pIndex]; }
+
+	//! Assign a texture coordinate channel
+	//! \param pIndex Index of the texture coordinates set
+	//! \param pCoords 3 floats per vertex
+	//! \param pNumComponents Number of meaningful components, 1 to 3
+	public void SetTextureCoords(int pIndex, FloatBuffer pCoords, int pNumComponents) {
+		mTextureCoords[pIndex] = pCoords;
+		mNumUVComponents[pIndex] = pCoords != null ? pNumComponents : 0; 
+	}
+
+	//! Get the number of meaningful components of a texture coordinate set
+	public int GetNumUVComponents(int pIndex) 
+		{ return mNumUVComponents[pIndex]; }
+
+	// -------------------------------------------------------------------
+	// Per-vertex views on the packed channels. 
+
+	public Vector3f GetVertex(int pIndex, Vector3f pOut) 
+		{ return Get3(mVertices, pIndex, pOut); }
+
+	public void SetVertex(int pIndex, float x, float y, float z) 
+		{ Put3(mVertices, pIndex, x, y, z); }
+
+	public Vector3f GetNormal(int pIndex, Vector3f pOut) 
+		{ return Get3(mNormals, pIndex, pOut); }
+
+	public void SetNormal(int pIndex, float x, float y, float z) 
+		{ Put3(mNormals, pIndex, x, y, z); }
+
+	public Vector3f GetTangent(int pIndex, Vector3f pOut) 
+		{ return Get3(mTangents, pIndex, pOut); }
+
+	public void SetTangent(int pIndex, float x, float y, float z) 
+		{ Put3(mTangents, pIndex, x, y, z); }
+
+	public Vector3f GetBitangent(int pIndex, Vector3f pOut) 
+		{ return Get3(mBitangents, pIndex, pOut); }
+
+	public void SetBitangent(int pIndex, float x, float y, float z) 
+		{ Put3(mBitangents, pIndex, x, y, z); }
+
+	public Vector3f GetTextureCoord(int pChannel, int pIndex, Vector3f pOut) 
+		{ return Get3(mTextureCoords[pChannel], pIndex, pOut); }
+
+	public void SetTextureCoord(int pChannel, int pIndex, float u, float v, float w) 
+		{ Put3(mTextureCoords[pChannel], pIndex, u, v, w); }
+
+	public Vector4f GetColor(int pChannel, int pIndex, Vector4f pOut) {
+		FloatBuffer c = mColors[pChannel];
+		int base = pIndex * aiMeshConst.AI_COLOR_COMPONENTS;
+		pOut.set(c.get(base), c.get(base + 1), c.get(base + 2), c.get(base + 3));
+		return pOut;
+	}
+
+	public void SetColor(int pChannel, int pIndex, float r, float g, float b, float a) {
+		FloatBuffer c = mColors[pChannel];
+		int base = pIndex * aiMeshConst.AI_COLOR_COMPONENTS;
+		c.put(base, r).put(base + 1, g).put(base + 2, b).put(base + 3, a);
+	}
+
+	private static Vector3f Get3(FloatBuffer pChannel, int pIndex, Vector3f pOut) {
+		int base = pIndex * aiMeshConst.AI_VECTOR_COMPONENTS;
+		pOut.set(pChannel.get(base), pChannel.get(base + 1), pChannel.get(base + 2));
+		return pOut;
+	}
+
+	private static void Put3(FloatBuffer pChannel, int pIndex, float x, float y, float z) {
+		int base = pIndex * aiMeshConst.AI_VECTOR_COMPONENTS;
+		pChannel.put(base, x).put(base + 1, y).put(base + 2, z);
+	}
+
 }
@@ -25,5 +25,29 @@ public class aiMeshConst {
 	/** @def AI_MAX_NUMBER_OF_TEXTURECOORDS
 	 *  Supported number of texture coord sets (UV(W) channels) per mesh */
 	public static int AI_MAX_NUMBER_OF_TEXTURECOORDS = 0x8;
+	
+	/** @def AI_VECTOR_COMPONENTS
+	 *  Floats per vertex in the position, normal, tangent, bitangent
+	 *  and texture coordinate channels of a mesh. */
+	public static final int AI_VECTOR_COMPONENTS = 3;
+	
+	/** @def AI_COLOR_COMPONENTS
+	 *  Floats per vertex in the color channels of a mesh (RGBA). */
+	public static final int AI_COLOR_COMPONENTS = 4;
+	
+	//! Enumerates the types of geometric primitives supported by Assimp.
+	//! The values are bit flags, see aiMesh.GetPrimitiveTypes().
+	
+	//! A point primitive, a face with a single index
+	public static final int aiPrimitiveType_POINT = 0x1;
+	
+	//! A line primitive, a face with two indices
+	public static final int aiPrimitiveType_LINE = 0x2;
+	
+	//! A triangular primitive, a face with three indices
+	public static final int aiPrimitiveType_TRIANGLE = 0x4;
+	
+	//! A higher-order polygon with more than 3 edges
+	public static final int aiPrimitiveType_POLYGON = 0x8;
 
 }
@@ -1,5 +1,6 @@
 package net.assimpj;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.lwjgl.util.vector.Matrix4f;
@@ -88,4 +89,66 @@ public class aiNode {
 		return null;
 	}
 
+	//! Get the name of the node
+	public String GetName() {
+		return mName;
+	}
+
+	public void SetName(String pName) {
+		mName = pName;
+	}
+
+	//! Get the transformation relative to the parent node
+	public Matrix4f GetTransformation() {
+		return mTransformation;
+	}
+
+	public void SetTransformation(Matrix4f pTransformation) {
+		mTransformation = pTransformation;
+	}
+
+	//! Get the parent node, NULL for the root node
+	public aiNode GetParent() {
+		return mParent;
+	}
+
+	//! Get the number of child nodes
+	public int GetNumChildren() {
+		return mNumChildren;
+	}
+
+	//! Get a child node by index
+	public aiNode GetChild(int pIndex) {
+		return mChildren.get(pIndex);
+	}
+
+	//! Append a child node and make this node its parent
+	public void AddChild(aiNode pChild) {
+		if (mChildren == null) {
+			mChildren = new ArrayList<aiNode>();
+		}
+		mChildren.add(pChild);
+		mNumChildren = mChildren.size();
+		pChild.mParent = this;
+	}
+
+	//! Get the number of meshes referenced by this node
+	public int GetNumMeshes() {
+		return mNumMeshes;
+	}
+
+	//! Get the n-th mesh of this node, an index into aiScene.GetMesh()
+	public int GetMeshIndex(int pIndex) {
+		return mMeshes.get(pIndex);
+	}
+
+	//! Append a mesh index to this node
+	public void AddMesh(int pMeshIndex) {
+		if (mMeshes == null) {
+			mMeshes = new ArrayList<Integer>();
+		}
+		mMeshes.add(pMeshIndex);
+		mNumMeshes = mMeshes.size();
+	}
+
 }
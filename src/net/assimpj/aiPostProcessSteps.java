@@ -0,0 +1,96 @@
+package net.assimpj;
+
+/** Defines the flags for all possible post processing steps.
+ *
+ *  Pass a bitwise combination of them to Importer.ReadFile() or
+ *  Importer.ApplyPostProcessing(). The values match the aiPostProcessSteps
+ *  enum of the C++ library, flags of steps not ported yet are ignored.
+ */
+public final class aiPostProcessSteps {
+
+	private aiPostProcessSteps() {
+	}
+
+	/** Calculates the tangents and bitangents for the imported meshes. */
+	public static final int aiProcess_CalcTangentSpace = 0x1;
+
+	/** Identifies and joins identical vertex data sets within all
+	 *  imported meshes. The output meshes are indexed, the scene gets
+	 *  the #AI_SCENE_FLAGS_NON_VERBOSE_FORMAT flag. */
+	public static final int aiProcess_JoinIdenticalVertices = 0x2;
+
+	/** Converts all the imported data to a left-handed coordinate space. */
+	public static final int aiProcess_MakeLeftHanded = 0x4;
+
+	/** Triangulates all faces of all meshes. */
+	public static final int aiProcess_Triangulate = 0x8;
+
+	/** Removes some parts of the data structure (animations, materials,
+	 *  light sources, cameras, textures, vertex components). */
+	public static final int aiProcess_RemoveComponent = 0x10;
+
+	/** Generates normals for all faces of all meshes. */
+	public static final int aiProcess_GenNormals = 0x20;
+
+	/** Generates smooth normals for all vertices in the mesh. */
+	public static final int aiProcess_GenSmoothNormals = 0x40;
+
+	/** Splits large meshes into smaller sub-meshes. */
+	public static final int aiProcess_SplitLargeMeshes = 0x80;
+
+	/** Removes the node graph and pre-transforms all vertices. */
+	public static final int aiProcess_PreTransformVertices = 0x100;
+
+	/** Limits the number of bones simultaneously affecting a vertex. */
+	public static final int aiProcess_LimitBoneWeights = 0x200;
+
+	/** Validates the imported scene data structure. */
+	public static final int aiProcess_ValidateDataStructure = 0x400;
+
+	/** Reorders triangles for better vertex cache locality. */
+	public static final int aiProcess_ImproveCacheLocality = 0x800;
+
+	/** Searches for redundant/unreferenced materials and removes them. */
+	public static final int aiProcess_RemoveRedundantMaterials = 0x1000;
+
+	/** Tries to determine which meshes have normal vectors that are
+	 *  facing inwards and inverts them. */
+	public static final int aiProcess_FixInfacingNormals = 0x2000;
+
+	/** Splits meshes with more than one primitive type in homogeneous
+	 *  sub-meshes. */
+	public static final int aiProcess_SortByPType = 0x8000;
+
+	/** Searches all meshes for degenerate primitives and converts them
+	 *  to proper lines or points. */
+	public static final int aiProcess_FindDegenerates = 0x10000;
+
+	/** Searches all meshes for invalid data, such as zeroed normal
+	 *  vectors or invalid UV coords and removes/fixes them. */
+	public static final int aiProcess_FindInvalidData = 0x20000;
+
+	/** Converts non-UV mappings (such as spherical or cylindrical
+	 *  mapping) to proper texture coordinate channels. */
+	public static final int aiProcess_GenUVCoords = 0x40000;
+
+	/** Applies per-texture UV transformations and bakes them into
+	 *  stand-alone texture coordinate channels. */
+	public static final int aiProcess_TransformUVCoords = 0x80000;
+
+	/** Searches for duplicate meshes and replaces them with references
+	 *  to the first mesh. */
+	public static final int aiProcess_FindInstances = 0x100000;
+
+	/** Reduces the number of meshes. */
+	public static final int aiProcess_OptimizeMeshes = 0x200000;
+
+	/** Optimizes the scene hierarchy. */
+	public static final int aiProcess_OptimizeGraph = 0x400000;
+
+	/** Flips all UV coordinates along the y-axis and adjusts material
+	 *  settings and bitangents accordingly. */
+	public static final int aiProcess_FlipUVs = 0x800000;
+
+	/** Adjusts the output face winding order to be CW. */
+	public static final int aiProcess_FlipWindingOrder = 0x1000000;
+}
@@ -1,5 +1,33 @@
 package net.assimpj;
 
+/** @brief A very primitive RTTI system for the contents of material 
+ *  properties.
+ */
 public enum aiPropertyTypeInfo {
+	/** Array of single-precision (32 Bit) floats
+	 *
+	 *  It is possible to use aiGetMaterialInteger[Array]() (or the C++-API 
+	 *  aiMaterial::Get()) to query properties stored in floating-point format. 
+	 *  The material system performs the type conversion automatically.
+	 */
+	aiPTI_Float,
 
+	/** The material property is an aiString.
+	 *
+	 *  Arrays of strings aren't possible, aiGetMaterialString() (or the 
+	 *  C++-API aiMaterial::Get()) *must* be used to query a string property.
+	 */
+	aiPTI_String,
+
+	/** Array of (32 Bit) integers
+	 *
+	 *  It is possible to use aiGetMaterialFloat[Array]() (or the C++-API 
+	 *  aiMaterial::Get()) to query properties stored in integer format. 
+	 *  The material system performs the type conversion automatically.
+	 */
+	aiPTI_Integer,
+
+	/** Simple binary buffer, content undefined. Not convertible to anything.
+	 */
+	aiPTI_Buffer
 }
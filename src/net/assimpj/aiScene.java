@@ -1,7 +1,5 @@
 package net.assimpj;
 
-import java.nio.Buffer;
-
 /** The root structure of the imported data. 
  * 
  *  Everything that was imported from the given file can be accessed from here.
@@ -86,6 +84,9 @@ public class aiScene {
 	*/
 	private aiMesh[] mMeshes;
 
+	/** Loads the meshes on first access, NULL if mMeshes holds them */
+	LazyMeshes mLazy;
+
 	/** The number of materials in the scene. */
 	private int mNumMaterials;
 
@@ -153,13 +154,118 @@ public class aiScene {
 
 
 	public aiScene() {
-		
+		mPrivate = new SceneArena();
 	}
 
 	//! Check whether the scene contains meshes
 	//! Unless no special scene flags are set this will always be true.
 	public boolean HasMeshes() { 
-		return mMeshes != null && mNumMeshes > 0; 
+		return (mMeshes != null || mLazy != null) && mNumMeshes > 0; 
+	}
+
+	//! Get the number of meshes in the scene
+	public int GetNumMeshes() {
+		return mNumMeshes;
+	}
+
+	//! Get a mesh by index. Use the indices given in the aiNode 
+	//! structure to access the meshes.
+	public aiMesh GetMesh(int pIndex) {
+		if (mLazy != null) {
+			return mLazy.Get(this, pIndex);
+		}
+		return mMeshes[pIndex];
+	}
+
+	//! Get the array of meshes, NULL if the scene has none
+	//! Lazy meshes are all loaded and returned in a new array.
+	public aiMesh[] GetMeshes() {
+		if (mLazy != null) {
+			// a snapshot, the scene doesn't keep a plain array
+			aiMesh[] meshes = new aiMesh[mNumMeshes];
+			for (int i = 0; i < mNumMeshes; ++i) {
+				meshes[i] = mLazy.Get(this, i);
+			}
+			return meshes;
+		}
+		return mMeshes;
+	}
+
+	//! Assign the meshes of the scene
+	public void SetMeshes(aiMesh[] pMeshes) {
+		mMeshes = pMeshes;
+		mNumMeshes = pMeshes != null ? pMeshes.length : 0;
+		mLazy = null;
+	}
+
+	// -------------------------------------------------------------------
+	/** Check whether the meshes are loaded on first access, see
+	 *  aiConfig.AI_CONFIG_IMPORT_LAZY_MESHES */
+	public boolean HasLazyMeshes() {
+		return mLazy != null;
+	}
+
+	// -------------------------------------------------------------------
+	/** Check whether a mesh is in memory. Always true unless the meshes
+	 *  are loaded on first access. */
+	public boolean IsMeshLoaded(int pIndex) {
+		if (mLazy != null) {
+			return mLazy.IsLoaded(pIndex);
+		}
+		return mMeshes[pIndex] != null;
+	}
+
+	// -------------------------------------------------------------------
+	/** Frees a mesh which is loaded on first access, the next GetMesh()
+	 *  loads it again. Buffers of the evicted mesh become invalid and 
+	 *  must not be touched. Does nothing unless the meshes are lazy. */
+	public void EvictMesh(int pIndex) {
+		if (mLazy != null) {
+			mLazy.Evict(pIndex);
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Let the meshes be loaded on first access
+	 *  @param pMeshes Handles found by the index pass of the loader */
+	void SetLazyMeshes(LazyMeshes pMeshes) {
+		mMeshes = null;
+		mNumMeshes = pMeshes.GetNumMeshes();
+		mLazy = pMeshes;
+	}
+
+	//! Get the root node of the hierarchy
+	public aiNode GetRootNode() {
+		return mRootNode;
+	}
+
+	public void SetRootNode(aiNode pNode) {
+		mRootNode = pNode;
+	}
+
+	//! Get the number of materials in the scene
+	public int GetNumMaterials() {
+		return mNumMaterials;
+	}
+
+	//! Get a material by index, see aiMesh.GetMaterialIndex()
+	public aiMaterial GetMaterial(int pIndex) {
+		return mMaterials[pIndex];
+	}
+
+	//! Assign the materials of the scene
+	public void SetMaterials(aiMaterial[] pMaterials) {
+		mMaterials = pMaterials;
+		mNumMaterials = pMaterials != null ? pMaterials.length : 0;
+	}
+
+	//! Get the AI_SCENE_FLAGS_XXX flags of the scene
+	public int GetFlags() {
+		return mFlags;
+	}
+
+	public void SetFlags(int pFlags) {
+		mFlags = pFlags;
 	}
 
 	//! Check whether the scene contains materials
@@ -188,7 +294,23 @@ public class aiScene {
 		return mAnimations != null && mNumAnimations > 0; 
 	}
 
-	/**  Internal data, do not touch */
-	Buffer mPrivate;
+	// -------------------------------------------------------------------
+	/** Frees the off-heap data of the scene.
+	 *
+	 *  Importer.FreeScene() does this for the scene it owns. Call it 
+	 *  yourself for a scene obtained via Importer.GetOrphanedScene().
+	 *  The meshes are detached from the scene. Buffers of meshes you 
+	 *  still hold a reference to become invalid and must not be touched.
+	 */
+	public void Release() {
+		mMeshes = null;
+		mNumMeshes = 0;
+		mLazy = null;
+		mPrivate.Release();
+	}
+
+	/**  Internal data, do not touch. Off-heap storage of all vertex,
+	 *   index, weight and property payloads of the scene. */
+	SceneArena mPrivate;
 
 }
@@ -0,0 +1,9 @@
+package net.assimpj;
+
+/** An embedded texture of the scene.
+ *
+ *  Not ported yet: none of the loaders imports embedded textures, so
+ *  the scene never holds one.
+ */
+public class aiTexture {
+}
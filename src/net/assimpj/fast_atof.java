@@ -0,0 +1,354 @@
+package net.assimpj;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/** Number parsing for the text loaders, the counterpart of assimp's
+ *  fast_atof.h.
+ *
+ *  The functions work on a range of a byte buffer with absolute gets and
+ *  create no objects. Each one starts at the given position, which must
+ *  be the first character of the number, stores the value in an output
+ *  array and returns the position behind the number. Callers keep the
+ *  output arrays across calls.
+ *
+ *  Floats are correctly rounded (round to nearest, ties to even), like
+ *  Float.parseFloat(). Numbers with up to 7 significant digits and small
+ *  exponents are converted exactly in float arithmetic, all other numbers
+ *  with the Eisel-Lemire algorithm on the first 19 significant digits.
+ *  Only if more digits are given and they straddle a rounding boundary
+ *  the text is handed to the JDK.
+ */
+final class fast_atof {
+
+	/** Exact powers of ten in float, for the fast path */
+	private static final float[] FLOAT_POW10 = {
+		1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+	};
+
+	/** Bits of the explicit mantissa of a float */
+	private static final int MANTISSA_BITS = 23;
+
+	/** Decimal exponents below which any 19 digit mantissa rounds to
+	 *  zero, above which it overflows */
+	private static final int SMALLEST_POWER_OF_TEN = -64, LARGEST_POWER_OF_TEN = 38;
+
+	/** 128 bit approximations of 5^q, normalized so that the highest
+	 *  bit is set, for q in SMALLEST_POWER_OF_TEN..LARGEST_POWER_OF_TEN.
+	 *  Two longs per power, the high word first. */
+	private static final long[] POW5_128 = new long[(LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1) * 2];
+
+	static {
+		final BigInteger five = BigInteger.valueOf(5), mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+		for (int q = SMALLEST_POWER_OF_TEN; q <= LARGEST_POWER_OF_TEN; ++q) {
+			BigInteger c;
+			if (q >= 0) {
+				// truncated
+				c = five.pow(q);
+				int bits = c.bitLength();
+				c = bits > 128 ? c.shiftRight(bits - 128) : c.shiftLeft(128 - bits);
+			} else {
+				// reciprocal, rounded up
+				BigInteger power5 = five.pow(-q);
+				int z = power5.bitLength();
+				int b = q >= -27 ? z + 127 : 2 * z + 128;
+				c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+				int bits = c.bitLength();
+				if (bits > 128) {
+					c = c.shiftRight(bits - 128);
+				}
+			}
+			int i = (q - SMALLEST_POWER_OF_TEN) * 2;
+			POW5_128[i] = c.shiftRight(64).longValue();
+			POW5_128[i + 1] = c.and(mask).longValue();
+		}
+	}
+
+	private fast_atof() {
+	}
+
+	// -------------------------------------------------------------------
+	/** Parse a floating-point number: optional sign, digits with an
+	 *  optional fraction and exponent, or nan, inf and infinity as
+	 *  written by some exporters.
+	 *  @param pBuffer Data
+	 *  @param pPos Absolute position of the first character
+	 *  @param pEnd End of the data, exclusive
+	 *  @param pOut Receives the value
+	 *  @param pIndex Index in pOut
+	 *  @return Position behind the number */
+	static int ParseFloat(ByteBuffer pBuffer, int pPos, int pEnd, float[] pOut, int pIndex) {
+		final int start = pPos;
+		int p = pPos;
+		boolean neg = false;
+		if (p < pEnd) {
+			byte c = pBuffer.get(p);
+			if (c == '-') {
+				neg = true;
+				++p;
+			} else if (c == '+') {
+				++p;
+			}
+		}
+
+		// the first 19 significant digits, unsigned
+		long mantissa = 0;
+		int digits = 0, exp = 0;
+		boolean any = false, truncated = false;
+		for (; p < pEnd; ++p) {
+			int d = pBuffer.get(p) - '0';
+			if (d < 0 || d > 9) {
+				break;
+			}
+			any = true;
+			if (digits < 19) {
+				mantissa = mantissa * 10 + d;
+				if (mantissa != 0) {
+					++digits;
+				}
+			} else {
+				truncated |= d != 0;
+				++exp;
+			}
+		}
+		if (p < pEnd && pBuffer.get(p) == '.') {
+			for (++p; p < pEnd; ++p) {
+				int d = pBuffer.get(p) - '0';
+				if (d < 0 || d > 9) {
+					break;
+				}
+				any = true;
+				if (digits < 19) {
+					mantissa = mantissa * 10 + d;
+					if (mantissa != 0) {
+						++digits;
+					}
+					--exp;
+				} else {
+					truncated |= d != 0;
+				}
+			}
+		}
+		if (!any) {
+			return ParseSpecial(pBuffer, p, pEnd, neg, pOut, pIndex);
+		}
+		if (p < pEnd && (pBuffer.get(p) | 0x20) == 'e') {
+			int q = p + 1;
+			boolean eneg = false;
+			if (q < pEnd && (pBuffer.get(q) == '-' || pBuffer.get(q) == '+')) {
+				eneg = pBuffer.get(q) == '-';
+				++q;
+			}
+			int e = 0, qstart = q;
+			for (; q < pEnd; ++q) {
+				int d = pBuffer.get(q) - '0';
+				if (d < 0 || d > 9) {
+					break;
+				}
+				if (e < 100000) {
+					e = e * 10 + d;
+				}
+			}
+			// a dangling 'e' is not part of the number
+			if (q > qstart) {
+				exp += eneg ? -e : e;
+				p = q;
+			}
+		}
+
+		float value;
+		if (mantissa == 0) {
+			value = 0.f;
+		} else if (!truncated && mantissa >= 0 && mantissa <= 1 << 24 && exp >= -10 && exp <= 10) {
+			// both operands are exact, so the result is correctly rounded
+			value = exp < 0 ? mantissa / FLOAT_POW10[-exp] : mantissa * FLOAT_POW10[exp];
+		} else {
+			value = ComputeFloat(mantissa, exp);
+			if (truncated && value != ComputeFloat(mantissa + 1, exp)) {
+				// the dropped digits decide the rounding
+				value = Math.abs(Float.parseFloat(Decode(pBuffer, start, p)));
+			}
+		}
+		pOut[pIndex] = neg ? -value : value;
+		return p;
+	}
+
+	// -------------------------------------------------------------------
+	/** Parse a decimal integer with optional sign
+	 *  @param pBuffer Data
+	 *  @param pPos Absolute position of the first character
+	 *  @param pEnd End of the data, exclusive
+	 *  @param pOut Receives the value
+	 *  @param pIndex Index in pOut
+	 *  @return Position behind the number */
+	static int ParseInt(ByteBuffer pBuffer, int pPos, int pEnd, int[] pOut, int pIndex) {
+		int p = pPos;
+		boolean neg = false;
+		if (p < pEnd) {
+			byte c = pBuffer.get(p);
+			if (c == '-') {
+				neg = true;
+				++p;
+			} else if (c == '+') {
+				++p;
+			}
+		}
+		final int start = p;
+		long value = 0;
+		for (; p < pEnd; ++p) {
+			int d = pBuffer.get(p) - '0';
+			if (d < 0 || d > 9) {
+				break;
+			}
+			value = value * 10 + d;
+			if (value > Integer.MAX_VALUE + (neg ? 1L : 0L)) {
+				throw new DeadlyImportError("Integer out of range");
+			}
+		}
+		if (p == start) {
+			throw new DeadlyImportError("Expected a number");
+		}
+		pOut[pIndex] = (int)(neg ? -value : value);
+		return p;
+	}
+
+	// -------------------------------------------------------------------
+	/** Parse an index triplet as used by OBJ faces: v, v/t, v//n or
+	 *  v/t/n. Missing indices are stored as 0.
+	 *  @param pBuffer Data
+	 *  @param pPos Absolute position of the first character
+	 *  @param pEnd End of the data, exclusive
+	 *  @param pOut Receives the three indices
+	 *  @param pIndex Index of the first one in pOut
+	 *  @return Position behind the triplet */
+	static int ParseIndexTriplet(ByteBuffer pBuffer, int pPos, int pEnd, int[] pOut, int pIndex) {
+		int p = ParseInt(pBuffer, pPos, pEnd, pOut, pIndex);
+		pOut[pIndex + 1] = 0;
+		pOut[pIndex + 2] = 0;
+		if (p < pEnd && pBuffer.get(p) == '/') {
+			++p;
+			if (p < pEnd && pBuffer.get(p) != '/') {
+				p = ParseInt(pBuffer, p, pEnd, pOut, pIndex + 1);
+			}
+			if (p < pEnd && pBuffer.get(p) == '/') {
+				p = ParseInt(pBuffer, p + 1, pEnd, pOut, pIndex + 2);
+			}
+		}
+		return p;
+	}
+
+	// -------------------------------------------------------------------
+	/** Eisel-Lemire: the float nearest to pMantissa * 10^pExp, with the
+	 *  rules of fast_float for single precision.
+	 *  @param pMantissa Nonzero decimal mantissa, unsigned
+	 *  @param pExp Decimal exponent */
+	private static float ComputeFloat(long pMantissa, int pExp) {
+		if (pExp < SMALLEST_POWER_OF_TEN) {
+			return 0.f;
+		}
+		if (pExp > LARGEST_POWER_OF_TEN) {
+			return Float.POSITIVE_INFINITY;
+		}
+		final int lz = Long.numberOfLeadingZeros(pMantissa);
+		final long w = pMantissa << lz;
+
+		// w times 5^q, enough bits of it to round to 24 bits
+		final int index = (pExp - SMALLEST_POWER_OF_TEN) * 2;
+		long high = MultiplyHighUnsigned(w, POW5_128[index]), low = w * POW5_128[index];
+		final long precisionMask = 0xFFFFFFFFFFFFFFFFL >>> (MANTISSA_BITS + 3);
+		if ((high & precisionMask) == precisionMask) {
+			long secondHigh = MultiplyHighUnsigned(w, POW5_128[index + 1]);
+			low += secondHigh;
+			if (Long.compareUnsigned(secondHigh, low) > 0) {
+				++high;
+			}
+		}
+
+		final int upperBit = (int)(high >>> 63);
+		final int shift = upperBit + 64 - MANTISSA_BITS - 3;
+		long mantissa = high >>> shift;
+		// floor(log2(10^q)) + 63, plus the float bias
+		int power2 = (((152170 + 65536) * pExp) >> 16) + 63 + upperBit - lz + 127;
+		if (power2 <= 0) {
+			// subnormal
+			if (-power2 + 1 >= 64) {
+				return 0.f;
+			}
+			mantissa >>>= -power2 + 1;
+			mantissa += mantissa & 1;
+			mantissa >>>= 1;
+			power2 = mantissa < 1L << MANTISSA_BITS ? 0 : 1;
+			return Float.intBitsToFloat((int)mantissa | power2 << MANTISSA_BITS);
+		}
+		// exactly halfway, round to even
+		if (Long.compareUnsigned(low, 1) <= 0 && pExp >= -17 && pExp <= 10
+			&& (mantissa & 3) == 1 && mantissa << shift == high) {
+			mantissa &= ~1L;
+		}
+		mantissa += mantissa & 1;
+		mantissa >>>= 1;
+		if (mantissa >= 2L << MANTISSA_BITS) {
+			mantissa = 1L << MANTISSA_BITS;
+			++power2;
+		}
+		mantissa &= ~(1L << MANTISSA_BITS);
+		if (power2 >= 0xff) {
+			return Float.POSITIVE_INFINITY;
+		}
+		return Float.intBitsToFloat((int)mantissa | power2 << MANTISSA_BITS);
+	}
+
+	/** High 64 bits of the unsigned 128 bit product */
+	private static long MultiplyHighUnsigned(long a, long b) {
+		final long aLo = a & 0xFFFFFFFFL, aHi = a >>> 32;
+		final long bLo = b & 0xFFFFFFFFL, bHi = b >>> 32;
+		final long loLo = aLo * bLo, hiLo = aHi * bLo, loHi = aLo * bHi;
+		final long cross = (loLo >>> 32) + (hiLo & 0xFFFFFFFFL) + loHi;
+		return aHi * bHi + (hiLo >>> 32) + (cross >>> 32);
+	}
+
+	// -------------------------------------------------------------------
+	/** nan, inf and infinity, in any case. Other words are not numbers,
+	 *  even if they start like one. */
+	private static int ParseSpecial(ByteBuffer pBuffer, int pPos, int pEnd, boolean pNeg, float[] pOut, int pIndex) {
+		int p = pPos;
+		while (p < pEnd) {
+			int c = pBuffer.get(p) | 0x20;
+			if (c < 'a' || c > 'z') {
+				break;
+			}
+			++p;
+		}
+		if (IsWord(pBuffer, pPos, p, "nan")) {
+			pOut[pIndex] = Float.NaN;
+			return p;
+		}
+		if (IsWord(pBuffer, pPos, p, "inf") || IsWord(pBuffer, pPos, p, "infinity")) {
+			pOut[pIndex] = pNeg ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+			return p;
+		}
+		throw new DeadlyImportError("Expected a number");
+	}
+
+	/** Compare a range of letters to a lower-case word, ignoring case */
+	private static boolean IsWord(ByteBuffer pBuffer, int pStart, int pEnd, String pWord) {
+		if (pEnd - pStart != pWord.length()) {
+			return false;
+		}
+		for (int i = 0; i < pWord.length(); ++i) {
+			if ((pBuffer.get(pStart + i) | 0x20) != pWord.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String Decode(ByteBuffer pBuffer, int pStart, int pEnd) {
+		byte[] bytes = new byte[pEnd - pStart];
+		for (int i = 0; i < bytes.length; ++i) {
+			bytes[i] = pBuffer.get(pStart + i);
+		}
+		return new String(bytes, StandardCharsets.US_ASCII);
+	}
+}
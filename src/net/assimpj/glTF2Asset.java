@@ -0,0 +1,595 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/** The JSON document and the binary buffers of a glTF 2.0 asset, either
+ *  a .gltf file with external or embedded buffers or a binary .glb file.
+ *
+ *  Buffers are not copied: the BIN chunk of a GLB file and external .bin
+ *  files are views on the data of their stream, which is kept open as
+ *  long as the scene lives (SceneArena.Retain()). #Accessor hands out
+ *  views on these buffers wherever the layout of the accessor matches
+ *  the layout of the mesh channel.
+ */
+final class glTF2Asset {
+
+	/** "glTF", the magic of a GLB file */
+	static final int GLB_MAGIC = 0x46546C67;
+
+	/** Chunk types of a GLB file */
+	private static final int CHUNK_JSON = 0x4E4F534A, CHUNK_BIN = 0x004E4942;
+
+	/** Values of accessor.componentType */
+	static final int ComponentType_BYTE = 5120;
+	static final int ComponentType_UNSIGNED_BYTE = 5121;
+	static final int ComponentType_SHORT = 5122;
+	static final int ComponentType_UNSIGNED_SHORT = 5123;
+	static final int ComponentType_UNSIGNED_INT = 5125;
+	static final int ComponentType_FLOAT = 5126;
+
+	/** Number of elements de-interleaved per bulk copy */
+	private static final int DEINTERLEAVE_BLOCK = 4096;
+
+	/** The JSON document */
+	final Map<String, Object> mRoot;
+
+	/** Content of each buffer, little endian */
+	final ByteBuffer[] mBuffers;
+
+	/** Accessors, created on first use */
+	private final Accessor[] mAccessors;
+
+	/** Number of accessors read as views rather than copies, for
+	 *  diagnostics */
+	int mNumAliased;
+
+	// -------------------------------------------------------------------
+	/** Load the document and all buffers
+	 *  @param pFile Path of the .gltf or .glb file
+	 *  @param pIOHandler IO system to open the file and its buffers with
+	 *  @param pArena Arena of the scene, which keeps the streams open */
+	glTF2Asset(String pFile, IOSystem pIOHandler, SceneArena pArena) {
+		ByteBuffer data = Open(pFile, pIOHandler, pArena);
+
+		ByteBuffer bin = null;
+		final int start = data.position();
+		if (data.remaining() >= 12 && data.order(ByteOrder.LITTLE_ENDIAN).getInt(start) == GLB_MAGIC) {
+			// binary glTF: header, JSON chunk and an optional BIN chunk
+			if (data.getInt(start + 4) != 2) {
+				throw new DeadlyImportError("GLTF: Unsupported binary glTF version " + data.getInt(start + 4));
+			}
+			int length = Math.min(data.getInt(start + 8), data.remaining());
+			int pos = start + 12, jsonStart = -1, jsonEnd = -1;
+			while (pos + 8 <= start + length) {
+				int chunkLength = data.getInt(pos), chunkType = data.getInt(pos + 4);
+				int chunkStart = pos + 8;
+				if (chunkLength < 0 || chunkStart + chunkLength > start + length) {
+					throw new DeadlyImportError("GLTF: Invalid chunk length in binary glTF");
+				}
+				if (chunkType == CHUNK_JSON && jsonStart < 0) {
+					jsonStart = chunkStart;
+					jsonEnd = chunkStart + chunkLength;
+				} else if (chunkType == CHUNK_BIN && bin == null) {
+					bin = Slice(data, chunkStart, chunkLength);
+				}
+				pos = chunkStart + ((chunkLength + 3) & ~3);
+			}
+			if (jsonStart < 0) {
+				throw new DeadlyImportError("GLTF: Binary glTF without JSON chunk");
+			}
+			mRoot = AsObject(JsonParser.Parse(data, jsonStart, jsonEnd), "document");
+		} else {
+			mRoot = AsObject(JsonParser.Parse(data, start, data.limit()), "document");
+		}
+
+		Map<String, Object> asset = GetObject(mRoot, "asset");
+		String version = asset != null ? GetString(asset, "version", "") : "";
+		if (!version.startsWith("2")) {
+			throw new DeadlyImportError("GLTF: Unsupported glTF version '" + version + "', only 2.x is supported");
+		}
+
+		// load the buffers
+		List<Object> buffers = GetArray(mRoot, "buffers");
+		mBuffers = new ByteBuffer[buffers.size()];
+		for (int i = 0; i < mBuffers.length; ++i) {
+			Map<String, Object> desc = AsObject(buffers.get(i), "buffer");
+			int byteLength = GetInt(desc, "byteLength", -1);
+			String uri = GetString(desc, "uri", null);
+			ByteBuffer buffer;
+			if (uri == null) {
+				if (i != 0 || bin == null) {
+					throw new DeadlyImportError("GLTF: Buffer " + i + " has no data");
+				}
+				buffer = bin;
+			} else if (uri.startsWith("data:")) {
+				buffer = DecodeDataUri(uri, pArena);
+			} else {
+				buffer = Open(ResolvePath(pFile, DecodeUri(uri)), pIOHandler, pArena);
+			}
+			if (byteLength < 0 || buffer.remaining() < byteLength) {
+				throw new DeadlyImportError("GLTF: Buffer " + i + " is shorter than its byteLength");
+			}
+			mBuffers[i] = Slice(buffer, buffer.position(), byteLength);
+		}
+		mAccessors = new Accessor[GetArray(mRoot, "accessors").size()];
+	}
+
+	// -------------------------------------------------------------------
+	/** Read a whole file. A stream with memory addressable data is kept
+	 *  open until the scene is released, so no copy is needed. */
+	private static ByteBuffer Open(String pFile, IOSystem pIOHandler, SceneArena pArena) {
+		IOStream stream = pIOHandler.Open(pFile, "rb");
+		if (stream == null) {
+			throw new DeadlyImportError("GLTF: Could not open file " + pFile);
+		}
+		if (stream instanceof DirectIOStream) {
+			pArena.Retain(stream, pIOHandler);
+			return BaseImporter.ReadFully(stream);
+		}
+		try {
+			return BaseImporter.ReadFully(stream);
+		} finally {
+			pIOHandler.Close(stream);
+		}
+	}
+
+	/** Get a little endian view of a range of a buffer */
+	private static ByteBuffer Slice(ByteBuffer pBuffer, int pStart, int pLength) {
+		ByteBuffer view = pBuffer.duplicate();
+		view.limit(pStart + pLength).position(pStart);
+		return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static ByteBuffer DecodeDataUri(String pUri, SceneArena pArena) {
+		int comma = pUri.indexOf(',');
+		if (comma < 0 || !pUri.substring(0, comma).endsWith(";base64")) {
+			throw new DeadlyImportError("GLTF: Only base64 encoded data URIs are supported");
+		}
+		byte[] bytes = Base64.getDecoder().decode(pUri.substring(comma + 1));
+		ByteBuffer out = pArena.AllocBytes(bytes.length);
+		out.put(bytes).flip();
+		return out;
+	}
+
+	/** Undo the percent-encoding of a relative URI */
+	static String DecodeUri(String pUri) {
+		if (pUri.indexOf('%') < 0) {
+			return pUri;
+		}
+		byte[] bytes = new byte[pUri.length()];
+		int n = 0;
+		for (int i = 0; i < pUri.length(); ++i) {
+			char c = pUri.charAt(i);
+			if (c == '%' && i + 2 < pUri.length()) {
+				bytes[n++] = (byte)Integer.parseInt(pUri.substring(i + 1, i + 3), 16);
+				i += 2;
+			} else {
+				bytes[n++] = (byte)c;
+			}
+		}
+		return new String(bytes, 0, n, StandardCharsets.UTF_8);
+	}
+
+	/** Make a path relative to the directory of a file */
+	static String ResolvePath(String pFile, String pRelative) {
+		int sep = Math.max(pFile.lastIndexOf('/'), pFile.lastIndexOf('\\'));
+		return pFile.substring(0, sep + 1) + pRelative;
+	}
+
+	// -------------------------------------------------------------------
+	/** @return The accessor with the given index */
+	Accessor GetAccessor(int pIndex) {
+		if (pIndex < 0 || pIndex >= mAccessors.length) {
+			throw new DeadlyImportError("GLTF: Accessor index " + pIndex + " out of range");
+		}
+		if (mAccessors[pIndex] == null) {
+			mAccessors[pIndex] = new Accessor(AsObject(GetArray(mRoot, "accessors").get(pIndex), "accessor"));
+		}
+		return mAccessors[pIndex];
+	}
+
+	// -------------------------------------------------------------------
+	/** A typed view on a bufferView, i.e. the positions of a primitive */
+	final class Accessor {
+		/** Number of elements */
+		final int mCount;
+
+		/** Components per element, 1 for SCALAR up to 16 for MAT4 */
+		final int mNumComponents;
+
+		/** One of the ComponentType_XXX values */
+		final int mComponentType;
+
+		/** Integer components map to 0..1 or -1..1 */
+		final boolean mNormalized;
+
+		/** Data of the first element, NULL if the accessor has no
+		 *  bufferView and is all zeros */
+		private final ByteBuffer mData;
+
+		/** Distance of two elements in mData, in bytes */
+		private final int mStride;
+
+		/** The 'sparse' object, NULL if there is none */
+		private final Map<String, Object> mSparse;
+
+		Accessor(Map<String, Object> pDesc) {
+			mCount = GetInt(pDesc, "count", 0);
+			mComponentType = GetInt(pDesc, "componentType", ComponentType_FLOAT);
+			mNumComponents = GetNumComponents(GetString(pDesc, "type", "SCALAR"));
+			mNormalized = GetBool(pDesc, "normalized", false);
+			mSparse = GetObject(pDesc, "sparse");
+
+			final int elementSize = GetComponentSize(mComponentType) * mNumComponents;
+			int view = GetInt(pDesc, "bufferView", -1);
+			if (view < 0) {
+				mData = null;
+				mStride = elementSize;
+				return;
+			}
+			List<Object> views = GetArray(mRoot, "bufferViews");
+			if (view >= views.size()) {
+				throw new DeadlyImportError("GLTF: BufferView index " + view + " out of range");
+			}
+			Map<String, Object> viewDesc = AsObject(views.get(view), "bufferView");
+			int buffer = GetInt(viewDesc, "buffer", -1);
+			if (buffer < 0 || buffer >= mBuffers.length) {
+				throw new DeadlyImportError("GLTF: Buffer index " + buffer + " out of range");
+			}
+			int stride = GetInt(viewDesc, "byteStride", 0);
+			mStride = stride > 0 ? stride : elementSize;
+
+			int viewOffset = GetInt(viewDesc, "byteOffset", 0), viewLength = GetInt(viewDesc, "byteLength", 0);
+			int offset = GetInt(pDesc, "byteOffset", 0);
+			long needed = mCount == 0 ? 0 : (long)(mCount - 1) * mStride + elementSize;
+			if (viewOffset < 0 || (long)viewOffset + viewLength > mBuffers[buffer].limit()
+				|| offset < 0 || offset + needed > viewLength) {
+				throw new DeadlyImportError("GLTF: Accessor exceeds its bufferView");
+			}
+			mData = Slice(mBuffers[buffer], viewOffset + offset, (int)Math.min(viewLength - offset, needed));
+		}
+
+		// -------------------------------------------------------------------
+		/** Check whether the data can be handed out as is: tightly packed
+		 *  4 byte values of the given type, without sparse substitution. */
+		private boolean IsAliasable(int pComponentType, int pNumComponents) {
+			return mData != null && mSparse == null && !mNormalized
+				&& mComponentType == pComponentType && mNumComponents == pNumComponents
+				&& mStride == 4 * pNumComponents;
+		}
+
+		// -------------------------------------------------------------------
+		/** Get the elements as a mesh channel. If the accessor holds
+		 *  packed floats with as many components as the channel, the
+		 *  result is a view on the buffer, otherwise the data is converted
+		 *  into a new channel.
+		 *  @param pArena Arena to allocate a converted channel from
+		 *  @param pNumComponents Components per vertex of the channel
+		 *  @param pFill Value of the components the accessor doesn't have,
+		 *    i.e. 1 for the alpha of RGB colors
+		 *  @return The channel */
+		FloatBuffer ReadChannel(SceneArena pArena, int pNumComponents, float pFill) {
+			return ReadChannel(pArena, pNumComponents, pFill, false);
+		}
+
+		// -------------------------------------------------------------------
+		/** Get the elements as a texture coordinate channel of 3 
+		 *  components. V is flipped on the way (v = 1 - v): glTF puts the 
+		 *  origin of the texture at its upper left corner, assimp at the 
+		 *  lower left one.
+		 *  @param pArena Arena to allocate the channel from
+		 *  @return The channel */
+		FloatBuffer ReadTexCoords(SceneArena pArena) {
+			return ReadChannel(pArena, aiMeshConst.AI_VECTOR_COMPONENTS, 0.f, true);
+		}
+
+		private FloatBuffer ReadChannel(SceneArena pArena, int pNumComponents, float pFill, boolean pFlipV) {
+			if (!pFlipV && IsAliasable(ComponentType_FLOAT, pNumComponents)) {
+				++mNumAliased;
+				return mData.asFloatBuffer();
+			}
+			final FloatBuffer out = pArena.AllocChannel(mCount, pNumComponents);
+			final int comps = Math.min(mNumComponents, pNumComponents);
+			if (mData != null) {
+				if (mComponentType == ComponentType_FLOAT && (mStride & 3) == 0) {
+					Deinterleave(out, pNumComponents, comps, pFill, pFlipV);
+				} else {
+					Convert(out, pNumComponents, comps, pFill, pFlipV);
+				}
+			} else if (pFill != 0.f || pFlipV) {
+				for (int i = 0; i < mCount; ++i) {
+					for (int c = comps; c < pNumComponents; ++c) {
+						out.put(i * pNumComponents + c, pFill);
+					}
+					if (pFlipV) {
+						out.put(i * pNumComponents + 1, 1.f);
+					}
+				}
+			}
+			if (mSparse != null) {
+				ApplySparse(out, pNumComponents, comps, pFlipV);
+			}
+			return out;
+		}
+
+		/** Copy float elements of any stride into the channel. Blocks of
+		 *  elements are copied into an array in bulk, packed there and
+		 *  copied to the channel in bulk. */
+		private void Deinterleave(FloatBuffer pOut, int pOutComponents, int pComponents, float pFill, boolean pFlipV) {
+			final FloatBuffer src = mData.asFloatBuffer();
+			final int fstride = mStride >> 2;
+			final int block = Math.min(mCount, DEINTERLEAVE_BLOCK);
+			final float[] in = new float[block * fstride];
+			final float[] packed = new float[block * pOutComponents];
+			if (pFill != 0.f) {
+				for (int i = 0; i < block; ++i) {
+					for (int c = pComponents; c < pOutComponents; ++c) {
+						packed[i * pOutComponents + c] = pFill;
+					}
+				}
+			}
+			final FloatBuffer dst = pOut.duplicate();
+			for (int first = 0; first < mCount; first += block) {
+				final int n = Math.min(block, mCount - first);
+				// the last element may be shorter than the stride
+				final int length = Math.min((n - 1) * fstride + mNumComponents, src.limit() - first * fstride);
+				src.position(first * fstride);
+				src.get(in, 0, length);
+				for (int i = 0, s = 0, d = 0; i < n; ++i, s += fstride, d += pOutComponents) {
+					for (int c = 0; c < pComponents; ++c) {
+						packed[d + c] = in[s + c];
+					}
+					if (pFlipV) {
+						packed[d + 1] = 1.f - packed[d + 1];
+					}
+				}
+				dst.put(packed, 0, n * pOutComponents);
+			}
+		}
+
+		/** Convert elements of any component type into the channel */
+		private void Convert(FloatBuffer pOut, int pOutComponents, int pComponents, float pFill, boolean pFlipV) {
+			final int size = GetComponentSize(mComponentType);
+			for (int i = 0; i < mCount; ++i) {
+				final int base = i * mStride;
+				for (int c = 0; c < pComponents; ++c) {
+					pOut.put(i * pOutComponents + c, ReadComponent(mData, base + c * size));
+				}
+				for (int c = pComponents; c < pOutComponents; ++c) {
+					pOut.put(i * pOutComponents + c, pFill);
+				}
+				if (pFlipV) {
+					pOut.put(i * pOutComponents + 1, 1.f - pOut.get(i * pOutComponents + 1));
+				}
+			}
+		}
+
+		/** Read a single component as float */
+		private float ReadComponent(ByteBuffer pData, int pPos) {
+			switch (mComponentType) {
+			case ComponentType_BYTE:
+				return mNormalized ? Math.max(pData.get(pPos) / 127.f, -1.f) : pData.get(pPos);
+			case ComponentType_UNSIGNED_BYTE:
+				return mNormalized ? (pData.get(pPos) & 0xff) / 255.f : pData.get(pPos) & 0xff;
+			case ComponentType_SHORT:
+				return mNormalized ? Math.max(pData.getShort(pPos) / 32767.f, -1.f) : pData.getShort(pPos);
+			case ComponentType_UNSIGNED_SHORT:
+				return mNormalized ? (pData.getShort(pPos) & 0xffff) / 65535.f : pData.getShort(pPos) & 0xffff;
+			case ComponentType_UNSIGNED_INT:
+				return pData.getInt(pPos) & 0xffffffffL;
+			default:
+				return pData.getFloat(pPos);
+			}
+		}
+
+		/** Replace the elements listed in the sparse object */
+		private void ApplySparse(FloatBuffer pOut, int pOutComponents, int pComponents, boolean pFlipV) {
+			final int count = GetInt(mSparse, "count", 0);
+			final int[] indices = ReadSparseIndices(GetObject(mSparse, "indices"), count);
+			Map<String, Object> valuesDesc = GetObject(mSparse, "values");
+			ByteBuffer values = GetSparseData(valuesDesc, count * mNumComponents * GetComponentSize(mComponentType));
+			final int size = GetComponentSize(mComponentType);
+			for (int k = 0; k < count; ++k) {
+				for (int c = 0; c < pComponents; ++c) {
+					pOut.put(indices[k] * pOutComponents + c, ReadComponent(values, (k * mNumComponents + c) * size));
+				}
+				if (pFlipV) {
+					pOut.put(indices[k] * pOutComponents + 1, 1.f - pOut.get(indices[k] * pOutComponents + 1));
+				}
+			}
+		}
+
+		/** Read the indices of the sparse elements, all checked to be 
+		 *  within the accessor */
+		private int[] ReadSparseIndices(Map<String, Object> pDesc, int pCount) {
+			if (pCount < 0 || pCount > mCount) {
+				throw new DeadlyImportError("GLTF: Sparse accessor count out of range");
+			}
+			int type = GetInt(pDesc, "componentType", ComponentType_UNSIGNED_INT);
+			int size = GetComponentSize(type);
+			ByteBuffer data = GetSparseData(pDesc, pCount * size);
+			int[] out = new int[pCount];
+			for (int k = 0; k < pCount; ++k) {
+				out[k] = ReadIndex(data, k * size, type);
+				if (out[k] < 0 || out[k] >= mCount) {
+					throw new DeadlyImportError("GLTF: Sparse accessor index out of range");
+				}
+			}
+			return out;
+		}
+
+		private ByteBuffer GetSparseData(Map<String, Object> pDesc, int pLength) {
+			if (pDesc == null) {
+				throw new DeadlyImportError("GLTF: Incomplete sparse accessor");
+			}
+			List<Object> views = GetArray(mRoot, "bufferViews");
+			int viewIndex = GetInt(pDesc, "bufferView", -1);
+			if (viewIndex < 0 || viewIndex >= views.size()) {
+				throw new DeadlyImportError("GLTF: Sparse accessor bufferView index " + viewIndex + " out of range");
+			}
+			Map<String, Object> view = AsObject(views.get(viewIndex), "bufferView");
+			int buffer = GetInt(view, "buffer", -1);
+			if (buffer < 0 || buffer >= mBuffers.length) {
+				throw new DeadlyImportError("GLTF: Buffer index " + buffer + " out of range");
+			}
+			long offset = (long)GetInt(view, "byteOffset", 0) + GetInt(pDesc, "byteOffset", 0);
+			if (offset < 0 || offset + pLength > mBuffers[buffer].limit()) {
+				throw new DeadlyImportError("GLTF: Sparse accessor exceeds its buffer");
+			}
+			return Slice(mBuffers[buffer], (int)offset, pLength);
+		}
+
+		// -------------------------------------------------------------------
+		/** Get the elements as vertex indices. Packed unsigned ints are
+		 *  returned as a view on the buffer, smaller types are widened.
+		 *  @param pArena Arena to allocate widened indices from
+		 *  @return The indices */
+		IntBuffer ReadIndices(SceneArena pArena) {
+			if (mNumComponents != 1) {
+				throw new DeadlyImportError("GLTF: Indices must be scalars");
+			}
+			if (IsAliasable(ComponentType_UNSIGNED_INT, 1)) {
+				++mNumAliased;
+				return mData.asIntBuffer();
+			}
+			final IntBuffer out = pArena.AllocInts(mCount);
+			if (mData != null) {
+				for (int i = 0; i < mCount; ++i) {
+					out.put(i, ReadIndex(mData, i * mStride, mComponentType));
+				}
+			}
+			if (mSparse != null) {
+				final int count = GetInt(mSparse, "count", 0);
+				final int[] indices = ReadSparseIndices(GetObject(mSparse, "indices"), count);
+				final int size = GetComponentSize(mComponentType);
+				ByteBuffer values = GetSparseData(GetObject(mSparse, "values"), count * size);
+				for (int k = 0; k < count; ++k) {
+					out.put(indices[k], ReadIndex(values, k * size, mComponentType));
+				}
+			}
+			return out;
+		}
+	}
+
+	/** Read an unsigned integer of the given component type */
+	private static int ReadIndex(ByteBuffer pData, int pPos, int pType) {
+		switch (pType) {
+		case ComponentType_UNSIGNED_BYTE:
+			return pData.get(pPos) & 0xff;
+		case ComponentType_UNSIGNED_SHORT:
+			return pData.getShort(pPos) & 0xffff;
+		case ComponentType_UNSIGNED_INT:
+			return pData.getInt(pPos);
+		default:
+			throw new DeadlyImportError("GLTF: Invalid component type " + pType + " for indices");
+		}
+	}
+
+	static int GetComponentSize(int pType) {
+		switch (pType) {
+		case ComponentType_BYTE:
+		case ComponentType_UNSIGNED_BYTE:
+			return 1;
+		case ComponentType_SHORT:
+		case ComponentType_UNSIGNED_SHORT:
+			return 2;
+		case ComponentType_UNSIGNED_INT:
+		case ComponentType_FLOAT:
+			return 4;
+		default:
+			throw new DeadlyImportError("GLTF: Invalid component type " + pType);
+		}
+	}
+
+	static int GetNumComponents(String pType) {
+		if (pType.equals("SCALAR")) {
+			return 1;
+		} else if (pType.equals("VEC2")) {
+			return 2;
+		} else if (pType.equals("VEC3")) {
+			return 3;
+		} else if (pType.equals("VEC4") || pType.equals("MAT2")) {
+			return 4;
+		} else if (pType.equals("MAT3")) {
+			return 9;
+		} else if (pType.equals("MAT4")) {
+			return 16;
+		}
+		throw new DeadlyImportError("GLTF: Invalid accessor type " + pType);
+	}
+
+	// -------------------------------------------------------------------
+	// Typed access to the JSON document
+	// -------------------------------------------------------------------
+
+	@SuppressWarnings("unchecked")
+	static Map<String, Object> AsObject(Object pValue, String pWhat) {
+		if (!(pValue instanceof Map)) {
+			throw new DeadlyImportError("GLTF: Expected an object for " + pWhat);
+		}
+		return (Map<String, Object>)pValue;
+	}
+
+	/** @return The member object, NULL if there is none */
+	static Map<String, Object> GetObject(Map<String, Object> pObject, String pKey) {
+		Object value = pObject.get(pKey);
+		return value != null ? AsObject(value, pKey) : null;
+	}
+
+	/** @return The member array, an empty list if there is none */
+	@SuppressWarnings("unchecked")
+	static List<Object> GetArray(Map<String, Object> pObject, String pKey) {
+		Object value = pObject.get(pKey);
+		if (value == null) {
+			return Collections.emptyList();
+		}
+		if (!(value instanceof List)) {
+			throw new DeadlyImportError("GLTF: Expected an array for " + pKey);
+		}
+		return (List<Object>)value;
+	}
+
+	static int GetInt(Map<String, Object> pObject, String pKey, int pDefault) {
+		Object value = pObject.get(pKey);
+		return value instanceof Double ? ((Double)value).intValue() : pDefault;
+	}
+
+	static float GetFloat(Map<String, Object> pObject, String pKey, float pDefault) {
+		Object value = pObject.get(pKey);
+		return value instanceof Double ? ((Double)value).floatValue() : pDefault;
+	}
+
+	static boolean GetBool(Map<String, Object> pObject, String pKey, boolean pDefault) {
+		Object value = pObject.get(pKey);
+		return value instanceof Boolean ? (Boolean)value : pDefault;
+	}
+
+	static String GetString(Map<String, Object> pObject, String pKey, String pDefault) {
+		Object value = pObject.get(pKey);
+		return value instanceof String ? (String)value : pDefault;
+	}
+
+	/** Read a number array member into pOut
+	 *  @return false if there is no such member */
+	static boolean GetFloats(Map<String, Object> pObject, String pKey, float[] pOut) {
+		Object value = pObject.get(pKey);
+		if (!(value instanceof List)) {
+			return false;
+		}
+		List<?> list = (List<?>)value;
+		for (int i = 0; i < pOut.length && i < list.size(); ++i) {
+			if (list.get(i) instanceof Double) {
+				pOut[i] = ((Double)list.get(i)).floatValue();
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,555 @@
+package net.assimpj;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.lwjgl.util.vector.Matrix4f;
+
+import net.assimpj.aiMaterialConst.aiMatkeyBase;
+import net.assimpj.aiMaterialConst.aiTextureType;
+
+import static net.assimpj.glTF2Asset.AsObject;
+import static net.assimpj.glTF2Asset.GetArray;
+import static net.assimpj.glTF2Asset.GetBool;
+import static net.assimpj.glTF2Asset.GetFloats;
+import static net.assimpj.glTF2Asset.GetInt;
+import static net.assimpj.glTF2Asset.GetObject;
+import static net.assimpj.glTF2Asset.GetString;
+
+/** Imports glTF 2.0 assets, .gltf with external or embedded buffers
+ *  and binary .glb files.
+ *
+ *  Each primitive becomes a mesh. Vertex channels and index buffers are
+ *  views on the buffers of the asset whenever the accessor stores packed
+ *  floats (positions, normals, RGBA colors) or packed 32 bit indices,
+ *  see glTF2Asset.Accessor. Other layouts are converted, interleaved
+ *  float data with bulk copies. Views on memory mapped or in-memory
+ *  files are read-only, steps which change a channel must write a new
+ *  one. As in the file the meshes are indexed, the scene is flagged as
+ *  non-verbose.
+ */
+public class glTF2Importer extends BaseImporter {
+
+	private static final aiImporterDesc desc = new aiImporterDesc(
+		"glTF2 Importer",
+		"",
+		"",
+		"",
+		aiImporterDesc.aiImporterFlags_SupportTextFlavour | aiImporterDesc.aiImporterFlags_SupportBinaryFlavour,
+		0,
+		0,
+		0,
+		0,
+		"gltf glb"
+	);
+
+	/** Values of primitive.mode */
+	private static final int MODE_POINTS = 0, MODE_LINES = 1, MODE_LINE_LOOP = 2, MODE_LINE_STRIP = 3,
+		MODE_TRIANGLES = 4, MODE_TRIANGLE_STRIP = 5, MODE_TRIANGLE_FAN = 6;
+
+	/** Deepest node hierarchy accepted, protects against cycles */
+	private static final int MAX_NODE_DEPTH = 1024;
+
+	// -------------------------------------------------------------------
+	@Override
+	public boolean CanRead(String pFile, IOSystem pIOHandler, boolean checkSig) {
+		if (!checkSig) {
+			// Check File Extension
+			return SimpleExtensionCheck(pFile, "gltf", "glb", null);
+		}
+		// Check file Header
+		byte[][] magic = { { 'g', 'l', 'T', 'F' } };
+		if (CheckMagicToken(pIOHandler, pFile, magic, 0)) {
+			return true;
+		}
+		ByteBuffer header = ReadHeader(pIOHandler, pFile, 512);
+		return header != null && CanReadHeader(pFile, header, header.remaining());
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void GetSignatures(List<FormatSignature> pSignatures) {
+		pSignatures.add(FormatSignature.Magic("glTF", 0));
+	}
+
+	// -------------------------------------------------------------------
+	/** A .gltf file is a JSON object with an 'asset' member, which
+	 *  usually comes first. */
+	@Override
+	public boolean CanReadHeader(String pFile, ByteBuffer pHeader, long pFileSize) {
+		int p = pHeader.position(), end = pHeader.limit();
+		while (p < end && (pHeader.get(p) == ' ' || pHeader.get(p) == '\t'
+			|| pHeader.get(p) == '\r' || pHeader.get(p) == '\n')) {
+			++p;
+		}
+		if (p >= end || pHeader.get(p) != '{') {
+			return false;
+		}
+		final byte[] token = { '"', 'a', 's', 's', 'e', 't', '"' };
+		for (; p + token.length <= end; ++p) {
+			int i = 0;
+			while (i < token.length && pHeader.get(p + i) == token[i]) {
+				++i;
+			}
+			if (i == token.length) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public void SetupProperties(Importer pImp) {
+		// no configuration
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	public aiImporterDesc GetInfo() {
+		return desc;
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	protected void InternReadFile(String pFile, aiScene pScene, IOSystem pIOHandler) {
+		glTF2Asset asset = new glTF2Asset(pFile, pIOHandler, pScene.mPrivate);
+		progress.UpdateFileRead(1, 3);
+
+		List<aiMaterial> materials = ImportMaterials(asset, pScene.mPrivate);
+		for (int i = 0; i < materials.size(); ++i) {
+			EmitMaterial(i, materials.get(i));
+		}
+		int[] meshOffsets = ImportMeshes(asset, pScene, materials);
+		progress.UpdateFileRead(2, 3);
+
+		pScene.SetRootNode(ImportNodes(asset, meshOffsets));
+		pScene.SetMaterials(materials.toArray(new aiMaterial[materials.size()]));
+		pScene.SetFlags(pScene.GetFlags() | aiScene.AI_SCENE_FLAGS_NON_VERBOSE_FORMAT);
+		progress.UpdateFileRead(3, 3);
+	}
+
+	// -------------------------------------------------------------------
+	private static List<aiMaterial> ImportMaterials(glTF2Asset pAsset, SceneArena pArena) {
+		List<Object> descs = GetArray(pAsset.mRoot, "materials");
+		List<aiMaterial> out = new ArrayList<aiMaterial>(descs.size() + 1);
+		for (int i = 0; i < descs.size(); ++i) {
+			Map<String, Object> desc = AsObject(descs.get(i), "material");
+			aiMaterial mat = new aiMaterial(pArena);
+			mat.AddProperty(GetString(desc, "name", "material_" + i), aiMaterialConst.AI_MATKEY_NAME, 0, 0);
+
+			float[] baseColor = { 1.f, 1.f, 1.f, 1.f };
+			Map<String, Object> pbr = GetObject(desc, "pbrMetallicRoughness");
+			if (pbr != null) {
+				GetFloats(pbr, "baseColorFactor", baseColor);
+				AddTexture(pAsset, mat, GetObject(pbr, "baseColorTexture"), aiTextureType.aiTextureType_DIFFUSE);
+			}
+			mat.AddProperty(baseColor, 4, aiMaterialConst.AI_MATKEY_COLOR_DIFFUSE, 0, 0);
+			float[] opacity = { baseColor[3] };
+			mat.AddProperty(opacity, 1, aiMaterialConst.AI_MATKEY_OPACITY, 0, 0);
+
+			float[] emissive = { 0.f, 0.f, 0.f };
+			GetFloats(desc, "emissiveFactor", emissive);
+			mat.AddProperty(emissive, 3, aiMaterialConst.AI_MATKEY_COLOR_EMISSIVE, 0, 0);
+
+			AddTexture(pAsset, mat, GetObject(desc, "normalTexture"), aiTextureType.aiTextureType_NORMALS);
+			AddTexture(pAsset, mat, GetObject(desc, "occlusionTexture"), aiTextureType.aiTextureType_LIGHTMAP);
+			AddTexture(pAsset, mat, GetObject(desc, "emissiveTexture"), aiTextureType.aiTextureType_EMISSIVE);
+
+			if (GetBool(desc, "doubleSided", false)) {
+				int[] twoSided = { 1 };
+				mat.AddProperty(twoSided, 1, aiMaterialConst.AI_MATKEY_TWOSIDED, 0, 0);
+			}
+			out.add(mat);
+		}
+		return out;
+	}
+
+	/** Add the path of the image a textureInfo refers to. Images stored
+	 *  in a bufferView have no path and are skipped. */
+	private static void AddTexture(glTF2Asset pAsset, aiMaterial pMat, Map<String, Object> pInfo, aiTextureType pType) {
+		if (pInfo == null) {
+			return;
+		}
+		List<Object> textures = GetArray(pAsset.mRoot, "textures");
+		int texture = GetInt(pInfo, "index", -1);
+		if (texture < 0 || texture >= textures.size()) {
+			return;
+		}
+		List<Object> images = GetArray(pAsset.mRoot, "images");
+		int image = GetInt(AsObject(textures.get(texture), "texture"), "source", -1);
+		if (image < 0 || image >= images.size()) {
+			return;
+		}
+		String uri = GetString(AsObject(images.get(image), "image"), "uri", null);
+		if (uri == null || uri.startsWith("data:")) {
+			return;
+		}
+		pMat.AddProperty(glTF2Asset.DecodeUri(uri), aiMatkeyBase._AI_MATKEY_TEXTURE_BASE.getKey(), pType.ordinal(), 0);
+		int[] uvSet = { GetInt(pInfo, "texCoord", 0) };
+		if (uvSet[0] != 0) {
+			pMat.AddProperty(uvSet, 1, aiMatkeyBase._AI_MATKEY_UVWSRC_BASE.getKey(), pType.ordinal(), 0);
+		}
+	}
+
+	/** The material of primitives which don't name one */
+	private static int GetDefaultMaterial(List<aiMaterial> pMaterials, SceneArena pArena, int[] pIndex) {
+		if (pIndex[0] < 0) {
+			aiMaterial mat = new aiMaterial(pArena);
+			mat.AddProperty(ObjFileMtlImporter.DEFAULT_MATERIAL, aiMaterialConst.AI_MATKEY_NAME, 0, 0);
+			float[] white = { 1.f, 1.f, 1.f, 1.f };
+			mat.AddProperty(white, 4, aiMaterialConst.AI_MATKEY_COLOR_DIFFUSE, 0, 0);
+			pIndex[0] = pMaterials.size();
+			pMaterials.add(mat);
+		}
+		return pIndex[0];
+	}
+
+	/** A primitive of a glTF mesh, which becomes an aiMesh */
+	private static final class Primitive {
+
+		final Map<String, Object> mDesc;
+		final String mName;
+		final int mMaterial;
+
+		Primitive(Map<String, Object> pDesc, String pName, int pMaterial) {
+			mDesc = pDesc;
+			mName = pName;
+			mMaterial = pMaterial;
+		}
+	}
+
+	/** Primitives loaded on first access. The JSON already tells where
+	 *  each one is, so the asset is all the index there is. */
+	private static final class LazyPrimitives extends LazyMeshes {
+
+		private final glTF2Asset mAsset;
+		private final List<Primitive> mPrimitives;
+
+		LazyPrimitives(glTF2Asset pAsset, List<Primitive> pPrimitives, boolean pEvict) {
+			super(pPrimitives.size(), pEvict);
+			mAsset = pAsset;
+			mPrimitives = pPrimitives;
+		}
+
+		@Override
+		protected aiMesh LoadMesh(int pIndex, SceneArena pArena) {
+			return ImportPrimitive(mAsset, pArena, mPrimitives.get(pIndex));
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Import all primitives of all meshes, each is emitted when done.
+	 *  A lazy import only collects the primitives.
+	 *  @return Index of the first aiMesh of each glTF mesh, plus the end */
+	private int[] ImportMeshes(glTF2Asset pAsset, aiScene pScene, List<aiMaterial> pMaterials) {
+		List<Object> descs = GetArray(pAsset.mRoot, "meshes");
+		List<Primitive> primitives = new ArrayList<Primitive>();
+		int[] offsets = new int[descs.size() + 1];
+		int[] defaultMaterial = { -1 };
+		final int numMaterials = pMaterials.size();
+		for (int m = 0; m < descs.size(); ++m) {
+			offsets[m] = primitives.size();
+			Map<String, Object> desc = AsObject(descs.get(m), "mesh");
+			String name = GetString(desc, "name", "mesh_" + m);
+			List<Object> prims = GetArray(desc, "primitives");
+			for (int p = 0; p < prims.size(); ++p) {
+				Map<String, Object> prim = AsObject(prims.get(p), "primitive");
+				int material = GetInt(prim, "material", -1);
+				if (material < 0 || material >= numMaterials) {
+					material = GetDefaultMaterial(pMaterials, pScene.mPrivate, defaultMaterial);
+					EmitMaterial(material, pMaterials.get(material));
+				}
+				primitives.add(new Primitive(prim, prims.size() > 1 ? name + "-" + p : name, material));
+			}
+		}
+		offsets[descs.size()] = primitives.size();
+		if (pMaterials.isEmpty()) {
+			GetDefaultMaterial(pMaterials, pScene.mPrivate, defaultMaterial);
+		}
+
+		if (IsLazyImport()) {
+			pScene.SetLazyMeshes(new LazyPrimitives(pAsset, primitives, IsLazyEvict()));
+			return offsets;
+		}
+		// the data is mostly aliased, progress is counted in vertices
+		long numVertices = 0;
+		for (Primitive prim : primitives) {
+			Map<String, Object> attributes = GetObject(prim.mDesc, "attributes");
+			if (attributes != null && attributes.containsKey("POSITION")) {
+				numVertices += pAsset.GetAccessor(GetInt(attributes, "POSITION", -1)).mCount;
+			}
+		}
+		ProgressTracker tracker = new ProgressTracker(progress, 0.5f / 3, 0.5f / 3, numVertices,
+			ProgressTracker.ELEMENT_GRANULARITY);
+
+		aiMesh[] meshes = new aiMesh[primitives.size()];
+		for (int i = 0; i < meshes.length; ++i) {
+			SceneArena arena = GetMeshArena(pScene);
+			meshes[i] = ImportPrimitive(pAsset, arena, primitives.get(i));
+			tracker.Add(meshes[i].GetNumVertices());
+			EmitMesh(pScene, i, meshes[i], arena);
+		}
+		pScene.SetMeshes(meshes);
+		return offsets;
+	}
+
+	// -------------------------------------------------------------------
+	private static aiMesh ImportPrimitive(glTF2Asset pAsset, SceneArena pArena, Primitive pPrimitive) {
+		Map<String, Object> prim = pPrimitive.mDesc;
+		Map<String, Object> attributes = GetObject(prim, "attributes");
+		if (attributes == null || !attributes.containsKey("POSITION")) {
+			throw new DeadlyImportError("GLTF: Primitive without positions");
+		}
+		glTF2Asset.Accessor positions = pAsset.GetAccessor(GetInt(attributes, "POSITION", -1));
+		final int numVertices = positions.mCount;
+
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(numVertices);
+		mesh.SetVertices(positions.ReadChannel(pArena, aiMeshConst.AI_VECTOR_COMPONENTS, 0.f));
+
+		FloatBuffer normals = null;
+		if (attributes.containsKey("NORMAL")) {
+			normals = ReadAttribute(pAsset, attributes, "NORMAL", numVertices).ReadChannel(pArena, aiMeshConst.AI_VECTOR_COMPONENTS, 0.f);
+			mesh.SetNormals(normals);
+		}
+		if (normals != null && attributes.containsKey("TANGENT")) {
+			FloatBuffer tangents = ReadAttribute(pAsset, attributes, "TANGENT", numVertices).ReadChannel(pArena, 4, 1.f);
+			SetTangents(mesh, normals, tangents, numVertices, pArena);
+		}
+		for (int i = 0; i < aiMeshConst.AI_MAX_NUMBER_OF_TEXTURECOORDS; ++i) {
+			if (!attributes.containsKey("TEXCOORD_" + i)) {
+				break;
+			}
+			glTF2Asset.Accessor uv = ReadAttribute(pAsset, attributes, "TEXCOORD_" + i, numVertices);
+			mesh.SetTextureCoords(i, uv.ReadTexCoords(pArena), 2);
+		}
+		for (int i = 0; i < aiMeshConst.AI_MAX_NUMBER_OF_COLOR_SETS; ++i) {
+			if (!attributes.containsKey("COLOR_" + i)) {
+				break;
+			}
+			glTF2Asset.Accessor color = ReadAttribute(pAsset, attributes, "COLOR_" + i, numVertices);
+			mesh.SetColors(i, color.ReadChannel(pArena, aiMeshConst.AI_COLOR_COMPONENTS, 1.f));
+		}
+
+		IntBuffer indices;
+		int numIndices;
+		if (prim.containsKey("indices")) {
+			glTF2Asset.Accessor accessor = pAsset.GetAccessor(GetInt(prim, "indices", -1));
+			indices = accessor.ReadIndices(pArena);
+			numIndices = accessor.mCount;
+			for (int i = 0; i < numIndices; ++i) {
+				int idx = indices.get(i);
+				if (idx < 0 || idx >= numVertices) {
+					throw new DeadlyImportError("GLTF: Vertex index out of range");
+				}
+			}
+		} else {
+			numIndices = numVertices;
+			indices = pArena.AllocInts(numVertices);
+			for (int i = 0; i < numVertices; ++i) {
+				indices.put(i, i);
+			}
+		}
+
+		int mode = GetInt(prim, "mode", MODE_TRIANGLES);
+		switch (mode) {
+		case MODE_POINTS:
+			mesh.SetFaces(indices, numIndices, 1);
+			mesh.SetPrimitiveTypes(aiMeshConst.aiPrimitiveType_POINT);
+			break;
+		case MODE_LINES:
+			mesh.SetFaces(indices, numIndices / 2, 2);
+			mesh.SetPrimitiveTypes(aiMeshConst.aiPrimitiveType_LINE);
+			break;
+		case MODE_LINE_LOOP:
+		case MODE_LINE_STRIP:
+			int numLines = mode == MODE_LINE_LOOP ? numIndices : Math.max(0, numIndices - 1);
+			IntBuffer lines = pArena.AllocInts(numLines * 2);
+			for (int i = 0; i < numLines; ++i) {
+				lines.put(i * 2, indices.get(i)).put(i * 2 + 1, indices.get((i + 1) % numIndices));
+			}
+			mesh.SetFaces(lines, numLines, 2);
+			mesh.SetPrimitiveTypes(aiMeshConst.aiPrimitiveType_LINE);
+			break;
+		case MODE_TRIANGLES:
+			mesh.SetFaces(indices, numIndices / 3, 3);
+			mesh.SetPrimitiveTypes(aiMeshConst.aiPrimitiveType_TRIANGLE);
+			break;
+		case MODE_TRIANGLE_STRIP:
+		case MODE_TRIANGLE_FAN:
+			int numTriangles = Math.max(0, numIndices - 2);
+			IntBuffer triangles = pArena.AllocInts(numTriangles * 3);
+			for (int i = 0; i < numTriangles; ++i) {
+				int a, b, c;
+				if (mode == MODE_TRIANGLE_FAN) {
+					a = indices.get(0);
+					b = indices.get(i + 1);
+					c = indices.get(i + 2);
+				} else if ((i & 1) == 0) {
+					a = indices.get(i);
+					b = indices.get(i + 1);
+					c = indices.get(i + 2);
+				} else {
+					// keep the winding of odd triangles
+					a = indices.get(i + 1);
+					b = indices.get(i);
+					c = indices.get(i + 2);
+				}
+				triangles.put(i * 3, a).put(i * 3 + 1, b).put(i * 3 + 2, c);
+			}
+			mesh.SetFaces(triangles, numTriangles, 3);
+			mesh.SetPrimitiveTypes(aiMeshConst.aiPrimitiveType_TRIANGLE);
+			break;
+		default:
+			throw new DeadlyImportError("GLTF: Invalid primitive mode " + mode);
+		}
+		mesh.SetName(pPrimitive.mName);
+		mesh.SetMaterialIndex(pPrimitive.mMaterial);
+		return mesh;
+	}
+
+	private static glTF2Asset.Accessor ReadAttribute(glTF2Asset pAsset, Map<String, Object> pAttributes,
+		String pName, int pNumVertices) {
+		glTF2Asset.Accessor accessor = pAsset.GetAccessor(GetInt(pAttributes, pName, -1));
+		if (accessor.mCount != pNumVertices) {
+			throw new DeadlyImportError("GLTF: Attribute " + pName + " has " + accessor.mCount
+				+ " elements, but there are " + pNumVertices + " vertices");
+		}
+		return accessor;
+	}
+
+	/** glTF tangents are 4D, w gives the direction of the bitangent */
+	private static void SetTangents(aiMesh pMesh, FloatBuffer pNormals, FloatBuffer pTangents4,
+		int pNumVertices, SceneArena pArena) {
+		FloatBuffer tangents = pArena.AllocChannel(pNumVertices, aiMeshConst.AI_VECTOR_COMPONENTS);
+		FloatBuffer bitangents = pArena.AllocChannel(pNumVertices, aiMeshConst.AI_VECTOR_COMPONENTS);
+		for (int i = 0; i < pNumVertices; ++i) {
+			float tx = pTangents4.get(i * 4), ty = pTangents4.get(i * 4 + 1), tz = pTangents4.get(i * 4 + 2);
+			float w = pTangents4.get(i * 4 + 3);
+			float nx = pNormals.get(i * 3), ny = pNormals.get(i * 3 + 1), nz = pNormals.get(i * 3 + 2);
+			tangents.put(i * 3, tx).put(i * 3 + 1, ty).put(i * 3 + 2, tz);
+			bitangents.put(i * 3, (ny * tz - nz * ty) * w)
+				.put(i * 3 + 1, (nz * tx - nx * tz) * w)
+				.put(i * 3 + 2, (nx * ty - ny * tx) * w);
+		}
+		pMesh.SetTangents(tangents);
+		pMesh.SetBitangents(bitangents);
+	}
+
+	// -------------------------------------------------------------------
+	/** Build the node hierarchy of the default scene */
+	private static aiNode ImportNodes(glTF2Asset pAsset, int[] pMeshOffsets) {
+		List<Object> nodes = GetArray(pAsset.mRoot, "nodes");
+		List<Object> scenes = GetArray(pAsset.mRoot, "scenes");
+
+		List<Integer> roots = new ArrayList<Integer>();
+		int scene = GetInt(pAsset.mRoot, "scene", 0);
+		if (scene >= 0 && scene < scenes.size()) {
+			for (Object node : GetArray(AsObject(scenes.get(scene), "scene"), "nodes")) {
+				roots.add(((Double)node).intValue());
+			}
+		} else {
+			// no scene, all nodes without parent are roots
+			boolean[] isChild = new boolean[nodes.size()];
+			for (Object node : nodes) {
+				for (Object child : GetArray(AsObject(node, "node"), "children")) {
+					int c = ((Double)child).intValue();
+					if (c >= 0 && c < isChild.length) {
+						isChild[c] = true;
+					}
+				}
+			}
+			for (int i = 0; i < isChild.length; ++i) {
+				if (!isChild[i]) {
+					roots.add(i);
+				}
+			}
+		}
+
+		if (roots.size() == 1) {
+			return ImportNode(nodes, roots.get(0), pMeshOffsets, 0);
+		}
+		aiNode root = new aiNode("ROOT");
+		root.SetTransformation(Identity());
+		for (int index : roots) {
+			root.AddChild(ImportNode(nodes, index, pMeshOffsets, 1));
+		}
+		if (roots.isEmpty()) {
+			// no nodes at all, reference all meshes from the root
+			for (int i = 0; i < pMeshOffsets[pMeshOffsets.length - 1]; ++i) {
+				root.AddMesh(i);
+			}
+		}
+		return root;
+	}
+
+	private static aiNode ImportNode(List<Object> pNodes, int pIndex, int[] pMeshOffsets, int pDepth) {
+		if (pIndex < 0 || pIndex >= pNodes.size()) {
+			throw new DeadlyImportError("GLTF: Node index " + pIndex + " out of range");
+		}
+		if (pDepth > MAX_NODE_DEPTH) {
+			throw new DeadlyImportError("GLTF: Node hierarchy too deep or cyclic");
+		}
+		Map<String, Object> desc = AsObject(pNodes.get(pIndex), "node");
+		aiNode node = new aiNode(GetString(desc, "name", "node_" + pIndex));
+		node.SetTransformation(GetTransformation(desc));
+
+		int mesh = GetInt(desc, "mesh", -1);
+		if (mesh >= 0 && mesh < pMeshOffsets.length - 1) {
+			for (int i = pMeshOffsets[mesh]; i < pMeshOffsets[mesh + 1]; ++i) {
+				node.AddMesh(i);
+			}
+		}
+		for (Object child : GetArray(desc, "children")) {
+			node.AddChild(ImportNode(pNodes, ((Double)child).intValue(), pMeshOffsets, pDepth + 1));
+		}
+		return node;
+	}
+
+	/** Get the local transformation of a node, from 'matrix' or from
+	 *  'translation', 'rotation' and 'scale' */
+	private static Matrix4f GetTransformation(Map<String, Object> pNode) {
+		// column-major, as in glTF
+		float[] m = new float[16];
+		if (!GetFloats(pNode, "matrix", m)) {
+			float[] t = { 0.f, 0.f, 0.f }, r = { 0.f, 0.f, 0.f, 1.f }, s = { 1.f, 1.f, 1.f };
+			GetFloats(pNode, "translation", t);
+			GetFloats(pNode, "rotation", r);
+			GetFloats(pNode, "scale", s);
+
+			// T * R * S
+			float x = r[0], y = r[1], z = r[2], w = r[3];
+			m[0] = (1.f - 2.f * (y * y + z * z)) * s[0];
+			m[1] = (2.f * (x * y + z * w)) * s[0];
+			m[2] = (2.f * (x * z - y * w)) * s[0];
+			m[4] = (2.f * (x * y - z * w)) * s[1];
+			m[5] = (1.f - 2.f * (x * x + z * z)) * s[1];
+			m[6] = (2.f * (y * z + x * w)) * s[1];
+			m[8] = (2.f * (x * z + y * w)) * s[2];
+			m[9] = (2.f * (y * z - x * w)) * s[2];
+			m[10] = (1.f - 2.f * (x * x + y * y)) * s[2];
+			m[12] = t[0];
+			m[13] = t[1];
+			m[14] = t[2];
+			m[15] = 1.f;
+		}
+		// Matrix4f.mCR is column C, row R
+		Matrix4f out = new Matrix4f();
+		out.m00 = m[0];  out.m01 = m[1];  out.m02 = m[2];  out.m03 = m[3];
+		out.m10 = m[4];  out.m11 = m[5];  out.m12 = m[6];  out.m13 = m[7];
+		out.m20 = m[8];  out.m21 = m[9];  out.m22 = m[10]; out.m23 = m[11];
+		out.m30 = m[12]; out.m31 = m[13]; out.m32 = m[14]; out.m33 = m[15];
+		return out;
+	}
+
+	private static Matrix4f Identity() {
+		Matrix4f m = new Matrix4f();
+		m.setIdentity();
+		return m;
+	}
+}
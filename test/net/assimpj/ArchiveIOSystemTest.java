@@ -0,0 +1,107 @@
+package net.assimpj;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Lifetime of the data served from an archive, see 
+ *  ArchiveIOSystem.Release(). Stored entries are views on the mapped
+ *  archive, reading them after it has been unmapped would crash the VM.
+ */
+public class ArchiveIOSystemTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	// -------------------------------------------------------------------
+	/** Write a zip archive with stored entries
+	 *  @param pEntries Alternating names and contents */
+	private File WriteStoredZip(Object... pEntries) throws IOException {
+		File file = folder.newFile("test.zip");
+		ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file));
+		try {
+			for (int i = 0; i < pEntries.length; i += 2) {
+				byte[] data = (byte[])pEntries[i + 1];
+				CRC32 crc = new CRC32();
+				crc.update(data);
+				ZipEntry entry = new ZipEntry((String)pEntries[i]);
+				entry.setMethod(ZipEntry.STORED);
+				entry.setSize(data.length);
+				entry.setCompressedSize(data.length);
+				entry.setCrc(crc.getValue());
+				zip.putNextEntry(entry);
+				zip.write(data);
+				zip.closeEntry();
+			}
+		} finally {
+			zip.close();
+		}
+		return file;
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void storedEntryReadableAfterRelease() throws IOException {
+		byte[] data = "stored entry data".getBytes(StandardCharsets.US_ASCII);
+		File file = WriteStoredZip("a.txt", data);
+
+		ArchiveIOSystem io = new ArchiveIOSystem(file.getPath(), null, null, ArchiveIOSystem.DEFAULT_CACHE_SIZE);
+		assertTrue(io.isOpen());
+		IOStream stream = io.Open("a.txt", "rb");
+		assertNotNull(stream);
+
+		io.Release();
+		assertFalse(io.isOpen());
+		assertNull(io.Open("a.txt", "rb"));
+
+		ByteBuffer read = ByteBuffer.allocate(data.length);
+		assertEquals(data.length, stream.Read(read, 1, data.length));
+		assertArrayEquals(data, read.array());
+		ByteBuffer view = ((DirectIOStream)stream).Slice(0, data.length);
+		assertEquals('s', view.get(0));
+		io.Close(stream);
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void aliasedSceneReadableAfterRelease() throws IOException {
+		// a glTF triangle whose positions alias the stored .bin entry
+		float[] positions = { 0.f, 0.f, 0.f, 1.f, 0.f, 0.f, 0.f, 1.f, 0.f };
+		ByteBuffer bin = ByteBuffer.allocate(positions.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+		for (float f : positions) {
+			bin.putFloat(f);
+		}
+		String json = "{\"asset\":{\"version\":\"2.0\"},\"scene\":0,\"scenes\":[{\"nodes\":[0]}],"
+			+ "\"nodes\":[{\"mesh\":0}],\"meshes\":[{\"primitives\":[{\"attributes\":{\"POSITION\":0}}]}],"
+			+ "\"buffers\":[{\"uri\":\"tri.bin\",\"byteLength\":36}],"
+			+ "\"bufferViews\":[{\"buffer\":0,\"byteLength\":36}],"
+			+ "\"accessors\":[{\"bufferView\":0,\"componentType\":5126,\"count\":3,\"type\":\"VEC3\"}]}";
+		File file = WriteStoredZip("tri.gltf", json.getBytes(StandardCharsets.UTF_8), "tri.bin", bin.array());
+
+		ArchiveIOSystem io = new ArchiveIOSystem(file.getPath(), null, null, ArchiveIOSystem.DEFAULT_CACHE_SIZE);
+		Importer importer = new Importer();
+		importer.SetIOHandler(io);
+		aiScene scene = importer.ReadFile("tri.gltf", 0);
+		assertNotNull(importer.GetErrorString(), scene);
+
+		io.Release();
+		FloatBuffer vertices = scene.GetMesh(0).GetVertices();
+		for (int i = 0; i < positions.length; ++i) {
+			assertEquals(positions[i], vertices.get(i), 0.f);
+		}
+		importer.FreeScene();
+	}
+}
@@ -0,0 +1,99 @@
+package net.assimpj;
+
+import static org.junit.Assert.*;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+
+/** Flat normals of indexed meshes, see GenFaceNormalsProcess. Vertices
+ *  shared by several faces must be split, not get an averaged normal.
+ */
+public class GenFaceNormalsProcessTest {
+
+	private final SceneArena arena = new SceneArena();
+
+	@After
+	public void release() {
+		arena.Release();
+	}
+
+	// -------------------------------------------------------------------
+	/** Build a unit cube around the origin, 8 vertices and 12 triangles
+	 *  wound counter-clockwise seen from outside */
+	private static aiMesh CreateIndexedCube() {
+		float[] pos = {
+			-1, -1, -1,   1, -1, -1,   1, 1, -1,   -1, 1, -1,
+			-1, -1,  1,   1, -1,  1,   1, 1,  1,   -1, 1,  1,
+		};
+		int[] indices = {
+			0, 2, 1,   0, 3, 2,   // -z
+			4, 5, 6,   4, 6, 7,   // +z
+			0, 1, 5,   0, 5, 4,   // -y
+			3, 6, 2,   3, 7, 6,   // +y
+			0, 4, 7,   0, 7, 3,   // -x
+			1, 2, 6,   1, 6, 5,   // +x
+		};
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(8);
+		mesh.SetVertices(FloatBuffer.wrap(pos));
+		mesh.SetFaces(IntBuffer.wrap(indices), 12, 3);
+		return mesh;
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void indexedCubeIsFlat() {
+		aiMesh mesh = CreateIndexedCube();
+		assertTrue(GenFaceNormalsProcess.GenMeshFaceNormals(mesh, arena, ProgressTracker.NONE));
+		assertEquals(12, mesh.GetNumFaces());
+
+		FloatBuffer pos = mesh.GetVertices(), normals = mesh.GetNormals();
+		IntBuffer faces = mesh.GetFaces();
+		Set<List<Float>> distinct = new HashSet<List<Float>>();
+		Set<Integer> used = new HashSet<Integer>();
+		for (int f = 0; f < 12; ++f) {
+			float cx = 0.f, cy = 0.f, cz = 0.f;
+			for (int k = 0; k < 3; ++k) {
+				int v = faces.get(f * 3 + k);
+				cx += pos.get(v * 3); cy += pos.get(v * 3 + 1); cz += pos.get(v * 3 + 2);
+			}
+			// the normal of a cube face is the axis its centroid is furthest along
+			int axis = Math.abs(cx) > Math.abs(cy) ? (Math.abs(cx) > Math.abs(cz) ? 0 : 2)
+				: (Math.abs(cy) > Math.abs(cz) ? 1 : 2);
+			float sign = Math.signum(axis == 0 ? cx : axis == 1 ? cy : cz);
+
+			for (int k = 0; k < 3; ++k) {
+				int v = faces.get(f * 3 + k);
+				for (int c = 0; c < 3; ++c) {
+					assertEquals(c == axis ? sign : 0.f, normals.get(v * 3 + c), 1e-6f);
+				}
+				distinct.add(Arrays.asList(normals.get(v * 3), normals.get(v * 3 + 1), normals.get(v * 3 + 2)));
+				used.add(v);
+			}
+		}
+		assertEquals(6, distinct.size());
+		assertEquals(mesh.GetNumVertices(), used.size());
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void verboseMeshKeepsItsVertices() {
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(3);
+		mesh.SetVertices(FloatBuffer.wrap(new float[] { 0, 0, 0,   1, 0, 0,   0, 1, 0 }));
+		IntBuffer faces = IntBuffer.wrap(new int[] { 0, 1, 2 });
+		mesh.SetFaces(faces, 1, 3);
+
+		assertTrue(GenFaceNormalsProcess.GenMeshFaceNormals(mesh, arena, ProgressTracker.NONE));
+		assertEquals(3, mesh.GetNumVertices());
+		assertSame(faces, mesh.GetFaces());
+		assertEquals(1.f, mesh.GetNormals().get(2), 1e-6f);
+	}
+}
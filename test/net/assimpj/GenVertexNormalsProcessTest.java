@@ -0,0 +1,99 @@
+package net.assimpj;
+
+import static org.junit.Assert.*;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import org.junit.After;
+import org.junit.Test;
+
+/** Smooth normals of indexed meshes, see GenVertexNormalsProcess. With
+ *  a smoothing angle, faces meeting at a sharper edge must not share a
+ *  normal, even if the mesh shares their vertices.
+ */
+public class GenVertexNormalsProcessTest {
+
+	private final SceneArena arena = new SceneArena();
+
+	@After
+	public void release() {
+		arena.Release();
+	}
+
+	// -------------------------------------------------------------------
+	/** Build a unit cube around the origin, 8 vertices and 12 triangles
+	 *  wound counter-clockwise seen from outside */
+	private static aiMesh CreateIndexedCube() {
+		float[] pos = {
+			-1, -1, -1,   1, -1, -1,   1, 1, -1,   -1, 1, -1,
+			-1, -1,  1,   1, -1,  1,   1, 1,  1,   -1, 1,  1,
+		};
+		int[] indices = {
+			0, 2, 1,   0, 3, 2,   // -z
+			4, 5, 6,   4, 6, 7,   // +z
+			0, 1, 5,   0, 5, 4,   // -y
+			3, 6, 2,   3, 7, 6,   // +y
+			0, 4, 7,   0, 7, 3,   // -x
+			1, 2, 6,   1, 6, 5,   // +x
+		};
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(8);
+		mesh.SetVertices(FloatBuffer.wrap(pos));
+		mesh.SetFaces(IntBuffer.wrap(indices), 12, 3);
+		return mesh;
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void indexedCubeKeepsSharpEdges() {
+		aiMesh mesh = CreateIndexedCube();
+		assertTrue(GenVertexNormalsProcess.GenMeshVertexNormals(mesh, arena, ProgressTracker.NONE,
+			(float)Math.toRadians(80.f), null));
+
+		FloatBuffer pos = mesh.GetVertices(), normals = mesh.GetNormals();
+		IntBuffer faces = mesh.GetFaces();
+		for (int f = 0; f < 12; ++f) {
+			float cx = 0.f, cy = 0.f, cz = 0.f;
+			for (int k = 0; k < 3; ++k) {
+				int v = faces.get(f * 3 + k);
+				cx += pos.get(v * 3); cy += pos.get(v * 3 + 1); cz += pos.get(v * 3 + 2);
+			}
+			// the normal of a cube face is the axis its centroid is furthest along
+			int axis = Math.abs(cx) > Math.abs(cy) ? (Math.abs(cx) > Math.abs(cz) ? 0 : 2)
+				: (Math.abs(cy) > Math.abs(cz) ? 1 : 2);
+			float sign = Math.signum(axis == 0 ? cx : axis == 1 ? cy : cz);
+
+			for (int k = 0; k < 3; ++k) {
+				int v = faces.get(f * 3 + k);
+				for (int c = 0; c < 3; ++c) {
+					assertEquals(c == axis ? sign : 0.f, normals.get(v * 3 + c), 1e-6f);
+				}
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void indexedCubeSmoothsWithoutAngle() {
+		aiMesh mesh = CreateIndexedCube();
+		IntBuffer faces = mesh.GetFaces();
+		assertTrue(GenVertexNormalsProcess.GenMeshVertexNormals(mesh, arena, ProgressTracker.NONE,
+			(float)Math.toRadians(GenVertexNormalsProcess.MAX_SMOOTHING_ANGLE), null));
+		assertEquals(8, mesh.GetNumVertices());
+		assertSame(faces, mesh.GetFaces());
+
+		// each corner mixes its three faces, so the normal points into
+		// the octant of the corner
+		FloatBuffer pos = mesh.GetVertices(), normals = mesh.GetNormals();
+		for (int v = 0; v < 8; ++v) {
+			float len = 0.f;
+			for (int c = 0; c < 3; ++c) {
+				float n = normals.get(v * 3 + c);
+				assertTrue(n * pos.get(v * 3 + c) > 0.1f);
+				len += n * n;
+			}
+			assertEquals(1.f, len, 1e-5f);
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package net.assimpj;
+
+import static org.junit.Assert.*;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+/** Triangle ordering for the vertex cache, see
+ *  ImproveCacheLocalityProcess. The triangles must come out unchanged in
+ *  a new order, measured with a FIFO cache, that is never worse than the
+ *  one they came in.
+ */
+public class ImproveCacheLocalityProcessTest {
+
+	/** Vertices per side of the grid */
+	private static final int GRID = 32;
+
+	private final SceneArena arena = new SceneArena();
+
+	@After
+	public void release() {
+		arena.Release();
+	}
+
+	// -------------------------------------------------------------------
+	/** Build a grid of GRID x GRID vertices, its triangles shuffled or row
+	 *  by row */
+	private static aiMesh CreateGrid(boolean pShuffle) {
+		float[] pos = new float[GRID * GRID * 3];
+		for (int v = 0; v < GRID * GRID; ++v) {
+			pos[v * 3] = v % GRID;
+			pos[v * 3 + 1] = v / GRID;
+		}
+		List<int[]> triangles = new ArrayList<int[]>();
+		for (int y = 0; y < GRID - 1; ++y) {
+			for (int x = 0; x < GRID - 1; ++x) {
+				int v = y * GRID + x;
+				triangles.add(new int[] { v, v + 1, v + GRID + 1 });
+				triangles.add(new int[] { v, v + GRID + 1, v + GRID });
+			}
+		}
+		if (pShuffle) {
+			Collections.shuffle(triangles, new Random(5));
+		}
+		int[] indices = new int[triangles.size() * 3];
+		for (int t = 0; t < triangles.size(); ++t) {
+			System.arraycopy(triangles.get(t), 0, indices, t * 3, 3);
+		}
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(GRID * GRID);
+		mesh.SetVertices(FloatBuffer.wrap(pos));
+		mesh.SetFaces(IntBuffer.wrap(indices), triangles.size(), 3);
+		return mesh;
+	}
+
+	// -------------------------------------------------------------------
+	private static int[] GetIndices(aiMesh pMesh) {
+		int[] indices = new int[pMesh.GetNumIndices()];
+		pMesh.GetFaces().get(0, indices, 0, indices.length);
+		return indices;
+	}
+
+	// -------------------------------------------------------------------
+	/** The triangles of a mesh by the positions of their corners, sorted */
+	private static List<String> GetTriangles(aiMesh pMesh) {
+		FloatBuffer pos = pMesh.GetVertices();
+		IntBuffer faces = pMesh.GetFaces();
+		List<String> triangles = new ArrayList<String>();
+		for (int f = 0; f < pMesh.GetNumFaces(); ++f) {
+			StringBuilder triangle = new StringBuilder();
+			for (int k = 0; k < 3; ++k) {
+				int v = faces.get(f * 3 + k);
+				triangle.append(pos.get(v * 3)).append(',').append(pos.get(v * 3 + 1)).append(',')
+					.append(pos.get(v * 3 + 2)).append(' ');
+			}
+			triangles.add(triangle.toString());
+		}
+		Collections.sort(triangles);
+		return triangles;
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void cacheMissesAreCountedFirstInFirstOut() {
+		assertEquals(3, ImproveCacheLocalityProcess.CountCacheMisses(new int[] { 0, 1, 2,   0, 1, 2 }, 3, 4));
+		assertEquals(6, ImproveCacheLocalityProcess.CountCacheMisses(new int[] { 0, 1, 2,   3, 4, 5 }, 6, 4));
+
+		// a hit doesn't move 0 to the front, so 4 pushes it out; an LRU
+		// cache would have evicted 1 and count 5
+		assertEquals(6, ImproveCacheLocalityProcess.CountCacheMisses(new int[] { 0, 1, 2, 3, 0, 4, 0 }, 5, 4));
+
+		// cycling through one vertex more than fits misses every time,
+		// a cycle that fits only misses once per vertex
+		assertEquals(9, ImproveCacheLocalityProcess.CountCacheMisses(new int[] { 0, 1, 2, 3, 4, 0, 1, 2, 3, 0 }, 5, 4));
+		assertEquals(5, ImproveCacheLocalityProcess.CountCacheMisses(new int[] { 0, 1, 2, 3, 4, 1, 2, 3, 4, 1 }, 5, 4));
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void degenerateTrianglesAreOrderedToo() {
+		int[] indices = {
+			0, 1, 2,   2, 2, 2,   1, 3, 2,   4, 4, 5,   3, 5, 4,   0, 0, 0,
+			2, 3, 4,   5, 5, 5,   6, 7, 6,   7, 8, 9,   9, 9, 8,   1, 1, 3,
+		};
+		int numFaces = indices.length / 3;
+		int[] out = ImproveCacheLocalityProcess.OrderTriangles(indices, numFaces, 10, 4, ProgressTracker.NONE);
+
+		// the same triangles, corners in the same order, each exactly once
+		List<String> in = new ArrayList<String>(), ordered = new ArrayList<String>();
+		for (int t = 0; t < numFaces; ++t) {
+			in.add(indices[t * 3] + " " + indices[t * 3 + 1] + " " + indices[t * 3 + 2]);
+			ordered.add(out[t * 3] + " " + out[t * 3 + 1] + " " + out[t * 3 + 2]);
+		}
+		Collections.sort(in);
+		Collections.sort(ordered);
+		assertEquals(in, ordered);
+
+		// through the whole step, with the vertices reordered
+		float[] pos = new float[10 * 3];
+		for (int v = 0; v < 10; ++v) {
+			pos[v * 3] = v;
+		}
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(10);
+		mesh.SetVertices(FloatBuffer.wrap(pos));
+		mesh.SetFaces(IntBuffer.wrap(indices), numFaces, 3);
+		List<String> before = GetTriangles(mesh);
+		assertTrue(ImproveCacheLocalityProcess.ProcessMesh(mesh, arena, ProgressTracker.NONE, 4, null));
+		assertEquals(before, GetTriangles(mesh));
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void shuffledGridGetsFewerMisses() {
+		aiMesh mesh = CreateGrid(true);
+		int numFaces = mesh.GetNumFaces();
+		List<String> before = GetTriangles(mesh);
+		long[] misses = new long[2];
+		assertTrue(ImproveCacheLocalityProcess.ProcessMesh(mesh, arena, ProgressTracker.NONE,
+			ImproveCacheLocalityProcess.PP_ICL_PTCACHE_SIZE, misses));
+
+		assertEquals(before, GetTriangles(mesh));
+		assertEquals(misses[1], ImproveCacheLocalityProcess.CountCacheMisses(GetIndices(mesh), GRID * GRID,
+			ImproveCacheLocalityProcess.PP_ICL_PTCACHE_SIZE));
+		float acmrIn = (float)misses[0] / numFaces, acmrOut = (float)misses[1] / numFaces;
+		assertTrue(acmrIn > 2.f);
+		assertTrue("ACMR " + acmrOut, acmrOut < 0.8f);
+
+		// the vertices come in the order they are first used
+		int[] indices = GetIndices(mesh);
+		int used = 0;
+		for (int index : indices) {
+			assertTrue(index <= used);
+			used = Math.max(used, index + 1);
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void orderedGridGetsNoWorse() {
+		for (int cacheSize : new int[] { ImproveCacheLocalityProcess.MIN_CACHE_SIZE, 8, 12, 24, 64 }) {
+			aiMesh mesh = CreateGrid(false);
+			long[] misses = new long[2];
+			assertTrue(ImproveCacheLocalityProcess.ProcessMesh(mesh, arena, ProgressTracker.NONE, cacheSize, misses));
+			assertTrue("cache size " + cacheSize, misses[1] <= misses[0]);
+			assertEquals(misses[1], ImproveCacheLocalityProcess.CountCacheMisses(GetIndices(mesh), GRID * GRID, cacheSize));
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void cacheMissRatiosAreShared() {
+		aiScene scene = new aiScene();
+		aiMesh mesh = CreateGrid(true);
+		long missesIn = ImproveCacheLocalityProcess.CountCacheMisses(GetIndices(mesh), GRID * GRID,
+			ImproveCacheLocalityProcess.PP_ICL_PTCACHE_SIZE);
+		int numFaces = mesh.GetNumFaces();
+		scene.SetMeshes(new aiMesh[] { mesh });
+
+		Importer imp = new Importer();
+		imp.Pimpl().mScene = scene;
+		assertSame(scene, imp.ApplyPostProcessing(aiPostProcessSteps.aiProcess_ImproveCacheLocality));
+
+		SharedPostProcessInfo shared = imp.GetSharedPostProcessInfo();
+		Float acmrIn = (Float)shared.GetProperty(SharedPostProcessInfo.ICL_ACMR_IN);
+		Float acmrOut = (Float)shared.GetProperty(SharedPostProcessInfo.ICL_ACMR_OUT);
+		assertNotNull(acmrIn);
+		assertNotNull(acmrOut);
+		assertEquals((float)missesIn / numFaces, acmrIn, 1e-6f);
+		assertTrue(acmrOut <= acmrIn);
+		assertEquals(1, shared.GetProperty(SharedPostProcessInfo.ICL_NUM_MESHES));
+		assertEquals((long)numFaces, shared.GetProperty(SharedPostProcessInfo.ICL_NUM_TRIANGLES));
+
+		// a run without the step drops them
+		imp.ApplyPostProcessing(aiPostProcessSteps.aiProcess_JoinIdenticalVertices);
+		assertNull(imp.GetSharedPostProcessInfo().GetProperty(SharedPostProcessInfo.ICL_ACMR_IN));
+		imp.FreeScene();
+		assertNull(imp.GetSharedPostProcessInfo().GetProperty(SharedPostProcessInfo.ICL_ACMR_OUT));
+	}
+}
@@ -0,0 +1,151 @@
+package net.assimpj;
+
+import static org.junit.Assert.*;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+/** Vertex welding, see JoinVerticesProcess. Vertices closer than the
+ *  position epsilon must be joined wherever they fall in the grid, any
+ *  other difference must keep them apart and the faces must follow.
+ */
+public class JoinVerticesProcessTest {
+
+	private final SceneArena arena = new SceneArena();
+
+	@After
+	public void release() {
+		arena.Release();
+	}
+
+	// -------------------------------------------------------------------
+	private static aiMesh CreateMesh(float[] pPositions, int[] pIndices, int pFaceSize) {
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(pPositions.length / 3);
+		mesh.SetVertices(FloatBuffer.wrap(pPositions));
+		mesh.SetFaces(IntBuffer.wrap(pIndices), pIndices.length / pFaceSize, pFaceSize);
+		return mesh;
+	}
+
+	// -------------------------------------------------------------------
+	private static void AssertIndices(int[] pExpected, IntBuffer pFaces) {
+		for (int i = 0; i < pExpected.length; ++i) {
+			assertEquals("index " + i, pExpected[i], pFaces.get(i));
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void verticesAcrossACellBorderAreJoined() {
+		// the bounding box is 6 wide, so are the cells of the grid
+		float epsilon = 6.f * (float)Math.sqrt(3) * JoinVerticesProcess.POSITION_EPSILON;
+		float border = 100 * 4.f * epsilon;
+		float near = border - 0.2f * epsilon, far = border + 0.2f * epsilon;
+		float[] pos = {
+			0, 0, 0,
+			near, near, near,
+			border - 0.8f * epsilon, 1, 1,
+			6, 6, 6,
+			far, far, far,
+			border + 0.8f * epsilon, 1, 1,
+		};
+		aiMesh mesh = CreateMesh(pos, new int[] { 0, 1, 2,   3, 4, 5 }, 3);
+
+		// the second pair is 1.6 epsilons apart and stays
+		assertEquals(5, JoinVerticesProcess.ProcessMesh(mesh, arena, ProgressTracker.NONE));
+		assertEquals(5, mesh.GetNumVertices());
+		AssertIndices(new int[] { 0, 1, 2,   3, 1, 4 }, mesh.GetFaces());
+		assertEquals(near, mesh.GetVertices().get(3), 0.f);
+		assertEquals(6.f, mesh.GetVertices().get(9), 0.f);
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void jitteredCopiesAreJoined() {
+		// a lattice of points, each with a copy off by half an epsilon
+		final int n = 10, count = n * n * n;
+		float epsilon = (float)Math.sqrt(3) * JoinVerticesProcess.POSITION_EPSILON;
+		float[] pos = new float[count * 2 * 3];
+		Random random = new Random(11);
+		for (int p = 0; p < count; ++p) {
+			float x = (p % n) / (n - 1.f), y = (p / n % n) / (n - 1.f), z = (p / (n * n)) / (n - 1.f);
+			for (int c = 0; c < 2; ++c) {
+				int v = (p * 2 + c) * 3;
+				float jitter = c == 0 ? 0.f : 0.25f * epsilon;
+				pos[v] = Math.min(1.f, Math.max(0.f, x + jitter * (random.nextFloat() * 2 - 1)));
+				pos[v + 1] = Math.min(1.f, Math.max(0.f, y + jitter * (random.nextFloat() * 2 - 1)));
+				pos[v + 2] = Math.min(1.f, Math.max(0.f, z + jitter * (random.nextFloat() * 2 - 1)));
+			}
+		}
+		int[] indices = new int[count * 2];
+		for (int i = 0; i < indices.length; ++i) {
+			indices[i] = i;
+		}
+		aiMesh mesh = CreateMesh(pos, indices, 2);
+
+		assertEquals(count, JoinVerticesProcess.ProcessMesh(mesh, arena, ProgressTracker.NONE));
+		IntBuffer faces = mesh.GetFaces();
+		for (int p = 0; p < count; ++p) {
+			assertEquals(p, faces.get(p * 2));
+			assertEquals(p, faces.get(p * 2 + 1));
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void otherChannelsKeepVerticesApart() {
+		float[] pos = {
+			0, 0, 0,   0, 0, 0,   0, 0, 0,   0, 0, 0,   1, 1, 1,
+		};
+		float[] normals = {
+			0, 0, 1,   0, 0, 1,   0, 1, 0,   0, 0, 1,   0, 0, 1,
+		};
+		float[] uvs = {
+			0, 0, 0,   0.5f, 0, 0,   0, 0, 0,   2e-6f, 0, 0,   1, 1, 0,
+		};
+		aiMesh mesh = CreateMesh(pos, new int[] { 0, 1, 4,   2, 3, 4 }, 3);
+		mesh.SetNormals(FloatBuffer.wrap(normals));
+		mesh.SetTextureCoords(0, FloatBuffer.wrap(uvs), 2);
+
+		// only the last copy is within the component epsilon of the first
+		assertEquals(4, JoinVerticesProcess.ProcessMesh(mesh, arena, ProgressTracker.NONE));
+		AssertIndices(new int[] { 0, 1, 3,   2, 0, 3 }, mesh.GetFaces());
+		assertEquals(0.5f, mesh.GetTextureCoords(0).get(3), 0.f);
+		assertEquals(2, mesh.GetNumUVComponents(0));
+		assertEquals(1.f, mesh.GetNormals().get(2 * 3 + 1), 0.f);
+		assertEquals(1.f, mesh.GetNormals().get(3 * 3 + 2), 0.f);
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void facesFollowTheJoinedVertices() {
+		// a quad and a triangle, each corner stored once per face
+		float[] pos = {
+			0, 0, 0,   1, 0, 0,   1, 1, 0,   0, 1, 0,
+			1, 0, 0,   2, 0, 0,   1, 1, 0,
+		};
+		int[] offsets = { 0, 4, 7 };
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(7);
+		mesh.SetVertices(FloatBuffer.wrap(pos));
+		IntBuffer faces = IntBuffer.wrap(new int[] { 0, 1, 2, 3,   4, 5, 6 });
+		mesh.SetFaces(faces, offsets);
+
+		assertEquals(5, JoinVerticesProcess.ProcessMesh(mesh, arena, ProgressTracker.NONE));
+		assertNotSame(faces, mesh.GetFaces());
+		assertArrayEquals(offsets, mesh.GetFaceOffsets());
+		AssertIndices(new int[] { 0, 1, 2, 3,   1, 4, 2 }, mesh.GetFaces());
+		// the input is left alone, it may be shared
+		assertEquals(6, faces.get(6));
+		assertEquals(2.f, mesh.GetVertices().get(4 * 3), 0.f);
+
+		// nothing left to join
+		faces = mesh.GetFaces();
+		assertEquals(5, JoinVerticesProcess.ProcessMesh(mesh, arena, ProgressTracker.NONE));
+		assertSame(faces, mesh.GetFaces());
+	}
+}
@@ -0,0 +1,74 @@
+package net.assimpj;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/** Post-processing of lazily loaded meshes, see LazyMeshes. A mesh is
+ *  processed when it is first accessed, with the properties the scene
+ *  was imported with, not those the Importer has by then.
+ */
+public class LazyMeshesTest {
+
+	/** Two triangles meeting at a right angle along the y axis */
+	private static final String FOLD =
+		"solid fold\n" +
+		"facet normal 0 0 1\n outer loop\n" +
+		"  vertex 0 0 0\n  vertex 1 0 0\n  vertex 0 1 0\n" +
+		" endloop\nendfacet\n" +
+		"facet normal -1 0 0\n outer loop\n" +
+		"  vertex 0 0 0\n  vertex 0 1 0\n  vertex 0 0 -1\n" +
+		" endloop\nendfacet\n" +
+		"endsolid fold\n";
+
+	// -------------------------------------------------------------------
+	/** Import the fold lazily with the given smoothing angle, the meshes
+	 *  are not loaded yet. The vertices are welded, so the mesh has no
+	 *  normals and the faces share the edge. */
+	private static aiScene ImportLazy(Importer pImp, float pMaxAngle) {
+		pImp.SetPropertyBool(aiConfig.AI_CONFIG_IMPORT_LAZY_MESHES, true, null);
+		pImp.SetPropertyBool(aiConfig.AI_CONFIG_IMPORT_STL_WELD_VERTICES, true, null);
+		pImp.SetPropertyFloat(aiConfig.AI_CONFIG_PP_GSN_MAX_SMOOTHING_ANGLE, pMaxAngle, null);
+		ByteBuffer data = ByteBuffer.wrap(FOLD.getBytes(StandardCharsets.US_ASCII));
+		assertNotNull(pImp.ReadFileFromMemory(data, aiPostProcessSteps.aiProcess_GenSmoothNormals, "stl"));
+		aiScene scene = pImp.GetOrphanedScene();
+		assertTrue(scene.HasLazyMeshes());
+		assertFalse(scene.IsMeshLoaded(0));
+		return scene;
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void stepsKeepThePropertiesOfTheImport() {
+		Importer imp = new Importer();
+		aiScene sharp = ImportLazy(imp, 30.f);
+		aiScene smooth = ImportLazy(imp, 175.f);
+		try {
+			// the first corner of each face is on the edge, each face keeps
+			// its own normal there
+			aiMesh mesh = sharp.GetMesh(0);
+			FloatBuffer normals = mesh.GetNormals();
+			IntBuffer faces = mesh.GetFaces();
+			assertEquals(1.f, normals.get(faces.get(0) * 3 + 2), 1e-6f);
+			assertEquals(-1.f, normals.get(faces.get(3) * 3), 1e-6f);
+
+			// with the default angle both faces share the edge normal
+			mesh = smooth.GetMesh(0);
+			normals = mesh.GetNormals();
+			faces = mesh.GetFaces();
+			assertEquals(faces.get(0), faces.get(3));
+			float d = (float)(1 / Math.sqrt(2));
+			assertEquals(-d, normals.get(faces.get(0) * 3), 1e-6f);
+			assertEquals(0.f, normals.get(faces.get(0) * 3 + 1), 1e-6f);
+			assertEquals(d, normals.get(faces.get(0) * 3 + 2), 1e-6f);
+		} finally {
+			sharp.Release();
+			smooth.Release();
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package net.assimpj;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+/** Progress of post-processing steps, see ProgressTracker. Steps report
+ *  from their loops, so a single large mesh moves the progress and can
+ *  be cancelled before the step is done with it.
+ */
+public class MeshProcessProgressTest {
+
+	private static final int NUM_VERTICES = 6 * (int)ProgressTracker.ELEMENT_GRANULARITY;
+
+	private final aiScene scene = new aiScene();
+
+	@After
+	public void release() {
+		scene.Release();
+	}
+
+	// -------------------------------------------------------------------
+	/** Handler recording its updates, cancelling at one of them */
+	private static final class RecordingHandler extends ProgressHandler {
+
+		final List<Float> updates = new ArrayList<Float>();
+		private final int mCancelAt;
+
+		RecordingHandler(int pCancelAt) {
+			mCancelAt = pCancelAt;
+		}
+
+		@Override
+		public boolean Update(float percentage) {
+			updates.add(percentage);
+			return updates.size() != mCancelAt;
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** A scene with one verbose triangle mesh */
+	private aiScene CreateScene() {
+		float[] pos = new float[NUM_VERTICES * 3];
+		int[] indices = new int[NUM_VERTICES];
+		for (int v = 0; v < NUM_VERTICES; ++v) {
+			pos[v * 3] = v % 1024;
+			pos[v * 3 + 1] = (v / 3) % 2;
+			pos[v * 3 + 2] = v / 1024;
+			indices[v] = v;
+		}
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(NUM_VERTICES);
+		mesh.SetVertices(FloatBuffer.wrap(pos));
+		mesh.SetFaces(IntBuffer.wrap(indices), NUM_VERTICES / 3, 3);
+		scene.SetMeshes(new aiMesh[] { mesh });
+		return scene;
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void largeMeshReportsFromTheLoops() {
+		JoinVerticesProcess step = new JoinVerticesProcess();
+		RecordingHandler handler = new RecordingHandler(-1);
+		step.progress = handler;
+		step.Execute(CreateScene());
+
+		assertTrue(handler.updates.size() >= 6);
+		for (int i = 1; i < handler.updates.size(); ++i) {
+			assertTrue(handler.updates.get(i) >= handler.updates.get(i - 1));
+		}
+		assertEquals(1.f, handler.updates.get(handler.updates.size() - 1), 1e-6f);
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void cancelStopsWithinTheMesh() {
+		JoinVerticesProcess step = new JoinVerticesProcess();
+		RecordingHandler handler = new RecordingHandler(1);
+		step.progress = handler;
+		CreateScene();
+		try {
+			step.Execute(scene);
+			fail("the step should have been cancelled");
+		} catch (DeadlyImportError err) {
+			assertEquals(ProgressTracker.CANCELLED, err.getMessage());
+		}
+		assertEquals(1, handler.updates.size());
+		assertEquals(NUM_VERTICES, scene.GetMesh(0).GetNumVertices());
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void cancelReleasesTheScene() {
+		final List<IOStream> closed = new ArrayList<IOStream>();
+		IOSystem io = new MemoryIOSystem(ByteBuffer.allocate(16), null) {
+			@Override
+			public void Close(IOStream pFile) {
+				closed.add(pFile);
+			}
+		};
+		IOStream stream = io.Open(MemoryIOSystem.AI_MEMORYIO_MAGIC_FILENAME, "rb");
+		CreateScene().mPrivate.Retain(stream, io);
+
+		Importer imp = new Importer();
+		// the pipeline ignores the result, the first step loop cancels
+		imp.SetProgressHandler(new ProgressHandler() {
+			@Override
+			public boolean Update(float percentage) {
+				return false;
+			}
+		});
+		imp.Pimpl().mScene = scene;
+		assertNull(imp.ApplyPostProcessing(aiPostProcessSteps.aiProcess_JoinIdenticalVertices));
+
+		assertEquals(ProgressTracker.CANCELLED, imp.GetErrorString());
+		assertTrue(scene.mPrivate.IsReleased());
+		assertEquals(1, closed.size());
+		assertSame(stream, closed.get(0));
+	}
+}
@@ -0,0 +1,65 @@
+package net.assimpj;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/** Element counts of PLY headers, see PLYImporter. The counts are only
+ *  a claim of the file, the importer must not allocate for them blindly.
+ */
+public class PLYImporterTest {
+
+	// -------------------------------------------------------------------
+	/** Import an ASCII PLY file from memory, NULL if it fails */
+	private static aiScene Import(Importer pImp, String pFile) {
+		ByteBuffer data = ByteBuffer.wrap(pFile.getBytes(StandardCharsets.US_ASCII));
+		return pImp.ReadFileFromMemory(data, 0, "ply");
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void vertexCountAboveTheChannelLimitFails() {
+		Importer imp = new Importer();
+		assertNull(Import(imp,
+			"ply\nformat ascii 1.0\n" +
+			"element vertex 1000000000\nproperty float x\nproperty float y\nproperty float z\n" +
+			"end_header\n0 0 0\n"));
+		assertEquals("Invalid .ply file: 1000000000 vertices, the limit is " + SceneArena.MAX_ELEMENTS / 3,
+			imp.GetErrorString());
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void faceCountIsNotAllocatedUpfront() {
+		Importer imp = new Importer();
+		assertNull(Import(imp,
+			"ply\nformat ascii 1.0\n" +
+			"element vertex 3\nproperty float x\nproperty float y\nproperty float z\n" +
+			"element face 2000000000\nproperty list uchar int vertex_indices\n" +
+			"end_header\n0 0 0\n1 0 0\n0 1 0\n3 0 1 2\n"));
+		assertEquals("Invalid .ply file: Unexpected end of file", imp.GetErrorString());
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void asciiFacesGrowPastTheInitialSize() {
+		StringBuilder file = new StringBuilder("ply\nformat ascii 1.0\n" +
+			"element vertex 3\nproperty float x\nproperty float y\nproperty float z\n" +
+			"element face 10000\nproperty list uchar int vertex_indices\n" +
+			"end_header\n0 0 0\n1 0 0\n0 1 0\n");
+		for (int f = 0; f < 10000; ++f) {
+			file.append(f % 2 == 0 ? "3 0 1 2\n" : "4 0 1 2 0\n");
+		}
+		Importer imp = new Importer();
+		aiScene scene = Import(imp, file.toString());
+		assertNotNull(imp.GetErrorString(), scene);
+		aiMesh mesh = scene.GetMesh(0);
+		assertEquals(10000, mesh.GetNumFaces());
+		assertEquals(35000, mesh.GetNumIndices());
+		assertEquals(35000 - 4, mesh.GetFaceOffset(9999));
+		imp.FreeScene();
+	}
+}
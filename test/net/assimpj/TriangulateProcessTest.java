@@ -0,0 +1,228 @@
+package net.assimpj;
+
+import static org.junit.Assert.*;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+
+/** Polygon splitting, see TriangulateProcess. The triangles of a simple
+ *  polygon must cover it exactly, all wound like the polygon; broken
+ *  faces must still come out as n - 2 triangles of their own corners.
+ */
+public class TriangulateProcessTest {
+
+	private final SceneArena arena = new SceneArena();
+
+	@After
+	public void release() {
+		arena.Release();
+	}
+
+	// -------------------------------------------------------------------
+	/** Build a mesh of a single polygon, its corners in order */
+	private static aiMesh CreatePolygon(float[] pPositions) {
+		int n = pPositions.length / 3;
+		int[] indices = new int[n];
+		for (int k = 0; k < n; ++k) {
+			indices[k] = k;
+		}
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(n);
+		mesh.SetVertices(FloatBuffer.wrap(pPositions));
+		mesh.SetFaces(IntBuffer.wrap(indices), 1, n);
+		return mesh;
+	}
+
+	// -------------------------------------------------------------------
+	/** Cross product of (b - a) and (c - a) */
+	private static float[] Cross(FloatBuffer pPos, int pA, int pB, int pC) {
+		float ux = pPos.get(pB * 3) - pPos.get(pA * 3), uy = pPos.get(pB * 3 + 1) - pPos.get(pA * 3 + 1),
+			uz = pPos.get(pB * 3 + 2) - pPos.get(pA * 3 + 2);
+		float vx = pPos.get(pC * 3) - pPos.get(pA * 3), vy = pPos.get(pC * 3 + 1) - pPos.get(pA * 3 + 1),
+			vz = pPos.get(pC * 3 + 2) - pPos.get(pA * 3 + 2);
+		return new float[] { uy * vz - uz * vy, uz * vx - ux * vz, ux * vy - uy * vx };
+	}
+
+	// -------------------------------------------------------------------
+	/** Triangulate a simple polygon and check its triangles are wound
+	 *  like it and add up to its area, so none overlaps or sticks out */
+	private aiMesh AssertCovers(float[] pPositions) {
+		aiMesh mesh = CreatePolygon(pPositions);
+		int n = mesh.GetNumVertices();
+		FloatBuffer pos = mesh.GetVertices();
+
+		// twice the area vector of the polygon
+		float[] normal = new float[3];
+		for (int k = 1; k < n - 1; ++k) {
+			float[] c = Cross(pos, 0, k, k + 1);
+			for (int i = 0; i < 3; ++i) {
+				normal[i] += c[i];
+			}
+		}
+		float area = (float)Math.sqrt(normal[0] * normal[0] + normal[1] * normal[1] + normal[2] * normal[2]);
+
+		assertTrue(TriangulateProcess.TriangulateMesh(mesh, arena, ProgressTracker.NONE));
+		assertEquals(n - 2, mesh.GetNumFaces());
+		assertEquals(3, mesh.GetFaceSize());
+		assertEquals(aiMeshConst.aiPrimitiveType_TRIANGLE, mesh.GetPrimitiveTypes());
+
+		IntBuffer faces = mesh.GetFaces();
+		float sum = 0.f;
+		for (int f = 0; f < n - 2; ++f) {
+			float[] c = Cross(pos, faces.get(f * 3), faces.get(f * 3 + 1), faces.get(f * 3 + 2));
+			float dot = (c[0] * normal[0] + c[1] * normal[1] + c[2] * normal[2]) / area;
+			assertTrue("triangle " + f + " is flipped or empty", dot > 0.f);
+			sum += dot;
+		}
+		assertEquals(area, sum, area * 1e-5f);
+		return mesh;
+	}
+
+	// -------------------------------------------------------------------
+	/** Triangulate a broken polygon and check it still gives n - 2
+	 *  triangles that use every corner and nothing else */
+	private void AssertStillCovered(float[] pPositions) {
+		aiMesh mesh = CreatePolygon(pPositions);
+		int n = mesh.GetNumVertices();
+		assertTrue(TriangulateProcess.TriangulateMesh(mesh, arena, ProgressTracker.NONE));
+		assertEquals(n - 2, mesh.GetNumFaces());
+		assertEquals(3, mesh.GetFaceSize());
+
+		IntBuffer faces = mesh.GetFaces();
+		Set<Integer> used = new HashSet<Integer>();
+		for (int i = 0; i < (n - 2) * 3; ++i) {
+			int v = faces.get(i);
+			assertTrue(v >= 0 && v < n);
+			used.add(v);
+		}
+		assertEquals(n, used.size());
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void convexPolygonsAreFanned() {
+		aiMesh mesh = AssertCovers(new float[] { 0, 0, 0,   2, 0, 0,   3, 1, 0,   2, 2, 0,   0, 2, 0,   -1, 1, 0 });
+		for (int f = 0; f < 4; ++f) {
+			assertEquals(0, mesh.GetFaces().get(f * 3));
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void concaveQuadIsFannedFromItsReflexCorner() {
+		// an arrowhead, the corner at index 2 points inwards
+		aiMesh mesh = AssertCovers(new float[] { 4, 2, 0,   0, 4, 0,   1, 2, 0,   0, 0, 0 });
+		assertEquals(2, mesh.GetFaces().get(0));
+		assertEquals(2, mesh.GetFaces().get(3));
+
+		// the same, clockwise and in the yz plane
+		mesh = AssertCovers(new float[] { 0, 0, 0,   0, 1, 2,   0, 0, 4,   0, 4, 2 });
+		assertEquals(1, mesh.GetFaces().get(0));
+		assertEquals(1, mesh.GetFaces().get(3));
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void concavePolygonsAreEarClipped() {
+		// L shape, one reflex corner
+		AssertCovers(new float[] { 0, 0, 0,   2, 0, 0,   2, 1, 0,   1, 1, 0,   1, 2, 0,   0, 2, 0 });
+		// comb with three teeth, clockwise
+		AssertCovers(new float[] {
+			0, 0, 0,   0, 3, 0,   1, 3, 0,   1, 1, 0,   2, 1, 0,   2, 3, 0,
+			3, 3, 0,   3, 1, 0,   4, 1, 0,   4, 3, 0,   5, 3, 0,   5, 0, 0,
+		});
+		// star with five reflex corners, tilted out of every axis plane
+		float[] star = new float[30];
+		for (int k = 0; k < 10; ++k) {
+			double angle = Math.PI * k / 5, radius = (k & 1) == 0 ? 2.0 : 0.8;
+			float x = (float)(radius * Math.cos(angle)), y = (float)(radius * Math.sin(angle));
+			star[k * 3] = x;
+			star[k * 3 + 1] = 0.6f * y;
+			star[k * 3 + 2] = 0.8f * y + 0.3f * x;
+		}
+		AssertCovers(star);
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void brokenPolygonsAreStillCovered() {
+		// all corners on a line
+		AssertStillCovered(new float[] { 0, 0, 0,   1, 0, 0,   2, 0, 0,   3, 0, 0,   4, 0, 0 });
+		// all corners on one spot
+		AssertStillCovered(new float[] { 1, 1, 1,   1, 1, 1,   1, 1, 1,   1, 1, 1,   1, 1, 1,   1, 1, 1 });
+		// a corner visited twice
+		AssertStillCovered(new float[] { 0, 0, 0,   2, 0, 0,   1, 1, 0,   2, 2, 0,   0, 2, 0,   1, 1, 0 });
+		// bow tie
+		AssertStillCovered(new float[] { 0, 0, 0,   2, 2, 0,   2, 0, 0,   0, 2, 0 });
+		// pentagram, every edge crosses two others
+		float[] pentagram = new float[15];
+		for (int k = 0; k < 5; ++k) {
+			double angle = 2 * Math.PI * ((k * 2) % 5) / 5;
+			pentagram[k * 3] = (float)Math.cos(angle);
+			pentagram[k * 3 + 1] = (float)Math.sin(angle);
+		}
+		AssertStillCovered(pentagram);
+		// figure eight
+		AssertStillCovered(new float[] { 0, 0, 0,   1, 1, 0,   2, 0, 0,   3, 1, 0,   2, 2, 0,   1, 1, 0,   0, 2, 0 });
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void pointsAndLinesKeepTheirPlace() {
+		float[] pos = new float[8 * 3];
+		for (int v = 0; v < 8; ++v) {
+			pos[v * 3] = (float)Math.cos(v * Math.PI / 4);
+			pos[v * 3 + 1] = (float)Math.sin(v * Math.PI / 4);
+		}
+		// a point, a line, a quad, a triangle, a pentagon and another point
+		int[] indices = { 7,   6, 5,   0, 1, 2, 3,   4, 5, 6,   0, 2, 4, 6, 7,   3 };
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(8);
+		mesh.SetVertices(FloatBuffer.wrap(pos));
+		mesh.SetFaces(IntBuffer.wrap(indices), new int[] { 0, 1, 3, 7, 10, 15, 16 });
+		mesh.SetPrimitiveTypes(aiMeshConst.aiPrimitiveType_POINT | aiMeshConst.aiPrimitiveType_LINE
+			| aiMeshConst.aiPrimitiveType_TRIANGLE | aiMeshConst.aiPrimitiveType_POLYGON);
+
+		assertTrue(TriangulateProcess.TriangulateMesh(mesh, arena, ProgressTracker.NONE));
+		assertEquals(aiMeshConst.aiPrimitiveType_POINT | aiMeshConst.aiPrimitiveType_LINE
+			| aiMeshConst.aiPrimitiveType_TRIANGLE, mesh.GetPrimitiveTypes());
+		assertArrayEquals(new int[] { 0, 1, 3, 6, 9, 12, 15, 18, 21, 22 }, mesh.GetFaceOffsets());
+		assertEquals(9, mesh.GetNumFaces());
+
+		IntBuffer faces = mesh.GetFaces();
+		assertEquals(7, faces.get(0));
+		assertEquals(6, faces.get(1));
+		assertEquals(5, faces.get(2));
+		assertEquals(4, faces.get(9));
+		assertEquals(5, faces.get(10));
+		assertEquals(6, faces.get(11));
+		assertEquals(3, faces.get(21));
+		for (int f = 0; f < 9; ++f) {
+			int n = mesh.GetFaceNumIndices(f);
+			assertEquals(f == 0 || f == 8 ? 1 : f == 1 ? 2 : 3, n);
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void quadsOnlyGiveFixedSizeFaces() {
+		aiMesh mesh = new aiMesh();
+		mesh.SetNumVertices(6);
+		mesh.SetVertices(FloatBuffer.wrap(new float[] { 0, 0, 0,   1, 0, 0,   2, 0, 0,   2, 1, 0,   1, 1, 0,   0, 1, 0 }));
+		mesh.SetFaces(IntBuffer.wrap(new int[] { 0, 1, 4, 5,   1, 2, 3,   1, 3, 4 }), new int[] { 0, 4, 7, 10 });
+
+		assertTrue(TriangulateProcess.TriangulateMesh(mesh, arena, ProgressTracker.NONE));
+		assertNull(mesh.GetFaceOffsets());
+		assertEquals(3, mesh.GetFaceSize());
+		assertEquals(4, mesh.GetNumFaces());
+		assertEquals(aiMeshConst.aiPrimitiveType_TRIANGLE, mesh.GetPrimitiveTypes());
+
+		// triangles only, nothing to do
+		assertFalse(TriangulateProcess.TriangulateMesh(mesh, arena, ProgressTracker.NONE));
+	}
+}
@@ -0,0 +1,254 @@
+package net.assimpj;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+/** Number parsing of the text loaders, see fast_atof. Floats must come
+ *  out exactly as Float.parseFloat() rounds them, whichever of the fast
+ *  path, Eisel-Lemire or the JDK fallback handles the text.
+ */
+public class fast_atofTest {
+
+	/** Put in front of every number, so positions are checked as
+	 *  absolute ones */
+	private static final String PREFIX = "v ";
+
+	private final float[] outFloat = new float[1];
+	private final int[] outInt = new int[3];
+
+	// -------------------------------------------------------------------
+	private static ByteBuffer Wrap(String pText) {
+		return ByteBuffer.wrap((PREFIX + pText).getBytes(StandardCharsets.US_ASCII));
+	}
+
+	// -------------------------------------------------------------------
+	/** Parse a float that makes up all of pText */
+	private float ParseFloat(String pText) {
+		ByteBuffer buffer = Wrap(pText);
+		assertEquals(pText, buffer.limit(), fast_atof.ParseFloat(buffer, PREFIX.length(), buffer.limit(), outFloat, 0));
+		return outFloat[0];
+	}
+
+	// -------------------------------------------------------------------
+	/** Check a float parses bit for bit as in the JDK */
+	private void AssertLikeJdk(String pText) {
+		float expected = Float.parseFloat(pText);
+		assertEquals(pText, Float.floatToRawIntBits(expected), Float.floatToRawIntBits(ParseFloat(pText)));
+	}
+
+	// -------------------------------------------------------------------
+	private void AssertNotANumber(String pText) {
+		ByteBuffer buffer = Wrap(pText);
+		try {
+			fast_atof.ParseFloat(buffer, PREFIX.length(), buffer.limit(), outFloat, 0);
+			fail(pText + " should not parse");
+		} catch (DeadlyImportError err) {
+			assertEquals("Expected a number", err.getMessage());
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void shortestRepresentationsRoundTrip() {
+		Random random = new Random(42);
+		for (int i = 0; i < 200000; ++i) {
+			float f = Float.intBitsToFloat(random.nextInt());
+			if (Float.isNaN(f) || Float.isInfinite(f)) {
+				continue;
+			}
+			String text = Float.toString(f);
+			assertEquals(text, Float.floatToRawIntBits(f), Float.floatToRawIntBits(ParseFloat(text)));
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void doublePrecisionTextRoundsLikeJdk() {
+		Random random = new Random(7);
+		for (int i = 0; i < 200000; ++i) {
+			double d = Double.longBitsToDouble(random.nextLong());
+			if (Double.isNaN(d) || Double.isInfinite(d)) {
+				continue;
+			}
+			AssertLikeJdk(Double.toString(d));
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void plainDecimals() {
+		assertEquals(0.f, ParseFloat("0"), 0.f);
+		assertEquals(1.5f, ParseFloat("1.5"), 0.f);
+		assertEquals(-0.25f, ParseFloat("-.25"), 0.f);
+		assertEquals(3.f, ParseFloat("+3."), 0.f);
+		assertEquals(1e10f, ParseFloat("1E10"), 0.f);
+		assertEquals(Float.floatToRawIntBits(-0.f), Float.floatToRawIntBits(ParseFloat("-0.0")));
+		AssertLikeJdk("0.1");
+		AssertLikeJdk("3.14159265");
+		AssertLikeJdk("123456.789e-3");
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void subnormals() {
+		AssertLikeJdk("1.4e-45");
+		AssertLikeJdk("1.4012984643e-45");
+		AssertLikeJdk("7.1e-46");
+		AssertLikeJdk("7e-46");
+		AssertLikeJdk("2.8e-45");
+		AssertLikeJdk("1.1754942e-38");
+		AssertLikeJdk("1.17549435e-38");
+		AssertLikeJdk("5.877471754111438e-39");
+		assertEquals(Float.MIN_VALUE, ParseFloat("1.4e-45"), 0.f);
+		assertEquals(Float.MIN_NORMAL, ParseFloat("1.17549435e-38"), 0.f);
+		assertEquals(0.f, ParseFloat("7e-46"), 0.f);
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void halfwayCasesRoundToEven() {
+		// 2^24 + 1, 2^24 + 3, 2^25 + 2 and 2^25 + 6 are halfway between two floats
+		assertEquals(16777216.f, ParseFloat("16777217"), 0.f);
+		assertEquals(16777220.f, ParseFloat("16777219"), 0.f);
+		assertEquals(16777216.f, ParseFloat("1.6777217e7"), 0.f);
+		assertEquals(33554432.f, ParseFloat("33554434"), 0.f);
+		assertEquals(33554440.f, ParseFloat("33554438"), 0.f);
+		// halfway between Float.MAX_VALUE and the next power of two
+		AssertLikeJdk("3.4028235677973366e38");
+		AssertLikeJdk("3.4028235677973365e38");
+		// halfway between the two smallest subnormals
+		AssertLikeJdk("2.1019476964872256e-45");
+		// halfway cases with exact powers of two and five
+		for (long m = (1L << 24) + 1; m < (1L << 24) + 64; m += 2) {
+			AssertLikeJdk(m + "e3");
+			AssertLikeJdk(m + "0000000000");
+			AssertLikeJdk(new BigDecimal(m).divide(new BigDecimal(1L << 40)).toPlainString());
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void longMantissas() {
+		// the digits after the first 19 decide the rounding
+		assertEquals(16777218.f, ParseFloat("16777217.000000000000000000001"), 0.f);
+		assertEquals(16777216.f, ParseFloat("16777216.999999999999999999999999"), 0.f);
+		assertEquals(16777216.f, ParseFloat("16777217.000000000000000000000000"), 0.f);
+		AssertLikeJdk("1.00000005960464477539062500000000000000000001");
+		AssertLikeJdk("1.00000005960464477539062499999999999999999999");
+		AssertLikeJdk("123456789012345678901234567890123456789");
+		AssertLikeJdk("0.000000000000000000000000000000000000000000001401298464324817070923729583289916131280");
+		Random random = new Random(3);
+		for (int i = 0; i < 20000; ++i) {
+			StringBuilder text = new StringBuilder();
+			text.append(1 + random.nextInt(9));
+			for (int d = 20 + random.nextInt(40); d > 0; --d) {
+				text.append(random.nextInt(10));
+			}
+			text.insert(1 + random.nextInt(text.length() - 1), '.');
+			text.append('e').append(random.nextInt(90) - 60);
+			AssertLikeJdk(text.toString());
+		}
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void outOfRangeExponents() {
+		assertEquals(Float.POSITIVE_INFINITY, ParseFloat("1e39"), 0.f);
+		assertEquals(Float.NEGATIVE_INFINITY, ParseFloat("-1e100000000"), 0.f);
+		assertEquals(0.f, ParseFloat("1e-50"), 0.f);
+		assertEquals(Float.floatToRawIntBits(-0.f), Float.floatToRawIntBits(ParseFloat("-1e-100000")));
+		assertEquals(0.f, ParseFloat("0e999999"), 0.f);
+		AssertLikeJdk("3.4028236e38");
+		AssertLikeJdk("0.00001e43");
+		AssertLikeJdk("100000000000000000000000000000000000000000000e-50");
+
+		// a dangling exponent marker is not part of the number
+		ByteBuffer buffer = Wrap("2e+ ");
+		assertEquals(PREFIX.length() + 1, fast_atof.ParseFloat(buffer, PREFIX.length(), buffer.limit(), outFloat, 0));
+		assertEquals(2.f, outFloat[0], 0.f);
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void specialValuesMatchExactly() {
+		assertTrue(Float.isNaN(ParseFloat("nan")));
+		assertTrue(Float.isNaN(ParseFloat("NaN")));
+		assertTrue(Float.isNaN(ParseFloat("-nan")));
+		assertEquals(Float.POSITIVE_INFINITY, ParseFloat("inf"), 0.f);
+		assertEquals(Float.POSITIVE_INFINITY, ParseFloat("+Infinity"), 0.f);
+		assertEquals(Float.NEGATIVE_INFINITY, ParseFloat("-INF"), 0.f);
+
+		AssertNotANumber("n");
+		AssertNotANumber("nano");
+		AssertNotANumber("in");
+		AssertNotANumber("info");
+		AssertNotANumber("infinit");
+		AssertNotANumber("infinityx");
+		AssertNotANumber("normal");
+		AssertNotANumber("-");
+		AssertNotANumber(".");
+
+		// the word ends at the first character that isn't a letter
+		ByteBuffer buffer = Wrap("inf 1");
+		assertEquals(PREFIX.length() + 3, fast_atof.ParseFloat(buffer, PREFIX.length(), buffer.limit(), outFloat, 0));
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void integers() {
+		ByteBuffer buffer = Wrap("123 -2147483648 +7 2147483647/");
+		int p = fast_atof.ParseInt(buffer, PREFIX.length(), buffer.limit(), outInt, 0);
+		assertEquals(PREFIX.length() + 3, p);
+		assertEquals(123, outInt[0]);
+		p = fast_atof.ParseInt(buffer, p + 1, buffer.limit(), outInt, 0);
+		assertEquals(Integer.MIN_VALUE, outInt[0]);
+		p = fast_atof.ParseInt(buffer, p + 1, buffer.limit(), outInt, 0);
+		assertEquals(7, outInt[0]);
+		p = fast_atof.ParseInt(buffer, p + 1, buffer.limit(), outInt, 0);
+		assertEquals(Integer.MAX_VALUE, outInt[0]);
+		assertEquals('/', buffer.get(p));
+
+		for (String text : new String[] { "2147483648", "-2147483649", "99999999999999999999", "-", "+", "x" }) {
+			buffer = Wrap(text);
+			try {
+				fast_atof.ParseInt(buffer, PREFIX.length(), buffer.limit(), outInt, 0);
+				fail(text + " should not parse");
+			} catch (DeadlyImportError err) {
+				// expected
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Parse a triplet, check it ends at the end of the text and return
+	 *  the three indices */
+	private int[] ParseTriplet(String pText) {
+		ByteBuffer buffer = Wrap(pText);
+		assertEquals(pText, buffer.limit(),
+			fast_atof.ParseIndexTriplet(buffer, PREFIX.length(), buffer.limit(), outInt, 0));
+		return outInt.clone();
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void indexTriplets() {
+		assertArrayEquals(new int[] { 1, 0, 0 }, ParseTriplet("1"));
+		assertArrayEquals(new int[] { 12, 34, 0 }, ParseTriplet("12/34"));
+		assertArrayEquals(new int[] { 5, 0, 6 }, ParseTriplet("5//6"));
+		assertArrayEquals(new int[] { 7, 8, 9 }, ParseTriplet("7/8/9"));
+		assertArrayEquals(new int[] { -1, -2, -3 }, ParseTriplet("-1/-2/-3"));
+		assertArrayEquals(new int[] { 4, 0, 0 }, ParseTriplet("4/"));
+
+		// the triplet ends before the next one, the indices are reset
+		outInt[1] = outInt[2] = 99;
+		ByteBuffer buffer = Wrap("3 1/2/3");
+		assertEquals(PREFIX.length() + 1, fast_atof.ParseIndexTriplet(buffer, PREFIX.length(), buffer.limit(), outInt, 0));
+		assertArrayEquals(new int[] { 3, 0, 0 }, outInt);
+	}
+}
@@ -0,0 +1,205 @@
+package net.assimpj;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.After;
+import org.junit.Test;
+
+/** Accessors of glTF 2.0 files, see glTF2Asset. Packed data is handed
+ *  out as views, interleaved and sparse data is converted, texture
+ *  coordinates are flipped and all indices are checked.
+ */
+public class glTF2ImporterTest {
+
+	/** Name of the file served from memory */
+	private static final String FILE = MemoryIOSystem.AI_MEMORYIO_MAGIC_FILENAME + ".gltf";
+
+	/** The buffer shared by all fixtures, embedded as a data URI:
+	 *  -   0: 3 vertices of interleaved positions and UVs, stride 20
+	 *  -  60: 3 packed positions
+	 *  -  96: unsigned short indices 0 1 2, padded
+	 *  - 104: unsigned short indices 0 1 3, padded
+	 *  - 112: sparse index 2
+	 *  - 116: sparse position 5 5 5
+	 *  - 128: sparse UV 0.5 0.2
+	 *  - 136: sparse index 3
+	 *  - 140: unsigned int indices 0 1 2 */
+	private static final String BUFFER;
+
+	static {
+		ByteBuffer data = ByteBuffer.allocate(152).order(ByteOrder.LITTLE_ENDIAN);
+		data.putFloat(0).putFloat(0).putFloat(0).putFloat(0).putFloat(0);
+		data.putFloat(1).putFloat(0).putFloat(0).putFloat(1).putFloat(0.25f);
+		data.putFloat(0).putFloat(1).putFloat(0).putFloat(0).putFloat(1);
+		data.putFloat(0).putFloat(0).putFloat(0);
+		data.putFloat(2).putFloat(0).putFloat(0);
+		data.putFloat(0).putFloat(2).putFloat(0);
+		data.putShort((short)0).putShort((short)1).putShort((short)2).putShort((short)0);
+		data.putShort((short)0).putShort((short)1).putShort((short)3).putShort((short)0);
+		data.putInt(2);
+		data.putFloat(5).putFloat(5).putFloat(5);
+		data.putFloat(0.5f).putFloat(0.2f);
+		data.putInt(3);
+		data.putInt(0).putInt(1).putInt(2);
+		BUFFER = "data:application/octet-stream;base64," + Base64.getEncoder().encodeToString(data.array());
+	}
+
+	/** Accessors of the fixtures */
+	private static final int ACC_INTERLEAVED_POS = 0, ACC_INTERLEAVED_UV = 1, ACC_PACKED_POS = 2,
+		ACC_INDICES = 3, ACC_BAD_INDICES = 4, ACC_SPARSE_POS = 5, ACC_SPARSE_UV = 6, ACC_SPARSE_ZEROS = 7,
+		ACC_BAD_SPARSE = 8, ACC_UINT_INDICES = 9;
+
+	private static final String ACCESSORS =
+		"\"accessors\": [" +
+		"{\"bufferView\": 0, \"componentType\": 5126, \"count\": 3, \"type\": \"VEC3\"}," +
+		"{\"bufferView\": 0, \"byteOffset\": 12, \"componentType\": 5126, \"count\": 3, \"type\": \"VEC2\"}," +
+		"{\"bufferView\": 1, \"componentType\": 5126, \"count\": 3, \"type\": \"VEC3\"}," +
+		"{\"bufferView\": 2, \"componentType\": 5123, \"count\": 3, \"type\": \"SCALAR\"}," +
+		"{\"bufferView\": 3, \"componentType\": 5123, \"count\": 3, \"type\": \"SCALAR\"}," +
+		"{\"bufferView\": 1, \"componentType\": 5126, \"count\": 3, \"type\": \"VEC3\", \"sparse\": {\"count\": 1," +
+		" \"indices\": {\"bufferView\": 4, \"componentType\": 5125}, \"values\": {\"bufferView\": 5}}}," +
+		"{\"bufferView\": 0, \"byteOffset\": 12, \"componentType\": 5126, \"count\": 3, \"type\": \"VEC2\"," +
+		" \"sparse\": {\"count\": 1," +
+		" \"indices\": {\"bufferView\": 4, \"componentType\": 5125}, \"values\": {\"bufferView\": 6}}}," +
+		"{\"componentType\": 5126, \"count\": 3, \"type\": \"VEC3\", \"sparse\": {\"count\": 1," +
+		" \"indices\": {\"bufferView\": 4, \"componentType\": 5125}, \"values\": {\"bufferView\": 5}}}," +
+		"{\"bufferView\": 1, \"componentType\": 5126, \"count\": 3, \"type\": \"VEC3\", \"sparse\": {\"count\": 1," +
+		" \"indices\": {\"bufferView\": 7, \"componentType\": 5125}, \"values\": {\"bufferView\": 5}}}," +
+		"{\"bufferView\": 8, \"componentType\": 5125, \"count\": 3, \"type\": \"SCALAR\"}" +
+		"]";
+
+	private static final String BUFFER_VIEWS =
+		"\"bufferViews\": [" +
+		"{\"buffer\": 0, \"byteOffset\": 0, \"byteLength\": 60, \"byteStride\": 20}," +
+		"{\"buffer\": 0, \"byteOffset\": 60, \"byteLength\": 36}," +
+		"{\"buffer\": 0, \"byteOffset\": 96, \"byteLength\": 8}," +
+		"{\"buffer\": 0, \"byteOffset\": 104, \"byteLength\": 8}," +
+		"{\"buffer\": 0, \"byteOffset\": 112, \"byteLength\": 4}," +
+		"{\"buffer\": 0, \"byteOffset\": 116, \"byteLength\": 12}," +
+		"{\"buffer\": 0, \"byteOffset\": 128, \"byteLength\": 8}," +
+		"{\"buffer\": 0, \"byteOffset\": 136, \"byteLength\": 4}," +
+		"{\"buffer\": 0, \"byteOffset\": 140, \"byteLength\": 12}" +
+		"]";
+
+	private final SceneArena arena = new SceneArena();
+
+	@After
+	public void release() {
+		arena.Release();
+	}
+
+	// -------------------------------------------------------------------
+	/** A .gltf file with a single mesh of a single primitive
+	 *  @param pPositions Accessor of the positions
+	 *  @param pTexCoords Accessor of the UVs, -1 for none
+	 *  @param pIndices Accessor of the indices, -1 for none */
+	private static ByteBuffer Document(int pPositions, int pTexCoords, int pIndices) {
+		String json = "{\"asset\": {\"version\": \"2.0\"}," +
+			"\"buffers\": [{\"byteLength\": 152, \"uri\": \"" + BUFFER + "\"}]," +
+			BUFFER_VIEWS + "," + ACCESSORS + "," +
+			"\"meshes\": [{\"primitives\": [{\"attributes\": {\"POSITION\": " + pPositions +
+			(pTexCoords >= 0 ? ", \"TEXCOORD_0\": " + pTexCoords : "") + "}" +
+			(pIndices >= 0 ? ", \"indices\": " + pIndices : "") + "}]}]}";
+		return ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// -------------------------------------------------------------------
+	private static void AssertChannel(float[] pExpected, FloatBuffer pChannel) {
+		for (int i = 0; i < pExpected.length; ++i) {
+			assertEquals("component " + i, pExpected[i], pChannel.get(i), 1e-6f);
+		}
+	}
+
+	// -------------------------------------------------------------------
+	/** Import a document, which must succeed, and return its mesh */
+	private static aiMesh Import(Importer pImp, ByteBuffer pDocument) {
+		aiScene scene = pImp.ReadFileFromMemory(pDocument, 0, "gltf");
+		assertNotNull(pImp.GetErrorString(), scene);
+		assertEquals(1, scene.GetNumMeshes());
+		return scene.GetMesh(0);
+	}
+
+	// -------------------------------------------------------------------
+	/** Import a document, which must fail with the given error */
+	private static void AssertFails(String pError, ByteBuffer pDocument) {
+		Importer imp = new Importer();
+		assertNull(imp.ReadFileFromMemory(pDocument, 0, "gltf"));
+		assertEquals(pError, imp.GetErrorString());
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void packedDataIsAliased() {
+		glTF2Asset asset = new glTF2Asset(FILE, new MemoryIOSystem(Document(ACC_PACKED_POS, -1, -1), null), arena);
+		long allocated = arena.GetAllocatedBytes();
+
+		FloatBuffer positions = asset.GetAccessor(ACC_PACKED_POS).ReadChannel(arena, aiMeshConst.AI_VECTOR_COMPONENTS, 0.f);
+		IntBuffer indices = asset.GetAccessor(ACC_UINT_INDICES).ReadIndices(arena);
+		assertEquals(2, asset.mNumAliased);
+		assertEquals(allocated, arena.GetAllocatedBytes());
+		AssertChannel(new float[] { 0, 0, 0,   2, 0, 0,   0, 2, 0 }, positions);
+		assertEquals(2, indices.get(2));
+
+		// the views share the memory of the buffer
+		asset.mBuffers[0].putFloat(60 + 12, 7.f);
+		assertEquals(7.f, positions.get(3), 0.f);
+
+		// interleaved data and small index types are copied
+		asset.GetAccessor(ACC_INTERLEAVED_POS).ReadChannel(arena, aiMeshConst.AI_VECTOR_COMPONENTS, 0.f);
+		asset.GetAccessor(ACC_INDICES).ReadIndices(arena);
+		assertEquals(2, asset.mNumAliased);
+		assertTrue(arena.GetAllocatedBytes() > allocated);
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void interleavedDataIsDeinterleaved() {
+		Importer imp = new Importer();
+		aiMesh mesh = Import(imp, Document(ACC_INTERLEAVED_POS, ACC_INTERLEAVED_UV, ACC_INDICES));
+		assertEquals(3, mesh.GetNumVertices());
+		AssertChannel(new float[] { 0, 0, 0,   1, 0, 0,   0, 1, 0 }, mesh.GetVertices());
+		assertEquals(2, mesh.GetNumUVComponents(0));
+		assertEquals(1, mesh.GetNumFaces());
+		assertEquals(2, mesh.GetFaces().get(2));
+		imp.FreeScene();
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void texCoordsAreFlipped() {
+		Importer imp = new Importer();
+		aiMesh mesh = Import(imp, Document(ACC_INTERLEAVED_POS, ACC_INTERLEAVED_UV, -1));
+		AssertChannel(new float[] { 0, 1, 0,   1, 0.75f, 0,   0, 0, 0 }, mesh.GetTextureCoords(0));
+		imp.FreeScene();
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void sparseValuesOverrideTheBase() {
+		Importer imp = new Importer();
+		aiMesh mesh = Import(imp, Document(ACC_SPARSE_POS, ACC_SPARSE_UV, -1));
+		AssertChannel(new float[] { 0, 0, 0,   2, 0, 0,   5, 5, 5 }, mesh.GetVertices());
+		// sparse UVs are flipped like the others
+		AssertChannel(new float[] { 0, 1, 0,   1, 0.75f, 0,   0.5f, 0.8f, 0 }, mesh.GetTextureCoords(0));
+
+		// without a bufferView, the base is all zeros
+		mesh = Import(imp, Document(ACC_SPARSE_ZEROS, -1, -1));
+		AssertChannel(new float[] { 0, 0, 0,   0, 0, 0,   5, 5, 5 }, mesh.GetVertices());
+		imp.FreeScene();
+	}
+
+	// -------------------------------------------------------------------
+	@Test
+	public void indicesOutOfRangeFail() {
+		AssertFails("GLTF: Vertex index out of range", Document(ACC_PACKED_POS, -1, ACC_BAD_INDICES));
+		AssertFails("GLTF: Sparse accessor index out of range", Document(ACC_BAD_SPARSE, -1, -1));
+		AssertFails("GLTF: Accessor index 12 out of range", Document(12, -1, -1));
+	}
+}
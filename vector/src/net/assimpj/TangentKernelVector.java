@@ -0,0 +1,145 @@
+package net.assimpj;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/** #TangentKernel using the incubating Vector API, one face or vertex
+ *  per lane. Loaded reflectively by TangentKernel.Get(), so the library
+ *  still runs without this module or the jdk.incubator.vector module. 
+ *  The remainder of a block that doesn't fill a vector goes to the scalar
+ *  kernel.
+ */
+final class TangentKernelVector extends TangentKernel {
+
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+	private TangentKernelVector() {
+	}
+
+	// -------------------------------------------------------------------
+	/** Get the kernel if the CPU can run it
+	 * @return NULL if the CPU has no SIMD registers for floats */
+	static TangentKernel Create() {
+		if (SPECIES.length() < 4) {
+			return null;
+		}
+		return new TangentKernelVector();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	String GetName() {
+		return "vector" + SPECIES.vectorBitSize();
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	void FaceTangents(float[] pBlock, int pBegin, int pEnd) {
+		final FloatVector zero = FloatVector.zero(SPECIES), one = FloatVector.broadcast(SPECIES, 1.f);
+		final FloatVector minusOne = FloatVector.broadcast(SPECIES, -1.f);
+
+		int i = pBegin;
+		for (int bound = pBegin + SPECIES.loopBound(pEnd - pBegin); i < bound; i += SPECIES.length()) {
+			FloatVector vx = FloatVector.fromArray(SPECIES, pBlock, E1X + i);
+			FloatVector vy = FloatVector.fromArray(SPECIES, pBlock, E1Y + i);
+			FloatVector vz = FloatVector.fromArray(SPECIES, pBlock, E1Z + i);
+			FloatVector wx = FloatVector.fromArray(SPECIES, pBlock, E2X + i);
+			FloatVector wy = FloatVector.fromArray(SPECIES, pBlock, E2Y + i);
+			FloatVector wz = FloatVector.fromArray(SPECIES, pBlock, E2Z + i);
+			FloatVector sx = FloatVector.fromArray(SPECIES, pBlock, S1 + i);
+			FloatVector sy = FloatVector.fromArray(SPECIES, pBlock, T1 + i);
+			FloatVector tx = FloatVector.fromArray(SPECIES, pBlock, S2 + i);
+			FloatVector ty = FloatVector.fromArray(SPECIES, pBlock, T2 + i);
+
+			FloatVector dirCorrection = one.blend(minusOne, tx.mul(sy).sub(ty.mul(sx)).compare(VectorOperators.LT, 0.f));
+			VectorMask<Float> flat = sx.mul(ty).compare(VectorOperators.EQ, sy.mul(tx));
+			sx = sx.blend(zero, flat);
+			sy = sy.blend(one, flat);
+			tx = tx.blend(one, flat);
+			ty = ty.blend(zero, flat);
+
+			wx.mul(sy).sub(vx.mul(ty)).mul(dirCorrection).intoArray(pBlock, TX + i);
+			wy.mul(sy).sub(vy.mul(ty)).mul(dirCorrection).intoArray(pBlock, TY + i);
+			wz.mul(sy).sub(vz.mul(ty)).mul(dirCorrection).intoArray(pBlock, TZ + i);
+			wx.mul(sx).sub(vx.mul(tx)).mul(dirCorrection).intoArray(pBlock, BX + i);
+			wy.mul(sx).sub(vy.mul(tx)).mul(dirCorrection).intoArray(pBlock, BY + i);
+			wz.mul(sx).sub(vz.mul(tx)).mul(dirCorrection).intoArray(pBlock, BZ + i);
+		}
+		super.FaceTangents(pBlock, i, pEnd);
+	}
+
+	// -------------------------------------------------------------------
+	@Override
+	void Orthogonalize(float[] pBlock, int pBegin, int pEnd) {
+		int i = pBegin;
+		for (int bound = pBegin + SPECIES.loopBound(pEnd - pBegin); i < bound; i += SPECIES.length()) {
+			FloatVector nx = FloatVector.fromArray(SPECIES, pBlock, NX + i);
+			FloatVector ny = FloatVector.fromArray(SPECIES, pBlock, NY + i);
+			FloatVector nz = FloatVector.fromArray(SPECIES, pBlock, NZ + i);
+			FloatVector tx = FloatVector.fromArray(SPECIES, pBlock, TX + i);
+			FloatVector ty = FloatVector.fromArray(SPECIES, pBlock, TY + i);
+			FloatVector tz = FloatVector.fromArray(SPECIES, pBlock, TZ + i);
+			FloatVector bx = FloatVector.fromArray(SPECIES, pBlock, BX + i);
+			FloatVector by = FloatVector.fromArray(SPECIES, pBlock, BY + i);
+			FloatVector bz = FloatVector.fromArray(SPECIES, pBlock, BZ + i);
+
+			FloatVector dt = tx.mul(nx).add(ty.mul(ny)).add(tz.mul(nz));
+			tx = tx.sub(nx.mul(dt));
+			ty = ty.sub(ny.mul(dt));
+			tz = tz.sub(nz.mul(dt));
+			FloatVector lt = Length(tx, ty, tz);
+			tx = tx.div(lt);
+			ty = ty.div(lt);
+			tz = tz.div(lt);
+
+			FloatVector db = bx.mul(nx).add(by.mul(ny)).add(bz.mul(nz));
+			bx = bx.sub(nx.mul(db));
+			by = by.sub(ny.mul(db));
+			bz = bz.sub(nz.mul(db));
+			FloatVector lb = Length(bx, by, bz);
+			bx = bx.div(lb);
+			by = by.div(lb);
+			bz = bz.div(lb);
+
+			VectorMask<Float> okT = tx.test(VectorOperators.IS_FINITE).and(ty.test(VectorOperators.IS_FINITE))
+				.and(tz.test(VectorOperators.IS_FINITE));
+			VectorMask<Float> okB = bx.test(VectorOperators.IS_FINITE).and(by.test(VectorOperators.IS_FINITE))
+				.and(bz.test(VectorOperators.IS_FINITE));
+
+			// rebuild the invalid one of the two from the other, if any
+			VectorMask<Float> fixT = okB.andNot(okT), fixB = okT.andNot(okB);
+			if (fixT.anyTrue()) {
+				FloatVector cx = ny.mul(bz).sub(nz.mul(by));
+				FloatVector cy = nz.mul(bx).sub(nx.mul(bz));
+				FloatVector cz = nx.mul(by).sub(ny.mul(bx));
+				FloatVector lc = Length(cx, cy, cz);
+				tx = tx.blend(cx.div(lc), fixT);
+				ty = ty.blend(cy.div(lc), fixT);
+				tz = tz.blend(cz.div(lc), fixT);
+			}
+			if (fixB.anyTrue()) {
+				FloatVector cx = ty.mul(nz).sub(tz.mul(ny));
+				FloatVector cy = tz.mul(nx).sub(tx.mul(nz));
+				FloatVector cz = tx.mul(ny).sub(ty.mul(nx));
+				FloatVector lc = Length(cx, cy, cz);
+				bx = bx.blend(cx.div(lc), fixB);
+				by = by.blend(cy.div(lc), fixB);
+				bz = bz.blend(cz.div(lc), fixB);
+			}
+			tx.intoArray(pBlock, TX + i);
+			ty.intoArray(pBlock, TY + i);
+			tz.intoArray(pBlock, TZ + i);
+			bx.intoArray(pBlock, BX + i);
+			by.intoArray(pBlock, BY + i);
+			bz.intoArray(pBlock, BZ + i);
+		}
+		super.Orthogonalize(pBlock, i, pEnd);
+	}
+
+	// -------------------------------------------------------------------
+	private static FloatVector Length(FloatVector pX, FloatVector pY, FloatVector pZ) {
+		return pX.mul(pX).add(pY.mul(pY)).add(pZ.mul(pZ)).lanewise(VectorOperators.SQRT);
+	}
+}